@@ -0,0 +1,73 @@
+package com.brandon.dtms2.config;
+
+import com.brandon.dtms2.dto.UserPrincipal;
+import com.brandon.dtms2.service.PrincipalCache;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.core.MethodParameter;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+import java.util.Map;
+
+/**
+ * Resolves @CurrentUser parameters from the SecurityContext, falling back to the
+ * user stored in the HTTP session at login. The principal comes from PrincipalCache
+ * and is kept on the request, so a request costs at most one lookup however many
+ * parameters ask for it.
+ */
+@Component
+public class CurrentUserArgumentResolver implements HandlerMethodArgumentResolver {
+
+    static final String REQUEST_ATTRIBUTE = CurrentUserArgumentResolver.class.getName() + ".principal";
+
+    private final PrincipalCache principalCache;
+
+    public CurrentUserArgumentResolver(PrincipalCache principalCache) {
+        this.principalCache = principalCache;
+    }
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return parameter.hasParameterAnnotation(CurrentUser.class)
+                && UserPrincipal.class.isAssignableFrom(parameter.getParameterType());
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        HttpServletRequest request = webRequest.getNativeRequest(HttpServletRequest.class);
+        if (request == null) {
+            return null;
+        }
+        if (request.getAttribute(REQUEST_ATTRIBUTE) instanceof UserPrincipal principal) {
+            return principal;
+        }
+
+        String username = username(request);
+        UserPrincipal principal = username != null ? principalCache.get(username).orElse(null) : null;
+        if (principal != null) {
+            request.setAttribute(REQUEST_ATTRIBUTE, principal);
+        }
+        return principal;
+    }
+
+    private static String username(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken)) {
+            return authentication.getName();
+        }
+        HttpSession session = request.getSession(false);
+        if (session != null && session.getAttribute("user") instanceof Map<?, ?> userMap && userMap.get("username") != null) {
+            return userMap.get("username").toString();
+        }
+        return null;
+    }
+}
@@ -4,6 +4,7 @@ import com.brandon.dtms2.entity.User;
 import com.brandon.dtms2.entity.Machine;
 import com.brandon.dtms2.repository.UserRepository;
 import com.brandon.dtms2.repository.MachineRepository;
+import com.brandon.dtms2.service.DataVersionService;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -16,19 +17,28 @@ public class DataLoader implements CommandLineRunner {
     private final UserRepository userRepository;
     private final MachineRepository machineRepository;
     private final PasswordEncoder passwordEncoder;
+    private final DataVersionService dataVersionService;
 
     public DataLoader(UserRepository userRepository,
                       MachineRepository machineRepository,
-                      PasswordEncoder passwordEncoder) {
+                      PasswordEncoder passwordEncoder,
+                      DataVersionService dataVersionService) {
         this.userRepository = userRepository;
         this.machineRepository = machineRepository;
         this.passwordEncoder = passwordEncoder;
+        this.dataVersionService = dataVersionService;
     }
 
     @Override
     public void run(String... args) throws Exception {
         createDefaultUsers();
         createDefaultMachines();
+
+        // The reset above goes straight to the repositories (and cascades to sessions),
+        // so move every version past anything served while it ran
+        for (DataVersionService.Table table : DataVersionService.Table.values()) {
+            dataVersionService.bump(table);
+        }
     }
 
     private void createDefaultUsers() {
@@ -1,5 +1,6 @@
 package com.brandon.dtms2.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
@@ -9,7 +10,35 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 public class PasswordConfig {
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${app.password.bcrypt-strength:10}") int strength) {
+        return new RehashingBCryptPasswordEncoder(strength);
     }
-}
\ No newline at end of file
+
+    /**
+     * Reports any hash made with a different cost than the configured one as needing
+     * an upgrade, so DaoAuthenticationProvider rehashes it on the next successful login
+     * whether app.password.bcrypt-strength was raised or lowered.
+     */
+    static class RehashingBCryptPasswordEncoder extends BCryptPasswordEncoder {
+
+        private final int strength;
+
+        RehashingBCryptPasswordEncoder(int strength) {
+            super(strength);
+            this.strength = strength;
+        }
+
+        @Override
+        public boolean upgradeEncoding(String encodedPassword) {
+            // $2a$10$... : the cost is the two digits after the version
+            if (encodedPassword == null || encodedPassword.length() < 7 || encodedPassword.charAt(3) != '$') {
+                return false;
+            }
+            try {
+                return Integer.parseInt(encodedPassword.substring(4, 6)) != strength;
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+    }
+}
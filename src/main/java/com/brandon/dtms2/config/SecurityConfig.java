@@ -1,15 +1,23 @@
     package com.brandon.dtms2.config;
 
     import com.brandon.dtms2.service.CustomUserDetailsService;
+    import com.brandon.dtms2.service.TokenService;
+    import jakarta.servlet.http.HttpServletResponse;
+    import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
     import org.springframework.context.annotation.Bean;
     import org.springframework.context.annotation.Configuration;
+    import org.springframework.core.annotation.Order;
     import org.springframework.security.authentication.AuthenticationManager;
     import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
     import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
     import org.springframework.security.config.annotation.web.builders.HttpSecurity;
     import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+    import org.springframework.security.config.annotation.web.configurers.AuthorizeHttpRequestsConfigurer;
+    import org.springframework.security.config.http.SessionCreationPolicy;
     import org.springframework.security.crypto.password.PasswordEncoder;
     import org.springframework.security.web.SecurityFilterChain;
+    import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+    import org.springframework.security.web.context.NullSecurityContextRepository;
 
     @Configuration
     @EnableWebSecurity
@@ -17,10 +25,12 @@
 
         private final CustomUserDetailsService userDetailsService;
         private final PasswordEncoder passwordEncoder; // Inject the existing PasswordEncoder
+        private final TokenService tokenService;
 
-        public SecurityConfig(CustomUserDetailsService userDetailsService, PasswordEncoder passwordEncoder) {
+        public SecurityConfig(CustomUserDetailsService userDetailsService, PasswordEncoder passwordEncoder, TokenService tokenService) {
             this.userDetailsService = userDetailsService;
             this.passwordEncoder = passwordEncoder;
+            this.tokenService = tokenService;
         }
 
         @Bean
@@ -29,6 +39,7 @@
             authProvider.setUserDetailsService(userDetailsService);
             authProvider.setPasswordEncoder(passwordEncoder); // Use the injected PasswordEncoder
             authProvider.setHideUserNotFoundExceptions(false); // Important: show user not found errors
+            authProvider.setUserDetailsPasswordService(userDetailsService); // Rehash on login when the BCrypt cost changes
             return authProvider;
         }
 
@@ -37,45 +48,40 @@
             return authenticationConfiguration.getAuthenticationManager();
         }
 
+        /**
+         * Stateless mode (app.auth.token.enabled): requests carrying a bearer token are
+         * authenticated from the token by BearerTokenAuthenticationFilter and never create
+         * or read an HTTP session. Everything else falls through to the cookie session chain.
+         */
         @Bean
-        public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+        @Order(1)
+        @ConditionalOnProperty(name = "app.auth.token.enabled", havingValue = "true")
+        public SecurityFilterChain tokenFilterChain(HttpSecurity http) throws Exception {
             http
+                    .securityMatcher(BearerTokenAuthenticationFilter::hasBearerToken)
                     .csrf(csrf -> csrf.disable())
-                    .authorizeHttpRequests(authz -> authz
-                            // Allow ALL template endpoints and static resources
-                            .requestMatchers(
-                                    "/",
-                                    "/login",
-                                    "/register",
-                                    "/access-denied",
-                                    "/css/**",
-                                    "/js/**",           // This covers all JS files in /js/ directory
-                                    "/images/**",
-                                    "/favicon.ico",
-                                    "/api/auth/**",
-                                    "/error",
-                                    "/auth.js",         // Your root-level JS files
-                                    "/member-dashboard.js",
-                                    "/instructor-dashboard.js",
-                                    "/admin-dashboard.js",
-                                    "/style.css",
-                                    "/logout"
-                            ).permitAll()
-
-                            // Secure dashboard endpoints (use controller endpoints, not .html)
-                            .requestMatchers("/admin-dashboard").hasRole("ADMIN")
-                            .requestMatchers("/instructor-dashboard").hasAnyRole("INSTRUCTOR", "ADMIN")
-                            .requestMatchers("/member-dashboard").hasAnyRole("MEMBER", "INSTRUCTOR", "ADMIN")
-
-                            // API access (keep your existing rules)
-                            .requestMatchers("/api/admin/**").hasRole("ADMIN")
-                            .requestMatchers("/api/instructor/**").hasAnyRole("INSTRUCTOR", "ADMIN")
-                            .requestMatchers("/api/workouts/**", "/api/machines", "/api/reports/member-progress/**").hasAnyRole("MEMBER", "INSTRUCTOR", "ADMIN")
-                            .requestMatchers("/api/reports/**").hasAnyRole("INSTRUCTOR", "ADMIN")
-
-                            // Secure all other endpoints
-                            .anyRequest().authenticated()
+                    .authorizeHttpRequests(this::authorizeRequests)
+                    .sessionManagement(session -> session
+                            .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
+                    )
+                    .securityContext(securityContext -> securityContext
+                            .securityContextRepository(new NullSecurityContextRepository())
                     )
+                    .requestCache(cache -> cache.disable())
+                    .exceptionHandling(exception -> exception
+                            .authenticationEntryPoint((request, response, e) -> response.sendError(HttpServletResponse.SC_UNAUTHORIZED))
+                            .accessDeniedHandler((request, response, e) -> response.sendError(HttpServletResponse.SC_FORBIDDEN))
+                    )
+                    .addFilterBefore(new BearerTokenAuthenticationFilter(tokenService), UsernamePasswordAuthenticationFilter.class);
+            return http.build();
+        }
+
+        @Bean
+        @Order(2)
+        public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+            http
+                    .csrf(csrf -> csrf.disable())
+                    .authorizeHttpRequests(this::authorizeRequests)
                     .logout(logout -> logout
                             .logoutUrl("/api/auth/logout")
                             .logoutSuccessUrl("/login?logout=true")
@@ -93,4 +99,43 @@
             http.authenticationProvider(authenticationProvider());
             return http.build();
         }
+
+        // Access rules shared by the session and token chains
+        private void authorizeRequests(AuthorizeHttpRequestsConfigurer<HttpSecurity>.AuthorizationManagerRequestMatcherRegistry authz) {
+            authz
+                    // Allow ALL template endpoints and static resources
+                    .requestMatchers(
+                            "/",
+                            "/login",
+                            "/register",
+                            "/access-denied",
+                            "/css/**",
+                            "/js/**",           // This covers all JS files in /js/ directory
+                            "/images/**",
+                            "/favicon.ico",
+                            "/api/auth/**",
+                            "/error",
+                            "/auth.js",         // Your root-level JS files
+                            "/member-dashboard.js",
+                            "/instructor-dashboard.js",
+                            "/admin-dashboard.js",
+                            "/style.css",
+                            "/logout"
+                    ).permitAll()
+
+                    // Secure dashboard endpoints (use controller endpoints, not .html)
+                    .requestMatchers("/admin-dashboard").hasRole("ADMIN")
+                    .requestMatchers("/instructor-dashboard").hasAnyRole("INSTRUCTOR", "ADMIN")
+                    .requestMatchers("/member-dashboard").hasAnyRole("MEMBER", "INSTRUCTOR", "ADMIN")
+
+                    // API access (keep your existing rules)
+                    .requestMatchers("/api/admin/**").hasRole("ADMIN")
+                    .requestMatchers("/api/instructor/**").hasAnyRole("INSTRUCTOR", "ADMIN")
+                    .requestMatchers("/api/analytics/**").hasAnyRole("INSTRUCTOR", "ADMIN")
+                    .requestMatchers("/api/workouts/**", "/api/machines", "/api/reports/member-progress/**").hasAnyRole("MEMBER", "INSTRUCTOR", "ADMIN")
+                    .requestMatchers("/api/reports/**").hasAnyRole("INSTRUCTOR", "ADMIN")
+
+                    // Secure all other endpoints
+                    .anyRequest().authenticated();
+        }
     }
\ No newline at end of file
@@ -0,0 +1,47 @@
+package com.brandon.dtms2.config;
+
+import com.brandon.dtms2.session.InMemorySessionStore;
+import com.brandon.dtms2.session.JdbcSessionStore;
+import com.brandon.dtms2.session.RedisSessionStore;
+import com.brandon.dtms2.session.SessionStore;
+import com.brandon.dtms2.session.TieredSessionRepository;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.session.config.annotation.web.http.EnableSpringHttpSession;
+
+import java.time.Duration;
+
+/**
+ * HTTP sessions through TieredSessionRepository. app.session.tier picks the durable
+ * tier behind the local cache: jdbc (default, the application database), redis, or
+ * memory for tests and single-instance runs.
+ */
+@Configuration
+@EnableSpringHttpSession
+public class SessionConfig {
+
+    @Bean
+    public SessionStore sessionStore(@Value("${app.session.tier:jdbc}") String tier,
+                                     ObjectProvider<JdbcTemplate> jdbcTemplate,
+                                     ObjectProvider<RedisConnectionFactory> redisConnectionFactory) {
+        return switch (tier) {
+            case "jdbc" -> new JdbcSessionStore(jdbcTemplate.getObject());
+            case "redis" -> new RedisSessionStore(redisConnectionFactory.getObject());
+            case "memory" -> new InMemorySessionStore();
+            default -> throw new IllegalArgumentException("Unknown app.session.tier: " + tier);
+        };
+    }
+
+    @Bean
+    public TieredSessionRepository sessionRepository(SessionStore sessionStore,
+                                                     @Value("${server.servlet.session.timeout:30m}") Duration timeout,
+                                                     @Value("${app.session.max-entries:10000}") int maxEntries,
+                                                     @Value("${app.session.local-ttl-ms:60000}") long localTtlMs,
+                                                     @Value("${app.session.touch-interval-ms:60000}") long touchIntervalMs) {
+        return new TieredSessionRepository(sessionStore, timeout, maxEntries, localTtlMs, touchIntervalMs);
+    }
+}
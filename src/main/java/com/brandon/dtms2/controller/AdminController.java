@@ -1,46 +1,100 @@
 package com.brandon.dtms2.controller;
 
-import com.brandon.dtms2.entity.Machine;
+import com.brandon.dtms2.config.CurrentUser;
+import com.brandon.dtms2.dto.UserPrincipal;
 import com.brandon.dtms2.entity.User;
-import com.brandon.dtms2.entity.WorkoutSession;
-import com.brandon.dtms2.repository.MachineRepository;
-import com.brandon.dtms2.repository.UserRepository;
-import com.brandon.dtms2.repository.WorkoutSessionRepository;
-import jakarta.servlet.http.HttpSession;
+import com.brandon.dtms2.service.CachedDashboardService;
+import com.brandon.dtms2.service.DashboardCompositeService;
+import com.brandon.dtms2.service.DataVersionService;
+import com.brandon.dtms2.service.MachineService;
+import com.brandon.dtms2.service.MachineUsageHeatmapService;
+import com.brandon.dtms2.service.PasswordHashingService;
+import com.brandon.dtms2.service.RequestCoalescer;
+import com.brandon.dtms2.service.StaleWhileRevalidateCache;
+import com.brandon.dtms2.service.UserAvailabilityService;
+import com.brandon.dtms2.session.TieredSessionRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/admin")
 public class AdminController {
 
-    private final UserRepository userRepository;
-    private final MachineRepository machineRepository;
-    private final WorkoutSessionRepository workoutSessionRepository;
+    private final MachineUsageHeatmapService machineUsageHeatmapService;
+    private final MachineService machineService;
+    private final DashboardCompositeService dashboardCompositeService;
+    private final DataVersionService dataVersionService;
+    private final CachedDashboardService cachedDashboardService;
+    private final RequestCoalescer requestCoalescer;
+    private final TieredSessionRepository sessionRepository;
+    private final PasswordHashingService passwordHashingService;
+    private final UserAvailabilityService userAvailabilityService;
 
-    public AdminController(UserRepository userRepository,
-                           MachineRepository machineRepository,
-                           WorkoutSessionRepository workoutSessionRepository) {
-        this.userRepository = userRepository;
-        this.machineRepository = machineRepository;
-        this.workoutSessionRepository = workoutSessionRepository;
+    public AdminController(MachineUsageHeatmapService machineUsageHeatmapService,
+                           MachineService machineService,
+                           DashboardCompositeService dashboardCompositeService,
+                           DataVersionService dataVersionService,
+                           CachedDashboardService cachedDashboardService,
+                           RequestCoalescer requestCoalescer,
+                           TieredSessionRepository sessionRepository,
+                           PasswordHashingService passwordHashingService,
+                           UserAvailabilityService userAvailabilityService) {
+        this.machineUsageHeatmapService = machineUsageHeatmapService;
+        this.machineService = machineService;
+        this.dashboardCompositeService = dashboardCompositeService;
+        this.dataVersionService = dataVersionService;
+        this.cachedDashboardService = cachedDashboardService;
+        this.requestCoalescer = requestCoalescer;
+        this.sessionRepository = sessionRepository;
+        this.passwordHashingService = passwordHashingService;
+        this.userAvailabilityService = userAvailabilityService;
+    }
+
+    // A cached read as served: ETag of the version it was computed under, Warning when it is out of date
+    private ResponseEntity<?> cachedResponse(ServletWebRequest webRequest, StaleWhileRevalidateCache.Cached<?> cached) {
+        if (cached.getWarning() != null && webRequest.getResponse() != null) {
+            webRequest.getResponse().setHeader(HttpHeaders.WARNING, cached.getWarning());
+        }
+        if (dataVersionService.checkNotModified(webRequest, cached.getEtag())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .header(HttpHeaders.AGE, String.valueOf(cached.getAgeSeconds()))
+                .body(cached.getValue());
+    }
+
+    /**
+     * Everything the admin dashboard shows on load in one response, panels computed in parallel.
+     */
+    @GetMapping("/dashboard")
+    public ResponseEntity<?> getDashboard(@CurrentUser UserPrincipal currentUser) {
+        if (!isAdmin() || currentUser == null) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Unauthorized"));
+        }
+        try {
+            return ResponseEntity.ok(dashboardCompositeService.getAdminDashboard(currentUser));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Failed to fetch dashboard: " + e.getMessage()));
+        }
     }
 
     @GetMapping("/dashboard-stats")
-    public ResponseEntity<?> getDashboardStats(HttpSession session) {
+    public ResponseEntity<?> getDashboardStats(ServletWebRequest webRequest) {
         try {
             // Use Spring Security authentication instead of session
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
@@ -49,38 +103,16 @@ public class AdminController {
                 return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Unauthorized"));
             }
 
-            long totalUsers = userRepository.count();
-            long totalMachines = machineRepository.count();
-            long totalSessions = workoutSessionRepository.count();
-
-            LocalDateTime weekAgo = LocalDateTime.now().minusDays(7);
-            List<WorkoutSession> recentSessions = workoutSessionRepository.findSessionsBetweenDates(weekAgo, LocalDateTime.now());
-
-            // Count active machines
-            long activeMachines = machineRepository.findByStatus("ACTIVE").size();
-
-            // Calculate system health based on machine status
-            long totalActiveMachines = machineRepository.findByStatus("ACTIVE").size();
-            long totalAllMachines = machineRepository.count();
-            double systemHealth = totalAllMachines > 0 ?
-                    (double) totalActiveMachines / totalAllMachines * 100 : 100;
-
-            Map<String, Object> stats = new HashMap<>();
-            stats.put("totalUsers", totalUsers);
-            stats.put("totalMachines", totalMachines);
-            stats.put("totalSessions", totalSessions);
-            stats.put("recentSessions", recentSessions.size());
-            stats.put("activeMachines", activeMachines);
-            stats.put("systemHealth", Math.round(systemHealth));
-
-            return ResponseEntity.ok(stats);
+            // Fixed number of aggregate queries, see DashboardStatsService; served stale while they rerun.
+            // The 304 check is against the served value's own tag, so a stale value never goes out as current
+            return cachedResponse(webRequest, cachedDashboardService.getAdminStats());
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Failed to fetch dashboard stats: " + e.getMessage()));
         }
     }
 
     @GetMapping("/machine-usage")
-    public ResponseEntity<?> getMachineUsage(HttpSession session) {
+    public ResponseEntity<?> getMachineUsage(ServletWebRequest webRequest) {
         try {
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
             if (authentication == null || !authentication.isAuthenticated() ||
@@ -88,32 +120,15 @@ public class AdminController {
                 return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Unauthorized"));
             }
 
-            List<Machine> machines = machineRepository.findAll();
-            List<Map<String, Object>> usageData = machines.stream().map(machine -> {
-                Map<String, Object> data = new HashMap<>();
-                data.put("id", machine.getId());
-                data.put("machineName", machine.getName());
-                data.put("machineType", machine.getType());
-                data.put("totalSessions", workoutSessionRepository.countSessionsByMachine(machine));
-
-                Double avgCalories = workoutSessionRepository.findAverageCaloriesByMachine(machine);
-                data.put("avgCalories", avgCalories != null ? Math.round(avgCalories) : 0);
-
-                data.put("status", machine.getStatus());
-                data.put("location", machine.getLocation());
-                data.put("lastMaintenance", machine.getLastMaintenance());
-
-                return data;
-            }).toList();
-
-            return ResponseEntity.ok(usageData);
+            // One GROUP BY for the session statistics of every machine
+            return cachedResponse(webRequest, cachedDashboardService.getMachineUsage());
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Failed to fetch machine usage: " + e.getMessage()));
         }
     }
 
     @GetMapping("/user-activity")
-    public ResponseEntity<?> getUserActivity() {
+    public ResponseEntity<?> getUserActivity(ServletWebRequest webRequest) {
         try {
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
             if (authentication == null || !authentication.isAuthenticated() ||
@@ -121,36 +136,137 @@ public class AdminController {
                 return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Unauthorized"));
             }
 
-            // Get user activity for the last 7 days
-            LocalDateTime startDate = LocalDateTime.now().minusDays(7);
-            LocalDateTime endDate = LocalDateTime.now();
+            // Get user activity for the last 7 days, bucketed by day in the database
+            return cachedResponse(webRequest, cachedDashboardService.getUserActivity());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Failed to fetch user activity"));
+        }
+    }
 
-            List<WorkoutSession> recentSessions = workoutSessionRepository.findSessionsBetweenDates(startDate, endDate);
+    @GetMapping("/heatmap/machines")
+    public ResponseEntity<?> getMachineHeatmaps() {
+        if (!isAdmin()) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Unauthorized"));
+        }
+        try {
+            return ResponseEntity.ok(Map.of("success", true, "heatmaps", machineUsageHeatmapService.getAllMachineHeatmaps()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Failed to fetch heatmaps: " + e.getMessage()));
+        }
+    }
 
-            // Group by day
-            Map<String, Long> dailyActivity = recentSessions.stream()
-                    .collect(Collectors.groupingBy(
-                            session -> session.getStartTime().toLocalDate().toString(),
-                            Collectors.counting()
-                    ));
+    @GetMapping("/heatmap/machines/{machineId}")
+    public ResponseEntity<?> getMachineHeatmap(@PathVariable Long machineId) {
+        if (!isAdmin()) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Unauthorized"));
+        }
+        try {
+            return ResponseEntity.ok(Map.of("success", true, "heatmap", machineUsageHeatmapService.getMachineHeatmap(machineId)));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Failed to fetch heatmap: " + e.getMessage()));
+        }
+    }
 
-            // Fill in missing days
-            List<String> last7Days = new ArrayList<>();
-            List<Long> activityCounts = new ArrayList<>();
+    @GetMapping("/heatmap/types")
+    public ResponseEntity<?> getMachineTypeHeatmaps() {
+        if (!isAdmin()) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Unauthorized"));
+        }
+        try {
+            return ResponseEntity.ok(Map.of("success", true, "heatmaps", machineUsageHeatmapService.getTypeHeatmaps()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Failed to fetch heatmaps: " + e.getMessage()));
+        }
+    }
 
-            for (int i = 6; i >= 0; i--) {
-                String date = LocalDate.now().minusDays(i).toString();
-                last7Days.add(date);
-                activityCounts.add(dailyActivity.getOrDefault(date, 0L));
-            }
+    /**
+     * Utilization per machine between startDate and endDate (YYYY-MM-DD, both days included),
+     * from merged session intervals. Defaults to the last 7 days.
+     */
+    @GetMapping("/machine-utilization")
+    public ResponseEntity<?> getMachineUtilization(@RequestParam(required = false) String startDate,
+                                                   @RequestParam(required = false) String endDate) {
+        if (!isAdmin()) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Unauthorized"));
+        }
+        try {
+            LocalDateTime end = endDate != null ? LocalDate.parse(endDate).plusDays(1).atStartOfDay() : LocalDateTime.now();
+            LocalDateTime start = startDate != null ? LocalDate.parse(startDate).atStartOfDay() : end.minusDays(7);
+            return ResponseEntity.ok(Map.of("success", true, "from", start, "to", end,
+                    "machines", machineService.getMachineUtilization(start, end)));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Failed to fetch machine utilization: " + e.getMessage()));
+        }
+    }
 
-            Map<String, Object> activityData = new HashMap<>();
-            activityData.put("labels", last7Days);
-            activityData.put("data", activityCounts);
+    @GetMapping("/machine-utilization/{machineId}")
+    public ResponseEntity<?> getMachineUtilization(@PathVariable Long machineId,
+                                                   @RequestParam(required = false) String startDate,
+                                                   @RequestParam(required = false) String endDate) {
+        if (!isAdmin()) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Unauthorized"));
+        }
+        try {
+            LocalDateTime end = endDate != null ? LocalDate.parse(endDate).plusDays(1).atStartOfDay() : LocalDateTime.now();
+            LocalDateTime start = startDate != null ? LocalDate.parse(startDate).atStartOfDay() : end.minusDays(7);
+            return ResponseEntity.ok(Map.of("success", true, "from", start, "to", end,
+                    "utilization", machineService.getMachineUtilization(machineId, start, end)));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Failed to fetch machine utilization: " + e.getMessage()));
+        }
+    }
 
-            return ResponseEntity.ok(activityData);
+    @PostMapping("/heatmap/rebuild")
+    public ResponseEntity<?> rebuildHeatmaps() {
+        if (!isAdmin()) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Unauthorized"));
+        }
+        try {
+            machineUsageHeatmapService.rebuild();
+            return ResponseEntity.ok(Map.of("success", true, "message", "Heatmaps rebuilt"));
         } catch (Exception e) {
-            return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Failed to fetch user activity"));
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Failed to rebuild heatmaps: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * How many query calls ran and how many joined an identical call already in flight, per query.
+     */
+    @GetMapping("/query-coalescing")
+    public ResponseEntity<?> getQueryCoalescing() {
+        if (!isAdmin()) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Unauthorized"));
+        }
+        return ResponseEntity.ok(Map.of("success", true, "coalescing", requestCoalescer.getStats()));
+    }
+
+    @GetMapping("/session-store")
+    public ResponseEntity<?> getSessionStore() {
+        if (!isAdmin()) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Unauthorized"));
         }
+        return ResponseEntity.ok(Map.of("success", true, "sessionStore", sessionRepository.getStats()));
+    }
+
+    @GetMapping("/password-hashing")
+    public ResponseEntity<?> getPasswordHashing() {
+        if (!isAdmin()) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Unauthorized"));
+        }
+        return ResponseEntity.ok(Map.of("success", true, "passwordHashing", passwordHashingService.getStats()));
+    }
+
+    @GetMapping("/availability-filters")
+    public ResponseEntity<?> getAvailabilityFilters() {
+        if (!isAdmin()) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Unauthorized"));
+        }
+        return ResponseEntity.ok(Map.of("success", true, "availability", userAvailabilityService.getStats()));
+    }
+
+    private boolean isAdmin() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.isAuthenticated() &&
+                authentication.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
     }
 }
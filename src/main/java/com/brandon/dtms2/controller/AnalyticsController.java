@@ -0,0 +1,71 @@
+package com.brandon.dtms2.controller;
+
+import com.brandon.dtms2.service.AnalyticsService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/analytics")
+public class AnalyticsController {
+
+    private final AnalyticsService analyticsService;
+
+    public AnalyticsController(AnalyticsService analyticsService) {
+        this.analyticsService = analyticsService;
+    }
+
+    /**
+     * e.g. /api/analytics/sessions?metric=calories&granularity=week&from=2024-01-01&to=2024-03-31&type=Treadmill
+     * Metrics: sessions, calories, avg_calories, distance, avg_duration, active_members.
+     * Granularity: hour, day, week, month. from/to accept a date or a date-time, to is exclusive.
+     */
+    @GetMapping("/sessions")
+    public ResponseEntity<?> getSessionAnalytics(@RequestParam(defaultValue = "sessions") String metric,
+                                                 @RequestParam(defaultValue = "day") String granularity,
+                                                 @RequestParam(required = false) String from,
+                                                 @RequestParam(required = false) String to,
+                                                 @RequestParam(required = false) Long machineId,
+                                                 @RequestParam(required = false) String type,
+                                                 @RequestParam(required = false) Long userId) {
+        try {
+            AnalyticsService.Metric parsedMetric = AnalyticsService.Metric.valueOf(metric.toUpperCase());
+            AnalyticsService.Granularity parsedGranularity = AnalyticsService.Granularity.valueOf(granularity.toUpperCase());
+
+            LocalDateTime end = to != null ? parseDateTime(to) : LocalDateTime.now();
+            LocalDateTime start = from != null ? parseDateTime(from) : end.minusDays(30);
+
+            List<Map<String, Object>> points = analyticsService.query(parsedMetric, parsedGranularity, start, end,
+                    machineId, type != null && !type.isBlank() ? type : null, userId);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("metric", parsedMetric.name().toLowerCase());
+            response.put("granularity", parsedGranularity.name().toLowerCase());
+            response.put("from", start);
+            response.put("to", end);
+            response.put("points", points);
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Invalid analytics query: " + e.getMessage()));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Failed to fetch analytics: " + e.getMessage()));
+        }
+    }
+
+    private LocalDateTime parseDateTime(String value) {
+        if (value.length() == 10) { // YYYY-MM-DD
+            return LocalDate.parse(value).atStartOfDay();
+        }
+        return LocalDateTime.parse(value.length() == 16 ? value + ":00" : value);
+    }
+}
@@ -1,12 +1,21 @@
 package com.brandon.dtms2.controller;
 
+import com.brandon.dtms2.config.CurrentUser;
 import com.brandon.dtms2.config.PasswordConfig;
+import com.brandon.dtms2.dto.UserPrincipal;
 import com.brandon.dtms2.entity.User;
 import com.brandon.dtms2.repository.UserRepository;
+import com.brandon.dtms2.service.LastLoginWriteBehind;
+import com.brandon.dtms2.service.PasswordHashingService;
+import com.brandon.dtms2.service.TokenService;
+import com.brandon.dtms2.service.UserAvailabilityService;
 import com.brandon.dtms2.service.UserService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -23,6 +32,8 @@ import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 
 @RestController
@@ -34,31 +45,55 @@ public class AuthController {
     private final AuthenticationManager authenticationManager;
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final TokenService tokenService;
+    private final PasswordHashingService passwordHashingService;
+    private final LastLoginWriteBehind lastLoginWriteBehind;
+    private final UserAvailabilityService userAvailabilityService;
 
-    public AuthController(UserService userService, AuthenticationManager authenticationManager, UserRepository userRepository, PasswordEncoder passwordConfig, PasswordEncoder passwordEncoder) {
+    public AuthController(UserService userService, AuthenticationManager authenticationManager, UserRepository userRepository, PasswordEncoder passwordConfig, PasswordEncoder passwordEncoder, TokenService tokenService, PasswordHashingService passwordHashingService, LastLoginWriteBehind lastLoginWriteBehind, UserAvailabilityService userAvailabilityService) {
         this.userService = userService;
         this.authenticationManager = authenticationManager;
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.tokenService = tokenService;
+        this.passwordHashingService = passwordHashingService;
+        this.lastLoginWriteBehind = lastLoginWriteBehind;
+        this.userAvailabilityService = userAvailabilityService;
     }
 
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody LoginRequest loginRequest,
-                                   HttpServletRequest request,
-                                   HttpSession session) {
+    public CompletableFuture<ResponseEntity<?>> login(@RequestBody LoginRequest loginRequest,
+                                                      HttpServletRequest request) {
         try {
             System.out.println("=== LOGIN ATTEMPT ===");
             System.out.println("Username: " + loginRequest.getUsername());
 
+            if (loginRequest.isIssueTokens() && !tokenService.isEnabled()) {
+                return CompletableFuture.completedFuture(
+                        ResponseEntity.badRequest().body(Map.of("success", false, "message", "Token authentication is disabled")));
+            }
+
             // First, check if user exists
-            User user = userService.findByUsername(loginRequest.getUsername())
-                    .orElseThrow(() -> {
-                        System.out.println("❌ User not found: " + loginRequest.getUsername());
-                        return new UsernameNotFoundException("User not found");
-                    });
+            if (!userService.usernameExists(loginRequest.getUsername())) {
+                System.out.println("❌ User not found: " + loginRequest.getUsername());
+                throw new UsernameNotFoundException("User not found");
+            }
 
-            System.out.println("✅ User found: " + user.getUsername());
+            // BCrypt runs on the hashing pool, which frees this request thread meanwhile
+            return passwordHashingService.submit(() -> authenticate(loginRequest, request));
+
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(hashingOverloaded());
+        } catch (Exception e) {
+            System.out.println("❌ Login failed: " + e.getMessage());
+            return CompletableFuture.completedFuture(
+                    ResponseEntity.badRequest().body(Map.of("success", false, "message", "Login failed: " + e.getMessage())));
+        }
+    }
 
+    // The password check and sign-in, on the hashing pool
+    private ResponseEntity<?> authenticate(LoginRequest loginRequest, HttpServletRequest request) {
+        try {
             // Try to authenticate using Spring Security
             Authentication authentication = authenticationManager.authenticate(
                     new UsernamePasswordAuthenticationToken(loginRequest.getUsername(), loginRequest.getPassword())
@@ -66,15 +101,26 @@ public class AuthController {
 
             System.out.println("✅ Authentication successful!");
 
-            // CRITICAL: Create a new security context and set it
+            User user = userService.findByUsername(loginRequest.getUsername())
+                    .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+            lastLoginWriteBehind.record(user.getId(), LocalDateTime.now());
+
+            // Token clients get signed tokens instead of a session
+            if (loginRequest.isIssueTokens()) {
+                Map<String, Object> response = new HashMap<>(tokenService.issueTokens(UserPrincipal.of(user)));
+                response.put("success", true);
+                response.put("user", createSafeUserData(user));
+                System.out.println("🎉 Token login successful for: " + user.getUsername() + ", role: " + user.getRole());
+                return ResponseEntity.ok(response);
+            }
+
+            // CRITICAL: Create a new security context and store it in the session. Not set on
+            // SecurityContextHolder: this is a pool thread, the next request loads it from the session
             SecurityContext securityContext = SecurityContextHolder.createEmptyContext();
             securityContext.setAuthentication(authentication);
-            SecurityContextHolder.setContext(securityContext);
-
-            // ALSO store the security context in the session
             request.getSession().setAttribute("SPRING_SECURITY_CONTEXT", securityContext);
 
-            System.out.println("🔐 Security Context Set: " + SecurityContextHolder.getContext().getAuthentication());
+            System.out.println("🔐 Security Context Set: " + authentication);
             System.out.println("🔐 Principal: " + (authentication != null ? authentication.getPrincipal() : "null"));
             System.out.println("🔐 Authorities: " + (authentication != null ? authentication.getAuthorities() : "null"));
 
@@ -82,7 +128,7 @@ public class AuthController {
             Map<String, Object> userData = createSafeUserData(user);
 
             // Set user in session
-            session.setAttribute("user", userData);
+            request.getSession().setAttribute("user", userData);
 
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
@@ -101,6 +147,35 @@ public class AuthController {
         }
     }
 
+    // 503 while the hashing pool is saturated, with the time it needs to catch up
+    private ResponseEntity<?> hashingOverloaded() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(passwordHashingService.retryAfterSeconds()))
+                .body(Map.of("success", false, "message", "Too many sign-ins right now, please try again shortly"));
+    }
+
+    @PostMapping("/token/refresh")
+    public ResponseEntity<?> refreshToken(@RequestBody Map<String, String> body) {
+        if (!tokenService.isEnabled()) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Token authentication is disabled"));
+        }
+        var claims = tokenService.verify(body.get("refreshToken"), TokenService.TokenType.REFRESH);
+        if (claims.isEmpty()) {
+            return ResponseEntity.status(401).body(Map.of("success", false, "message", "Invalid or expired refresh token"));
+        }
+
+        // Refreshing reloads the user, so role and status changes reach token clients within one access token lifetime
+        User user = userService.findByUsername(claims.get().getPrincipal().getUsername()).orElse(null);
+        if (user == null || !user.getId().equals(claims.get().getPrincipal().getId())
+                || (user.getStatus() != null && user.getStatus() != User.UserStatus.ACTIVE)) {
+            return ResponseEntity.status(401).body(Map.of("success", false, "message", "Invalid or expired refresh token"));
+        }
+
+        Map<String, Object> response = new HashMap<>(tokenService.issueTokens(UserPrincipal.of(user)));
+        response.put("success", true);
+        return ResponseEntity.ok(response);
+    }
+
     // Add this helper method to create safe user data without lazy-loaded collections
     private Map<String, Object> createSafeUserData(User user) {
         Map<String, Object> userData = new HashMap<>();
@@ -116,7 +191,7 @@ public class AuthController {
     }
 
     @PostMapping("/register")
-    public ResponseEntity<?> register(@RequestBody User user, HttpSession session) {
+    public CompletableFuture<ResponseEntity<?>> register(@RequestBody User user, HttpSession session) {
         try {
             System.out.println("=== REGISTRATION STARTED ===");
             System.out.println("Username: " + user.getUsername());
@@ -127,27 +202,27 @@ public class AuthController {
 
             // Validate input
             if (user.getUsername() == null || user.getUsername().trim().isEmpty()) {
-                return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Username is required"));
+                return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of("success", false, "message", "Username is required")));
             }
 
             if (user.getPassword() == null || user.getPassword().length() < 6) {
-                return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Password must be at least 6 characters"));
+                return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of("success", false, "message", "Password must be at least 6 characters")));
             }
 
             if (user.getEmail() == null || user.getEmail().trim().isEmpty()) {
-                return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Email is required"));
+                return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of("success", false, "message", "Email is required")));
             }
 
-            // Check if username already exists
-            if (userService.usernameExists(user.getUsername())) {
+            // Check if username already exists (Bloom filter first, see UserAvailabilityService)
+            if (!userAvailabilityService.isUsernameAvailable(user.getUsername())) {
                 System.out.println("❌ Username already exists: " + user.getUsername());
-                return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Username already exists"));
+                return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of("success", false, "message", "Username already exists")));
             }
 
             // Check if email already exists
-            if (userService.emailExists(user.getEmail())) {
+            if (!userAvailabilityService.isEmailAvailable(user.getEmail())) {
                 System.out.println("❌ Email already exists: " + user.getEmail());
-                return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Email already exists"));
+                return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of("success", false, "message", "Email already exists")));
             }
 
             // Set role to MEMBER for new registrations
@@ -159,7 +234,21 @@ public class AuthController {
 
             System.out.println("✅ Creating user with role: " + user.getRole());
 
-            // Create user
+            // Create user on the hashing pool; encoding the password is the expensive part
+            return passwordHashingService.submit(() -> createMember(user));
+
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(hashingOverloaded());
+        } catch (Exception e) {
+            System.out.println("❌ Registration failed: " + e.getMessage());
+            e.printStackTrace();
+            return CompletableFuture.completedFuture(
+                    ResponseEntity.badRequest().body(Map.of("success", false, "message", "Registration failed: " + e.getMessage())));
+        }
+    }
+
+    private ResponseEntity<?> createMember(User user) {
+        try {
             User savedUser = userService.createUser(user);
             System.out.println("✅ User saved to database with ID: " + savedUser.getId());
 
@@ -172,6 +261,11 @@ public class AuthController {
             System.out.println("🎉 Registration completed successfully for: " + savedUser.getUsername());
             return ResponseEntity.ok(response);
 
+        } catch (DataIntegrityViolationException e) {
+            // Taken since the availability check, e.g. registered on another instance
+            String message = userService.usernameExists(user.getUsername()) ? "Username already exists" : "Email already exists";
+            System.out.println("❌ " + message + ": " + user.getUsername());
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", message));
         } catch (Exception e) {
             System.out.println("❌ Registration failed: " + e.getMessage());
             e.printStackTrace();
@@ -179,6 +273,23 @@ public class AuthController {
         }
     }
 
+    @GetMapping("/availability")
+    public ResponseEntity<?> checkAvailability(@RequestParam(required = false) String username,
+                                               @RequestParam(required = false) String email) {
+        if ((username == null || username.isBlank()) && (email == null || email.isBlank())) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Username or email is required"));
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        if (username != null && !username.isBlank()) {
+            response.put("username", Map.of("value", username, "available", userAvailabilityService.isUsernameAvailable(username.trim())));
+        }
+        if (email != null && !email.isBlank()) {
+            response.put("email", Map.of("value", email, "available", userAvailabilityService.isEmailAvailable(email.trim())));
+        }
+        return ResponseEntity.ok(response);
+    }
+
     @PostMapping("/logout")
     public ResponseEntity<?> logout(HttpServletRequest request, HttpServletResponse response) {
         try {
@@ -196,25 +307,11 @@ public class AuthController {
     }
 
     @GetMapping("/current-user")
-    public ResponseEntity<?> getCurrentUser(HttpSession session) {
+    public ResponseEntity<?> getCurrentUser(@CurrentUser UserPrincipal currentUser) {
         try {
-            // Get from Spring Security context first
-            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-            if (authentication != null && authentication.isAuthenticated() &&
-                    !authentication.getName().equals("anonymousUser")) {
-
-                User user = userService.findByUsername(authentication.getName())
-                        .orElseThrow(() -> new RuntimeException("User not found"));
-
-                // Return safe user data without lazy-loaded collections
-                Map<String, Object> userData = createSafeUserData(user);
-                return ResponseEntity.ok(userData);
-            }
-
-            // Fallback to session
-            Object user = session.getAttribute("user");
-            if (user != null) {
-                return ResponseEntity.ok(user);
+            // Security context first, then the login-time session data; see CurrentUserArgumentResolver
+            if (currentUser != null) {
+                return ResponseEntity.ok(currentUser);
             }
 
             return ResponseEntity.ok().body(Map.of("authenticated", false));
@@ -307,6 +404,7 @@ public class AuthController {
     public static class LoginRequest {
         private String username;
         private String password;
+        private boolean issueTokens;
 
         public String getUsername() {
             return username;
@@ -323,6 +421,14 @@ public class AuthController {
         public void setPassword(String password) {
             this.password = password;
         }
+
+        public boolean isIssueTokens() {
+            return issueTokens;
+        }
+
+        public void setIssueTokens(boolean issueTokens) {
+            this.issueTokens = issueTokens;
+        }
     }
 
     @PostMapping("/test-registration")
@@ -452,8 +558,7 @@ public class AuthController {
 
                 String newEncodedPassword = passwordEncoder.encode(rawPassword);
                 String oldPassword = user.getPassword();
-                user.setPassword(newEncodedPassword);
-                userRepository.save(user);
+                userService.updatePasswordHash(user.getUsername(), newEncodedPassword);
 
                 result.put(user.getUsername(), Map.of(
                         "oldPasswordPreview", oldPassword != null ?
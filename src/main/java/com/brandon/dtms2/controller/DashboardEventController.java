@@ -0,0 +1,37 @@
+package com.brandon.dtms2.controller;
+
+import com.brandon.dtms2.config.CurrentUser;
+import com.brandon.dtms2.dto.UserPrincipal;
+import com.brandon.dtms2.entity.User;
+import com.brandon.dtms2.service.DashboardEventStream;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/events")
+public class DashboardEventController {
+
+    private final DashboardEventStream dashboardEventStream;
+
+    public DashboardEventController(DashboardEventStream dashboardEventStream) {
+        this.dashboardEventStream = dashboardEventStream;
+    }
+
+    /**
+     * Change events for the caller's dashboard: session.created, session.updated, session.quality,
+     * session.deleted, machine.status and user.* (admins and instructors only).
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@CurrentUser UserPrincipal currentUser, HttpServletResponse response) {
+        // Only authenticated requests reach this endpoint, see SecurityConfig
+        User.UserRole role = currentUser != null && currentUser.getRole() != null ? currentUser.getRole() : User.UserRole.MEMBER;
+        Long userId = currentUser != null ? currentUser.getId() : null;
+
+        response.setHeader("X-Accel-Buffering", "no"); // let reverse proxies stream instead of buffer
+        return dashboardEventStream.subscribe(role, userId);
+    }
+}
@@ -1,59 +1,94 @@
 package com.brandon.dtms2.controller;
 
-import com.brandon.dtms2.dto.WorkoutSessionResponseDTO;
+import com.brandon.dtms2.config.CurrentUser;
+import com.brandon.dtms2.dto.UserPrincipal;
 import com.brandon.dtms2.entity.User;
 import com.brandon.dtms2.entity.WorkoutSession;
-import com.brandon.dtms2.service.UserService;
+import com.brandon.dtms2.service.CachedDashboardService;
+import com.brandon.dtms2.service.DashboardCompositeService;
+import com.brandon.dtms2.service.DataVersionService;
+import com.brandon.dtms2.service.MemberActivityService;
+import com.brandon.dtms2.service.StaleWhileRevalidateCache;
+import com.brandon.dtms2.service.WorkoutSessionSearchService;
 import com.brandon.dtms2.service.WorkoutSessionService;
-import jakarta.servlet.http.HttpSession;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
-import java.time.LocalDateTime;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.function.Function;
 
 @RestController
 @RequestMapping("/api/instructor")
 public class InstructorController {
 
-    private final UserService userService;
     private final WorkoutSessionService workoutSessionService;
-
-    public InstructorController(UserService userService, WorkoutSessionService workoutSessionService) {
-        this.userService = userService;
+    private final MemberActivityService memberActivityService;
+    private final DashboardCompositeService dashboardCompositeService;
+    private final DataVersionService dataVersionService;
+    private final CachedDashboardService cachedDashboardService;
+    private final WorkoutSessionSearchService workoutSessionSearchService;
+
+    public InstructorController(WorkoutSessionService workoutSessionService,
+                                MemberActivityService memberActivityService,
+                                DashboardCompositeService dashboardCompositeService,
+                                DataVersionService dataVersionService,
+                                CachedDashboardService cachedDashboardService,
+                                WorkoutSessionSearchService workoutSessionSearchService) {
         this.workoutSessionService = workoutSessionService;
+        this.memberActivityService = memberActivityService;
+        this.dashboardCompositeService = dashboardCompositeService;
+        this.dataVersionService = dataVersionService;
+        this.cachedDashboardService = cachedDashboardService;
+        this.workoutSessionSearchService = workoutSessionSearchService;
     }
 
-    // FIXED: Helper method to check instructor authorization that handles HashMap session user
-    private User checkInstructorAuth(HttpSession httpSession) {
-        Object sessionUser = httpSession.getAttribute("user");
-        User user = null;
-
-        if (sessionUser instanceof User) {
-            user = (User) sessionUser;
-        } else if (sessionUser instanceof Map) {
-            // Convert HashMap to User object
-            Map<?, ?> userMap = (Map<?, ?>) sessionUser;
-            Long userId = Long.valueOf(userMap.get("id").toString());
-            user = userService.findById(userId)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-        }
-
+    private void checkInstructorAuth(UserPrincipal user) {
         if (user == null || user.getRole() != User.UserRole.INSTRUCTOR) {
             throw new RuntimeException("Unauthorized");
         }
-        return user;
+    }
+
+    // A cached read as served: ETag of the version it was computed under, Warning when it is out of date
+    private ResponseEntity<?> cachedResponse(ServletWebRequest webRequest, StaleWhileRevalidateCache.Cached<?> cached,
+                                             Function<Object, Object> body) {
+        if (cached.getWarning() != null && webRequest.getResponse() != null) {
+            webRequest.getResponse().setHeader(HttpHeaders.WARNING, cached.getWarning());
+        }
+        if (dataVersionService.checkNotModified(webRequest, cached.getEtag())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .header(HttpHeaders.AGE, String.valueOf(cached.getAgeSeconds()))
+                .body(body.apply(cached.getValue()));
+    }
+
+    /**
+     * Everything the instructor dashboard shows on load in one response, panels computed in parallel.
+     * The caller comes from the login-time session data, no user lookup.
+     */
+    @GetMapping("/dashboard")
+    public ResponseEntity<?> getDashboard(@CurrentUser UserPrincipal currentUser) {
+        try {
+            if (currentUser == null || !currentUser.hasRole(User.UserRole.INSTRUCTOR, User.UserRole.ADMIN)) {
+                throw new RuntimeException("Unauthorized");
+            }
+            return ResponseEntity.ok(dashboardCompositeService.getInstructorDashboard(currentUser));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Failed to fetch dashboard: " + e.getMessage()));
+        }
     }
 
     @GetMapping("/members")
-    public ResponseEntity<?> getAllMembers(HttpSession httpSession) {
+    public ResponseEntity<?> getAllMembers(@CurrentUser UserPrincipal instructor, ServletWebRequest webRequest) {
         try {
-            User instructor = checkInstructorAuth(httpSession);
-            List<User> members = userService.findAllMembers();
-            return ResponseEntity.ok(members);
+            checkInstructorAuth(instructor);
+            return cachedResponse(webRequest, cachedDashboardService.getMembers(), members -> members);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Failed to fetch members: " + e.getMessage()));
         }
@@ -61,71 +96,26 @@ public class InstructorController {
 
 
 
-    @GetMapping("/chart-data")
-    public ResponseEntity<?> getChartData(HttpSession httpSession) {
+    /**
+     * Workout count, totals and averages per member, from one aggregate query.
+     */
+    @GetMapping("/member-progress")
+    public ResponseEntity<?> getMemberProgress(@CurrentUser UserPrincipal instructor, ServletWebRequest webRequest) {
         try {
-            User instructor = checkInstructorAuth(httpSession);
-
-            Map<String, Object> chartData = new HashMap<>();
-
-            // Weekly activity data
-            LocalDateTime now = LocalDateTime.now();
-            Map<String, Long> weeklyActivity = new HashMap<>();
-            String[] days = {"Mon", "Tue", "Wed", "Thu", "Fri", "Sat", "Sun"};
-
-            for (String day : days) {
-                weeklyActivity.put(day, 0L);
-            }
+            checkInstructorAuth(instructor);
+            return cachedResponse(webRequest, cachedDashboardService.getMemberProgress(), progress -> progress);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Failed to fetch member progress: " + e.getMessage()));
+        }
+    }
 
-            List<WorkoutSession> weekSessions = workoutSessionService.getSessionsBetweenDates(
-                    now.minusDays(7), now
-            );
-
-            weekSessions.forEach(session -> {
-                String day = session.getStartTime().getDayOfWeek().toString().substring(0, 3);
-                weeklyActivity.put(day, weeklyActivity.get(day) + 1);
-            });
-
-            chartData.put("weeklyActivity", weeklyActivity);
-
-            // Workout type distribution
-            Map<String, Long> workoutTypes = new HashMap<>();
-            weekSessions.forEach(session -> {
-                if (session.getMachine() != null) {
-                    String type = session.getMachine().getType();
-                    workoutTypes.put(type, workoutTypes.getOrDefault(type, 0L) + 1);
-                }
-            });
-            chartData.put("workoutTypes", workoutTypes);
-
-            // Progress data (last 4 weeks)
-            Map<String, Object> progressData = new HashMap<>();
-            for (int i = 3; i >= 0; i--) {
-                LocalDateTime weekStart = now.minusWeeks(i).withHour(0).withMinute(0).withSecond(0);
-                LocalDateTime weekEnd = weekStart.plusDays(7);
-
-                List<WorkoutSession> weekData = workoutSessionService.getSessionsBetweenDates(weekStart, weekEnd);
-
-                double weekAvgCalories = weekData.stream()
-                        .filter(s -> s.getCaloriesBurned() != null)
-                        .mapToInt(WorkoutSession::getCaloriesBurned)
-                        .average()
-                        .orElse(0.0);
-
-                double weekAvgDuration = weekData.stream()
-                        .filter(s -> s.getDuration() != null)
-                        .mapToDouble(s -> s.getDuration().toMinutes())
-                        .average()
-                        .orElse(0.0);
-
-                progressData.put("Week " + (4-i), Map.of(
-                        "avgCalories", Math.round(weekAvgCalories),
-                        "avgDuration", Math.round(weekAvgDuration)
-                ));
-            }
-            chartData.put("progressData", progressData);
+    @GetMapping("/chart-data")
+    public ResponseEntity<?> getChartData(@CurrentUser UserPrincipal instructor, ServletWebRequest webRequest) {
+        try {
+            checkInstructorAuth(instructor);
 
-            return ResponseEntity.ok(chartData);
+            // Weekly activity, workout types and progress, bucketed in the database
+            return cachedResponse(webRequest, cachedDashboardService.getInstructorChartData(), chartData -> chartData);
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Failed to fetch chart data: " + e.getMessage()));
@@ -136,9 +126,9 @@ public class InstructorController {
 
 
     @PutMapping("/sessions/{id}/quality-review")
-    public ResponseEntity<?> updateSessionQuality(@PathVariable Long id, @RequestBody Map<String, Object> updates, HttpSession httpSession) {
+    public ResponseEntity<?> updateSessionQuality(@PathVariable Long id, @RequestBody Map<String, Object> updates, @CurrentUser UserPrincipal instructor) {
         try {
-            User instructor = checkInstructorAuth(httpSession);
+            checkInstructorAuth(instructor);
 
             WorkoutSession session = workoutSessionService.updateSessionQuality(id, updates);
             return ResponseEntity.ok(Map.of("success", true, "session", session));
@@ -149,75 +139,87 @@ public class InstructorController {
 
 
     @GetMapping("/workout-sessions")
-    public ResponseEntity<?> getAllWorkoutSessions(HttpSession httpSession) {
+    public ResponseEntity<?> getAllWorkoutSessions(@CurrentUser UserPrincipal instructor, ServletWebRequest webRequest) {
         try {
-            User instructor = checkInstructorAuth(httpSession);
-            List<WorkoutSession> sessions = workoutSessionService.getAllSessions();
-
-            // Convert to your existing DTO
-            List<WorkoutSessionResponseDTO> sessionDTOs = sessions.stream()
-                    .map(WorkoutSessionResponseDTO::fromWorkoutSession)
-                    .collect(Collectors.toList());
-
-            return ResponseEntity.ok(Map.of("success", true, "sessions", sessionDTOs));
+            checkInstructorAuth(instructor);
+            return cachedResponse(webRequest, cachedDashboardService.getWorkoutSessions(),
+                    sessionDTOs -> Map.of("success", true, "sessions", sessionDTOs));
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Failed to fetch sessions: " + e.getMessage()));
         }
     }
 
+    /**
+     * A page of the session history, filtered and sorted in SQL. Pass the previous page's
+     * nextCursor, with the same filters and sort, for the next; facets come with the first page.
+     */
+    @GetMapping("/workout-sessions/search")
+    public ResponseEntity<?> searchWorkoutSessions(@RequestParam(required = false) Long userId,
+                                                   @RequestParam(required = false) Long machineId,
+                                                   @RequestParam(required = false) String machineType,
+                                                   @RequestParam(required = false) String from,
+                                                   @RequestParam(required = false) String to,
+                                                   @RequestParam(required = false) Boolean quality,
+                                                   @RequestParam(required = false) String sort,
+                                                   @RequestParam(defaultValue = "desc") String direction,
+                                                   @RequestParam(required = false) String cursor,
+                                                   @RequestParam(defaultValue = "" + WorkoutSessionSearchService.DEFAULT_PAGE_SIZE) int limit,
+                                                   @CurrentUser UserPrincipal instructor) {
+        try {
+            checkInstructorAuth(instructor);
+
+            WorkoutSessionSearchService.Criteria criteria = new WorkoutSessionSearchService.Criteria(
+                    userId, machineId, machineType == null || machineType.isBlank() ? null : machineType,
+                    from == null || from.isBlank() ? null : LocalDate.parse(from),
+                    to == null || to.isBlank() ? null : LocalDate.parse(to),
+                    quality);
+            Map<String, Object> response = new HashMap<>(workoutSessionSearchService.search(criteria,
+                    WorkoutSessionSearchService.Sort.fromParameter(sort), "asc".equalsIgnoreCase(direction),
+                    cursor, limit));
+            response.put("success", true);
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Invalid sort, date or cursor"));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Failed to search sessions: " + e.getMessage()));
+        }
+    }
+
     @GetMapping("/dashboard-stats")
-    public ResponseEntity<?> getInstructorDashboardStats(HttpSession httpSession) {
+    public ResponseEntity<?> getInstructorDashboardStats(@CurrentUser UserPrincipal instructor, ServletWebRequest webRequest) {
         try {
-            User instructor = checkInstructorAuth(httpSession);
-
-            // Get real data
-            List<User> members = userService.findAllMembers();
-            List<WorkoutSession> allSessions = workoutSessionService.getAllSessions();
-
-            // Calculate active members this week
-            LocalDateTime weekAgo = LocalDateTime.now().minusDays(7);
-            long activeThisWeek = members.stream()
-                    .filter(member -> {
-                        List<WorkoutSession> memberSessions = workoutSessionService.getUserSessions(member);
-                        return memberSessions.stream()
-                                .anyMatch(session -> session.getStartTime().isAfter(weekAgo));
-                    })
-                    .count();
-
-            // Calculate data quality score
-            long qualitySessions = allSessions.stream()
-                    .filter(session -> session.getDataQualityFlag() != null && session.getDataQualityFlag())
-                    .count();
-            double dataQualityScore = allSessions.isEmpty() ? 100.0 :
-                    (double) qualitySessions / allSessions.size() * 100;
-
-            // Calculate average workouts per member
-            double avgWorkoutsPerMember = members.isEmpty() ? 0.0 :
-                    (double) allSessions.size() / members.size();
-
-            // Calculate average calories across all sessions
-            double avgCalories = allSessions.stream()
-                    .filter(session -> session.getCaloriesBurned() != null)
-                    .mapToInt(WorkoutSession::getCaloriesBurned)
-                    .average()
-                    .orElse(0.0);
-
-            Map<String, Object> stats = new HashMap<>();
-            stats.put("totalMembers", members.size());
-            stats.put("activeThisWeek", activeThisWeek);
-            stats.put("avgWorkoutsPerMember", Math.round(avgWorkoutsPerMember * 10.0) / 10.0);
-            stats.put("dataQualityScore", Math.round(dataQualityScore));
-            stats.put("avgCalories", Math.round(avgCalories));
-            stats.put("totalSessions", allSessions.size());
-            stats.put("sessionsThisWeek", allSessions.stream()
-                    .filter(session -> session.getStartTime().isAfter(weekAgo))
-                    .count());
-
-            return ResponseEntity.ok(stats);
+            checkInstructorAuth(instructor);
+
+            // Aggregate queries only, see DashboardStatsService; served stale while they rerun.
+            // The 304 check is against the served value's own tag, so a stale value never goes out as current
+            return cachedResponse(webRequest, cachedDashboardService.getInstructorStats(), stats -> stats);
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Failed to fetch dashboard stats: " + e.getMessage()));
         }
     }
+
+    /**
+     * Distinct members with a session between from and to (YYYY-MM-DD, both included), from the per-day bitmaps.
+     */
+    @GetMapping("/active-members")
+    public ResponseEntity<?> getActiveMembers(@RequestParam(required = false) String from,
+                                              @RequestParam(required = false) String to,
+                                              @CurrentUser UserPrincipal instructor) {
+        try {
+            checkInstructorAuth(instructor);
+
+            LocalDate end = to != null ? LocalDate.parse(to) : LocalDate.now();
+            LocalDate start = from != null ? LocalDate.parse(from) : end.minusDays(6);
+            if (start.isAfter(end)) {
+                throw new RuntimeException("Start date must not be after end date");
+            }
+
+            return ResponseEntity.ok(Map.of("success", true, "from", start, "to", end,
+                    "activeMembers", memberActivityService.countActiveMembers(start, end)));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Failed to fetch active members: " + e.getMessage()));
+        }
+    }
 }
\ No newline at end of file
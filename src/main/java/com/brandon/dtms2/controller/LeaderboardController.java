@@ -0,0 +1,72 @@
+package com.brandon.dtms2.controller;
+
+import com.brandon.dtms2.config.CurrentUser;
+import com.brandon.dtms2.dto.UserPrincipal;
+import com.brandon.dtms2.service.LeaderboardService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/leaderboards")
+public class LeaderboardController {
+
+    private final LeaderboardService leaderboardService;
+
+    public LeaderboardController(LeaderboardService leaderboardService) {
+        this.leaderboardService = leaderboardService;
+    }
+
+    /**
+     * Current week or month ranking by calories, distance or sessions, with the caller's own rank.
+     * Example: /api/leaderboards/week/calories?offset=0&limit=10
+     */
+    @GetMapping("/{period}/{metric}")
+    public ResponseEntity<?> getLeaderboard(@PathVariable String period,
+                                            @PathVariable String metric,
+                                            @RequestParam(defaultValue = "0") int offset,
+                                            @RequestParam(defaultValue = "10") int limit,
+                                            @CurrentUser UserPrincipal currentUser) {
+        try {
+            if (currentUser == null) {
+                return ResponseEntity.badRequest().body(Map.of("success", false, "message", "User not logged in"));
+            }
+            return ResponseEntity.ok(Map.of("success", true, "leaderboard", leaderboardService.getLeaderboard(
+                    LeaderboardService.Period.valueOf(period.toUpperCase()),
+                    LeaderboardService.Metric.valueOf(metric.toUpperCase()),
+                    offset, limit, currentUser.getId())));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Invalid leaderboard: " + e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Failed to fetch leaderboard: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * A member's rank and score on one leaderboard, 0 when they are not ranked yet.
+     */
+    @GetMapping("/{period}/{metric}/members/{memberId}")
+    public ResponseEntity<?> getMemberRank(@PathVariable String period,
+                                           @PathVariable String metric,
+                                           @PathVariable Long memberId,
+                                           @CurrentUser UserPrincipal currentUser) {
+        try {
+            if (currentUser == null) {
+                return ResponseEntity.badRequest().body(Map.of("success", false, "message", "User not logged in"));
+            }
+            return ResponseEntity.ok(Map.of("success", true, "rank", leaderboardService.getRank(
+                    LeaderboardService.Period.valueOf(period.toUpperCase()),
+                    LeaderboardService.Metric.valueOf(metric.toUpperCase()),
+                    memberId)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Invalid leaderboard: " + e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Failed to fetch rank: " + e.getMessage()));
+        }
+    }
+}
@@ -1,17 +1,18 @@
 package com.brandon.dtms2.controller;
 
+import com.brandon.dtms2.config.CurrentUser;
+import com.brandon.dtms2.dto.UserPrincipal;
 import com.brandon.dtms2.entity.Machine;
 import com.brandon.dtms2.entity.User;
+import com.brandon.dtms2.service.DataVersionService;
 import com.brandon.dtms2.service.MachineService;
-import com.brandon.dtms2.service.UserService;
-import jakarta.servlet.http.HttpSession;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/machines")
@@ -21,33 +22,21 @@ public class MachineController {
     private MachineService machineService;
 
     @Autowired
-    private UserService userService;
+    private DataVersionService dataVersionService;
 
     @GetMapping
-    public ResponseEntity<?> getAllMachines(HttpSession session) {
+    public ResponseEntity<?> getAllMachines(@CurrentUser UserPrincipal user, ServletWebRequest webRequest) {
         try {
-            // FIX: Handle both User object and HashMap cases
-            Object sessionUser = session.getAttribute("user");
-            User user = null;
-
-            if (sessionUser instanceof User) {
-                user = (User) sessionUser;
-            } else if (sessionUser instanceof Map) {
-                // Convert HashMap to User object
-                Map<?, ?> userMap = (Map<?, ?>) sessionUser;
-                Long userId = Long.valueOf(userMap.get("id").toString());
-                Optional<User> userOpt = userService.findById(userId);
-                if (userOpt.isPresent()) {
-                    user = userOpt.get();
-                } else {
-                    return ResponseEntity.badRequest().body(Map.of("success", false, "message", "User not found"));
-                }
-            }
-
             if (user == null) {
                 return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Not authenticated"));
             }
 
+            // Unchanged since the caller's copy: answer before loading anything
+            String etag = dataVersionService.etag("machines", DataVersionService.Table.MACHINES);
+            if (dataVersionService.checkNotModified(webRequest, etag)) {
+                return null;
+            }
+
             List<Machine> machines = machineService.getAllMachines();
             return ResponseEntity.ok(Map.of("success", true, "machines", machines));
         } catch (Exception e) {
@@ -56,25 +45,8 @@ public class MachineController {
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<?> getMachine(@PathVariable Long id, HttpSession session) {
+    public ResponseEntity<?> getMachine(@PathVariable Long id, @CurrentUser UserPrincipal user) {
         try {
-            // FIX: Handle both User object and HashMap cases
-            Object sessionUser = session.getAttribute("user");
-            User user = null;
-
-            if (sessionUser instanceof User) {
-                user = (User) sessionUser;
-            } else if (sessionUser instanceof Map) {
-                Map<?, ?> userMap = (Map<?, ?>) sessionUser;
-                Long userId = Long.valueOf(userMap.get("id").toString());
-                Optional<User> userOpt = userService.findById(userId);
-                if (userOpt.isPresent()) {
-                    user = userOpt.get();
-                } else {
-                    return ResponseEntity.badRequest().body(Map.of("success", false, "message", "User not found"));
-                }
-            }
-
             if (user == null) {
                 return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Not authenticated"));
             }
@@ -88,25 +60,8 @@ public class MachineController {
     }
 
     @PostMapping
-    public ResponseEntity<?> createMachine(@RequestBody Machine machine, HttpSession session) {
+    public ResponseEntity<?> createMachine(@RequestBody Machine machine, @CurrentUser UserPrincipal user) {
         try {
-            // FIX: Handle both User object and HashMap cases
-            Object sessionUser = session.getAttribute("user");
-            User user = null;
-
-            if (sessionUser instanceof User) {
-                user = (User) sessionUser;
-            } else if (sessionUser instanceof Map) {
-                Map<?, ?> userMap = (Map<?, ?>) sessionUser;
-                Long userId = Long.valueOf(userMap.get("id").toString());
-                Optional<User> userOpt = userService.findById(userId);
-                if (userOpt.isPresent()) {
-                    user = userOpt.get();
-                } else {
-                    return ResponseEntity.badRequest().body(Map.of("success", false, "message", "User not found"));
-                }
-            }
-
             if (user == null || user.getRole() != User.UserRole.ADMIN) {
                 return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Unauthorized"));
             }
@@ -119,25 +74,8 @@ public class MachineController {
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<?> updateMachine(@PathVariable Long id, @RequestBody Machine machineDetails, HttpSession session) {
+    public ResponseEntity<?> updateMachine(@PathVariable Long id, @RequestBody Machine machineDetails, @CurrentUser UserPrincipal user) {
         try {
-            // FIX: Handle both User object and HashMap cases
-            Object sessionUser = session.getAttribute("user");
-            User user = null;
-
-            if (sessionUser instanceof User) {
-                user = (User) sessionUser;
-            } else if (sessionUser instanceof Map) {
-                Map<?, ?> userMap = (Map<?, ?>) sessionUser;
-                Long userId = Long.valueOf(userMap.get("id").toString());
-                Optional<User> userOpt = userService.findById(userId);
-                if (userOpt.isPresent()) {
-                    user = userOpt.get();
-                } else {
-                    return ResponseEntity.badRequest().body(Map.of("success", false, "message", "User not found"));
-                }
-            }
-
             if (user == null || user.getRole() != User.UserRole.ADMIN) {
                 return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Unauthorized"));
             }
@@ -150,25 +88,8 @@ public class MachineController {
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<?> deleteMachine(@PathVariable Long id, HttpSession session) {
+    public ResponseEntity<?> deleteMachine(@PathVariable Long id, @CurrentUser UserPrincipal user) {
         try {
-            // FIX: Handle both User object and HashMap cases
-            Object sessionUser = session.getAttribute("user");
-            User user = null;
-
-            if (sessionUser instanceof User) {
-                user = (User) sessionUser;
-            } else if (sessionUser instanceof Map) {
-                Map<?, ?> userMap = (Map<?, ?>) sessionUser;
-                Long userId = Long.valueOf(userMap.get("id").toString());
-                Optional<User> userOpt = userService.findById(userId);
-                if (userOpt.isPresent()) {
-                    user = userOpt.get();
-                } else {
-                    return ResponseEntity.badRequest().body(Map.of("success", false, "message", "User not found"));
-                }
-            }
-
             if (user == null || user.getRole() != User.UserRole.ADMIN) {
                 return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Unauthorized"));
             }
@@ -181,25 +102,8 @@ public class MachineController {
     }
 
     @PutMapping("/{id}/status")
-    public ResponseEntity<?> updateMachineStatus(@PathVariable Long id, @RequestBody Map<String, String> statusUpdate, HttpSession session) {
+    public ResponseEntity<?> updateMachineStatus(@PathVariable Long id, @RequestBody Map<String, String> statusUpdate, @CurrentUser UserPrincipal user) {
         try {
-            // FIX: Handle both User object and HashMap cases
-            Object sessionUser = session.getAttribute("user");
-            User user = null;
-
-            if (sessionUser instanceof User) {
-                user = (User) sessionUser;
-            } else if (sessionUser instanceof Map) {
-                Map<?, ?> userMap = (Map<?, ?>) sessionUser;
-                Long userId = Long.valueOf(userMap.get("id").toString());
-                Optional<User> userOpt = userService.findById(userId);
-                if (userOpt.isPresent()) {
-                    user = userOpt.get();
-                } else {
-                    return ResponseEntity.badRequest().body(Map.of("success", false, "message", "User not found"));
-                }
-            }
-
             if (user == null || user.getRole() != User.UserRole.ADMIN) {
                 return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Unauthorized"));
             }
@@ -213,25 +117,8 @@ public class MachineController {
     }
 
     @GetMapping("/{id}/usage")
-    public ResponseEntity<?> getMachineUsage(@PathVariable Long id, HttpSession session) {
+    public ResponseEntity<?> getMachineUsage(@PathVariable Long id, @CurrentUser UserPrincipal user) {
         try {
-            // FIX: Handle both User object and HashMap cases
-            Object sessionUser = session.getAttribute("user");
-            User user = null;
-
-            if (sessionUser instanceof User) {
-                user = (User) sessionUser;
-            } else if (sessionUser instanceof Map) {
-                Map<?, ?> userMap = (Map<?, ?>) sessionUser;
-                Long userId = Long.valueOf(userMap.get("id").toString());
-                Optional<User> userOpt = userService.findById(userId);
-                if (userOpt.isPresent()) {
-                    user = userOpt.get();
-                } else {
-                    return ResponseEntity.badRequest().body(Map.of("success", false, "message", "User not found"));
-                }
-            }
-
             if (user == null) {
                 return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Not authenticated"));
             }
@@ -1,9 +1,10 @@
 package com.brandon.dtms2.controller;
 
+import com.brandon.dtms2.config.CurrentUser;
+import com.brandon.dtms2.dto.UserPrincipal;
 import com.brandon.dtms2.entity.User;
+import com.brandon.dtms2.service.DataVersionService;
 import com.brandon.dtms2.service.ReportService;
-import com.brandon.dtms2.service.UserService;
-import jakarta.servlet.http.HttpSession;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
@@ -11,6 +12,7 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import java.io.StringWriter;
 import java.time.LocalDateTime;
@@ -22,40 +24,44 @@ import java.util.Map;
 public class ReportController {
 
     private final ReportService reportService;
-    private final UserService userService;
+    private final DataVersionService dataVersionService;
 
-    public ReportController(ReportService reportService, UserService userService) {
+    public ReportController(ReportService reportService, DataVersionService dataVersionService) {
         this.reportService = reportService;
-        this.userService = userService;
+        this.dataVersionService = dataVersionService;
     }
 
-    // Helper method to check instructor/admin authorization that handles HashMap session user
-    private User checkReportAuth(HttpSession httpSession) {
-        Object sessionUser = httpSession.getAttribute("user");
-        User user = null;
-
-        if (sessionUser instanceof User) {
-            user = (User) sessionUser;
-        } else if (sessionUser instanceof Map) {
-            Map<?, ?> userMap = (Map<?, ?>) sessionUser;
-            Long userId = Long.valueOf(userMap.get("id").toString());
-            user = userService.findById(userId)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
+    // Reports read sessions, machines and users. Checks the role of the cached principal, so a
+    // client holding the current version gets its 304 without a single query.
+    private boolean reportNotModified(UserPrincipal user, ServletWebRequest webRequest, String etag) {
+        if (user != null && user.hasRole(User.UserRole.ADMIN, User.UserRole.INSTRUCTOR)) {
+            return dataVersionService.checkNotModified(webRequest, etag);
         }
+        return false;
+    }
+
+    private String reportEtag(String report) {
+        return dataVersionService.etag(report, DataVersionService.Table.SESSIONS,
+                DataVersionService.Table.MACHINES, DataVersionService.Table.USERS);
+    }
 
-        if (user == null || (user.getRole() != User.UserRole.ADMIN && user.getRole() != User.UserRole.INSTRUCTOR)) {
+    private void checkReportAuth(UserPrincipal user) {
+        if (user == null || !user.hasRole(User.UserRole.ADMIN, User.UserRole.INSTRUCTOR)) {
             throw new RuntimeException("Unauthorized");
         }
-        return user;
     }
 
     @GetMapping("/usage/csv")
     public ResponseEntity<?> downloadUsageReportCSV(
             @RequestParam String startDate,
             @RequestParam String endDate,
-            HttpSession session) {
+            @CurrentUser UserPrincipal user,
+            ServletWebRequest webRequest) {
         try {
-            User user = checkReportAuth(session);
+            if (reportNotModified(user, webRequest, reportEtag("usage-report"))) {
+                return null;
+            }
+            checkReportAuth(user);
 
             LocalDateTime start = LocalDateTime.parse(startDate + "T00:00:00");
             LocalDateTime end = LocalDateTime.parse(endDate + "T23:59:59");
@@ -82,9 +88,13 @@ public class ReportController {
             @RequestParam Long userId,
             @RequestParam String startDate,
             @RequestParam String endDate,
-            HttpSession session) {
+            @CurrentUser UserPrincipal user,
+            ServletWebRequest webRequest) {
         try {
-            User user = checkReportAuth(session);
+            if (reportNotModified(user, webRequest, reportEtag("member-progress-report"))) {
+                return null;
+            }
+            checkReportAuth(user);
 
             LocalDateTime start = LocalDateTime.parse(startDate + "T00:00:00");
             LocalDateTime end = LocalDateTime.parse(endDate + "T23:59:59");
@@ -107,9 +117,12 @@ public class ReportController {
     }
 
     @GetMapping("/data-quality/csv")
-    public ResponseEntity<?> downloadDataQualityReportCSV(HttpSession session) {
+    public ResponseEntity<?> downloadDataQualityReportCSV(@CurrentUser UserPrincipal user, ServletWebRequest webRequest) {
         try {
-            User user = checkReportAuth(session);
+            if (reportNotModified(user, webRequest, reportEtag("data-quality-report"))) {
+                return null;
+            }
+            checkReportAuth(user);
 
             String csvContent = reportService.generateDataQualityReportCSV();
 
@@ -129,9 +142,15 @@ public class ReportController {
 
     // Add a simple system report endpoint for instructors
     @GetMapping("/system/overview")
-    public ResponseEntity<?> getSystemOverview(HttpSession session) {
+    public ResponseEntity<?> getSystemOverview(@CurrentUser UserPrincipal user, ServletWebRequest webRequest) {
         try {
-            User user = checkReportAuth(session);
+            // Counts activity of the last days, so the tag also rolls over at midnight
+            String etag = dataVersionService.dailyEtag("system-overview", DataVersionService.Table.SESSIONS,
+                    DataVersionService.Table.MACHINES, DataVersionService.Table.USERS);
+            if (reportNotModified(user, webRequest, etag)) {
+                return null;
+            }
+            checkReportAuth(user);
 
             Map<String, Object> report = reportService.generateSystemReport();
             return ResponseEntity.ok(Map.of("success", true, "report", report));
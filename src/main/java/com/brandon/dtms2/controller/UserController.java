@@ -1,6 +1,8 @@
 package com.brandon.dtms2.controller;
 
 import com.brandon.dtms2.entity.User;
+import com.brandon.dtms2.service.LastLoginWriteBehind;
+import com.brandon.dtms2.service.UserDirectoryService;
 import com.brandon.dtms2.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -8,6 +10,7 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -20,6 +23,12 @@ public class UserController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private LastLoginWriteBehind lastLoginWriteBehind;
+
+    @Autowired
+    private UserDirectoryService userDirectoryService;
+
     @GetMapping("/users")
     public ResponseEntity<?> getAllUsers() {
         try {
@@ -41,7 +50,7 @@ public class UserController {
                 userData.put("email", user.getEmail());
                 userData.put("role", user.getRole());
                 userData.put("status", user.getStatus() != null ? user.getStatus().name() : "ACTIVE");
-                userData.put("lastLogin", user.getLastLogin());
+                userData.put("lastLogin", lastLoginWriteBehind.getPending(user.getId()).orElse(user.getLastLogin()));
                 userData.put("createdAt", user.getCreatedAt());
                 userData.put("updatedAt", user.getUpdatedAt());
                 return userData;
@@ -53,6 +62,33 @@ public class UserController {
         }
     }
 
+    // Paged, filtered and searched in SQL; see UserDirectoryService
+    @GetMapping("/users/directory")
+    public ResponseEntity<?> getUserDirectory(@RequestParam(required = false) String search,
+                                              @RequestParam(required = false) String role,
+                                              @RequestParam(required = false) String status,
+                                              @RequestParam(required = false) String cursor,
+                                              @RequestParam(defaultValue = "" + UserDirectoryService.DEFAULT_PAGE_SIZE) int limit) {
+        try {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            if (authentication == null || !authentication.isAuthenticated() ||
+                    authentication.getAuthorities().stream().noneMatch(a -> a.getAuthority().equals("ROLE_ADMIN"))) {
+                return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Unauthorized"));
+            }
+
+            User.UserRole roleFilter = role == null || role.isBlank() ? null : User.UserRole.valueOf(role);
+            User.UserStatus statusFilter = status == null || status.isBlank() ? null : User.UserStatus.valueOf(status);
+
+            Map<String, Object> response = new HashMap<>(userDirectoryService.getPage(search, roleFilter, statusFilter, cursor, limit));
+            response.put("success", true);
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Invalid role, status or cursor"));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Failed to fetch users: " + e.getMessage()));
+        }
+    }
+
     @GetMapping("/users/members")
     public ResponseEntity<?> getAllMembers() {
         try {
@@ -73,7 +109,7 @@ public class UserController {
                 userData.put("email", user.getEmail());
                 userData.put("role", user.getRole());
                 userData.put("status", user.getStatus() != null ? user.getStatus().name() : "ACTIVE");
-                userData.put("lastLogin", user.getLastLogin());
+                userData.put("lastLogin", lastLoginWriteBehind.getPending(user.getId()).orElse(user.getLastLogin()));
                 userData.put("createdAt", user.getCreatedAt());
                 return userData;
             }).collect(Collectors.toList());
@@ -127,25 +163,19 @@ public class UserController {
                 return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Unauthorized"));
             }
 
-            List<User> allUsers = userService.findAllUsers();
-            long totalUsers = allUsers.size();
-            long activeUsers = allUsers.stream()
-                    .filter(user -> user.getStatus() == User.UserStatus.ACTIVE)
-                    .count();
-            long adminUsers = allUsers.stream()
-                    .filter(user -> user.getRole() == User.UserRole.ADMIN)
-                    .count();
-            long instructorUsers = allUsers.stream()
-                    .filter(user -> user.getRole() == User.UserRole.INSTRUCTOR)
-                    .count();
-            long memberUsers = userService.countMembers();
+            // One GROUP BY instead of loading every user
+            Map<String, Object> grouped = userDirectoryService.getCounts(null);
+            @SuppressWarnings("unchecked")
+            Map<String, Long> byRole = (Map<String, Long>) grouped.get("byRole");
+            @SuppressWarnings("unchecked")
+            Map<String, Long> byStatus = (Map<String, Long>) grouped.get("byStatus");
 
             Map<String, Object> counts = new HashMap<>();
-            counts.put("totalUsers", totalUsers);
-            counts.put("activeUsers", activeUsers);
-            counts.put("adminUsers", adminUsers);
-            counts.put("instructorUsers", instructorUsers);
-            counts.put("memberUsers", memberUsers);
+            counts.put("totalUsers", grouped.get("total"));
+            counts.put("activeUsers", byStatus.get(User.UserStatus.ACTIVE.name()));
+            counts.put("adminUsers", byRole.get(User.UserRole.ADMIN.name()));
+            counts.put("instructorUsers", byRole.get(User.UserRole.INSTRUCTOR.name()));
+            counts.put("memberUsers", byRole.get(User.UserRole.MEMBER.name()));
 
             return ResponseEntity.ok(Map.of("success", true, "counts", counts));
         } catch (Exception e) {
@@ -157,11 +187,12 @@ public class UserController {
     @PostMapping("/users/{userId}/update-last-login")
     public ResponseEntity<?> updateLastLogin(@PathVariable Long userId) {
         try {
-            User user = userService.findById(userId)
-                    .orElseThrow(() -> new RuntimeException("User not found with ID: " + userId));
+            if (userService.findById(userId).isEmpty()) {
+                throw new RuntimeException("User not found with ID: " + userId);
+            }
 
-            user.updateLastLogin();
-            User updatedUser = userService.updateUser(user);
+            // Written with the next batch, see LastLoginWriteBehind
+            lastLoginWriteBehind.record(userId, LocalDateTime.now());
 
             return ResponseEntity.ok(Map.of("success", true, "message", "Last login updated"));
         } catch (Exception e) {
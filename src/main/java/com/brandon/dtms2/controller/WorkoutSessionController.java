@@ -1,13 +1,19 @@
 package com.brandon.dtms2.controller;
 
+import com.brandon.dtms2.config.CurrentUser;
+import com.brandon.dtms2.dto.UserPrincipal;
 import com.brandon.dtms2.dto.WorkoutSessionResponseDTO;
 import com.brandon.dtms2.entity.User;
 import com.brandon.dtms2.entity.WorkoutSession;
+import com.brandon.dtms2.event.SessionSnapshot;
+import com.brandon.dtms2.service.DashboardCompositeService;
+import com.brandon.dtms2.service.DataVersionService;
 import com.brandon.dtms2.service.UserService;
+import com.brandon.dtms2.service.UserStatsService;
 import com.brandon.dtms2.service.WorkoutSessionService;
-import jakarta.servlet.http.HttpSession;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
@@ -22,37 +28,66 @@ public class WorkoutSessionController {
 
     private final WorkoutSessionService workoutSessionService;
     private final UserService userService;
-
-    public WorkoutSessionController(WorkoutSessionService workoutSessionService, UserService userService) {
+    private final DashboardCompositeService dashboardCompositeService;
+    private final DataVersionService dataVersionService;
+    private final UserStatsService userStatsService;
+
+    public WorkoutSessionController(WorkoutSessionService workoutSessionService, UserService userService,
+                                    DashboardCompositeService dashboardCompositeService,
+                                    DataVersionService dataVersionService,
+                                    UserStatsService userStatsService) {
         this.workoutSessionService = workoutSessionService;
         this.userService = userService;
+        this.dashboardCompositeService = dashboardCompositeService;
+        this.dataVersionService = dataVersionService;
+        this.userStatsService = userStatsService;
     }
 
-    @PostMapping
-    public ResponseEntity<?> createWorkoutSession(@RequestBody Map<String, Object> workoutData, HttpSession httpSession) {
+    /**
+     * Everything the member dashboard shows on load in one response, panels computed in parallel.
+     */
+    @GetMapping("/dashboard")
+    public ResponseEntity<?> getDashboard(@CurrentUser UserPrincipal currentUser) {
         try {
-            // FIX: Handle both User object and HashMap cases
-            Object sessionUser = httpSession.getAttribute("user");
-            User user = null;
-
-            if (sessionUser instanceof User) {
-                user = (User) sessionUser;
-            } else if (sessionUser instanceof Map) {
-                // Convert HashMap to User object
-                Map<?, ?> userMap = (Map<?, ?>) sessionUser;
-                Long userId = Long.valueOf(userMap.get("id").toString());
-                Optional<User> userOpt = userService.findById(userId);
-                if (userOpt.isPresent()) {
-                    user = userOpt.get();
-                } else {
-                    return ResponseEntity.badRequest().body(Map.of("success", false, "message", "User not found"));
-                }
+            if (currentUser == null) {
+                return ResponseEntity.badRequest().body(Map.of("success", false, "message", "User not logged in"));
             }
+            return ResponseEntity.ok(dashboardCompositeService.getMemberDashboard(currentUser));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Failed to fetch dashboard: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * The caller's lifetime totals, read from their stats row rather than summed over their sessions.
+     */
+    @GetMapping("/my-stats")
+    public ResponseEntity<?> getMyStats(@CurrentUser UserPrincipal currentUser) {
+        try {
+            if (currentUser == null) {
+                return ResponseEntity.badRequest().body(Map.of("success", false, "message", "User not logged in"));
+            }
+            return ResponseEntity.ok(Map.of("success", true, "stats", userStatsService.getStatsSummary(currentUser.getId())));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Failed to fetch stats: " + e.getMessage()));
+        }
+    }
 
-            if (user == null) {
+    @PostMapping
+    public ResponseEntity<?> createWorkoutSession(@RequestBody Map<String, Object> workoutData,
+                                                  @CurrentUser UserPrincipal currentUser) {
+        try {
+            if (currentUser == null) {
                 return ResponseEntity.badRequest().body(Map.of("success", false, "message", "User not logged in"));
             }
 
+            // The new session references the user entity
+            Optional<User> userOpt = userService.findById(currentUser.getId());
+            if (userOpt.isEmpty()) {
+                return ResponseEntity.badRequest().body(Map.of("success", false, "message", "User not found"));
+            }
+            User user = userOpt.get();
+
             // Create new workout session
             WorkoutSession session = new WorkoutSession();
             session.setUser(user);
@@ -63,6 +98,8 @@ public class WorkoutSessionController {
 
                 // Use the service method that handles machine lookup
                 WorkoutSession savedSession = workoutSessionService.saveWorkoutSessionWithMachineId(session, machineId);
+                // As created, before the edits below change the same managed entity
+                SessionSnapshot created = SessionSnapshot.of(savedSession);
 
                 // Set other fields from the workout data
                 if (workoutData.get("startTime") != null) {
@@ -110,7 +147,7 @@ public class WorkoutSessionController {
                 }
 
                 // Save the updated session
-                WorkoutSession finalSession = workoutSessionService.saveWorkoutSession(savedSession);
+                WorkoutSession finalSession = workoutSessionService.saveWorkoutSession(savedSession, created);
 
                 return ResponseEntity.ok(Map.of("success", true, "session", finalSession));
             } else {
@@ -125,22 +162,13 @@ public class WorkoutSessionController {
 
     // Alternative simplified version - RECOMMENDED
     @PostMapping("/simple")
-    public ResponseEntity<?> createWorkoutSessionSimple(@RequestBody Map<String, Object> workoutData, HttpSession httpSession) {
+    public ResponseEntity<?> createWorkoutSessionSimple(@RequestBody Map<String, Object> workoutData,
+                                                        @CurrentUser UserPrincipal currentUser) {
         try {
-            // Get user from session (handle both User and HashMap)
-            Object sessionUser = httpSession.getAttribute("user");
-            Long userId = null;
-
-            if (sessionUser instanceof User) {
-                userId = ((User) sessionUser).getId();
-            } else if (sessionUser instanceof Map) {
-                Map<?, ?> userMap = (Map<?, ?>) sessionUser;
-                userId = Long.valueOf(userMap.get("id").toString());
-            }
-
-            if (userId == null) {
+            if (currentUser == null) {
                 return ResponseEntity.badRequest().body(Map.of("success", false, "message", "User not logged in"));
             }
+            Long userId = currentUser.getId();
 
             // Extract all required fields
             Long machineId = Long.valueOf(workoutData.get("machineId").toString());
@@ -260,27 +288,20 @@ public class WorkoutSessionController {
 
 
     @GetMapping("/my-sessions")
-    public ResponseEntity<?> getMySessions(HttpSession httpSession) {
+    public ResponseEntity<?> getMySessions(@CurrentUser UserPrincipal currentUser, ServletWebRequest webRequest) {
         try {
-            Object sessionUser = httpSession.getAttribute("user");
-            User user = null;
-
-            if (sessionUser instanceof User) {
-                user = (User) sessionUser;
-            } else if (sessionUser instanceof Map) {
-                Map<?, ?> userMap = (Map<?, ?>) sessionUser;
-                Long userId = Long.valueOf(userMap.get("id").toString());
-                Optional<User> userOpt = userService.findById(userId);
-                if (userOpt.isPresent()) {
-                    user = userOpt.get();
-                }
+            if (currentUser == null) {
+                return ResponseEntity.badRequest().body(Map.of("success", false, "message", "User not logged in"));
             }
 
-            if (user == null) {
-                return ResponseEntity.badRequest().body(Map.of("success", false, "message", "User not logged in"));
+            // Unchanged since the caller's copy: answer before loading anything
+            String etag = dataVersionService.etag("my-sessions-" + currentUser.getId(),
+                    DataVersionService.Table.SESSIONS, DataVersionService.Table.MACHINES);
+            if (dataVersionService.checkNotModified(webRequest, etag)) {
+                return null;
             }
 
-            List<WorkoutSession> sessions = workoutSessionService.getUserSessions(user);
+            List<WorkoutSession> sessions = workoutSessionService.getUserSessions(currentUser.getId());
 
             // Convert to your existing DTO
             List<WorkoutSessionResponseDTO> sessionDTOs = sessions.stream()
@@ -295,25 +316,9 @@ public class WorkoutSessionController {
     }
 
     @GetMapping("/user/{userId}")
-    public ResponseEntity<?> getUserSessions(@PathVariable Long userId, HttpSession httpSession) {
+    public ResponseEntity<?> getUserSessions(@PathVariable Long userId, @CurrentUser UserPrincipal currentUser) {
         try {
-            // Handle session user properly
-            Object sessionUser = httpSession.getAttribute("user");
-            User currentUser = null;
-
-            if (sessionUser instanceof User) {
-                currentUser = (User) sessionUser;
-            } else if (sessionUser instanceof Map) {
-                Map<?, ?> userMap = (Map<?, ?>) sessionUser;
-                Long currentUserId = Long.valueOf(userMap.get("id").toString());
-                Optional<User> userOpt = userService.findById(currentUserId);
-                if (userOpt.isPresent()) {
-                    currentUser = userOpt.get();
-                }
-            }
-
-            if (currentUser == null || (currentUser.getRole() != User.UserRole.ADMIN &&
-                    currentUser.getRole() != User.UserRole.INSTRUCTOR)) {
+            if (currentUser == null || !currentUser.hasRole(User.UserRole.ADMIN, User.UserRole.INSTRUCTOR)) {
                 return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Unauthorized"));
             }
 
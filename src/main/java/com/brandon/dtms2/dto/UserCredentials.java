@@ -0,0 +1,15 @@
+package com.brandon.dtms2.dto;
+
+import com.brandon.dtms2.entity.User;
+
+/**
+ * The columns authentication needs, read as a projection so signing in never
+ * loads a User entity or anything mapped from it.
+ */
+public interface UserCredentials {
+    Long getId();
+    String getUsername();
+    String getPassword();
+    User.UserRole getRole();
+    User.UserStatus getStatus();
+}
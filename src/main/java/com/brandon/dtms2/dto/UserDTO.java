@@ -13,7 +13,10 @@ public class UserDTO {
     private String firstName;
     private String lastName;
     private User.UserRole role;
+    private User.UserStatus status;
+    private LocalDateTime lastLogin;
     private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
 
     public static UserDTO fromUser(User user) {
         UserDTO dto = new UserDTO();
@@ -23,7 +26,10 @@ public class UserDTO {
         dto.setFirstName(user.getFirstName());
         dto.setLastName(user.getLastName());
         dto.setRole(user.getRole());
+        dto.setStatus(user.getStatus() != null ? user.getStatus() : User.UserStatus.ACTIVE);
+        dto.setLastLogin(user.getLastLogin());
         dto.setCreatedAt(user.getCreatedAt());
+        dto.setUpdatedAt(user.getUpdatedAt());
         return dto;
     }
 }
\ No newline at end of file
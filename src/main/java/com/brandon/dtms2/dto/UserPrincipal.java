@@ -0,0 +1,33 @@
+package com.brandon.dtms2.dto;
+
+import com.brandon.dtms2.entity.User;
+import lombok.Value;
+
+/**
+ * Who is making the request, as resolved by @CurrentUser. Immutable and detached
+ * from the persistence context, so it can be cached and shared between requests.
+ */
+@Value
+public class UserPrincipal {
+    Long id;
+    String username;
+    String email;
+    String firstName;
+    String lastName;
+    User.UserRole role;
+    User.UserStatus status;
+
+    public static UserPrincipal of(User user) {
+        return new UserPrincipal(user.getId(), user.getUsername(), user.getEmail(), user.getFirstName(),
+                user.getLastName(), user.getRole(), user.getStatus());
+    }
+
+    public boolean hasRole(User.UserRole... roles) {
+        for (User.UserRole candidate : roles) {
+            if (role == candidate) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -24,6 +24,10 @@ public class WorkoutSessionResponseDTO {
     // Simple machine info (not the full entity)
     private MachineInfo machine;
 
+    // Member, set by the instructor session search only
+    private Long userId;
+    private String userName;
+
     @Data
     public static class MachineInfo {
         private Long id;
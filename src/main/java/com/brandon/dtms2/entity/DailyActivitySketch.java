@@ -0,0 +1,23 @@
+package com.brandon.dtms2.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * HyperLogLog registers of the user ids seen on one day, see ActiveMemberSketchService.
+ */
+@Entity
+@Table(name = "daily_activity_sketches")
+@Data
+public class DailyActivitySketch {
+    @Id
+    private LocalDate day;
+
+    @Column(nullable = false)
+    private byte[] registers;
+
+    private LocalDateTime updatedAt;
+}
@@ -5,13 +5,19 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+        // Keyset pages of the user directory filtered by role or status, see UserDirectoryService
+        @Index(name = "idx_users_role_username", columnList = "role, username"),
+        @Index(name = "idx_users_status_username", columnList = "status, username")
+})
 @Data
 public class User {
     @Id
@@ -41,10 +47,15 @@ public class User {
 
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
-    private LocalDateTime lastLogin; // Add this field
+    // Written only by LastLoginWriteBehind, so saving a user loaded earlier cannot put back an older login
+    @Column(name = "last_login", updatable = false)
+    private LocalDateTime lastLogin;
 
-    @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, fetch = FetchType.EAGER)
+    // Loaded only where asked for, see UserRepository.findWithWorkoutSessionsById
+    @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private List<WorkoutSession> workoutSessions = new ArrayList<>();
 
     public enum UserRole {
@@ -77,7 +88,7 @@ public class User {
         this.updatedAt = LocalDateTime.now();
     }
 
-    // Helper method to update last login
+    // Helper method to update last login. Logins go through LastLoginWriteBehind instead of saving the user
     public void updateLastLogin() {
         this.lastLogin = LocalDateTime.now();
     }
@@ -0,0 +1,37 @@
+package com.brandon.dtms2.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lifetime totals of one user's workout sessions, kept current by UserStatsService
+ * in the same transaction as every session write.
+ */
+@Entity
+@Table(name = "user_workout_stats")
+@Data
+public class UserWorkoutStats {
+    @Id
+    private Long userId;
+
+    @Column(nullable = false)
+    private long sessionCount;
+
+    @Column(nullable = false)
+    private long totalCalories;
+
+    @Column(nullable = false)
+    private double totalDistance;
+
+    @Column(nullable = false)
+    private long heartRateSum;
+
+    @Column(nullable = false)
+    private long heartRateCount;
+
+    private LocalDateTime lastSessionTime;
+
+    private LocalDateTime updatedAt;
+}
@@ -11,7 +11,13 @@ import java.time.LocalDateTime;
 import java.time.Duration;
 
 @Entity
-@Table(name = "workout_sessions")
+@Table(name = "workout_sessions", indexes = {
+        @Index(name = "idx_workout_sessions_start_time", columnList = "start_time"),
+        @Index(name = "idx_workout_sessions_machine_start", columnList = "machine_id, start_time"),
+        @Index(name = "idx_workout_sessions_user_start", columnList = "user_id, start_time"),
+        @Index(name = "idx_workout_sessions_quality_start", columnList = "data_quality_flag, start_time"),
+        @Index(name = "idx_workout_sessions_calories", columnList = "calories_burned, id")
+})
 @Data
 public class WorkoutSession {
     @Id
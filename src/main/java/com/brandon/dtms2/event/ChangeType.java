@@ -0,0 +1,5 @@
+package com.brandon.dtms2.event;
+
+public enum ChangeType {
+    CREATED, UPDATED, DELETED
+}
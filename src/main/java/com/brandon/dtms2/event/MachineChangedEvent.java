@@ -0,0 +1,19 @@
+package com.brandon.dtms2.event;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published by MachineService after every create, update, status change or delete.
+ */
+@Value
+public class MachineChangedEvent {
+    ChangeType changeType;
+    Long machineId;
+    String name;
+    String machineType;
+    String previousStatus;
+    String status;
+    LocalDateTime lastMaintenance;
+}
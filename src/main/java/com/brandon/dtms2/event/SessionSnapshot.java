@@ -0,0 +1,75 @@
+package com.brandon.dtms2.event;
+
+import com.brandon.dtms2.entity.WorkoutSession;
+import lombok.Value;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * Immutable copy of the fields of a workout session that the in-memory
+ * aggregates care about. Taken before and after a write so listeners can
+ * apply deltas without going back to the database.
+ */
+@Value
+public class SessionSnapshot {
+    Long id;
+    Long userId;
+    Long machineId;
+    String machineType;
+    LocalDateTime startTime;
+    LocalDateTime endTime;
+    Integer caloriesBurned;
+    Double distance;
+    Integer avgHeartRate;
+    Boolean dataQualityFlag;
+
+    public static SessionSnapshot of(WorkoutSession session) {
+        LocalDateTime endTime = session.getEndTime();
+        if (endTime == null && session.getStartTime() != null && session.getDuration() != null) {
+            endTime = session.getStartTime().plus(session.getDuration());
+        }
+        return new SessionSnapshot(
+                session.getId(),
+                session.getUser() != null ? session.getUser().getId() : null,
+                session.getMachine() != null ? session.getMachine().getId() : null,
+                session.getMachine() != null ? session.getMachine().getType() : null,
+                session.getStartTime(),
+                endTime,
+                session.getCaloriesBurned(),
+                session.getDistance(),
+                session.getAvgHeartRate(),
+                session.getDataQualityFlag()
+        );
+    }
+
+    /**
+     * From a row of WorkoutSessionRepository.findStoredSnapshotRow.
+     */
+    public static SessionSnapshot fromRow(Object[] row) {
+        return new SessionSnapshot(
+                toLong(row[0]),
+                toLong(row[1]),
+                toLong(row[2]),
+                (String) row[3],
+                toDateTime(row[4]),
+                toDateTime(row[5]),
+                row[6] != null ? ((Number) row[6]).intValue() : null,
+                row[7] != null ? ((Number) row[7]).doubleValue() : null,
+                row[8] != null ? ((Number) row[8]).intValue() : null,
+                (Boolean) row[9]
+        );
+    }
+
+    private static Long toLong(Object value) {
+        return value != null ? ((Number) value).longValue() : null;
+    }
+
+    private static LocalDateTime toDateTime(Object value) {
+        return value instanceof Timestamp timestamp ? timestamp.toLocalDateTime() : (LocalDateTime) value;
+    }
+
+    public boolean isQualityOk() {
+        return dataQualityFlag != null && dataQualityFlag;
+    }
+}
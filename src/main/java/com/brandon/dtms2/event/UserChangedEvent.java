@@ -0,0 +1,22 @@
+package com.brandon.dtms2.event;
+
+import com.brandon.dtms2.entity.User;
+import lombok.Value;
+
+/**
+ * Published by UserService after every create, update, password change or delete.
+ */
+@Value
+public class UserChangedEvent {
+    ChangeType changeType;
+    Long userId;
+    String username;
+    String email;
+    User.UserRole role;
+    User.UserStatus status;
+
+    public static UserChangedEvent of(ChangeType changeType, User user) {
+        return new UserChangedEvent(changeType, user.getId(), user.getUsername(), user.getEmail(),
+                user.getRole(), user.getStatus());
+    }
+}
@@ -0,0 +1,14 @@
+package com.brandon.dtms2.event;
+
+import lombok.Value;
+
+/**
+ * Published by WorkoutSessionService after every create, update or delete.
+ * previous is null for CREATED, current is null for DELETED.
+ */
+@Value
+public class WorkoutSessionChangedEvent {
+    ChangeType changeType;
+    SessionSnapshot previous;
+    SessionSnapshot current;
+}
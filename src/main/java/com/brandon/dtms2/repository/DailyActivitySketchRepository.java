@@ -0,0 +1,24 @@
+package com.brandon.dtms2.repository;
+
+import com.brandon.dtms2.entity.DailyActivitySketch;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface DailyActivitySketchRepository extends JpaRepository<DailyActivitySketch, LocalDate> {
+
+    List<DailyActivitySketch> findByDayGreaterThanEqual(LocalDate day);
+
+    // Held until the flush that merges into the row commits
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM DailyActivitySketch s WHERE s.day = :day")
+    Optional<DailyActivitySketch> findForUpdateByDay(@Param("day") LocalDate day);
+}
@@ -23,4 +23,8 @@ public interface MachineRepository extends JpaRepository<Machine, Long> {
 
     @Query("SELECT m FROM Machine m WHERE m.status IN ('ACTIVE', 'MAINTENANCE') ORDER BY m.name")
     List<Machine> findActiveMachines();
+
+    // Rows of [status, machineCount]
+    @Query("SELECT m.status, COUNT(m) FROM Machine m GROUP BY m.status")
+    List<Object[]> countMachinesGroupedByStatus();
 }
\ No newline at end of file
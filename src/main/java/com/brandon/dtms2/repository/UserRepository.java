@@ -1,9 +1,14 @@
 package com.brandon.dtms2.repository;
 
+import com.brandon.dtms2.dto.UserCredentials;
 import com.brandon.dtms2.entity.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,10 +19,30 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     Optional<User> findByEmail(String email);
 
+    Optional<UserCredentials> findCredentialsByUsername(String username);
+
+    @EntityGraph(attributePaths = {"workoutSessions", "workoutSessions.machine"})
+    Optional<User> findWithWorkoutSessionsById(Long id);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE User u SET u.password = :password WHERE u.username = :username")
+    int updatePasswordByUsername(@Param("username") String username, @Param("password") String password);
+
+    List<User> findByRole(User.UserRole role);
+
+    @Query("SELECT u.id FROM User u WHERE u.role = :role")
+    List<Long> findIdsByRole(@Param("role") User.UserRole role);
+
     boolean existsByUsername(String username);
 
     boolean existsByEmail(String email);
 
+    @Query("SELECT u.id, u.username FROM User u WHERE u.id IN :ids")
+    List<Object[]> findUsernamesByIds(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT u.username, u.email FROM User u")
+    List<Object[]> findAllUsernamesAndEmails();
+
     @Query("SELECT u FROM User u WHERE u.role = 'MEMBER' ORDER BY u.firstName, u.lastName")
     List<User> findAllMembers();
 
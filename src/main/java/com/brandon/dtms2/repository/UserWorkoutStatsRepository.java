@@ -0,0 +1,54 @@
+package com.brandon.dtms2.repository;
+
+import com.brandon.dtms2.entity.UserWorkoutStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface UserWorkoutStatsRepository extends JpaRepository<UserWorkoutStats, Long> {
+
+    // Row-level atomic, so concurrent writes for the same user never lose an update
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE user_workout_stats SET session_count = session_count + :sessions, " +
+            "total_calories = total_calories + :calories, total_distance = total_distance + :distance, " +
+            "heart_rate_sum = heart_rate_sum + :heartRateSum, heart_rate_count = heart_rate_count + :heartRateCount, " +
+            "updated_at = :now WHERE user_id = :userId", nativeQuery = true)
+    int addDeltas(@Param("userId") Long userId,
+                  @Param("sessions") long sessions,
+                  @Param("calories") long calories,
+                  @Param("distance") double distance,
+                  @Param("heartRateSum") long heartRateSum,
+                  @Param("heartRateCount") long heartRateCount,
+                  @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE user_workout_stats SET last_session_time = GREATEST(last_session_time, :startTime) " +
+            "WHERE user_id = :userId", nativeQuery = true)
+    int advanceLastSessionTime(@Param("userId") Long userId, @Param("startTime") LocalDateTime startTime);
+
+    // After an update or delete the latest session may be a different one
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE user_workout_stats SET last_session_time = " +
+            "(SELECT MAX(ws.start_time) FROM workout_sessions ws WHERE ws.user_id = :userId) " +
+            "WHERE user_id = :userId", nativeQuery = true)
+    int recomputeLastSessionTime(@Param("userId") Long userId);
+
+    // Builds the row from the user's history; does nothing if another transaction created it first
+    @Modifying(flushAutomatically = true)
+    @Query(value = "INSERT INTO user_workout_stats (user_id, session_count, total_calories, total_distance, " +
+            "heart_rate_sum, heart_rate_count, last_session_time, updated_at) " +
+            "SELECT :userId, COUNT(ws.id), COALESCE(SUM(ws.calories_burned), 0), COALESCE(SUM(ws.distance), 0), " +
+            "COALESCE(SUM(ws.avg_heart_rate), 0), COUNT(ws.avg_heart_rate), MAX(ws.start_time), :now " +
+            "FROM workout_sessions ws WHERE ws.user_id = :userId " +
+            "ON CONFLICT (user_id) DO NOTHING", nativeQuery = true)
+    int insertFromHistory(@Param("userId") Long userId, @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true)
+    @Query(value = "DELETE FROM user_workout_stats WHERE user_id = :userId", nativeQuery = true)
+    int deleteByUserId(@Param("userId") Long userId);
+}
@@ -5,10 +5,14 @@ import com.brandon.dtms2.entity.User;
 import com.brandon.dtms2.entity.Machine;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface WorkoutSessionRepository extends JpaRepository<WorkoutSession, Long> {
@@ -63,4 +67,150 @@ public interface WorkoutSessionRepository extends JpaRepository<WorkoutSession,
     @Query("SELECT ws FROM WorkoutSession ws JOIN FETCH ws.machine WHERE ws.user.id = :userId ORDER BY ws.startTime DESC")
     List<WorkoutSession> findByUserIdWithMachine(@Param("userId") Long userId);
 
-}
\ No newline at end of file
+    // Machine fetched with the sessions so the result can be shared across transactions, see RequestCoalescer
+    @Query("SELECT ws FROM WorkoutSession ws LEFT JOIN FETCH ws.machine " +
+            "WHERE ws.startTime BETWEEN :startDate AND :endDate ORDER BY ws.startTime DESC")
+    List<WorkoutSession> findSessionsBetweenDatesWithMachine(@Param("startDate") LocalDateTime startDate,
+                                                            @Param("endDate") LocalDateTime endDate);
+
+    @Query("SELECT ws FROM WorkoutSession ws LEFT JOIN FETCH ws.machine ORDER BY ws.startTime DESC")
+    List<WorkoutSession> findAllWithMachine();
+
+    // Rows of [userId, username, totalCalories, totalDistance, sessionCount]
+    @Query("SELECT u.id, u.username, COALESCE(SUM(ws.caloriesBurned), 0), COALESCE(SUM(ws.distance), 0), COUNT(ws) " +
+            "FROM WorkoutSession ws JOIN ws.user u " +
+            "WHERE ws.startTime >= :startDate AND ws.startTime < :endDate GROUP BY u.id, u.username")
+    List<Object[]> findLeaderboardTotalsBetween(@Param("startDate") LocalDateTime startDate,
+                                                @Param("endDate") LocalDateTime endDate);
+
+    @Query("SELECT COUNT(ws) FROM WorkoutSession ws WHERE ws.dataQualityFlag = true")
+    Long countSessionsWithGoodQuality();
+
+    @Query("SELECT COUNT(ws) FROM WorkoutSession ws WHERE ws.startTime >= :since")
+    Long countSessionsSince(@Param("since") LocalDateTime since);
+
+    // Rows of [machineId, sessionCount, avgCalories, totalDurationMinutes, lastUsed], one per machine with sessions
+    @Query(value = "SELECT ws.machine_id, COUNT(*) AS sessions, AVG(ws.calories_burned) AS avg_calories, " +
+            "COALESCE(SUM(EXTRACT(EPOCH FROM (ws.end_time - ws.start_time))) / 60, 0) AS total_minutes, " +
+            "MAX(ws.start_time) AS last_used " +
+            "FROM workout_sessions ws WHERE ws.machine_id IS NOT NULL GROUP BY ws.machine_id", nativeQuery = true)
+    List<Object[]> findMachineStatistics();
+
+    @Query("SELECT COUNT(DISTINCT ws.user.id) FROM WorkoutSession ws " +
+            "WHERE ws.user.role = com.brandon.dtms2.entity.User.UserRole.MEMBER " +
+            "AND ws.startTime >= :startDate AND ws.startTime < :endDate")
+    Long countDistinctMembersBetween(@Param("startDate") LocalDateTime startDate,
+                                     @Param("endDate") LocalDateTime endDate);
+
+    @Query("SELECT AVG(ws.caloriesBurned) FROM WorkoutSession ws")
+    Double findAverageCalories();
+
+    // Rows of [day, userId], one per user per day with at least one session
+    @Query(value = "SELECT DISTINCT CAST(ws.start_time AS date) AS day, ws.user_id FROM workout_sessions ws " +
+            "WHERE ws.start_time >= :startDate AND ws.start_time < :endDate AND ws.user_id IS NOT NULL", nativeQuery = true)
+    List<Object[]> findActiveUserDaysBetween(@Param("startDate") LocalDateTime startDate,
+                                             @Param("endDate") LocalDateTime endDate);
+
+    /**
+     * One row per member with at least one session: [userId, sessions, totalCalories, avgCalories,
+     * avgDurationMinutes, avgHeartRate, lastSessionTime].
+     */
+    @Query(value = "SELECT ws.user_id, COUNT(*) AS sessions, " +
+            "COALESCE(SUM(ws.calories_burned), 0) AS total_calories, " +
+            "AVG(ws.calories_burned) AS avg_calories, " +
+            "AVG(EXTRACT(EPOCH FROM (ws.end_time - ws.start_time)) / 60) AS avg_duration, " +
+            "AVG(ws.avg_heart_rate) AS avg_heart_rate, " +
+            "MAX(ws.start_time) AS last_session " +
+            "FROM workout_sessions ws JOIN users u ON u.id = ws.user_id " +
+            "WHERE u.role = 'MEMBER' GROUP BY ws.user_id", nativeQuery = true)
+    List<Object[]> aggregateByMember();
+
+    // Rows of [machineId, sessionCount]
+    @Query("SELECT ws.machine.id, COUNT(ws) FROM WorkoutSession ws WHERE ws.machine IS NOT NULL GROUP BY ws.machine.id")
+    List<Object[]> countSessionsGroupedByMachine();
+
+    /**
+     * One row per time bucket: [bucket, sessions, totalCalories, avgCalories, totalDistance,
+     * avgDurationMinutes, activeMembers]. Use 0 / '' to skip the machine, type and user filters.
+     */
+    @Query(value = "SELECT date_trunc(:granularity, ws.start_time) AS bucket, " +
+            "COUNT(*) AS sessions, " +
+            "COALESCE(SUM(ws.calories_burned), 0) AS total_calories, " +
+            "AVG(ws.calories_burned) AS avg_calories, " +
+            "COALESCE(SUM(ws.distance), 0) AS total_distance, " +
+            "AVG(EXTRACT(EPOCH FROM (ws.end_time - ws.start_time)) / 60) AS avg_duration, " +
+            "COUNT(DISTINCT ws.user_id) AS active_members " +
+            "FROM workout_sessions ws LEFT JOIN machines m ON m.id = ws.machine_id " +
+            "WHERE ws.start_time >= :startDate AND ws.start_time < :endDate " +
+            "AND (:machineId = 0 OR ws.machine_id = :machineId) " +
+            "AND (:machineType = '' OR m.type = :machineType) " +
+            "AND (:userId = 0 OR ws.user_id = :userId) " +
+            "GROUP BY 1 ORDER BY 1", nativeQuery = true)
+    List<Object[]> aggregateByTimeBucket(@Param("granularity") String granularity,
+                                         @Param("startDate") LocalDateTime startDate,
+                                         @Param("endDate") LocalDateTime endDate,
+                                         @Param("machineId") Long machineId,
+                                         @Param("machineType") String machineType,
+                                         @Param("userId") Long userId);
+
+    // Rows of [machineType, sessionCount]
+    @Query("SELECT ws.machine.type, COUNT(ws) FROM WorkoutSession ws " +
+            "WHERE ws.startTime BETWEEN :startDate AND :endDate GROUP BY ws.machine.type")
+    List<Object[]> countSessionsByMachineTypeBetween(@Param("startDate") LocalDateTime startDate,
+                                                     @Param("endDate") LocalDateTime endDate);
+
+    /**
+     * The session as stored, in SessionSnapshot.fromRow order. Changes made to a loaded copy
+     * are not flushed first, so this is what the row held before the caller edited it.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "COMMIT"))
+    @Query(value = "SELECT ws.id, ws.user_id, ws.machine_id, m.type, ws.start_time, ws.end_time, " +
+            "ws.calories_burned, ws.distance, ws.avg_heart_rate, ws.data_quality_flag " +
+            "FROM workout_sessions ws LEFT JOIN machines m ON m.id = ws.machine_id WHERE ws.id = :id", nativeQuery = true)
+    List<Object[]> findStoredSnapshotRow(@Param("id") Long id);
+
+    // Rows of [machineId, machineType, startTime, endTime]; callers must consume inside a transaction.
+    // The fetch size makes the Postgres driver read the rows in batches instead of all at once.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT ws.machine.id, ws.machine.type, ws.startTime, ws.endTime FROM WorkoutSession ws " +
+            "WHERE ws.startTime IS NOT NULL AND ws.endTime IS NOT NULL")
+    Stream<Object[]> streamMachineIntervals();
+
+    // Rows of [sessionId, startTime, endTime] for one machine, oldest first
+    @Query("SELECT ws.id, ws.startTime, ws.endTime FROM WorkoutSession ws " +
+            "WHERE ws.machine.id = :machineId AND ws.startTime >= :since AND ws.endTime IS NOT NULL " +
+            "ORDER BY ws.startTime")
+    List<Object[]> findMachineIntervalsSince(@Param("machineId") Long machineId, @Param("since") LocalDateTime since);
+
+    /**
+     * Busy time per machine inside [startDate, endDate). Session intervals are clipped to the window and
+     * merged with window functions (gaps and islands), so overlapping or duplicate sessions count once.
+     * Rows of [machineId, busySeconds, sessionCount]. Use machineId 0 for every machine.
+     */
+    @Query(value = "WITH clipped AS (" +
+            "  SELECT ws.machine_id, GREATEST(ws.start_time, :startDate) AS s, LEAST(ws.end_time, :endDate) AS e" +
+            "  FROM workout_sessions ws" +
+            "  WHERE ws.machine_id IS NOT NULL AND ws.end_time > ws.start_time" +
+            "  AND ws.start_time < :endDate AND ws.end_time > :startDate" +
+            "  AND (:machineId = 0 OR ws.machine_id = :machineId)" +
+            "), marked AS (" +
+            "  SELECT machine_id, s, e, CASE WHEN s <= MAX(e) OVER (PARTITION BY machine_id ORDER BY s, e" +
+            "    ROWS BETWEEN UNBOUNDED PRECEDING AND 1 PRECEDING) THEN 0 ELSE 1 END AS island_start" +
+            "  FROM clipped" +
+            "), islands AS (" +
+            "  SELECT machine_id, s, e, SUM(island_start) OVER (PARTITION BY machine_id ORDER BY s, e" +
+            "    ROWS UNBOUNDED PRECEDING) AS island" +
+            "  FROM marked" +
+            ") " +
+            "SELECT machine_id, SUM(EXTRACT(EPOCH FROM (island_end - island_begin))) AS busy_seconds, SUM(sessions) AS sessions " +
+            "FROM (SELECT machine_id, island, MIN(s) AS island_begin, MAX(e) AS island_end, COUNT(*) AS sessions" +
+            "  FROM islands GROUP BY machine_id, island) merged " +
+            "GROUP BY machine_id", nativeQuery = true)
+    List<Object[]> findMergedBusyTimeByMachine(@Param("startDate") LocalDateTime startDate,
+                                               @Param("endDate") LocalDateTime endDate,
+                                               @Param("machineId") Long machineId);
+
+}
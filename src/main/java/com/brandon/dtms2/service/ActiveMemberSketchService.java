@@ -0,0 +1,283 @@
+package com.brandon.dtms2.service;
+
+import com.brandon.dtms2.entity.DailyActivitySketch;
+import com.brandon.dtms2.entity.User;
+import com.brandon.dtms2.event.ChangeType;
+import com.brandon.dtms2.event.SessionSnapshot;
+import com.brandon.dtms2.event.UserChangedEvent;
+import com.brandon.dtms2.event.WorkoutSessionChangedEvent;
+import com.brandon.dtms2.repository.DailyActivitySketchRepository;
+import com.brandon.dtms2.repository.UserRepository;
+import com.brandon.dtms2.repository.WorkoutSessionRepository;
+import com.brandon.dtms2.util.HyperLogLog;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Approximate distinct active members from one HyperLogLog sketch per day (4 KB each).
+ * A window is the merge of its days, kept as a cached union that is merged again only
+ * when the date changes; adds in between go straight into the unions they fall in.
+ * Sketches only grow: a deleted session still counts until the day leaves every
+ * window, which is fine for an estimate, and so does a member whose role changes
+ * later. Only users whose role is MEMBER are added. Flushes merge with the stored registers, so
+ * instances sharing the table never overwrite each other's adds.
+ */
+@Service
+public class ActiveMemberSketchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ActiveMemberSketchService.class);
+    private static final int HORIZON_DAYS = 366;
+
+    private final DailyActivitySketchRepository sketchRepository;
+    private final WorkoutSessionRepository workoutSessionRepository;
+    private final UserRepository userRepository;
+    private final TransactionTemplate transaction;
+
+    private final Map<LocalDate, HyperLogLog> sketches = new ConcurrentHashMap<>();
+    private final Set<LocalDate> dirtyDays = ConcurrentHashMap.newKeySet();
+    // Union of the last N days by N, for the date it was merged on; guarded by itself
+    private final Map<Integer, WindowUnion> windows = new HashMap<>();
+    private volatile boolean loaded = false;
+    // Ids of the users whose role is MEMBER, loaded on the first session and kept current from user events
+    private final BitSet members = new BitSet();
+    private volatile boolean membersLoaded = false;
+
+    public ActiveMemberSketchService(DailyActivitySketchRepository sketchRepository,
+                                     WorkoutSessionRepository workoutSessionRepository,
+                                     UserRepository userRepository,
+                                     PlatformTransactionManager transactionManager) {
+        this.sketchRepository = sketchRepository;
+        this.workoutSessionRepository = workoutSessionRepository;
+        this.userRepository = userRepository;
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Estimated active members for the last 7, 30 and 365 days with a 95% error bound.
+     */
+    public Map<String, Object> getApproximateActiveMembers() {
+        Map<String, Object> windows = new LinkedHashMap<>();
+        windows.put("week", estimate(7));
+        windows.put("month", estimate(30));
+        windows.put("year", estimate(365));
+        return windows;
+    }
+
+    public Map<String, Object> estimate(int days) {
+        ensureLoaded();
+        LocalDate today = LocalDate.now();
+        long estimate;
+        double standardError;
+        synchronized (windows) {
+            WindowUnion window = windows.get(days);
+            if (window == null || !window.today().equals(today)) {
+                window = new WindowUnion(today, days, mergeDays(today, days));
+                windows.put(days, window);
+            }
+            estimate = window.union().estimate();
+            standardError = window.union().standardError();
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("estimate", estimate);
+        result.put("errorBound", Math.round(Math.ceil(estimate * 2 * standardError)));
+        result.put("standardError", Math.round(standardError * 10000.0) / 100.0);
+        return result;
+    }
+
+    private HyperLogLog mergeDays(LocalDate today, int days) {
+        HyperLogLog union = new HyperLogLog();
+        for (LocalDate day = today.minusDays(days - 1L); !day.isAfter(today); day = day.plusDays(1)) {
+            HyperLogLog sketch = sketches.get(day);
+            if (sketch != null) {
+                synchronized (sketch) {
+                    union.merge(sketch);
+                }
+            }
+        }
+        return union;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            ensureLoaded();
+        } catch (RuntimeException e) {
+            logger.warn("Active member sketches not loaded at startup, will load on first read: {}", e.getMessage());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSessionChanged(WorkoutSessionChangedEvent event) {
+        SessionSnapshot current = event.getCurrent();
+        if (current == null || current.getUserId() == null || current.getStartTime() == null
+                || !isMember(current.getUserId())) {
+            return;
+        }
+        // Before the load this only fills memory, persisted registers are merged in when it happens
+        LocalDate day = current.getStartTime().toLocalDate();
+        HyperLogLog sketch = sketches.computeIfAbsent(day, d -> new HyperLogLog());
+        boolean changed;
+        synchronized (sketch) {
+            changed = sketch.add(current.getUserId());
+        }
+        if (changed) {
+            dirtyDays.add(day);
+            // Adding to a union is the same as merging the changed day into it again
+            synchronized (windows) {
+                for (WindowUnion window : windows.values()) {
+                    if (window.covers(day)) {
+                        window.union().add(current.getUserId());
+                    }
+                }
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        if (event.getUserId() == null) {
+            return;
+        }
+        synchronized (members) {
+            members.set(Math.toIntExact(event.getUserId()), event.getChangeType() != ChangeType.DELETED
+                    && event.getRole() == User.UserRole.MEMBER);
+        }
+    }
+
+    /**
+     * Write the sketches that changed since the last flush. Each is merged register by
+     * register with the stored row, locked for the merge, so adds flushed by another
+     * instance are kept; what the other instance added is merged into memory too.
+     */
+    @Scheduled(fixedDelayString = "${app.sketch.flush-interval-ms:60000}")
+    @PreDestroy
+    public void flush() {
+        if (!loaded || dirtyDays.isEmpty()) {
+            return;
+        }
+        List<LocalDate> days = List.copyOf(dirtyDays);
+        dirtyDays.removeAll(days);
+        Set<LocalDate> changedByOthers = new HashSet<>();
+        try {
+            transaction.executeWithoutResult(status -> {
+                for (LocalDate day : days) {
+                    HyperLogLog sketch = sketches.get(day);
+                    DailyActivitySketch row = sketchRepository.findForUpdateByDay(day).orElseGet(() -> {
+                        DailyActivitySketch created = new DailyActivitySketch();
+                        created.setDay(day);
+                        return created;
+                    });
+                    synchronized (sketch) {
+                        byte[] before = sketch.toBytes();
+                        if (row.getRegisters() != null) {
+                            sketch.merge(HyperLogLog.fromBytes(row.getRegisters()));
+                        }
+                        row.setRegisters(sketch.toBytes());
+                        if (!Arrays.equals(before, row.getRegisters())) {
+                            changedByOthers.add(day);
+                        }
+                    }
+                    row.setUpdatedAt(LocalDateTime.now());
+                    sketchRepository.save(row);
+                }
+            });
+        } catch (RuntimeException e) {
+            dirtyDays.addAll(days);
+            logger.warn("Failed to flush {} activity sketches, will retry: {}", days.size(), e.getMessage());
+        }
+        // Unions over days another instance added to are merged again on their next read
+        if (!changedByOthers.isEmpty()) {
+            synchronized (windows) {
+                windows.values().removeIf(window -> changedByOthers.stream().anyMatch(window::covers));
+            }
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+            LocalDate from = LocalDate.now().minusDays(HORIZON_DAYS);
+            transaction.executeWithoutResult(status -> {
+                List<DailyActivitySketch> stored = sketchRepository.findByDayGreaterThanEqual(from);
+                if (stored.isEmpty()) {
+                    backfill(from);
+                } else {
+                    stored.forEach(row -> sketches.merge(row.getDay(), HyperLogLog.fromBytes(row.getRegisters()), (current, persisted) -> {
+                        synchronized (current) {
+                            current.merge(persisted);
+                        }
+                        return current;
+                    }));
+                }
+            });
+            synchronized (windows) {
+                windows.clear();
+            }
+            loaded = true;
+            logger.info("Active member sketches loaded for {} days", sketches.size());
+        }
+    }
+
+    // First start: build the sketches from the sessions table once and persist them on the next flush
+    private void backfill(LocalDate from) {
+        for (Object[] row : workoutSessionRepository.findActiveUserDaysBetween(from.atStartOfDay(), LocalDateTime.now().plusDays(1))) {
+            long userId = ((Number) row[1]).longValue();
+            if (!isMember(userId)) {
+                continue;
+            }
+            LocalDate day = row[0] instanceof Date date ? date.toLocalDate() : (LocalDate) row[0];
+            HyperLogLog sketch = sketches.computeIfAbsent(day, d -> new HyperLogLog());
+            synchronized (sketch) {
+                sketch.add(userId);
+            }
+            dirtyDays.add(day);
+        }
+    }
+
+    private boolean isMember(long userId) {
+        if (!membersLoaded) {
+            synchronized (members) {
+                if (!membersLoaded) {
+                    userRepository.findIdsByRole(User.UserRole.MEMBER).forEach(id -> members.set(Math.toIntExact(id)));
+                    membersLoaded = true;
+                }
+            }
+        }
+        synchronized (members) {
+            return members.get(Math.toIntExact(userId));
+        }
+    }
+
+    private record WindowUnion(LocalDate today, int days, HyperLogLog union) {
+        boolean covers(LocalDate day) {
+            return !day.isAfter(today) && day.isAfter(today.minusDays(days));
+        }
+    }
+}
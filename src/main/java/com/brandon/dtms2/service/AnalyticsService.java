@@ -0,0 +1,221 @@
+package com.brandon.dtms2.service;
+
+import com.brandon.dtms2.repository.WorkoutSessionRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Time-bucketed workout analytics. Every question is answered by a single
+ * date_trunc GROUP BY in the database instead of loading sessions and
+ * grouping them in Java.
+ */
+@Service
+@Transactional(readOnly = true)
+public class AnalyticsService {
+
+    private static final int MAX_BUCKETS = 1000;
+
+    public enum Metric {
+        SESSIONS(1), CALORIES(2), AVG_CALORIES(3), DISTANCE(4), AVG_DURATION(5), ACTIVE_MEMBERS(6);
+
+        private final int column;
+
+        Metric(int column) {
+            this.column = column;
+        }
+    }
+
+    public enum Granularity {
+        HOUR(ChronoUnit.HOURS), DAY(ChronoUnit.DAYS), WEEK(ChronoUnit.WEEKS), MONTH(ChronoUnit.MONTHS);
+
+        private final ChronoUnit unit;
+
+        Granularity(ChronoUnit unit) {
+            this.unit = unit;
+        }
+
+        LocalDateTime truncate(LocalDateTime time) {
+            return switch (this) {
+                case HOUR -> time.truncatedTo(ChronoUnit.HOURS);
+                case DAY -> time.truncatedTo(ChronoUnit.DAYS);
+                case WEEK -> time.truncatedTo(ChronoUnit.DAYS).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                case MONTH -> time.truncatedTo(ChronoUnit.DAYS).withDayOfMonth(1);
+            };
+        }
+    }
+
+    private final WorkoutSessionRepository workoutSessionRepository;
+    private final RequestCoalescer requestCoalescer;
+
+    public AnalyticsService(WorkoutSessionRepository workoutSessionRepository, RequestCoalescer requestCoalescer) {
+        this.workoutSessionRepository = workoutSessionRepository;
+        this.requestCoalescer = requestCoalescer;
+    }
+
+    /**
+     * One point per bucket between start (inclusive) and end (exclusive), empty buckets filled with 0.
+     * machineId, machineType and userId are optional filters.
+     */
+    public List<Map<String, Object>> query(Metric metric, Granularity granularity,
+                                           LocalDateTime start, LocalDateTime end,
+                                           Long machineId, String machineType, Long userId) {
+        Map<LocalDateTime, Object[]> rows = aggregate(granularity, start, end, machineId, machineType, userId);
+
+        List<Map<String, Object>> points = new ArrayList<>();
+        for (LocalDateTime bucket : buckets(granularity, start, end)) {
+            Object[] row = rows.get(bucket);
+            Map<String, Object> point = new LinkedHashMap<>();
+            point.put("bucket", bucket);
+            point.put("value", row != null ? round(toDouble(row[metric.column])) : 0.0);
+            points.add(point);
+        }
+        return points;
+    }
+
+    /**
+     * Sessions per day for the last number of days, today included. Used by the admin dashboard.
+     */
+    public Map<String, Object> getDailyActivity(int days) {
+        LocalDateTime start = LocalDate.now().minusDays(days - 1L).atStartOfDay();
+        LocalDateTime end = LocalDateTime.now();
+
+        List<String> labels = new ArrayList<>();
+        List<Long> data = new ArrayList<>();
+        for (Map<String, Object> point : query(Metric.SESSIONS, Granularity.DAY, start, end, null, null, null)) {
+            labels.add(((LocalDateTime) point.get("bucket")).toLocalDate().toString());
+            data.add(Math.round((Double) point.get("value")));
+        }
+
+        Map<String, Object> activityData = new HashMap<>();
+        activityData.put("labels", labels);
+        activityData.put("data", data);
+        return activityData;
+    }
+
+    /**
+     * Weekly activity, workout type distribution and four weeks of progress for the
+     * instructor dashboard, from three aggregate queries.
+     */
+    public Map<String, Object> getInstructorChartData() {
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, Object> chartData = new HashMap<>();
+
+        // Weekly activity data
+        Map<String, Long> weeklyActivity = new HashMap<>();
+        String[] days = {"Mon", "Tue", "Wed", "Thu", "Fri", "Sat", "Sun"};
+        for (String day : days) {
+            weeklyActivity.put(day, 0L);
+        }
+        for (Object[] row : aggregate(Granularity.DAY, now.minusDays(7), now, null, null, null).values()) {
+            String day = toLocalDateTime(row[0]).getDayOfWeek().toString().substring(0, 3);
+            String label = day.charAt(0) + day.substring(1).toLowerCase();
+            weeklyActivity.merge(label, ((Number) row[1]).longValue(), Long::sum);
+        }
+        chartData.put("weeklyActivity", weeklyActivity);
+
+        // Workout type distribution
+        Map<String, Long> workoutTypes = new HashMap<>();
+        for (Object[] row : workoutSessionRepository.countSessionsByMachineTypeBetween(now.minusDays(7), now)) {
+            if (row[0] != null) {
+                workoutTypes.put((String) row[0], (Long) row[1]);
+            }
+        }
+        chartData.put("workoutTypes", workoutTypes);
+
+        // Progress data (last 4 calendar weeks)
+        LocalDateTime fourWeeksAgo = Granularity.WEEK.truncate(now).minusWeeks(3);
+        Map<LocalDateTime, Object[]> weeks = aggregate(Granularity.WEEK, fourWeeksAgo, now, null, null, null);
+        Map<String, Object> progressData = new HashMap<>();
+        int week = 1;
+        for (LocalDateTime bucket : buckets(Granularity.WEEK, fourWeeksAgo, now)) {
+            Object[] row = weeks.get(bucket);
+            progressData.put("Week " + week++, Map.of(
+                    "avgCalories", row != null ? Math.round(toDouble(row[3])) : 0L,
+                    "avgDuration", row != null ? Math.round(toDouble(row[5])) : 0L
+            ));
+        }
+        chartData.put("progressData", progressData);
+
+        return chartData;
+    }
+
+    /**
+     * Workout count, totals and averages per member, one GROUP BY for the instructor's
+     * members and progress tables. Members without a session are left out.
+     */
+    public List<Map<String, Object>> getMemberProgress() {
+        List<Map<String, Object>> progress = new ArrayList<>();
+        for (Object[] row : workoutSessionRepository.aggregateByMember()) {
+            Map<String, Object> member = new LinkedHashMap<>();
+            member.put("userId", ((Number) row[0]).longValue());
+            member.put("totalWorkouts", ((Number) row[1]).longValue());
+            member.put("totalCalories", ((Number) row[2]).longValue());
+            member.put("avgCalories", Math.round(toDouble(row[3])));
+            member.put("avgDuration", Math.round(toDouble(row[4])));
+            member.put("avgHeartRate", Math.round(toDouble(row[5])));
+            member.put("lastActivity", row[6] != null ? toLocalDateTime(row[6]) : null);
+            progress.add(member);
+        }
+        return progress;
+    }
+
+    private Map<LocalDateTime, Object[]> aggregate(Granularity granularity, LocalDateTime start, LocalDateTime end,
+                                                   Long machineId, String machineType, Long userId) {
+        if (start == null || end == null || !start.isBefore(end)) {
+            throw new IllegalArgumentException("Start date must be before end date");
+        }
+        if (granularity.unit.between(granularity.truncate(start), end) >= MAX_BUCKETS) {
+            throw new IllegalArgumentException("Range too large for " + granularity.name().toLowerCase() + " buckets");
+        }
+
+        // Dashboards opened together ask for the same buckets; they share one execution
+        List<Object[]> rows = requestCoalescer.execute("analytics.aggregateByTimeBucket",
+                () -> workoutSessionRepository.aggregateByTimeBucket(
+                        granularity.name().toLowerCase(), start, end,
+                        machineId != null ? machineId : 0L,
+                        machineType != null ? machineType : "",
+                        userId != null ? userId : 0L),
+                granularity, start, end, machineId, machineType, userId);
+
+        Map<LocalDateTime, Object[]> byBucket = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            byBucket.put(toLocalDateTime(row[0]), row);
+        }
+        return byBucket;
+    }
+
+    private List<LocalDateTime> buckets(Granularity granularity, LocalDateTime start, LocalDateTime end) {
+        List<LocalDateTime> buckets = new ArrayList<>();
+        for (LocalDateTime bucket = granularity.truncate(start); bucket.isBefore(end); bucket = bucket.plus(1, granularity.unit)) {
+            buckets.add(bucket);
+        }
+        return buckets;
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value) {
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime();
+        }
+        return (LocalDateTime) value;
+    }
+
+    private static double toDouble(Object value) {
+        return value != null ? ((Number) value).doubleValue() : 0.0;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
+}
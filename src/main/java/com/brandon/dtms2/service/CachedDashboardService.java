@@ -0,0 +1,101 @@
+package com.brandon.dtms2.service;
+
+import com.brandon.dtms2.dto.WorkoutSessionResponseDTO;
+import com.brandon.dtms2.entity.Machine;
+import com.brandon.dtms2.entity.User;
+import com.brandon.dtms2.service.DataVersionService.Table;
+import com.brandon.dtms2.service.StaleWhileRevalidateCache.Cached;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The admin and instructor dashboard reads, served through StaleWhileRevalidateCache.
+ * Each read is cached under its endpoint name, which is also where its maximum
+ * staleness is configured (app.swr.&lt;endpoint&gt;.max-stale-ms), and is tagged
+ * with the versions of the tables it reads.
+ */
+@Service
+public class CachedDashboardService {
+
+    private final StaleWhileRevalidateCache cache;
+    private final DataVersionService dataVersionService;
+    private final DashboardStatsService dashboardStatsService;
+    private final AnalyticsService analyticsService;
+    private final MachineService machineService;
+    private final UserService userService;
+    private final WorkoutSessionService workoutSessionService;
+    private final UserDirectoryService userDirectoryService;
+
+    public CachedDashboardService(StaleWhileRevalidateCache cache,
+                                  DataVersionService dataVersionService,
+                                  DashboardStatsService dashboardStatsService,
+                                  AnalyticsService analyticsService,
+                                  MachineService machineService,
+                                  UserService userService,
+                                  WorkoutSessionService workoutSessionService,
+                                  UserDirectoryService userDirectoryService) {
+        this.cache = cache;
+        this.dataVersionService = dataVersionService;
+        this.dashboardStatsService = dashboardStatsService;
+        this.analyticsService = analyticsService;
+        this.machineService = machineService;
+        this.userService = userService;
+        this.workoutSessionService = workoutSessionService;
+        this.userDirectoryService = userDirectoryService;
+    }
+
+    public Cached<Map<String, Object>> getAdminStats() {
+        String tag = dataVersionService.dailyEtag("admin-stats", Table.SESSIONS, Table.MACHINES, Table.USERS);
+        return cache.get("admin-stats", tag, dashboardStatsService::getAdminStats);
+    }
+
+    public Cached<List<Map<String, Object>>> getMachineUsage() {
+        String tag = dataVersionService.etag("machine-usage", Table.SESSIONS, Table.MACHINES);
+        return cache.get("machine-usage", tag, dashboardStatsService::getMachineUsage);
+    }
+
+    public Cached<Map<String, Object>> getUserActivity() {
+        String tag = dataVersionService.dailyEtag("user-activity", Table.SESSIONS);
+        return cache.get("user-activity", tag, () -> analyticsService.getDailyActivity(7));
+    }
+
+    public Cached<List<Machine>> getMachines() {
+        String tag = dataVersionService.etag("machines", Table.MACHINES);
+        return cache.get("machines", tag, machineService::getAllMachines);
+    }
+
+    // First page of the user directory, further pages come from /api/users/directory
+    public Cached<Map<String, Object>> getUsers() {
+        String tag = dataVersionService.etag("users", Table.USERS);
+        return cache.get("users", tag,
+                () -> userDirectoryService.getPage(null, null, null, null, UserDirectoryService.DEFAULT_PAGE_SIZE));
+    }
+
+    public Cached<Map<String, Object>> getInstructorStats() {
+        String tag = dataVersionService.dailyEtag("instructor-stats", Table.SESSIONS, Table.MACHINES, Table.USERS);
+        return cache.get("instructor-stats", tag, dashboardStatsService::getInstructorStats);
+    }
+
+    public Cached<List<User>> getMembers() {
+        String tag = dataVersionService.etag("members", Table.USERS);
+        return cache.get("members", tag, userService::findAllMembers);
+    }
+
+    public Cached<List<WorkoutSessionResponseDTO>> getWorkoutSessions() {
+        String tag = dataVersionService.etag("workout-sessions", Table.SESSIONS, Table.MACHINES);
+        return cache.get("workout-sessions", tag, () -> workoutSessionService.getAllSessions().stream()
+                .map(WorkoutSessionResponseDTO::fromWorkoutSession).toList());
+    }
+
+    public Cached<List<Map<String, Object>>> getMemberProgress() {
+        String tag = dataVersionService.etag("member-progress", Table.SESSIONS, Table.USERS);
+        return cache.get("member-progress", tag, analyticsService::getMemberProgress);
+    }
+
+    public Cached<Map<String, Object>> getInstructorChartData() {
+        String tag = dataVersionService.dailyEtag("chart-data", Table.SESSIONS, Table.MACHINES);
+        return cache.get("chart-data", tag, analyticsService::getInstructorChartData);
+    }
+}
@@ -0,0 +1,179 @@
+package com.brandon.dtms2.service;
+
+import com.brandon.dtms2.dto.UserDTO;
+import com.brandon.dtms2.dto.UserPrincipal;
+import com.brandon.dtms2.dto.WorkoutSessionResponseDTO;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * One JSON document per dashboard. Panels are computed in parallel on a bounded
+ * pool, each in its own read-only transaction and with its own timeout; a panel
+ * that fails or is too slow is left out and listed under "unavailable" so the page
+ * can fetch it separately instead of waiting. The timeout is also the transaction
+ * timeout, which Spring applies to every query as a statement timeout, so a slow
+ * panel gives its thread and connection back instead of finishing unseen. Each panel
+ * has a limit on runs in flight; past it the panel is reported unavailable at once.
+ * Shared panels come from CachedDashboardService; those served out of date are
+ * listed under "stale".
+ */
+@Service
+public class DashboardCompositeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DashboardCompositeService.class);
+
+    private final CachedDashboardService cachedDashboardService;
+    private final WorkoutSessionService workoutSessionService;
+    private final UserStatsService userStatsService;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ThreadPoolExecutor executor;
+    private final long panelTimeoutMs;
+    private final int panelConcurrency;
+    private final Map<String, Semaphore> inFlight = new ConcurrentHashMap<>();
+
+    public DashboardCompositeService(CachedDashboardService cachedDashboardService,
+                                     WorkoutSessionService workoutSessionService,
+                                     UserStatsService userStatsService,
+                                     PlatformTransactionManager transactionManager,
+                                     @Value("${app.dashboard.panel-threads:8}") int panelThreads,
+                                     @Value("${app.dashboard.panel-queue:200}") int panelQueue,
+                                     @Value("${app.dashboard.panel-timeout-ms:3000}") long panelTimeoutMs,
+                                     @Value("${app.dashboard.panel-concurrency:4}") int panelConcurrency) {
+        this.cachedDashboardService = cachedDashboardService;
+        this.workoutSessionService = workoutSessionService;
+        this.userStatsService = userStatsService;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.readOnlyTransaction.setTimeout((int) Math.max(1, (panelTimeoutMs + 999) / 1000));
+        this.panelTimeoutMs = panelTimeoutMs;
+        this.panelConcurrency = panelConcurrency;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(panelThreads, panelThreads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(panelQueue), runnable -> {
+                    Thread thread = new Thread(runnable, "dashboard-panel-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    public Map<String, Object> getAdminDashboard(UserPrincipal currentUser) {
+        Map<String, Supplier<Object>> panels = new LinkedHashMap<>();
+        panels.put("stats", cachedDashboardService::getAdminStats);
+        panels.put("machines", cachedDashboardService::getMachines);
+        panels.put("users", cachedDashboardService::getUsers);
+        panels.put("userActivity", cachedDashboardService::getUserActivity);
+        return compose("admin", currentUser, panels);
+    }
+
+    public Map<String, Object> getInstructorDashboard(UserPrincipal currentUser) {
+        Map<String, Supplier<Object>> panels = new LinkedHashMap<>();
+        panels.put("stats", cachedDashboardService::getInstructorStats);
+        panels.put("members", () -> cachedDashboardService.getMembers()
+                .map(members -> members.stream().map(UserDTO::fromUser).toList()));
+        // Session lists are bounded pages from the search endpoint, not part of the page load
+        panels.put("memberProgress", cachedDashboardService::getMemberProgress);
+        panels.put("chartData", cachedDashboardService::getInstructorChartData);
+        return compose("instructor", currentUser, panels);
+    }
+
+    public Map<String, Object> getMemberDashboard(UserPrincipal currentUser) {
+        Long userId = currentUser.getId();
+        Map<String, Supplier<Object>> panels = new LinkedHashMap<>();
+        panels.put("machines", cachedDashboardService::getMachines);
+        panels.put("sessions", () -> workoutSessionService.getUserSessions(userId).stream()
+                .map(WorkoutSessionResponseDTO::fromWorkoutSession).toList());
+        panels.put("stats", () -> userStatsService.getStatsSummary(userId));
+        return compose("member", currentUser, panels);
+    }
+
+    private Map<String, Object> compose(String dashboardName, UserPrincipal currentUser, Map<String, Supplier<Object>> panels) {
+        Map<String, CompletableFuture<Object>> futures = new LinkedHashMap<>();
+        panels.forEach((name, panel) -> futures.put(name, submit(dashboardName + "." + name, panel)));
+
+        Map<String, Object> dashboard = new LinkedHashMap<>();
+        dashboard.put("success", true);
+        dashboard.put("currentUser", currentUser);
+
+        List<String> unavailable = new ArrayList<>();
+        List<String> stale = new ArrayList<>();
+        futures.forEach((name, future) -> {
+            Object value = future.join();
+            if (value instanceof StaleWhileRevalidateCache.Cached<?> cached) {
+                if (cached.isStale()) {
+                    stale.add(name);
+                }
+                value = cached.getValue();
+            }
+            if (value != null) {
+                dashboard.put(name, value);
+            } else {
+                unavailable.add(name);
+            }
+        });
+        dashboard.put("partial", !unavailable.isEmpty());
+        dashboard.put("unavailable", unavailable);
+        dashboard.put("stale", stale);
+        return dashboard;
+    }
+
+    // Completes with null instead of failing, so one panel never breaks the page
+    private CompletableFuture<Object> submit(String name, Supplier<Object> panel) {
+        Semaphore permits = inFlight.computeIfAbsent(name, key -> new Semaphore(panelConcurrency));
+        CompletableFuture<Object> future;
+        if (!permits.tryAcquire()) {
+            future = CompletableFuture.failedFuture(new RejectedExecutionException(
+                    panelConcurrency + " runs of the panel already in flight"));
+        } else {
+            try {
+                future = CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return readOnlyTransaction.execute(status -> panel.get());
+                    } finally {
+                        permits.release();
+                    }
+                }, executor);
+            } catch (RejectedExecutionException e) {
+                permits.release();
+                future = CompletableFuture.failedFuture(e);
+            }
+        }
+        return future
+                .orTimeout(panelTimeoutMs, TimeUnit.MILLISECONDS)
+                .exceptionally(error -> {
+                    Throwable cause = error.getCause() != null ? error.getCause() : error;
+                    if (cause instanceof TimeoutException) {
+                        logger.warn("Dashboard panel {} timed out after {} ms", name, panelTimeoutMs);
+                    } else {
+                        logger.warn("Dashboard panel {} failed: {}", name, cause.getMessage());
+                    }
+                    return null;
+                });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
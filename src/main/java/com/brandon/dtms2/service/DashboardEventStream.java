@@ -0,0 +1,321 @@
+package com.brandon.dtms2.service;
+
+import com.brandon.dtms2.entity.User;
+import com.brandon.dtms2.event.ChangeType;
+import com.brandon.dtms2.event.MachineChangedEvent;
+import com.brandon.dtms2.event.SessionSnapshot;
+import com.brandon.dtms2.event.UserChangedEvent;
+import com.brandon.dtms2.event.WorkoutSessionChangedEvent;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * Server-Sent Events for the dashboards. Connections are held by the async servlet
+ * support, not by threads. A single fan-out thread queues each change for every
+ * subscriber allowed to see it, and each subscriber's queue is written by its own
+ * task on a fixed writer pool, so events reach each client in order and publishers
+ * never wait on a slow one. Queues are bounded: a client that falls that far behind
+ * is disconnected, and the dashboard's EventSource reconnects and reloads. A write
+ * that blocks longer than the send timeout (a client whose TCP buffer is full) is
+ * interrupted and its client disconnected too, so stalled clients hold a writer
+ * thread for a bounded time and can never take the whole pool from the others.
+ */
+@Service
+public class DashboardEventStream {
+
+    private static final Logger logger = LoggerFactory.getLogger(DashboardEventStream.class);
+
+    private final long timeoutMs;
+    private final int queueCapacity;
+    private final long sendTimeoutNanos;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService fanOut = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "dashboard-events");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicInteger writerNumber = new AtomicInteger();
+    private final ExecutorService writers;
+    private final ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "dashboard-events-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public DashboardEventStream(@Value("${app.events.timeout-ms:1800000}") long timeoutMs,
+                                @Value("${app.events.subscriber-queue:256}") int queueCapacity,
+                                @Value("${app.events.writer-threads:8}") int writerThreads,
+                                @Value("${app.events.send-timeout-ms:10000}") long sendTimeoutMs) {
+        this.timeoutMs = timeoutMs;
+        this.queueCapacity = queueCapacity;
+        this.sendTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+        this.writers = Executors.newFixedThreadPool(writerThreads, runnable -> {
+            Thread thread = new Thread(runnable, "dashboard-events-writer-" + writerNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        long checkEveryMs = Math.max(1, sendTimeoutMs / 4);
+        watchdog.scheduleWithFixedDelay(this::dropStalledWriters, checkEveryMs, checkEveryMs, TimeUnit.MILLISECONDS);
+    }
+
+    public SseEmitter subscribe(User.UserRole role, Long userId) {
+        return register(new SseEmitter(timeoutMs), role, userId);
+    }
+
+    SseEmitter register(SseEmitter emitter, User.UserRole role, Long userId) {
+        Subscriber subscriber = new Subscriber(emitter, role, userId, queueCapacity);
+        subscribers.add(subscriber);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(error -> subscribers.remove(subscriber));
+        fanOut.execute(() -> enqueue(subscriber, SseEmitter.event().name("connected").data(Map.of("role", role.name()))));
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSessionChanged(WorkoutSessionChangedEvent event) {
+        SessionSnapshot previous = event.getPrevious();
+        SessionSnapshot current = event.getCurrent();
+        SessionSnapshot session = current != null ? current : previous;
+
+        String name = switch (event.getChangeType()) {
+            case CREATED -> "session.created";
+            case UPDATED -> previous != null && previous.isQualityOk() != current.isQualityOk() ? "session.quality" : "session.updated";
+            case DELETED -> "session.deleted";
+        };
+
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("sessionId", session.getId());
+        data.put("userId", session.getUserId());
+        data.put("machineId", session.getMachineId());
+        data.put("machineType", session.getMachineType());
+        data.put("startTime", session.getStartTime());
+        data.put("caloriesBurned", session.getCaloriesBurned());
+        data.put("qualityOk", session.isQualityOk());
+
+        Long ownerId = session.getUserId();
+        publish(name, data, subscriber -> subscriber.role != User.UserRole.MEMBER || Objects.equals(subscriber.userId, ownerId));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMachineChanged(MachineChangedEvent event) {
+        if (event.getChangeType() == ChangeType.UPDATED && Objects.equals(event.getPreviousStatus(), event.getStatus())) {
+            return; // only status changes and fleet changes are pushed
+        }
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("machineId", event.getMachineId());
+        data.put("name", event.getName());
+        data.put("machineType", event.getMachineType());
+        data.put("previousStatus", event.getPreviousStatus());
+        data.put("status", event.getChangeType() == ChangeType.DELETED ? "DELETED" : event.getStatus());
+        publish("machine.status", data, subscriber -> true);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("userId", event.getUserId());
+        data.put("username", event.getUsername());
+        data.put("role", event.getRole());
+        data.put("status", event.getStatus());
+
+        boolean member = event.getRole() == User.UserRole.MEMBER;
+        publish("user." + event.getChangeType().name().toLowerCase(), data,
+                subscriber -> subscriber.role == User.UserRole.ADMIN || (member && subscriber.role == User.UserRole.INSTRUCTOR));
+    }
+
+    // Comment lines keep proxies from closing idle connections and reveal dead ones
+    @Scheduled(fixedRateString = "${app.events.heartbeat-ms:20000}")
+    public void heartbeat() {
+        if (!subscribers.isEmpty()) {
+            fanOut.execute(() -> subscribers.forEach(subscriber -> enqueue(subscriber, SseEmitter.event().comment("heartbeat"))));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.forEach(this::complete);
+        subscribers.clear();
+        fanOut.shutdown();
+        watchdog.shutdownNow();
+        writers.shutdownNow();
+    }
+
+    void publish(String name, Map<String, Object> data, Predicate<Subscriber> audience) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        fanOut.execute(() -> {
+            for (Subscriber subscriber : subscribers) {
+                if (audience.test(subscriber)) {
+                    enqueue(subscriber, SseEmitter.event().name(name).data(data));
+                }
+            }
+        });
+    }
+
+    // Waits for the events queued so far to be written to the remaining subscribers, for tests
+    boolean awaitFanOut(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        try {
+            fanOut.submit(() -> { }).get(timeout, unit);
+        } catch (TimeoutException e) {
+            return false;
+        }
+        while (subscribers.stream().anyMatch(subscriber -> subscriber.draining.get())) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            Thread.sleep(1);
+        }
+        return true;
+    }
+
+    private void enqueue(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        if (!subscriber.pending.offer(event)) {
+            drop(subscriber, "more than " + queueCapacity + " events behind");
+            return;
+        }
+        if (subscriber.draining.compareAndSet(false, true)) {
+            writers.execute(() -> drain(subscriber));
+        }
+    }
+
+    // Writes the subscriber's queue in order; only one drain runs per subscriber at a time
+    private void drain(Subscriber subscriber) {
+        while (true) {
+            SseEmitter.SseEventBuilder event;
+            while ((event = subscriber.pending.poll()) != null) {
+                if (!subscribers.contains(subscriber)) {
+                    complete(subscriber);
+                    return;
+                }
+                String failure = send(subscriber, event);
+                if (failure != null) {
+                    drop(subscriber, failure);
+                    complete(subscriber);
+                    return;
+                }
+            }
+            subscriber.draining.set(false);
+            // An event queued after the last poll but before the flag was cleared
+            if (subscriber.pending.isEmpty() || !subscriber.draining.compareAndSet(false, true)) {
+                if (!subscribers.contains(subscriber)) {
+                    complete(subscriber);
+                }
+                return;
+            }
+        }
+    }
+
+    // Null once written, otherwise why the write failed
+    private String send(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        synchronized (subscriber) {
+            subscriber.writer = Thread.currentThread();
+            subscriber.sendStarted = System.nanoTime();
+        }
+        try {
+            subscriber.emitter.send(event);
+            return null;
+        } catch (IOException | IllegalStateException e) {
+            return String.valueOf(e.getMessage());
+        } finally {
+            synchronized (subscriber) {
+                subscriber.writer = null;
+            }
+        }
+    }
+
+    // Frees the writer threads held by sends that have blocked for longer than the send timeout
+    private void dropStalledWriters() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers) {
+            boolean stalled;
+            synchronized (subscriber) {
+                stalled = subscriber.writer != null && now - subscriber.sendStarted > sendTimeoutNanos;
+            }
+            if (stalled) {
+                drop(subscriber, "send blocked for more than " + TimeUnit.NANOSECONDS.toMillis(sendTimeoutNanos) + " ms");
+            }
+        }
+    }
+
+    /**
+     * Unsubscribe and discard what is queued. While a send is in progress the emitter is locked
+     * by it, so the writer is interrupted and completes the emitter itself when the send gives
+     * up; the fan-out and watchdog threads never wait on a stalled client.
+     */
+    private void drop(Subscriber subscriber, String reason) {
+        if (!subscribers.remove(subscriber)) {
+            return;
+        }
+        subscriber.pending.clear();
+        logger.debug("Dropped dashboard event subscriber: {}", reason);
+        synchronized (subscriber) {
+            if (subscriber.writer != null) {
+                subscriber.writer.interrupt();
+                return;
+            }
+        }
+        if (!subscriber.draining.get()) {
+            complete(subscriber);
+        }
+    }
+
+    private void complete(Subscriber subscriber) {
+        if (subscriber.completed.compareAndSet(false, true)) {
+            try {
+                subscriber.emitter.complete();
+            } catch (RuntimeException e) {
+                // already completed or the connection is gone
+            }
+        }
+    }
+
+    static final class Subscriber {
+        private final SseEmitter emitter;
+        private final User.UserRole role;
+        private final Long userId;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> pending;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean completed = new AtomicBoolean();
+        // The thread inside emitter.send and when it started, guarded by the subscriber
+        private Thread writer;
+        private long sendStarted;
+
+        private Subscriber(SseEmitter emitter, User.UserRole role, Long userId, int queueCapacity) {
+            this.emitter = emitter;
+            this.role = role;
+            this.userId = userId;
+            this.pending = new ArrayBlockingQueue<>(queueCapacity);
+        }
+    }
+}
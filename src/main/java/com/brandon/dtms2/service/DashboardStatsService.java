@@ -0,0 +1,145 @@
+package com.brandon.dtms2.service;
+
+import com.brandon.dtms2.entity.Machine;
+import com.brandon.dtms2.repository.MachineRepository;
+import com.brandon.dtms2.repository.UserRepository;
+import com.brandon.dtms2.repository.WorkoutSessionRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dashboard headline numbers, each from a single aggregate query instead of
+ * loading members and sessions into memory.
+ */
+@Service
+@Transactional(readOnly = true)
+public class DashboardStatsService {
+
+    private final UserRepository userRepository;
+    private final MachineRepository machineRepository;
+    private final WorkoutSessionRepository workoutSessionRepository;
+    private final MemberActivityService memberActivityService;
+    private final ActiveMemberSketchService activeMemberSketchService;
+    private final RequestCoalescer requestCoalescer;
+
+    public DashboardStatsService(UserRepository userRepository,
+                                 MachineRepository machineRepository,
+                                 WorkoutSessionRepository workoutSessionRepository,
+                                 MemberActivityService memberActivityService,
+                                 ActiveMemberSketchService activeMemberSketchService,
+                                 RequestCoalescer requestCoalescer) {
+        this.userRepository = userRepository;
+        this.machineRepository = machineRepository;
+        this.workoutSessionRepository = workoutSessionRepository;
+        this.memberActivityService = memberActivityService;
+        this.activeMemberSketchService = activeMemberSketchService;
+        this.requestCoalescer = requestCoalescer;
+    }
+
+    // Concurrent callers share one run of the queries, see RequestCoalescer
+    public Map<String, Object> getInstructorStats() {
+        return requestCoalescer.execute("dashboard.instructorStats", this::loadInstructorStats);
+    }
+
+    public Map<String, Object> getAdminStats() {
+        return requestCoalescer.execute("dashboard.adminStats", this::loadAdminStats);
+    }
+
+    /**
+     * Usage of every machine from two queries, whatever the size of the fleet.
+     */
+    public List<Map<String, Object>> getMachineUsage() {
+        return requestCoalescer.execute("dashboard.machineUsage", this::loadMachineUsage);
+    }
+
+    private Map<String, Object> loadInstructorStats() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime weekAgo = now.minusDays(7);
+
+        long totalMembers = userRepository.countMembers();
+        long totalSessions = workoutSessionRepository.count();
+        long qualitySessions = workoutSessionRepository.countSessionsWithGoodQuality();
+        Double avgCalories = workoutSessionRepository.findAverageCalories();
+
+        double dataQualityScore = totalSessions == 0 ? 100.0 : (double) qualitySessions / totalSessions * 100;
+        double avgWorkoutsPerMember = totalMembers == 0 ? 0.0 : (double) totalSessions / totalMembers;
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("totalMembers", totalMembers);
+        stats.put("activeThisWeek", memberActivityService.countActiveMembersLastDays(7));
+        stats.put("activeThisMonth", memberActivityService.countActiveMembersLastDays(30));
+        stats.put("avgWorkoutsPerMember", Math.round(avgWorkoutsPerMember * 10.0) / 10.0);
+        stats.put("dataQualityScore", Math.round(dataQualityScore));
+        stats.put("avgCalories", avgCalories != null ? Math.round(avgCalories) : 0);
+        stats.put("totalSessions", totalSessions);
+        stats.put("sessionsThisWeek", workoutSessionRepository.countSessionsSince(weekAgo));
+        stats.put("approxActiveMembers", activeMemberSketchService.getApproximateActiveMembers());
+        return stats;
+    }
+
+    private Map<String, Object> loadAdminStats() {
+        long totalUsers = userRepository.count();
+        long totalSessions = workoutSessionRepository.count();
+        long recentSessions = workoutSessionRepository.countSessionsSince(LocalDateTime.now().minusDays(7));
+
+        long totalMachines = 0;
+        long activeMachines = 0;
+        for (Object[] row : machineRepository.countMachinesGroupedByStatus()) {
+            long count = (Long) row[1];
+            totalMachines += count;
+            if ("ACTIVE".equals(row[0])) {
+                activeMachines = count;
+            }
+        }
+
+        // System health based on machine status
+        double systemHealth = totalMachines > 0 ? (double) activeMachines / totalMachines * 100 : 100;
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("totalUsers", totalUsers);
+        stats.put("totalMachines", totalMachines);
+        stats.put("totalSessions", totalSessions);
+        stats.put("recentSessions", recentSessions);
+        stats.put("activeMachines", activeMachines);
+        stats.put("systemHealth", Math.round(systemHealth));
+        stats.put("approxActiveMembers", activeMemberSketchService.getApproximateActiveMembers());
+        return stats;
+    }
+
+    private List<Map<String, Object>> loadMachineUsage() {
+        Map<Long, Object[]> statistics = new HashMap<>();
+        for (Object[] row : workoutSessionRepository.findMachineStatistics()) {
+            statistics.put(((Number) row[0]).longValue(), row);
+        }
+
+        return machineRepository.findAll().stream().map(machine -> toMachineUsage(machine, statistics.get(machine.getId()))).toList();
+    }
+
+    private Map<String, Object> toMachineUsage(Machine machine, Object[] row) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("id", machine.getId());
+        data.put("machineName", machine.getName());
+        data.put("machineType", machine.getType());
+        data.put("totalSessions", row != null ? ((Number) row[1]).longValue() : 0L);
+        data.put("avgCalories", row != null && row[2] != null ? Math.round(((Number) row[2]).doubleValue()) : 0);
+        data.put("totalMinutes", row != null ? Math.round(((Number) row[3]).doubleValue()) : 0);
+        data.put("lastUsed", row != null ? toLocalDateTime(row[4]) : null);
+        data.put("status", machine.getStatus());
+        data.put("location", machine.getLocation());
+        data.put("lastMaintenance", machine.getLastMaintenance());
+        return data;
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value) {
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime();
+        }
+        return (LocalDateTime) value;
+    }
+}
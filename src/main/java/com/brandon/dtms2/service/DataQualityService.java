@@ -9,6 +9,12 @@ import java.util.List;
 @Service
 public class DataQualityService {
 
+    private final SessionOverlapIndex sessionOverlapIndex;
+
+    public DataQualityService(SessionOverlapIndex sessionOverlapIndex) {
+        this.sessionOverlapIndex = sessionOverlapIndex;
+    }
+
     public void validateWorkoutData(WorkoutSession session) {
         List<String> issues = new ArrayList<>();
 
@@ -85,6 +91,16 @@ public class DataQualityService {
             issues.add("Machine information is required");
         }
 
+        // Overlap validation: one machine cannot host two sessions at the same time
+        if (session.getMachine() != null && session.getStartTime() != null) {
+            LocalDateTime endTime = session.getEndTime();
+            if (endTime == null && session.getDuration() != null) {
+                endTime = session.getStartTime().plus(session.getDuration());
+            }
+            sessionOverlapIndex.findOverlap(session.getMachine().getId(), session.getId(), session.getStartTime(), endTime)
+                    .ifPresent(otherId -> issues.add("Overlaps session " + otherId + " on the same machine"));
+        }
+
         // User validation
         if (session.getUser() == null) {
             issues.add("User information is required");
@@ -0,0 +1,108 @@
+package com.brandon.dtms2.service;
+
+import com.brandon.dtms2.event.MachineChangedEvent;
+import com.brandon.dtms2.event.UserChangedEvent;
+import com.brandon.dtms2.event.WorkoutSessionChangedEvent;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version counters for the session, machine and user tables, bumped after every
+ * committed write through the services. A representation built from some tables is
+ * identified by their versions, so a conditional GET can be answered with 304 by
+ * comparing counters, before any query runs. The counters live in this instance
+ * and restart with it, which is why every tag also carries the boot epoch.
+ */
+@Service
+public class DataVersionService {
+
+    public enum Table { SESSIONS, MACHINES, USERS }
+
+    private static final String REVALIDATE = CacheControl.noCache().cachePrivate().getHeaderValue();
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final Map<Table, AtomicLong> versions = new EnumMap<>(Table.class);
+
+    public DataVersionService() {
+        for (Table table : Table.values()) {
+            versions.put(table, new AtomicLong());
+        }
+    }
+
+    public long getVersion(Table table) {
+        return versions.get(table).get();
+    }
+
+    /**
+     * Strong ETag for a resource that only changes when the given tables do.
+     */
+    public String etag(String resource, Table... tables) {
+        StringBuilder tag = new StringBuilder("\"").append(resource).append('-').append(epoch);
+        for (Table table : tables) {
+            tag.append('-').append(Character.toLowerCase(table.name().charAt(0))).append(getVersion(table));
+        }
+        return tag.append('"').toString();
+    }
+
+    /**
+     * Like {@link #etag} for resources with "today" or "last N days" figures, which also change at midnight.
+     */
+    public String dailyEtag(String resource, Table... tables) {
+        return etag(resource + "-" + LocalDate.now(), tables);
+    }
+
+    /**
+     * True when the request's If-None-Match matches the tag, in which case the response is
+     * already a 304 and the caller should return nothing. Either way the response carries the
+     * tag and asks the browser to revalidate it on every use.
+     */
+    public boolean checkNotModified(ServletWebRequest request, String etag) {
+        if (request.getResponse() != null) {
+            request.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, REVALIDATE);
+        }
+        return request.checkNotModified(etag);
+    }
+
+    /**
+     * For writes that publish no change event, such as bulk updates and cascaded deletes.
+     * Inside a transaction the counter moves after commit, like the listeners below, so a
+     * reader can never pair the new tag with the old rows.
+     */
+    public void bump(Table table) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    versions.get(table).incrementAndGet();
+                }
+            });
+        } else {
+            versions.get(table).incrementAndGet();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSessionChanged(WorkoutSessionChangedEvent event) {
+        versions.get(Table.SESSIONS).incrementAndGet();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMachineChanged(MachineChangedEvent event) {
+        versions.get(Table.MACHINES).incrementAndGet();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        versions.get(Table.USERS).incrementAndGet();
+    }
+}
@@ -0,0 +1,122 @@
+package com.brandon.dtms2.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * users.last_login, written behind the login path. A login only records its time in
+ * memory, keeping the latest per user, and a flush writes everything pending as one
+ * UPDATE joined against unnested arrays, so a burst of logins costs one statement
+ * instead of a row update and row lock each. A failed flush keeps its entries for the
+ * next one; what is still pending at shutdown is flushed then. A flush that changed
+ * any row moves the users data version.
+ */
+@Service
+public class LastLoginWriteBehind {
+
+    private static final Logger logger = LoggerFactory.getLogger(LastLoginWriteBehind.class);
+    private static final int MAX_BATCH = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataVersionService dataVersionService;
+    private final Map<Long, LocalDateTime> pending = new ConcurrentHashMap<>();
+
+    public LastLoginWriteBehind(JdbcTemplate jdbcTemplate, DataVersionService dataVersionService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataVersionService = dataVersionService;
+    }
+
+    public void record(Long userId, LocalDateTime loginTime) {
+        pending.merge(userId, loginTime, (current, next) -> next.isAfter(current) ? next : current);
+    }
+
+    /**
+     * A login time not written yet, newer than what the users table has.
+     */
+    public Optional<LocalDateTime> getPending(Long userId) {
+        return Optional.ofNullable(pending.get(userId));
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    @Scheduled(fixedDelayString = "${app.last-login.flush-interval-ms:10000}")
+    public synchronized void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<Map<Long, LocalDateTime>> batches = new ArrayList<>();
+        Map<Long, LocalDateTime> batch = new HashMap<>();
+        for (Map.Entry<Long, LocalDateTime> entry : pending.entrySet()) {
+            batch.put(entry.getKey(), entry.getValue());
+            if (batch.size() == MAX_BATCH) {
+                batches.add(batch);
+                batch = new HashMap<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            batches.add(batch);
+        }
+
+        int updated = 0;
+        try {
+            for (Map<Long, LocalDateTime> logins : batches) {
+                updated += writeBatch(logins);
+                // Entries a newer login replaced meanwhile stay for the next flush
+                logins.forEach(pending::remove);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Last login flush failed, retrying {} users on the next flush: {}",
+                    pending.size(), e.getMessage());
+        } finally {
+            if (updated > 0) {
+                dataVersionService.bump(DataVersionService.Table.USERS);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    // Never moves last_login backwards, in case another instance wrote a later login. Returns the rows changed
+    int writeBatch(Map<Long, LocalDateTime> logins) {
+        Long[] ids = new Long[logins.size()];
+        Timestamp[] times = new Timestamp[logins.size()];
+        int i = 0;
+        for (Map.Entry<Long, LocalDateTime> entry : logins.entrySet()) {
+            ids[i] = entry.getKey();
+            times[i] = Timestamp.valueOf(entry.getValue());
+            i++;
+        }
+        return jdbcTemplate.update((Connection connection) -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "UPDATE users u SET last_login = v.last_login "
+                            + "FROM unnest(CAST(? AS bigint[]), CAST(? AS timestamp[])) AS v(id, last_login) "
+                            + "WHERE u.id = v.id AND (u.last_login IS NULL OR u.last_login < v.last_login)");
+            Array idArray = connection.createArrayOf("bigint", ids);
+            Array timeArray = connection.createArrayOf("timestamp", times);
+            statement.setArray(1, idArray);
+            statement.setArray(2, timeArray);
+            return statement;
+        });
+    }
+}
@@ -0,0 +1,287 @@
+package com.brandon.dtms2.service;
+
+import com.brandon.dtms2.event.ChangeType;
+import com.brandon.dtms2.event.SessionSnapshot;
+import com.brandon.dtms2.event.UserChangedEvent;
+import com.brandon.dtms2.event.WorkoutSessionChangedEvent;
+import com.brandon.dtms2.repository.UserRepository;
+import com.brandon.dtms2.repository.WorkoutSessionRepository;
+import com.brandon.dtms2.util.RankedScores;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Weekly and monthly leaderboards for calories, distance and session count, kept
+ * in memory as RankedScores. A window is loaded with one GROUP BY when first read
+ * and is then kept current from session change events, so neither saving a session
+ * nor reading a rank sorts workout_sessions. Windows roll over at midnight, or on
+ * the first read after it, and the nightly job also reloads the current windows while
+ * the old boards keep serving reads.
+ */
+@Service
+public class LeaderboardService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LeaderboardService.class);
+
+    public static final int MAX_LIMIT = 100;
+
+    public enum Period {
+        WEEK, MONTH;
+
+        LocalDate windowStart(LocalDate day) {
+            return this == WEEK ? day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)) : day.withDayOfMonth(1);
+        }
+
+        LocalDate windowEnd(LocalDate start) {
+            return this == WEEK ? start.plusWeeks(1) : start.plusMonths(1);
+        }
+    }
+
+    public enum Metric { CALORIES, DISTANCE, SESSIONS }
+
+    private final WorkoutSessionRepository workoutSessionRepository;
+    private final UserRepository userRepository;
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final Map<Period, Board> boards = new ConcurrentHashMap<>();
+    // Boards whose GROUP BY is running; changes committed meanwhile are queued on them
+    private final Map<Period, Board> loading = new ConcurrentHashMap<>();
+    private final Map<Long, String> usernames = new ConcurrentHashMap<>();
+
+    public LeaderboardService(WorkoutSessionRepository workoutSessionRepository,
+                              UserRepository userRepository,
+                              PlatformTransactionManager transactionManager) {
+        this.workoutSessionRepository = workoutSessionRepository;
+        this.userRepository = userRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * A page of the current window's ranking, plus the given member's own rank when there is one.
+     */
+    public Map<String, Object> getLeaderboard(Period period, Metric metric, int offset, int limit, Long memberId) {
+        if (offset < 0 || limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("Offset must be positive and limit between 1 and " + MAX_LIMIT);
+        }
+        Board board = board(period);
+
+        List<RankedScores.Entry> entries;
+        int ranked;
+        synchronized (board) {
+            RankedScores scores = board.scores.get(metric);
+            entries = scores.page(offset, limit);
+            ranked = scores.size();
+        }
+
+        resolveUsernames(entries.stream().map(RankedScores.Entry::getId).toList());
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (RankedScores.Entry entry : entries) {
+            rows.add(toRow(entry.getRank(), entry.getId(), entry.getScore(), metric));
+        }
+
+        Map<String, Object> leaderboard = new LinkedHashMap<>();
+        leaderboard.put("period", period);
+        leaderboard.put("metric", metric);
+        leaderboard.put("from", board.start);
+        leaderboard.put("to", period.windowEnd(board.start).minusDays(1));
+        leaderboard.put("ranked", ranked);
+        leaderboard.put("entries", rows);
+        if (memberId != null) {
+            leaderboard.put("me", getRank(period, metric, memberId));
+        }
+        return leaderboard;
+    }
+
+    /**
+     * The member's rank and score in the current window, rank 0 when they have no score yet.
+     */
+    public Map<String, Object> getRank(Period period, Metric metric, Long memberId) {
+        Board board = board(period);
+        int rank;
+        Double score;
+        synchronized (board) {
+            RankedScores scores = board.scores.get(metric);
+            rank = scores.rankOf(memberId);
+            score = scores.getScore(memberId);
+        }
+        resolveUsernames(List.of(memberId));
+        return toRow(rank, memberId, score != null ? score : 0.0, metric);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSessionChanged(WorkoutSessionChangedEvent event) {
+        // A board moves from loading to boards, so it can briefly be in both
+        Set<Board> targets = Collections.newSetFromMap(new IdentityHashMap<>());
+        targets.addAll(boards.values());
+        targets.addAll(loading.values());
+        for (Board board : targets) {
+            synchronized (board) {
+                if (board.pending != null) {
+                    board.pending.add(event);
+                } else {
+                    apply(board, event);
+                }
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        if (event.getChangeType() == ChangeType.DELETED) {
+            // Their sessions were subtracted by their DELETED events; drop the emptied entries
+            usernames.remove(event.getUserId());
+            List<Board> targets = new ArrayList<>(boards.values());
+            targets.addAll(loading.values());
+            for (Board board : targets) {
+                synchronized (board) {
+                    board.scores.values().forEach(scores -> scores.remove(event.getUserId()));
+                }
+            }
+        } else if (event.getUsername() != null) {
+            usernames.put(event.getUserId(), event.getUsername());
+        }
+    }
+
+    /**
+     * Reload every board that has been read, for the new window after midnight and otherwise to
+     * correct any drift, e.g. from a change whose event raced the GROUP BY. Reads keep using the
+     * current board until the new one replaces it.
+     */
+    @Scheduled(cron = "${app.leaderboards.rollover-cron:0 0 0 * * *}")
+    public synchronized void rollOver() {
+        for (Period period : boards.keySet()) {
+            load(period, period.windowStart(LocalDate.now()));
+        }
+    }
+
+    private Board board(Period period) {
+        LocalDate start = period.windowStart(LocalDate.now());
+        Board board = boards.get(period);
+        if (board != null && board.start.equals(start)) {
+            return board;
+        }
+        synchronized (this) {
+            board = boards.get(period);
+            if (board == null || !board.start.equals(start)) {
+                board = load(period, start);
+            }
+            return board;
+        }
+    }
+
+    /**
+     * Run the GROUP BY and publish the board. Changes committed before the query started are in
+     * its result; the ones delivered while it runs are queued on the board and applied on top,
+     * so a steady stream of writes never forces another load.
+     */
+    private Board load(Period period, LocalDate start) {
+        Board board = new Board(start, period.windowEnd(start));
+        board.pending = new ArrayList<>();
+        loading.put(period, board);
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                for (Object[] row : workoutSessionRepository.findLeaderboardTotalsBetween(board.start.atStartOfDay(), board.end.atStartOfDay())) {
+                    long userId = ((Number) row[0]).longValue();
+                    usernames.put(userId, (String) row[1]);
+                    synchronized (board) {
+                        board.scores.get(Metric.CALORIES).set(userId, ((Number) row[2]).doubleValue());
+                        board.scores.get(Metric.DISTANCE).set(userId, ((Number) row[3]).doubleValue());
+                        board.scores.get(Metric.SESSIONS).set(userId, ((Number) row[4]).doubleValue());
+                    }
+                }
+            });
+            int applied;
+            synchronized (board) {
+                applied = board.pending.size();
+                board.pending.forEach(event -> apply(board, event));
+                board.pending = null;
+            }
+            boards.put(period, board);
+            logger.info("Leaderboard {} from {} loaded with {} members, {} changes applied after the query",
+                    period, start, board.scores.get(Metric.SESSIONS).size(), applied);
+            return board;
+        } finally {
+            loading.remove(period, board);
+        }
+    }
+
+    private static void apply(Board board, WorkoutSessionChangedEvent event) {
+        apply(board, event.getPrevious(), -1);
+        apply(board, event.getCurrent(), 1);
+    }
+
+    private static void apply(Board board, SessionSnapshot session, int sign) {
+        if (session == null || session.getUserId() == null || !board.contains(session.getStartTime())) {
+            return;
+        }
+        if (session.getCaloriesBurned() != null) {
+            board.scores.get(Metric.CALORIES).add(session.getUserId(), sign * session.getCaloriesBurned());
+        }
+        if (session.getDistance() != null) {
+            board.scores.get(Metric.DISTANCE).add(session.getUserId(), sign * session.getDistance());
+        }
+        board.scores.get(Metric.SESSIONS).add(session.getUserId(), sign);
+    }
+
+    private Map<String, Object> toRow(int rank, long userId, double score, Metric metric) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("rank", rank);
+        row.put("userId", userId);
+        row.put("username", usernames.get(userId));
+        row.put("score", metric == Metric.DISTANCE ? Math.round(score * 100.0) / 100.0 : (Object) Math.round(score));
+        return row;
+    }
+
+    /**
+     * Look up, in one query, the names of members whose first session in the window arrived by event.
+     */
+    private void resolveUsernames(List<Long> userIds) {
+        List<Long> missing = userIds.stream().filter(id -> !usernames.containsKey(id)).toList();
+        if (missing.isEmpty()) {
+            return;
+        }
+        for (Object[] row : userRepository.findUsernamesByIds(missing)) {
+            usernames.put(((Number) row[0]).longValue(), (String) row[1]);
+        }
+    }
+
+    private static final class Board {
+        private final LocalDate start;
+        private final LocalDate end;
+        private final Map<Metric, RankedScores> scores = new EnumMap<>(Metric.class);
+        // Changes delivered while the board loads, null once it is current
+        private List<WorkoutSessionChangedEvent> pending;
+
+        private Board(LocalDate start, LocalDate end) {
+            this.start = start;
+            this.end = end;
+            for (Metric metric : Metric.values()) {
+                scores.put(metric, new RankedScores());
+            }
+        }
+
+        private boolean contains(LocalDateTime time) {
+            return time != null && !time.toLocalDate().isBefore(start) && time.toLocalDate().isBefore(end);
+        }
+    }
+}
@@ -1,8 +1,11 @@
 package com.brandon.dtms2.service;
 
 import com.brandon.dtms2.entity.Machine;
+import com.brandon.dtms2.event.ChangeType;
+import com.brandon.dtms2.event.MachineChangedEvent;
 import com.brandon.dtms2.repository.MachineRepository;
 import com.brandon.dtms2.repository.WorkoutSessionRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
@@ -14,12 +17,20 @@ import java.util.Optional;
 @Service
 public class MachineService {
 
+    // Lower bound for "all time" queries, before any session could have been recorded
+    private static final LocalDateTime ALL_TIME = LocalDateTime.of(2000, 1, 1, 0, 0);
+
     private final MachineRepository machineRepository;
     private final WorkoutSessionRepository workoutSessionRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final RequestCoalescer requestCoalescer;
 
-    public MachineService(MachineRepository machineRepository, WorkoutSessionRepository workoutSessionRepository) {
+    public MachineService(MachineRepository machineRepository, WorkoutSessionRepository workoutSessionRepository,
+                          ApplicationEventPublisher eventPublisher, RequestCoalescer requestCoalescer) {
         this.machineRepository = machineRepository;
         this.workoutSessionRepository = workoutSessionRepository;
+        this.eventPublisher = eventPublisher;
+        this.requestCoalescer = requestCoalescer;
     }
 
     public List<Machine> getAllMachines() {
@@ -60,7 +71,9 @@ public class MachineService {
         machine.setCreatedAt(LocalDateTime.now());
         machine.setNextMaintenance(LocalDateTime.now().plusDays(machine.getMaintenanceFrequency()));
 
-        return machineRepository.save(machine);
+        Machine saved = machineRepository.save(machine);
+        publishChange(ChangeType.CREATED, saved, null);
+        return saved;
     }
 
     public Machine updateMachine(Long id, Machine machineDetails) {
@@ -72,6 +85,7 @@ public class MachineService {
             throw new RuntimeException("Machine name already exists");
         }
 
+        String previousStatus = machine.getStatus();
         machine.setName(machineDetails.getName());
         machine.setType(machineDetails.getType());
         machine.setStatus(machineDetails.getStatus());
@@ -85,7 +99,9 @@ public class MachineService {
         machine.setMaxUsageHours(machineDetails.getMaxUsageHours());
         machine.setDailyUsageLimit(machineDetails.getDailyUsageLimit());
 
-        return machineRepository.save(machine);
+        Machine saved = machineRepository.save(machine);
+        publishChange(ChangeType.UPDATED, saved, previousStatus);
+        return saved;
     }
 
     public void deleteMachine(Long id) {
@@ -98,6 +114,7 @@ public class MachineService {
         }
 
         machineRepository.delete(machine);
+        publishChange(ChangeType.DELETED, machine, machine.getStatus());
     }
 
     public List<Machine> getMachinesByStatus(String status) {
@@ -108,6 +125,7 @@ public class MachineService {
         Machine machine = machineRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Machine not found"));
 
+        String previousStatus = machine.getStatus();
         machine.setStatus(status);
         if ("MAINTENANCE".equals(status)) {
             machine.setLastMaintenance(LocalDateTime.now());
@@ -115,19 +133,23 @@ public class MachineService {
             machine.calculateHealthStatus(); // Recalculate health after maintenance
         }
 
-        return machineRepository.save(machine);
+        Machine saved = machineRepository.save(machine);
+        publishChange(ChangeType.UPDATED, saved, previousStatus);
+        return saved;
     }
 
     public void performMaintenance(Long machineId) {
         Machine machine = machineRepository.findById(machineId)
                 .orElseThrow(() -> new RuntimeException("Machine not found"));
 
+        String previousStatus = machine.getStatus();
         machine.setLastMaintenance(LocalDateTime.now());
         machine.setNextMaintenance(LocalDateTime.now().plusDays(machine.getMaintenanceFrequency()));
         machine.setStatus("ACTIVE");
         machine.calculateHealthStatus();
 
-        machineRepository.save(machine);
+        Machine saved = machineRepository.save(machine);
+        publishChange(ChangeType.UPDATED, saved, previousStatus);
     }
 
     public Long getMachineUsageCount(Long machineId) {
@@ -143,12 +165,15 @@ public class MachineService {
         Long totalSessions = workoutSessionRepository.countSessionsByMachine(machine);
         Double avgCalories = workoutSessionRepository.findAverageCaloriesByMachine(machine);
 
-        // Calculate usage hours (assuming 30 minutes per session)
-        double totalUsageHours = totalSessions * 0.5;
+        // Usage hours from the merged session intervals, overlapping sessions count once
+        LocalDateTime now = LocalDateTime.now();
+        double totalUsageHours = getBusySeconds(machineId, ALL_TIME, now) / 3600.0;
+        double last30DaysHours = getBusySeconds(machineId, now.minusDays(30), now) / 3600.0;
 
         Map<String, Object> performance = new HashMap<>();
         performance.put("totalSessions", totalSessions);
         performance.put("totalUsageHours", Math.round(totalUsageHours * 10.0) / 10.0);
+        performance.put("utilizationLast30Days", Math.round(last30DaysHours / (30 * 24) * 1000.0) / 10.0);
         performance.put("avgCalories", avgCalories != null ? Math.round(avgCalories) : 0);
         performance.put("performanceScore", machine.getPerformanceScore());
         performance.put("healthStatus", machine.getHealthStatus());
@@ -156,4 +181,59 @@ public class MachineService {
 
         return performance;
     }
-}
\ No newline at end of file
+
+    /**
+     * Utilization of every machine in [start, end): merged busy time over window length.
+     */
+    public List<Map<String, Object>> getMachineUtilization(LocalDateTime start, LocalDateTime end) {
+        Map<Long, Object[]> busy = new HashMap<>();
+        for (Object[] row : findMergedBusyTime(start, end, 0L)) {
+            busy.put(((Number) row[0]).longValue(), row);
+        }
+
+        return machineRepository.findAllOrderedByName().stream()
+                .map(machine -> toUtilization(machine, busy.get(machine.getId()), start, end))
+                .toList();
+    }
+
+    public Map<String, Object> getMachineUtilization(Long machineId, LocalDateTime start, LocalDateTime end) {
+        Machine machine = machineRepository.findById(machineId)
+                .orElseThrow(() -> new RuntimeException("Machine not found"));
+        List<Object[]> rows = findMergedBusyTime(start, end, machineId);
+        return toUtilization(machine, rows.isEmpty() ? null : rows.get(0), start, end);
+    }
+
+    // Rows of [machineId, busySeconds, sessionCount]; identical concurrent requests share one execution
+    private List<Object[]> findMergedBusyTime(LocalDateTime start, LocalDateTime end, Long machineId) {
+        return requestCoalescer.execute("machines.mergedBusyTime",
+                () -> workoutSessionRepository.findMergedBusyTimeByMachine(start, end, machineId), start, end, machineId);
+    }
+
+    private double getBusySeconds(Long machineId, LocalDateTime start, LocalDateTime end) {
+        List<Object[]> rows = findMergedBusyTime(start, end, machineId);
+        return rows.isEmpty() || rows.get(0)[1] == null ? 0 : ((Number) rows.get(0)[1]).doubleValue();
+    }
+
+    private Map<String, Object> toUtilization(Machine machine, Object[] row, LocalDateTime start, LocalDateTime end) {
+        if (!start.isBefore(end)) {
+            throw new RuntimeException("Start date must be before end date");
+        }
+        double busySeconds = row != null && row[1] != null ? ((Number) row[1]).doubleValue() : 0;
+        long sessions = row != null && row[2] != null ? ((Number) row[2]).longValue() : 0;
+        double windowSeconds = java.time.Duration.between(start, end).getSeconds();
+
+        Map<String, Object> utilization = new HashMap<>();
+        utilization.put("machineId", machine.getId());
+        utilization.put("machineName", machine.getName());
+        utilization.put("machineType", machine.getType());
+        utilization.put("sessions", sessions);
+        utilization.put("busyHours", Math.round(busySeconds / 3600.0 * 10.0) / 10.0);
+        utilization.put("utilizationPercent", Math.round(busySeconds / windowSeconds * 1000.0) / 10.0);
+        return utilization;
+    }
+
+    private void publishChange(ChangeType changeType, Machine machine, String previousStatus) {
+        eventPublisher.publishEvent(new MachineChangedEvent(changeType, machine.getId(), machine.getName(),
+                machine.getType(), previousStatus, machine.getStatus(), machine.getLastMaintenance()));
+    }
+}
@@ -0,0 +1,255 @@
+package com.brandon.dtms2.service;
+
+import com.brandon.dtms2.event.ChangeType;
+import com.brandon.dtms2.event.MachineChangedEvent;
+import com.brandon.dtms2.event.SessionSnapshot;
+import com.brandon.dtms2.event.WorkoutSessionChangedEvent;
+import com.brandon.dtms2.repository.WorkoutSessionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Day-of-week x hour-of-day occupancy per machine. Each machine keeps a 7x24
+ * counter matrix of occupied seconds, built from workout_sessions on first read
+ * and then kept current from session and machine change events.
+ */
+@Service
+public class MachineUsageHeatmapService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MachineUsageHeatmapService.class);
+    private static final int CELLS = 7 * 24;
+    private static final Duration MAX_SESSION_LENGTH = Duration.ofDays(1);
+    private static final List<String> DAYS = List.of("Mon", "Tue", "Wed", "Thu", "Fri", "Sat", "Sun");
+
+    private final WorkoutSessionRepository workoutSessionRepository;
+    private final TransactionTemplate readOnlyTransaction;
+
+    // Replaced whole by rebuild, so readers see the old counters or the new ones, never an empty map
+    private volatile Counters counters;
+    // Guards counters updates; while a rebuild streams the table, changes are also queued here
+    private final Object changes = new Object();
+    private List<Consumer<Counters>> pending;
+
+    public MachineUsageHeatmapService(WorkoutSessionRepository workoutSessionRepository,
+                                      PlatformTransactionManager transactionManager) {
+        this.workoutSessionRepository = workoutSessionRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Throw away the counters and rebuild them from every session interval. Changes delivered
+     * while the stream runs may or may not be in it, so they are queued and replayed on the new
+     * counters before those replace the current ones; the old counters keep taking them too.
+     */
+    public synchronized void rebuild() {
+        Counters rebuilt = new Counters();
+        synchronized (changes) {
+            pending = new ArrayList<>();
+        }
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<Object[]> rows = workoutSessionRepository.streamMachineIntervals()) {
+                    rows.forEach(row -> {
+                        Long machineId = (Long) row[0];
+                        if (row[1] != null) {
+                            rebuilt.types.put(machineId, (String) row[1]);
+                        }
+                        addInterval(rebuilt.cells(machineId), (LocalDateTime) row[2], (LocalDateTime) row[3], 1);
+                    });
+                }
+            });
+
+            int applied;
+            synchronized (changes) {
+                applied = pending.size();
+                pending.forEach(change -> change.accept(rebuilt));
+                counters = rebuilt;
+            }
+            logger.info("Machine usage heatmap rebuilt for {} machines, {} changes applied after the query",
+                    rebuilt.seconds.size(), applied);
+        } finally {
+            synchronized (changes) {
+                pending = null;
+            }
+        }
+    }
+
+    /**
+     * Rebuild overnight to correct any drift, e.g. from capping a very long session differently
+     * when it was added and when it was removed. Does nothing until the heatmap has been read.
+     */
+    @Scheduled(cron = "${app.heatmap.rebuild-cron:0 30 3 * * *}")
+    public void scheduledRebuild() {
+        if (counters != null) {
+            rebuild();
+        }
+    }
+
+    public Map<String, Object> getMachineHeatmap(Long machineId) {
+        return getMachineHeatmap(loaded(), machineId);
+    }
+
+    public List<Map<String, Object>> getAllMachineHeatmaps() {
+        Counters current = loaded();
+        List<Map<String, Object>> heatmaps = new ArrayList<>();
+        for (Long machineId : current.seconds.keySet()) {
+            heatmaps.add(getMachineHeatmap(current, machineId));
+        }
+        return heatmaps;
+    }
+
+    public Map<String, Object> getTypeHeatmaps() {
+        Counters current = loaded();
+        Map<String, long[]> byType = new HashMap<>();
+        current.seconds.forEach((machineId, cells) -> {
+            long[] total = byType.computeIfAbsent(current.types.getOrDefault(machineId, "Unknown"), type -> new long[CELLS]);
+            for (int i = 0; i < CELLS; i++) {
+                total[i] += cells.get(i);
+            }
+        });
+
+        Map<String, Object> heatmaps = new LinkedHashMap<>();
+        byType.forEach((type, cells) -> heatmaps.put(type, toHeatmap(new AtomicLongArray(cells))));
+        return heatmaps;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSessionChanged(WorkoutSessionChangedEvent event) {
+        record(target -> {
+            apply(target, event.getPrevious(), -1);
+            apply(target, event.getCurrent(), 1);
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMachineChanged(MachineChangedEvent event) {
+        record(target -> {
+            if (event.getChangeType() == ChangeType.DELETED) {
+                target.seconds.remove(event.getMachineId());
+                target.types.remove(event.getMachineId());
+            } else if (event.getMachineType() != null) {
+                target.types.put(event.getMachineId(), event.getMachineType());
+            }
+        });
+    }
+
+    /**
+     * Apply a change to the published counters and queue it for a rebuild in progress. Before the
+     * first build there is nothing to apply it to, and with no build running the first read will
+     * find it in the table.
+     */
+    private void record(Consumer<Counters> change) {
+        synchronized (changes) {
+            if (counters != null) {
+                change.accept(counters);
+            }
+            if (pending != null) {
+                pending.add(change);
+            }
+        }
+    }
+
+    private Counters loaded() {
+        Counters current = counters;
+        if (current == null) {
+            synchronized (this) {
+                if (counters == null) {
+                    rebuild();
+                }
+                current = counters;
+            }
+        }
+        return current;
+    }
+
+    private Map<String, Object> getMachineHeatmap(Counters current, Long machineId) {
+        Map<String, Object> heatmap = toHeatmap(current.seconds.get(machineId));
+        heatmap.put("machineId", machineId);
+        heatmap.put("machineType", current.types.get(machineId));
+        return heatmap;
+    }
+
+    private static void apply(Counters target, SessionSnapshot session, int sign) {
+        if (session == null || session.getMachineId() == null) {
+            return;
+        }
+        if (session.getMachineType() != null) {
+            target.types.put(session.getMachineId(), session.getMachineType());
+        }
+        addInterval(target.cells(session.getMachineId()), session.getStartTime(), session.getEndTime(), sign);
+    }
+
+    /**
+     * Spread the [start, end) interval over the hour cells it touches.
+     */
+    private static void addInterval(AtomicLongArray cells, LocalDateTime start, LocalDateTime end, int sign) {
+        if (start == null || end == null || !end.isAfter(start)) {
+            return;
+        }
+        if (Duration.between(start, end).compareTo(MAX_SESSION_LENGTH) > 0) {
+            end = start.plus(MAX_SESSION_LENGTH);
+        }
+
+        LocalDateTime cursor = start;
+        while (cursor.isBefore(end)) {
+            LocalDateTime nextHour = cursor.truncatedTo(ChronoUnit.HOURS).plusHours(1);
+            LocalDateTime sliceEnd = nextHour.isBefore(end) ? nextHour : end;
+            int cell = (cursor.getDayOfWeek().getValue() - 1) * 24 + cursor.getHour();
+            cells.addAndGet(cell, sign * Duration.between(cursor, sliceEnd).getSeconds());
+            cursor = sliceEnd;
+        }
+    }
+
+    private static Map<String, Object> toHeatmap(AtomicLongArray cells) {
+        List<List<Long>> matrix = new ArrayList<>();
+        long peak = 0;
+        String peakSlot = null;
+        for (int day = 0; day < 7; day++) {
+            List<Long> hours = new ArrayList<>();
+            for (int hour = 0; hour < 24; hour++) {
+                long minutes = cells != null ? Math.max(0, cells.get(day * 24 + hour)) / 60 : 0;
+                hours.add(minutes);
+                if (minutes > peak) {
+                    peak = minutes;
+                    peakSlot = DAYS.get(day) + " " + String.format("%02d:00", hour);
+                }
+            }
+            matrix.add(hours);
+        }
+
+        Map<String, Object> heatmap = new LinkedHashMap<>();
+        heatmap.put("unit", "occupiedMinutes");
+        heatmap.put("days", DAYS);
+        heatmap.put("matrix", matrix);
+        heatmap.put("peakSlot", peakSlot);
+        return heatmap;
+    }
+
+    private static final class Counters {
+        private final Map<Long, AtomicLongArray> seconds = new ConcurrentHashMap<>();
+        private final Map<Long, String> types = new ConcurrentHashMap<>();
+
+        private AtomicLongArray cells(Long machineId) {
+            return seconds.computeIfAbsent(machineId, id -> new AtomicLongArray(CELLS));
+        }
+    }
+}
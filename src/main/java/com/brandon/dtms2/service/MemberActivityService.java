@@ -0,0 +1,180 @@
+package com.brandon.dtms2.service;
+
+import com.brandon.dtms2.entity.User;
+import com.brandon.dtms2.event.ChangeType;
+import com.brandon.dtms2.event.SessionSnapshot;
+import com.brandon.dtms2.event.UserChangedEvent;
+import com.brandon.dtms2.event.WorkoutSessionChangedEvent;
+import com.brandon.dtms2.repository.UserRepository;
+import com.brandon.dtms2.repository.WorkoutSessionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One bitmap per day of the ids of users who logged a session that day. The number
+ * of active members in any window is the cardinality of the OR of its days, ANDed
+ * with a bitmap of the users whose role is MEMBER, so the dashboards never scan
+ * workout_sessions for it. Bitmaps cover the last HORIZON_DAYS, with older days
+ * dropped as the date moves on, and are kept current from session and user change
+ * events; older windows fall back to SQL.
+ */
+@Service
+public class MemberActivityService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MemberActivityService.class);
+    // Longer than the longest window served (a year), so every dashboard window stays in memory
+    private static final int HORIZON_DAYS = 400;
+
+    private final WorkoutSessionRepository workoutSessionRepository;
+    private final UserRepository userRepository;
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final Map<LocalDate, BitSet> usersByDay = new ConcurrentHashMap<>();
+    private final BitSet members = new BitSet();
+    private volatile LocalDate loadedFrom;
+
+    public MemberActivityService(WorkoutSessionRepository workoutSessionRepository,
+                                 UserRepository userRepository,
+                                 PlatformTransactionManager transactionManager) {
+        this.workoutSessionRepository = workoutSessionRepository;
+        this.userRepository = userRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Distinct members with a session between from and to, both days included.
+     */
+    public long countActiveMembers(LocalDate from, LocalDate to) {
+        ensureLoaded();
+        evictExpiredDays();
+        if (from.isBefore(loadedFrom)) {
+            return workoutSessionRepository.countDistinctMembersBetween(from.atStartOfDay(), to.plusDays(1).atStartOfDay());
+        }
+
+        LocalDate last = to.isAfter(LocalDate.now()) ? LocalDate.now() : to;
+        BitSet union = new BitSet();
+        for (LocalDate day = from; !day.isAfter(last); day = day.plusDays(1)) {
+            BitSet users = usersOn(day);
+            synchronized (users) {
+                union.or(users);
+            }
+        }
+        synchronized (members) {
+            union.and(members);
+        }
+        return union.cardinality();
+    }
+
+    public long countActiveMembersLastDays(int days) {
+        LocalDate today = LocalDate.now();
+        return countActiveMembers(today.minusDays(days - 1L), today);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSessionChanged(WorkoutSessionChangedEvent event) {
+        if (loadedFrom == null) {
+            return; // the first read loads everything
+        }
+        SessionSnapshot previous = event.getPrevious();
+        if (previous != null && previous.getStartTime() != null) {
+            // The user may have had other sessions that day, rebuild the day on its next read
+            usersByDay.remove(previous.getStartTime().toLocalDate());
+        }
+        SessionSnapshot current = event.getCurrent();
+        if (current != null && current.getStartTime() != null && current.getUserId() != null) {
+            LocalDate day = current.getStartTime().toLocalDate();
+            if (!day.isBefore(loadedFrom) && (previous == null || usersByDay.containsKey(day))) {
+                BitSet users = usersByDay.computeIfAbsent(day, d -> new BitSet());
+                synchronized (users) {
+                    users.set(Math.toIntExact(current.getUserId()));
+                }
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        if (event.getUserId() == null) {
+            return;
+        }
+        int userId = Math.toIntExact(event.getUserId());
+        synchronized (members) {
+            members.set(userId, event.getChangeType() != ChangeType.DELETED
+                    && event.getRole() == User.UserRole.MEMBER);
+        }
+    }
+
+    /**
+     * Drop the days that fell out of the horizon since the last read.
+     */
+    private void evictExpiredDays() {
+        LocalDate horizon = LocalDate.now().minusDays(HORIZON_DAYS);
+        if (!horizon.isAfter(loadedFrom)) {
+            return;
+        }
+        synchronized (this) {
+            if (horizon.isAfter(loadedFrom)) {
+                usersByDay.keySet().removeIf(day -> day.isBefore(horizon));
+                loadedFrom = horizon;
+            }
+        }
+    }
+
+    private BitSet usersOn(LocalDate day) {
+        BitSet users = usersByDay.get(day);
+        if (users != null) {
+            return users;
+        }
+        // Days invalidated by an update or delete, or days after the initial load
+        BitSet loaded = load(day, day).getOrDefault(day, new BitSet());
+        return usersByDay.merge(day, loaded, (existing, fresh) -> {
+            synchronized (existing) {
+                existing.or(fresh);
+            }
+            return existing;
+        });
+    }
+
+    private synchronized void ensureLoaded() {
+        if (loadedFrom != null) {
+            return;
+        }
+        LocalDate from = LocalDate.now().minusDays(HORIZON_DAYS);
+        readOnlyTransaction.executeWithoutResult(status -> {
+            for (Long memberId : userRepository.findIdsByRole(User.UserRole.MEMBER)) {
+                synchronized (members) {
+                    members.set(Math.toIntExact(memberId));
+                }
+            }
+        });
+        Map<LocalDate, BitSet> days = load(from, LocalDate.now());
+        for (LocalDate day = from; !day.isAfter(LocalDate.now()); day = day.plusDays(1)) {
+            usersByDay.put(day, days.getOrDefault(day, new BitSet()));
+        }
+        loadedFrom = from;
+        logger.info("Member activity bitmaps loaded for {} days", days.size());
+    }
+
+    private Map<LocalDate, BitSet> load(LocalDate from, LocalDate to) {
+        Map<LocalDate, BitSet> days = new HashMap<>();
+        readOnlyTransaction.executeWithoutResult(status -> {
+            for (Object[] row : workoutSessionRepository.findActiveUserDaysBetween(from.atStartOfDay(), to.plusDays(1).atStartOfDay())) {
+                LocalDate day = row[0] instanceof Date date ? date.toLocalDate() : (LocalDate) row[0];
+                days.computeIfAbsent(day, d -> new BitSet()).set(Math.toIntExact(((Number) row[1]).longValue()));
+            }
+        });
+        return days;
+    }
+}
@@ -0,0 +1,150 @@
+package com.brandon.dtms2.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Runs BCrypt work (login and registration) on a small dedicated pool instead of the
+ * request threads, so a burst of sign-ins cannot occupy every Tomcat thread and stall
+ * the rest of the API. The queue in front of the pool is bounded: when it is full,
+ * submit throws RejectedExecutionException and callers answer 503 with Retry-After.
+ * Time spent queued and hashing is recorded for /api/admin/password-hashing.
+ */
+@Service
+public class PasswordHashingService {
+
+    private static final Logger log = LoggerFactory.getLogger(PasswordHashingService.class);
+
+    private static final int QUEUE_SAMPLES = 1024;
+
+    private final ThreadPoolExecutor executor;
+    private final int threads;
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong queueNanos = new AtomicLong();
+    private final AtomicLong runNanos = new AtomicLong();
+
+    // Most recent queue waits, for percentiles
+    private final long[] queueSamples = new long[QUEUE_SAMPLES];
+    private int queueSampleCount;
+    private int nextQueueSample;
+
+    public PasswordHashingService(@Value("${app.password.hash-threads:0}") int threads,
+                                  @Value("${app.password.hash-queue:32}") int queueCapacity) {
+        this.threads = threads > 0 ? threads : Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(this.threads, this.threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Run the task on the hashing pool.
+     *
+     * @throws RejectedExecutionException when the pool and its queue are full
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        long queuedAt = System.nanoTime();
+        try {
+            CompletableFuture<T> future = CompletableFuture.supplyAsync(() -> {
+                long startedAt = System.nanoTime();
+                recordQueueWait(startedAt - queuedAt);
+                try {
+                    return task.get();
+                } finally {
+                    runNanos.addAndGet(System.nanoTime() - startedAt);
+                    completed.incrementAndGet();
+                }
+            }, executor);
+            submitted.incrementAndGet();
+            return future;
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            log.debug("Password hashing queue full ({} queued), rejecting request", executor.getQueue().size());
+            throw e;
+        }
+    }
+
+    /**
+     * Seconds a rejected caller should wait: the time the pool needs to drain its
+     * current queue at the average hashing time seen so far, at least one second.
+     */
+    public long retryAfterSeconds() {
+        long done = completed.get();
+        long averageNanos = done > 0 ? runNanos.get() / done : TimeUnit.MILLISECONDS.toNanos(100);
+        long drainNanos = averageNanos * (executor.getQueue().size() + executor.getActiveCount()) / threads;
+        return Math.max(1, (long) Math.ceil(drainNanos / 1e9));
+    }
+
+    public Map<String, Object> getStats() {
+        long done = completed.get();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("threads", threads);
+        stats.put("active", executor.getActiveCount());
+        stats.put("queued", executor.getQueue().size());
+        stats.put("queueCapacity", executor.getQueue().size() + executor.getQueue().remainingCapacity());
+        stats.put("submitted", submitted.get());
+        stats.put("rejected", rejected.get());
+        stats.put("completed", done);
+        stats.put("avgQueueMs", done > 0 ? nanosToMillis(queueNanos.get() / done) : 0.0);
+        stats.put("avgHashMs", done > 0 ? nanosToMillis(runNanos.get() / done) : 0.0);
+
+        long[] samples;
+        synchronized (queueSamples) {
+            samples = Arrays.copyOf(queueSamples, queueSampleCount);
+        }
+        Arrays.sort(samples);
+        stats.put("p50QueueMs", percentileMillis(samples, 0.50));
+        stats.put("p99QueueMs", percentileMillis(samples, 0.99));
+        stats.put("maxQueueMs", samples.length > 0 ? nanosToMillis(samples[samples.length - 1]) : 0.0);
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private void recordQueueWait(long nanos) {
+        queueNanos.addAndGet(nanos);
+        synchronized (queueSamples) {
+            queueSamples[nextQueueSample] = nanos;
+            nextQueueSample = (nextQueueSample + 1) % QUEUE_SAMPLES;
+            queueSampleCount = Math.min(queueSampleCount + 1, QUEUE_SAMPLES);
+        }
+    }
+
+    private static double percentileMillis(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0.0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return nanosToMillis(sorted[Math.max(0, index)]);
+    }
+
+    private static double nanosToMillis(long nanos) {
+        return Math.round(nanos / 10_000.0) / 100.0;
+    }
+}
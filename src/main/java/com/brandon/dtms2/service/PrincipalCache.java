@@ -0,0 +1,85 @@
+package com.brandon.dtms2.service;
+
+import com.brandon.dtms2.dto.UserPrincipal;
+import com.brandon.dtms2.event.UserChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Signed-in users by username, so resolving the caller of an API request does not
+ * query the users table every time. Entries expire after a TTL and are dropped as
+ * soon as UserService updates, changes the password of or deletes the user. The
+ * cache holds at most max-entries users; when full, expired entries go first,
+ * then the ones loaded longest ago.
+ */
+@Service
+public class PrincipalCache {
+
+    private final UserService userService;
+    private final long ttlMs;
+    private final int maxEntries;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    // Invalidations so far, so a lookup that raced with one is not cached
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public PrincipalCache(UserService userService,
+                          @Value("${app.principal-cache.ttl-ms:300000}") long ttlMs,
+                          @Value("${app.principal-cache.max-entries:10000}") int maxEntries) {
+        this.userService = userService;
+        this.ttlMs = ttlMs;
+        this.maxEntries = maxEntries;
+    }
+
+    public Optional<UserPrincipal> get(String username) {
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(username);
+        if (entry != null && now - entry.loadedAt < ttlMs) {
+            return Optional.of(entry.principal);
+        }
+
+        long invalidationsBefore = invalidations.get();
+        Optional<UserPrincipal> principal = userService.findByUsername(username).map(UserPrincipal::of);
+        if (principal.isPresent() && invalidations.get() == invalidationsBefore) {
+            if (entries.size() >= maxEntries) {
+                evict(now);
+            }
+            entries.put(username, new Entry(principal.get(), now));
+        } else if (principal.isEmpty()) {
+            entries.remove(username);
+        }
+        return principal;
+    }
+
+    public void invalidate(Long userId) {
+        invalidations.incrementAndGet();
+        entries.values().removeIf(entry -> entry.principal.getId().equals(userId));
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        invalidate(event.getUserId());
+    }
+
+    private synchronized void evict(long now) {
+        entries.values().removeIf(entry -> now - entry.loadedAt >= ttlMs);
+        while (entries.size() >= maxEntries) {
+            entries.entrySet().stream()
+                    .min((a, b) -> Long.compare(a.getValue().loadedAt, b.getValue().loadedAt))
+                    .ifPresent(oldest -> entries.remove(oldest.getKey(), oldest.getValue()));
+        }
+    }
+
+    private record Entry(UserPrincipal principal, long loadedAt) {
+    }
+}
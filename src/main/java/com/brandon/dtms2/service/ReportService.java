@@ -1,6 +1,5 @@
 package com.brandon.dtms2.service;
 
-import com.brandon.dtms2.entity.Machine;
 import com.brandon.dtms2.entity.User;
 import com.brandon.dtms2.entity.WorkoutSession;
 import com.brandon.dtms2.repository.WorkoutSessionRepository;
@@ -12,7 +11,6 @@ import org.springframework.stereotype.Service;
 import java.io.StringWriter;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -26,16 +24,24 @@ public class ReportService {
 
     private final UserRepository userRepository;
 
+    private final SystemOverviewService systemOverviewService;
+
+    private final WorkoutSessionService workoutSessionService;
+
     public ReportService(WorkoutSessionRepository workoutSessionRepository, MachineRepository machineRepository,
-                         UserRepository userRepository) {
+                         UserRepository userRepository, SystemOverviewService systemOverviewService,
+                         WorkoutSessionService workoutSessionService) {
         this.workoutSessionRepository = workoutSessionRepository;
         this.machineRepository = machineRepository;
         this.userRepository = userRepository;
+        this.systemOverviewService = systemOverviewService;
+        this.workoutSessionService = workoutSessionService;
     }
 
     public String generateUsageReportCSV(LocalDateTime startDate, LocalDateTime endDate) {
         try {
-            List<WorkoutSession> sessions = workoutSessionRepository.findSessionsBetweenDates(startDate, endDate);
+            // Shared with concurrent exports of the same period; only the machine is read below
+            List<WorkoutSession> sessions = workoutSessionService.getSessionsBetweenDates(startDate, endDate);
 
             StringWriter writer = new StringWriter();
             writer.write("Machine Usage Report\n");
@@ -198,43 +204,7 @@ public class ReportService {
     }
 
     public Map<String, Object> generateSystemReport() {
-        Map<String, Object> report = new HashMap<>();
-
-        try {
-            // Basic statistics
-            report.put("totalUsers", userRepository.count());
-            report.put("totalMachines", machineRepository.count());
-            report.put("totalSessions", workoutSessionRepository.count());
-
-            // Machine usage statistics
-            List<Machine> machines = machineRepository.findAll();
-            Map<String, Object> machineStats = machines.stream()
-                    .collect(Collectors.toMap(
-                            Machine::getName,
-                            machine -> Map.of(
-                                    "sessions", machine.getWorkoutSessions().size(),
-                                    "status", machine.getStatus() != null ? machine.getStatus() : "Unknown",
-                                    "lastMaintenance", machine.getLastMaintenance() != null ?
-                                            machine.getLastMaintenance().format(DateTimeFormatter.ISO_DATE) : "Never"
-                            )
-                    ));
-            report.put("machineStatistics", machineStats);
-
-            // User activity
-            LocalDateTime weekAgo = LocalDateTime.now().minusDays(7);
-            List<WorkoutSession> recentSessions = workoutSessionRepository.findSessionsBetweenDates(weekAgo, LocalDateTime.now());
-            report.put("recentActivity", recentSessions.size());
-
-            // Data quality metrics
-            long totalSessions = workoutSessionRepository.count();
-            long qualitySessions = workoutSessionRepository.findAll().stream()
-                    .filter(session -> session.getDataQualityFlag() != null && session.getDataQualityFlag())
-                    .count();
-            report.put("dataQualityScore", totalSessions > 0 ? (double) qualitySessions / totalSessions * 100 : 100);
-
-            return report;
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to generate system report: " + e.getMessage(), e);
-        }
+        // Served from the in-memory snapshot, see SystemOverviewService
+        return systemOverviewService.getOverview();
     }
 }
\ No newline at end of file
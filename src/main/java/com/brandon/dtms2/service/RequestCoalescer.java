@@ -0,0 +1,106 @@
+package com.brandon.dtms2.service;
+
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight execution of read queries. A caller asking for a query that is
+ * already running with the same parameters waits for that execution and gets its
+ * result instead of starting another one. Times are compared to the second, so
+ * "the last 7 days" asked by many dashboards in the same second is one query.
+ * Results are shared between callers and must be treated as read-only.
+ */
+@Service
+public class RequestCoalescer {
+
+    private final Map<Key, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Counters> counters = new ConcurrentHashMap<>();
+
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String query, Supplier<T> loader, Object... params) {
+        Key key = new Key(query, normalize(params));
+        Counters queryCounters = counters.computeIfAbsent(query, q -> new Counters());
+
+        CompletableFuture<Object> execution = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(key, execution);
+        if (running != null) {
+            queryCounters.coalesced.incrementAndGet();
+            return (T) await(running);
+        }
+
+        queryCounters.executions.incrementAndGet();
+        try {
+            T result = loader.get();
+            execution.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            execution.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, execution);
+        }
+    }
+
+    /**
+     * Executions and coalesced calls per query since startup, plus the totals.
+     */
+    public Map<String, Object> getStats() {
+        long executions = 0;
+        long coalesced = 0;
+        Map<String, Object> queries = new TreeMap<>();
+        for (Map.Entry<String, Counters> entry : counters.entrySet()) {
+            long queryExecutions = entry.getValue().executions.get();
+            long queryCoalesced = entry.getValue().coalesced.get();
+            queries.put(entry.getKey(), Map.of("executions", queryExecutions, "coalesced", queryCoalesced));
+            executions += queryExecutions;
+            coalesced += queryCoalesced;
+        }
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("executions", executions);
+        stats.put("coalesced", coalesced);
+        stats.put("inFlight", inFlight.size());
+        stats.put("queries", queries);
+        return stats;
+    }
+
+    private static Object await(CompletableFuture<Object> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static List<Object> normalize(Object[] params) {
+        return Arrays.stream(params)
+                .map(param -> param instanceof LocalDateTime time ? time.truncatedTo(ChronoUnit.SECONDS) : param)
+                .toList();
+    }
+
+    private record Key(String query, List<Object> params) {
+    }
+
+    private static final class Counters {
+        private final AtomicLong executions = new AtomicLong();
+        private final AtomicLong coalesced = new AtomicLong();
+    }
+}
@@ -0,0 +1,182 @@
+package com.brandon.dtms2.service;
+
+import com.brandon.dtms2.event.SessionSnapshot;
+import com.brandon.dtms2.event.WorkoutSessionChangedEvent;
+import com.brandon.dtms2.repository.WorkoutSessionRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Recent session intervals per machine, used to spot two sessions on the same
+ * machine at the same time. A machine's intervals are loaded with one query the
+ * first time it is checked and are then kept current from session change events,
+ * so writes never pay for a range query of their own.
+ */
+@Service
+public class SessionOverlapIndex {
+
+    // Sessions starting earlier than this are rejected by DataQualityService anyway
+    private static final Duration RETENTION = Duration.ofDays(366);
+
+    private final WorkoutSessionRepository workoutSessionRepository;
+    private final Map<Long, MachineIntervals> intervalsByMachine = new ConcurrentHashMap<>();
+    // Change queues of the loads in progress per machine; also the lock that publishes a load
+    private final Map<Long, List<List<Consumer<MachineIntervals>>>> loading = new HashMap<>();
+
+    public SessionOverlapIndex(WorkoutSessionRepository workoutSessionRepository) {
+        this.workoutSessionRepository = workoutSessionRepository;
+    }
+
+    /**
+     * Id of a stored session on the machine that overlaps [start, end), ignoring the session itself.
+     */
+    public Optional<Long> findOverlap(Long machineId, Long sessionId, LocalDateTime start, LocalDateTime end) {
+        if (machineId == null || start == null || end == null || !start.isBefore(end)) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(intervalsFor(machineId).findOverlap(sessionId, start, end));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSessionChanged(WorkoutSessionChangedEvent event) {
+        SessionSnapshot previous = event.getPrevious();
+        if (previous != null && previous.getMachineId() != null) {
+            record(previous.getMachineId(), intervals -> intervals.remove(previous.getId(), previous.getStartTime()));
+        }
+        SessionSnapshot current = event.getCurrent();
+        if (current != null && current.getMachineId() != null) {
+            record(current.getMachineId(), intervals -> intervals.add(current.getId(), current.getStartTime(), current.getEndTime()));
+        }
+    }
+
+    /**
+     * Apply a change to the machine's intervals, or queue it for each load of them in progress.
+     * Machines nobody has checked yet are loaded from the table on first use.
+     */
+    private void record(Long machineId, Consumer<MachineIntervals> change) {
+        MachineIntervals intervals;
+        synchronized (loading) {
+            intervals = intervalsByMachine.get(machineId);
+            if (intervals == null) {
+                loading.getOrDefault(machineId, List.of()).forEach(pending -> pending.add(change));
+                return;
+            }
+        }
+        change.accept(intervals);
+    }
+
+    private MachineIntervals intervalsFor(Long machineId) {
+        MachineIntervals existing = intervalsByMachine.get(machineId);
+        if (existing != null) {
+            return existing;
+        }
+        // Changes committed while the query runs may be missing from its result; they are queued
+        // here and replayed on the loaded intervals when those are published
+        List<Consumer<MachineIntervals>> pending = new ArrayList<>();
+        synchronized (loading) {
+            existing = intervalsByMachine.get(machineId);
+            if (existing != null) {
+                return existing;
+            }
+            loading.computeIfAbsent(machineId, id -> new ArrayList<>()).add(pending);
+        }
+
+        // Loaded outside the map, so a slow query never blocks other machines' bins
+        MachineIntervals intervals = new MachineIntervals();
+        try {
+            for (Object[] row : workoutSessionRepository.findMachineIntervalsSince(machineId, LocalDateTime.now().minus(RETENTION))) {
+                intervals.add((Long) row[0], (LocalDateTime) row[1], (LocalDateTime) row[2]);
+            }
+            synchronized (loading) {
+                MachineIntervals raced = intervalsByMachine.putIfAbsent(machineId, intervals);
+                if (raced != null) {
+                    return raced;
+                }
+                pending.forEach(change -> change.accept(intervals));
+                return intervals;
+            }
+        } finally {
+            synchronized (loading) {
+                List<List<Consumer<MachineIntervals>>> loads = loading.get(machineId);
+                loads.removeIf(load -> load == pending);
+                if (loads.isEmpty()) {
+                    loading.remove(machineId);
+                }
+            }
+        }
+    }
+
+    /**
+     * Intervals of one machine keyed by start time. Sessions are bounded in length, so
+     * anything overlapping [start, end) starts within [start - longest, end): one
+     * O(log n) seek and a scan of the few neighbours in that range. Lengths are counted
+     * in a multiset, so the longest shrinks again when a long session goes away.
+     */
+    private static class MachineIntervals {
+        private final NavigableMap<LocalDateTime, Map<Long, LocalDateTime>> byStart = new TreeMap<>();
+        private final NavigableMap<Duration, Integer> lengths = new TreeMap<>();
+
+        synchronized Long findOverlap(Long sessionId, LocalDateTime start, LocalDateTime end) {
+            Duration longest = longest();
+            for (Map<Long, LocalDateTime> sessions : byStart.subMap(start.minus(longest), true, end, false).values()) {
+                for (Map.Entry<Long, LocalDateTime> session : sessions.entrySet()) {
+                    if (!session.getKey().equals(sessionId) && session.getValue().isAfter(start)) {
+                        return session.getKey();
+                    }
+                }
+            }
+            return null;
+        }
+
+        synchronized void add(Long sessionId, LocalDateTime start, LocalDateTime end) {
+            if (sessionId == null || start == null || end == null || !start.isBefore(end)) {
+                return;
+            }
+            LocalDateTime replaced = byStart.computeIfAbsent(start, key -> new HashMap<>()).put(sessionId, end);
+            if (replaced != null) {
+                removeLength(start, replaced);
+            }
+            lengths.merge(Duration.between(start, end), 1, Integer::sum);
+
+            NavigableMap<LocalDateTime, Map<Long, LocalDateTime>> expired = byStart.headMap(LocalDateTime.now().minus(RETENTION), false);
+            expired.forEach((expiredStart, sessions) -> sessions.values().forEach(expiredEnd -> removeLength(expiredStart, expiredEnd)));
+            expired.clear();
+        }
+
+        synchronized void remove(Long sessionId, LocalDateTime start) {
+            if (start == null) {
+                return;
+            }
+            Map<Long, LocalDateTime> sessions = byStart.get(start);
+            if (sessions != null) {
+                LocalDateTime end = sessions.remove(sessionId);
+                if (end != null) {
+                    removeLength(start, end);
+                }
+                if (sessions.isEmpty()) {
+                    byStart.remove(start);
+                }
+            }
+        }
+
+        synchronized Duration longest() {
+            return lengths.isEmpty() ? Duration.ZERO : lengths.lastKey();
+        }
+
+        private void removeLength(LocalDateTime start, LocalDateTime end) {
+            lengths.computeIfPresent(Duration.between(start, end), (length, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.brandon.dtms2.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Last computed value of expensive dashboard reads. A value is current while the
+ * version tag it was computed under (see DataVersionService) is; after a write it
+ * is still served straight away while a single background refresh recomputes it,
+ * for at most app.swr.&lt;endpoint&gt;.max-stale-ms. Past that, callers wait for a
+ * fresh value, all of them on the same load, and if computing one fails the last
+ * value is served anyway, marked as such.
+ */
+@Service
+public class StaleWhileRevalidateCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(StaleWhileRevalidateCache.class);
+
+    static final String STALE = "110 - \"Response is Stale\"";
+    static final String REVALIDATION_FAILED = "111 - \"Revalidation Failed\"";
+
+    private final Environment environment;
+    private final long defaultMaxStaleMs;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Map<String, Slot> slots = new ConcurrentHashMap<>();
+    private final ExecutorService refresher;
+
+    public StaleWhileRevalidateCache(Environment environment,
+                                     PlatformTransactionManager transactionManager,
+                                     @Value("${app.swr.default-max-stale-ms:30000}") long defaultMaxStaleMs,
+                                     @Value("${app.swr.refresh-threads:2}") int refreshThreads) {
+        this.environment = environment;
+        this.defaultMaxStaleMs = defaultMaxStaleMs;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.refresher = Executors.newFixedThreadPool(refreshThreads, runnable -> {
+            Thread thread = new Thread(runnable, "swr-refresh-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Value of the endpoint's read, computed by the loader in a read-only transaction when
+     * there is nothing usable cached.
+     *
+     * @param tag version tag of the data as of now, taken before loading
+     */
+    public <T> Cached<T> get(String endpoint, String tag, Supplier<T> loader) {
+        Slot slot = slots.computeIfAbsent(endpoint, k -> new Slot());
+        Entry entry = slot.entry;
+
+        if (entry == null) {
+            return loadShared(slot, tag, loader).toCached(null);
+        }
+        if (entry.tag.equals(tag)) {
+            return entry.toCached(null);
+        }
+
+        long now = System.currentTimeMillis();
+        if (slot.staleSince == 0) {
+            slot.staleSince = now;
+        }
+        if (now - slot.staleSince < getMaxStaleMs(endpoint)) {
+            refreshInBackground(endpoint, slot, tag, loader);
+            return entry.toCached(slot.refreshFailed ? REVALIDATION_FAILED : STALE);
+        }
+
+        try {
+            return loadShared(slot, tag, loader).toCached(null);
+        } catch (RuntimeException e) {
+            logger.warn("Serving stale {} after failed refresh: {}", endpoint, e.getMessage());
+            return entry.toCached(REVALIDATION_FAILED);
+        }
+    }
+
+    public long getMaxStaleMs(String endpoint) {
+        return environment.getProperty("app.swr." + endpoint + ".max-stale-ms", Long.class, defaultMaxStaleMs);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    private Entry load(Slot slot, String tag, Supplier<?> loader) {
+        try {
+            Entry fresh = new Entry(readOnlyTransaction.execute(status -> loader.get()), tag, System.currentTimeMillis());
+            if (slot.entry == null || slot.entry.loadedAt <= fresh.loadedAt) {
+                slot.entry = fresh;
+                slot.staleSince = 0;
+                slot.refreshFailed = false;
+            }
+            return fresh;
+        } catch (RuntimeException e) {
+            slot.refreshFailed = true;
+            throw e;
+        }
+    }
+
+    // Callers that must wait for a value join the load already running instead of starting their own
+    private Entry loadShared(Slot slot, String tag, Supplier<?> loader) {
+        CompletableFuture<Entry> mine = new CompletableFuture<>();
+        CompletableFuture<Entry> running = slot.loading.compareAndExchange(null, mine);
+        if (running != null) {
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        try {
+            Entry fresh = load(slot, tag, loader);
+            mine.complete(fresh);
+            return fresh;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            slot.loading.compareAndSet(mine, null);
+        }
+    }
+
+    // At most one refresh per endpoint is queued or running; callers meanwhile get the stale value
+    private void refreshInBackground(String endpoint, Slot slot, String tag, Supplier<?> loader) {
+        if (!slot.refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            refresher.execute(() -> {
+                try {
+                    load(slot, tag, loader);
+                } catch (RuntimeException e) {
+                    logger.warn("Background refresh of {} failed: {}", endpoint, e.getMessage());
+                } finally {
+                    slot.refreshing.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            slot.refreshing.set(false);
+        }
+    }
+
+    private static final class Slot {
+        private volatile Entry entry;
+        private volatile long staleSince;
+        private volatile boolean refreshFailed;
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+        private final AtomicReference<CompletableFuture<Entry>> loading = new AtomicReference<>();
+    }
+
+    private record Entry(Object value, String tag, long loadedAt) {
+        @SuppressWarnings("unchecked")
+        <T> Cached<T> toCached(String warning) {
+            return new Cached<>((T) value, tag, loadedAt, warning);
+        }
+    }
+
+    /**
+     * A value as served: the version tag it was computed under, which is the ETag to send
+     * with it, and the Warning header to add when it is out of date.
+     */
+    @Getter
+    public static final class Cached<T> {
+        private final T value;
+        private final String etag;
+        private final long loadedAt;
+        private final String warning;
+
+        private Cached(T value, String etag, long loadedAt, String warning) {
+            this.value = value;
+            this.etag = etag;
+            this.loadedAt = loadedAt;
+            this.warning = warning;
+        }
+
+        public boolean isStale() {
+            return warning != null;
+        }
+
+        /**
+         * The same value converted for serving, keeping its version tag, age and staleness.
+         */
+        public <R> Cached<R> map(Function<? super T, ? extends R> mapper) {
+            return new Cached<>(mapper.apply(value), etag, loadedAt, warning);
+        }
+
+        public long getAgeSeconds() {
+            return Math.max(0, (System.currentTimeMillis() - loadedAt) / 1000);
+        }
+    }
+}
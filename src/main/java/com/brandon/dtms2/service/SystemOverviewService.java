@@ -0,0 +1,199 @@
+package com.brandon.dtms2.service;
+
+import com.brandon.dtms2.entity.Machine;
+import com.brandon.dtms2.event.ChangeType;
+import com.brandon.dtms2.event.MachineChangedEvent;
+import com.brandon.dtms2.event.SessionSnapshot;
+import com.brandon.dtms2.event.UserChangedEvent;
+import com.brandon.dtms2.event.WorkoutSessionChangedEvent;
+import com.brandon.dtms2.repository.MachineRepository;
+import com.brandon.dtms2.repository.UserRepository;
+import com.brandon.dtms2.repository.WorkoutSessionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the system overview report in memory. A scheduler rebuilds it from a
+ * handful of aggregate queries and the write paths nudge the counters in
+ * between, so serving the report never touches the database.
+ */
+@Service
+public class SystemOverviewService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SystemOverviewService.class);
+    private static final int RECENT_ACTIVITY_DAYS = 7;
+
+    private final UserRepository userRepository;
+    private final MachineRepository machineRepository;
+    private final WorkoutSessionRepository workoutSessionRepository;
+
+    private volatile Overview overview;
+
+    public SystemOverviewService(UserRepository userRepository,
+                                 MachineRepository machineRepository,
+                                 WorkoutSessionRepository workoutSessionRepository) {
+        this.userRepository = userRepository;
+        this.machineRepository = machineRepository;
+        this.workoutSessionRepository = workoutSessionRepository;
+    }
+
+    /**
+     * Rebuild the overview from the database. Deltas applied while this runs
+     * may be lost, the next refresh picks them up again.
+     */
+    @Scheduled(fixedDelayString = "${app.overview.refresh-interval-ms:60000}")
+    @Transactional(readOnly = true)
+    public void refresh() {
+        Overview fresh = new Overview();
+        fresh.totalUsers.set(userRepository.count());
+        fresh.totalSessions.set(workoutSessionRepository.count());
+        fresh.qualitySessions.set(workoutSessionRepository.countSessionsWithGoodQuality());
+        fresh.recentActivity.set(workoutSessionRepository.countSessionsSince(
+                LocalDateTime.now().minusDays(RECENT_ACTIVITY_DAYS)));
+
+        for (Machine machine : machineRepository.findAll()) {
+            fresh.machines.put(machine.getId(),
+                    new MachineEntry(machine.getName(), machine.getStatus(), machine.getLastMaintenance()));
+        }
+        for (Object[] row : workoutSessionRepository.countSessionsGroupedByMachine()) {
+            MachineEntry entry = fresh.machines.get((Long) row[0]);
+            if (entry != null) {
+                entry.sessions.set((Long) row[1]);
+            }
+        }
+
+        fresh.refreshedAt = LocalDateTime.now();
+        this.overview = fresh;
+        logger.debug("System overview refreshed: {} sessions, {} machines",
+                fresh.totalSessions.get(), fresh.machines.size());
+    }
+
+    /**
+     * Same shape as the old ReportService.generateSystemReport, built from memory.
+     */
+    public Map<String, Object> getOverview() {
+        Overview current = overview;
+        if (current == null) {
+            refresh();
+            current = overview;
+        }
+
+        Map<String, Object> machineStats = new HashMap<>();
+        for (MachineEntry entry : current.machines.values()) {
+            machineStats.put(entry.name, Map.of(
+                    "sessions", entry.sessions.get(),
+                    "status", entry.status != null ? entry.status : "Unknown",
+                    "lastMaintenance", entry.lastMaintenance != null ?
+                            entry.lastMaintenance.format(DateTimeFormatter.ISO_DATE) : "Never"
+            ));
+        }
+
+        long totalSessions = current.totalSessions.get();
+        long qualitySessions = current.qualitySessions.get();
+
+        Map<String, Object> report = new HashMap<>();
+        report.put("totalUsers", current.totalUsers.get());
+        report.put("totalMachines", (long) current.machines.size());
+        report.put("totalSessions", totalSessions);
+        report.put("machineStatistics", machineStats);
+        report.put("recentActivity", current.recentActivity.get());
+        report.put("dataQualityScore", totalSessions > 0 ? (double) qualitySessions / totalSessions * 100 : 100);
+        report.put("generatedAt", current.refreshedAt);
+        return report;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSessionChanged(WorkoutSessionChangedEvent event) {
+        Overview current = overview;
+        if (current == null) {
+            return;
+        }
+        apply(current, event.getPrevious(), -1);
+        apply(current, event.getCurrent(), 1);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        Overview current = overview;
+        if (current == null) {
+            return;
+        }
+        if (event.getChangeType() == ChangeType.CREATED) {
+            current.totalUsers.incrementAndGet();
+        } else if (event.getChangeType() == ChangeType.DELETED) {
+            current.totalUsers.decrementAndGet();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMachineChanged(MachineChangedEvent event) {
+        Overview current = overview;
+        if (current == null) {
+            return;
+        }
+        if (event.getChangeType() == ChangeType.DELETED) {
+            current.machines.remove(event.getMachineId());
+            return;
+        }
+        current.machines.compute(event.getMachineId(), (id, existing) -> {
+            MachineEntry entry = new MachineEntry(event.getName(), event.getStatus(), event.getLastMaintenance());
+            if (existing != null) {
+                entry.sessions.set(existing.sessions.get());
+            }
+            return entry;
+        });
+    }
+
+    private void apply(Overview current, SessionSnapshot session, int sign) {
+        if (session == null) {
+            return;
+        }
+        current.totalSessions.addAndGet(sign);
+        if (session.isQualityOk()) {
+            current.qualitySessions.addAndGet(sign);
+        }
+        if (session.getStartTime() != null &&
+                session.getStartTime().isAfter(LocalDateTime.now().minusDays(RECENT_ACTIVITY_DAYS))) {
+            current.recentActivity.addAndGet(sign);
+        }
+        if (session.getMachineId() != null) {
+            MachineEntry entry = current.machines.get(session.getMachineId());
+            if (entry != null) {
+                entry.sessions.addAndGet(sign);
+            }
+        }
+    }
+
+    private static class Overview {
+        final AtomicLong totalUsers = new AtomicLong();
+        final AtomicLong totalSessions = new AtomicLong();
+        final AtomicLong qualitySessions = new AtomicLong();
+        final AtomicLong recentActivity = new AtomicLong();
+        final Map<Long, MachineEntry> machines = new ConcurrentHashMap<>();
+        LocalDateTime refreshedAt;
+    }
+
+    private static class MachineEntry {
+        final String name;
+        final String status;
+        final LocalDateTime lastMaintenance;
+        final AtomicLong sessions = new AtomicLong();
+
+        MachineEntry(String name, String status, LocalDateTime lastMaintenance) {
+            this.name = name;
+            this.status = status;
+            this.lastMaintenance = lastMaintenance;
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.brandon.dtms2.service;
+
+import com.brandon.dtms2.dto.UserPrincipal;
+import com.brandon.dtms2.entity.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Signed access and refresh tokens for clients that do not keep a cookie session,
+ * such as kiosks and gateways. A token is "keyId.payload.signature": the payload
+ * carries the user as a UserPrincipal plus the token type and expiry, and the
+ * signature is an HMAC-SHA256 over the key id and payload. Verifying a token needs
+ * only the keys from app.auth.token.keys, never the database.
+ *
+ * app.auth.token.keys is a comma-separated list of keyId:secret pairs. The first
+ * key signs new tokens; the others are still accepted, so a key can be rotated out
+ * without signing everybody out at once.
+ */
+@Service
+public class TokenService {
+
+    public enum TokenType { ACCESS, REFRESH }
+
+    private static final byte FORMAT_VERSION = 1;
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int MIN_SECRET_BYTES = 32;
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final boolean enabled;
+    private final long accessTtlMs;
+    private final long refreshTtlMs;
+    private final Map<String, SecretKeySpec> keys = new LinkedHashMap<>();
+    private final String signingKeyId;
+
+    public TokenService(@Value("${app.auth.token.enabled:false}") boolean enabled,
+                        @Value("${app.auth.token.keys:}") String keys,
+                        @Value("${app.auth.token.access-ttl-ms:900000}") long accessTtlMs,
+                        @Value("${app.auth.token.refresh-ttl-ms:604800000}") long refreshTtlMs) {
+        this.enabled = enabled;
+        this.accessTtlMs = accessTtlMs;
+        this.refreshTtlMs = refreshTtlMs;
+
+        for (String pair : keys.split(",")) {
+            if (pair.isBlank()) {
+                continue;
+            }
+            int colon = pair.indexOf(':');
+            if (colon <= 0) {
+                throw new IllegalArgumentException("app.auth.token.keys entries must be keyId:secret");
+            }
+            byte[] secret = pair.substring(colon + 1).trim().getBytes(StandardCharsets.UTF_8);
+            if (secret.length < MIN_SECRET_BYTES) {
+                throw new IllegalArgumentException("Token key " + pair.substring(0, colon).trim()
+                        + " must be at least " + MIN_SECRET_BYTES + " bytes");
+            }
+            this.keys.put(pair.substring(0, colon).trim(), new SecretKeySpec(secret, ALGORITHM));
+        }
+        if (enabled && this.keys.isEmpty()) {
+            throw new IllegalStateException("app.auth.token.enabled is set but app.auth.token.keys is empty");
+        }
+        this.signingKeyId = this.keys.isEmpty() ? null : this.keys.keySet().iterator().next();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * A new access and refresh token pair for the user, as returned by login and refresh.
+     */
+    public Map<String, Object> issueTokens(UserPrincipal principal) {
+        if (!enabled) {
+            throw new RuntimeException("Token authentication is disabled");
+        }
+        long now = System.currentTimeMillis();
+        Map<String, Object> tokens = new LinkedHashMap<>();
+        tokens.put("tokenType", "Bearer");
+        tokens.put("accessToken", sign(principal, TokenType.ACCESS, now + accessTtlMs));
+        tokens.put("expiresIn", accessTtlMs / 1000);
+        tokens.put("refreshToken", sign(principal, TokenType.REFRESH, now + refreshTtlMs));
+        tokens.put("refreshExpiresIn", refreshTtlMs / 1000);
+        return tokens;
+    }
+
+    public String sign(UserPrincipal principal, TokenType type, long expiresAt) {
+        String payload = ENCODER.encodeToString(encode(principal, type, expiresAt));
+        return signingKeyId + "." + payload + "." + ENCODER.encodeToString(mac(keys.get(signingKeyId), signingKeyId, payload));
+    }
+
+    /**
+     * The token's claims if it is well formed, signed with a known key, of the given
+     * type and not expired; empty otherwise.
+     */
+    public Optional<Claims> verify(String token, TokenType expectedType) {
+        if (!enabled || token == null) {
+            return Optional.empty();
+        }
+        int first = token.indexOf('.');
+        int second = token.indexOf('.', first + 1);
+        if (first <= 0 || second < 0 || token.indexOf('.', second + 1) >= 0) {
+            return Optional.empty();
+        }
+        String keyId = token.substring(0, first);
+        String payload = token.substring(first + 1, second);
+        SecretKeySpec key = keys.get(keyId);
+        if (key == null) {
+            return Optional.empty();
+        }
+
+        try {
+            byte[] signature = DECODER.decode(token.substring(second + 1));
+            if (!MessageDigest.isEqual(signature, mac(key, keyId, payload))) {
+                return Optional.empty();
+            }
+            Claims claims = decode(DECODER.decode(payload));
+            if (claims.getType() != expectedType || claims.getExpiresAt() <= System.currentTimeMillis()) {
+                return Optional.empty();
+            }
+            return Optional.of(claims);
+        } catch (IllegalArgumentException | IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static byte[] mac(SecretKeySpec key, String keyId, String payload) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            mac.update(keyId.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) '.');
+            return mac.doFinal(payload.getBytes(StandardCharsets.US_ASCII));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 unavailable", e);
+        }
+    }
+
+    private static byte[] encode(UserPrincipal principal, TokenType type, long expiresAt) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT_VERSION);
+            out.writeByte(type.ordinal());
+            out.writeLong(expiresAt);
+            out.writeLong(principal.getId());
+            out.writeUTF(principal.getUsername());
+            writeNullable(out, principal.getEmail());
+            writeNullable(out, principal.getFirstName());
+            writeNullable(out, principal.getLastName());
+            out.writeUTF(principal.getRole().name());
+            writeNullable(out, principal.getStatus() != null ? principal.getStatus().name() : null);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Claims decode(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        if (in.readByte() != FORMAT_VERSION) {
+            throw new IOException("Unknown token format");
+        }
+        int type = in.readByte();
+        if (type < 0 || type >= TokenType.values().length) {
+            throw new IOException("Unknown token type");
+        }
+        long expiresAt = in.readLong();
+        Long id = in.readLong();
+        String username = in.readUTF();
+        String email = readNullable(in);
+        String firstName = readNullable(in);
+        String lastName = readNullable(in);
+        User.UserRole role = User.UserRole.valueOf(in.readUTF());
+        String status = readNullable(in);
+        UserPrincipal principal = new UserPrincipal(id, username, email, firstName, lastName, role,
+                status != null ? User.UserStatus.valueOf(status) : null);
+        return new Claims(TokenType.values()[type], expiresAt, principal);
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    @lombok.Value
+    public static class Claims {
+        TokenType type;
+        long expiresAt;
+        UserPrincipal principal;
+    }
+}
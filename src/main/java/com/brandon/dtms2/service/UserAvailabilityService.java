@@ -0,0 +1,158 @@
+package com.brandon.dtms2.service;
+
+import com.brandon.dtms2.event.ChangeType;
+import com.brandon.dtms2.event.UserChangedEvent;
+import com.brandon.dtms2.repository.UserRepository;
+import com.brandon.dtms2.util.BloomFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Whether a username or email is free, for registration and the live check on
+ * register.html. Bloom filters of every username and email answer "free" from
+ * memory for most values; only a possible hit is checked against the unique index
+ * with an exists query. The filters are built when the application starts, take
+ * new users as they are created and are rebuilt periodically, which drops deleted
+ * users and picks up ones registered on other instances. Until the first build,
+ * and for users created elsewhere since the last one, the unique constraints on
+ * users remain the guarantee.
+ */
+@Service
+public class UserAvailabilityService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserAvailabilityService.class);
+    private static final int MIN_CAPACITY = 10_000;
+
+    private final UserRepository userRepository;
+    private final double falsePositiveRate;
+
+    private volatile Filters filters;
+    // Filters being rebuilt, which take new users too so none is missed by the swap
+    private volatile Filters building;
+
+    private final AtomicLong checks = new AtomicLong();
+    private final AtomicLong answeredFromFilter = new AtomicLong();
+    private final AtomicLong databaseProbes = new AtomicLong();
+    private final AtomicLong falsePositives = new AtomicLong();
+
+    public UserAvailabilityService(UserRepository userRepository,
+                                   @Value("${app.availability.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.userRepository = userRepository;
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    public boolean isUsernameAvailable(String username) {
+        return isAvailable(username, Filters::usernames, userRepository::existsByUsername);
+    }
+
+    public boolean isEmailAvailable(String email) {
+        return isAvailable(email, Filters::emails, userRepository::existsByEmail);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            logger.warn("Availability filters not built at startup, checks go to the database: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(initialDelayString = "${app.availability.rebuild-interval-ms:3600000}",
+            fixedDelayString = "${app.availability.rebuild-interval-ms:3600000}")
+    public synchronized void rebuild() {
+        long started = System.currentTimeMillis();
+        long capacity = Math.max(MIN_CAPACITY, userRepository.count() * 2);
+        Filters next = new Filters(new BloomFilter(capacity, falsePositiveRate), new BloomFilter(capacity, falsePositiveRate));
+        building = next;
+        try {
+            List<Object[]> rows = userRepository.findAllUsernamesAndEmails();
+            for (Object[] row : rows) {
+                next.add((String) row[0], (String) row[1]);
+            }
+            filters = next;
+            logger.info("Availability filters built from {} users in {} ms", rows.size(),
+                    System.currentTimeMillis() - started);
+        } finally {
+            building = null;
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        // Deleted users stay in the filters until the next rebuild, which only costs a database probe
+        if (event.getChangeType() == ChangeType.DELETED) {
+            return;
+        }
+        Filters current = filters;
+        if (current != null) {
+            current.add(event.getUsername(), event.getEmail());
+        }
+        Filters next = building;
+        if (next != null) {
+            next.add(event.getUsername(), event.getEmail());
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Filters current = filters;
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("ready", current != null);
+        stats.put("checks", checks.get());
+        stats.put("answeredFromFilter", answeredFromFilter.get());
+        stats.put("databaseProbes", databaseProbes.get());
+        stats.put("falsePositives", falsePositives.get());
+        if (current != null) {
+            stats.put("filterBits", current.usernames().bitSize() + current.emails().bitSize());
+            stats.put("usernameFalsePositiveRate", current.usernames().expectedFalsePositiveRate());
+            stats.put("emailFalsePositiveRate", current.emails().expectedFalsePositiveRate());
+        }
+        return stats;
+    }
+
+    private boolean isAvailable(String value, Function<Filters, BloomFilter> filter,
+                                Predicate<String> existsInDatabase) {
+        checks.incrementAndGet();
+        Filters current = filters;
+        if (current != null && !filter.apply(current).mightContain(normalize(value))) {
+            answeredFromFilter.incrementAndGet();
+            return true;
+        }
+        databaseProbes.incrementAndGet();
+        boolean exists = existsInDatabase.test(value);
+        if (!exists && current != null) {
+            falsePositives.incrementAndGet();
+        }
+        return !exists;
+    }
+
+    // Case-folded, which can only add false positives: the database probe is exact
+    private static String normalize(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+
+    private record Filters(BloomFilter usernames, BloomFilter emails) {
+        void add(String username, String email) {
+            if (username != null) {
+                usernames.add(normalize(username));
+            }
+            if (email != null) {
+                emails.add(normalize(email));
+            }
+        }
+    }
+}
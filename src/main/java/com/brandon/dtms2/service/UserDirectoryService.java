@@ -0,0 +1,205 @@
+package com.brandon.dtms2.service;
+
+import com.brandon.dtms2.dto.UserDTO;
+import com.brandon.dtms2.entity.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The admin user directory: pages of users ordered by username, filtered by role and
+ * status and searched by case-insensitive prefix of username, first name, last name
+ * or email. Pages use keyset pagination on the unique username, so page 100 costs the
+ * same as page 1. Each searched column has a lower(column) text_pattern_ops index,
+ * so a prefix LIKE is an index range scan, and the role and status filters have
+ * (role, username) and (status, username) indexes from the User mapping. Counts by
+ * role and status are one GROUP BY.
+ */
+@Service
+public class UserDirectoryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserDirectoryService.class);
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 200;
+
+    private static final String[] SEARCH_COLUMNS = {"username", "first_name", "last_name", "email"};
+    private static final String COLUMNS =
+            "id, username, email, first_name, last_name, role, status, last_login, created_at, updated_at";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final LastLoginWriteBehind lastLoginWriteBehind;
+
+    public UserDirectoryService(JdbcTemplate jdbcTemplate, LastLoginWriteBehind lastLoginWriteBehind) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.lastLoginWriteBehind = lastLoginWriteBehind;
+    }
+
+    /**
+     * Expression indexes for the prefix search, which the JPA mapping cannot declare.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void createSearchIndexes() {
+        for (String column : SEARCH_COLUMNS) {
+            try {
+                jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_users_" + column + "_prefix "
+                        + "ON users (lower(" + column + ") text_pattern_ops)");
+            } catch (RuntimeException e) {
+                logger.warn("Prefix search index on users.{} not created, search falls back to scans: {}",
+                        column, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * One page of the directory. Counts are included on the first page only, for the
+     * search alone so the role and status filters can show what each choice holds.
+     *
+     * @param cursor nextCursor of the previous page, null for the first
+     */
+    public Map<String, Object> getPage(String search, User.UserRole role, User.UserStatus status,
+                                       String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        StringBuilder sql = new StringBuilder("SELECT " + COLUMNS + " FROM users WHERE 1 = 1");
+        List<Object> args = new ArrayList<>();
+        appendSearch(sql, args, search);
+        if (role != null) {
+            sql.append(" AND role = ?");
+            args.add(role.name());
+        }
+        if (status == User.UserStatus.ACTIVE) {
+            // Rows from before the status column count as active
+            sql.append(" AND (status = ? OR status IS NULL)");
+            args.add(status.name());
+        } else if (status != null) {
+            sql.append(" AND status = ?");
+            args.add(status.name());
+        }
+        if (cursor != null && !cursor.isBlank()) {
+            sql.append(" AND username > ?");
+            args.add(decodeCursor(cursor));
+        }
+        sql.append(" ORDER BY username LIMIT ?");
+        args.add(pageSize + 1);
+
+        List<UserDTO> users = jdbcTemplate.query(sql.toString(), (rs, row) -> toUser(rs), args.toArray());
+        boolean hasMore = users.size() > pageSize;
+        if (hasMore) {
+            users = users.subList(0, pageSize);
+        }
+
+        Map<String, Object> page = new LinkedHashMap<>();
+        page.put("users", users);
+        page.put("hasMore", hasMore);
+        page.put("nextCursor", hasMore ? encodeCursor(users.get(users.size() - 1).getUsername()) : null);
+        if (cursor == null || cursor.isBlank()) {
+            page.put("counts", getCounts(search));
+        }
+        return page;
+    }
+
+    /**
+     * Users matching the search by role and by status, and in total.
+     */
+    public Map<String, Object> getCounts(String search) {
+        StringBuilder sql = new StringBuilder(
+                "SELECT role, COALESCE(status, 'ACTIVE') AS user_status, COUNT(*) FROM users WHERE 1 = 1");
+        List<Object> args = new ArrayList<>();
+        appendSearch(sql, args, search);
+        sql.append(" GROUP BY role, COALESCE(status, 'ACTIVE')");
+
+        Map<String, Long> byRole = new LinkedHashMap<>();
+        for (User.UserRole role : User.UserRole.values()) {
+            byRole.put(role.name(), 0L);
+        }
+        Map<String, Long> byStatus = new LinkedHashMap<>();
+        for (User.UserStatus status : User.UserStatus.values()) {
+            byStatus.put(status.name(), 0L);
+        }
+        long[] total = {0};
+        jdbcTemplate.query(sql.toString(), rs -> {
+            long count = rs.getLong(3);
+            if (rs.getString(1) != null) {
+                byRole.merge(rs.getString(1), count, Long::sum);
+            }
+            byStatus.merge(rs.getString(2), count, Long::sum);
+            total[0] += count;
+        }, args.toArray());
+
+        Map<String, Object> counts = new LinkedHashMap<>();
+        counts.put("total", total[0]);
+        counts.put("byRole", byRole);
+        counts.put("byStatus", byStatus);
+        return counts;
+    }
+
+    private static void appendSearch(StringBuilder sql, List<Object> args, String search) {
+        if (search == null || search.isBlank()) {
+            return;
+        }
+        String pattern = likePrefix(search);
+        sql.append(" AND (");
+        for (int i = 0; i < SEARCH_COLUMNS.length; i++) {
+            sql.append(i > 0 ? " OR " : "").append("lower(").append(SEARCH_COLUMNS[i]).append(") LIKE ? ESCAPE '\\'");
+            args.add(pattern);
+        }
+        sql.append(")");
+    }
+
+    // The search as a lower-cased LIKE prefix, with LIKE's own wildcards matched literally
+    static String likePrefix(String search) {
+        String escaped = search.trim().toLowerCase(Locale.ROOT)
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+        return escaped + "%";
+    }
+
+    static String encodeCursor(String username) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(username.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String decodeCursor(String cursor) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    private UserDTO toUser(ResultSet rs) throws SQLException {
+        UserDTO user = new UserDTO();
+        user.setId(rs.getLong("id"));
+        user.setUsername(rs.getString("username"));
+        user.setEmail(rs.getString("email"));
+        user.setFirstName(rs.getString("first_name"));
+        user.setLastName(rs.getString("last_name"));
+        String role = rs.getString("role");
+        user.setRole(role != null ? User.UserRole.valueOf(role) : null);
+        String status = rs.getString("status");
+        user.setStatus(status != null ? User.UserStatus.valueOf(status) : User.UserStatus.ACTIVE);
+        user.setLastLogin(lastLoginWriteBehind.getPending(user.getId()).orElse(toDateTime(rs.getTimestamp("last_login"))));
+        user.setCreatedAt(toDateTime(rs.getTimestamp("created_at")));
+        user.setUpdatedAt(toDateTime(rs.getTimestamp("updated_at")));
+        return user;
+    }
+
+    private static LocalDateTime toDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+}
@@ -1,8 +1,15 @@
 package com.brandon.dtms2.service;
 
+import com.brandon.dtms2.dto.UserCredentials;
 import com.brandon.dtms2.entity.User;
+import com.brandon.dtms2.entity.WorkoutSession;
+import com.brandon.dtms2.event.ChangeType;
+import com.brandon.dtms2.event.SessionSnapshot;
+import com.brandon.dtms2.event.UserChangedEvent;
+import com.brandon.dtms2.event.WorkoutSessionChangedEvent;
 import com.brandon.dtms2.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -16,23 +23,41 @@ public class UserService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final ApplicationEventPublisher eventPublisher;
+    private final DataVersionService dataVersionService;
+    private final UserStatsService userStatsService;
 
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder,
+                       ApplicationEventPublisher eventPublisher, DataVersionService dataVersionService,
+                       UserStatsService userStatsService) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.eventPublisher = eventPublisher;
+        this.dataVersionService = dataVersionService;
+        this.userStatsService = userStatsService;
     }
 
     public User createUser(User user) {
         user.setPassword(passwordEncoder.encode(user.getPassword()));
         user.setCreatedAt(LocalDateTime.now());
         user.setUpdatedAt(LocalDateTime.now());
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        eventPublisher.publishEvent(UserChangedEvent.of(ChangeType.CREATED, saved));
+        return saved;
     }
 
     public Optional<User> findByUsername(String username) {
         return userRepository.findByUsername(username);
     }
 
+    /**
+     * Id, username, password hash, role and status only, for authentication.
+     */
+    @Transactional(readOnly = true)
+    public Optional<UserCredentials> findCredentialsByUsername(String username) {
+        return userRepository.findCredentialsByUsername(username);
+    }
+
     public Optional<User> findById(Long id) {
         return userRepository.findById(id);
     }
@@ -42,9 +67,7 @@ public class UserService {
     }
 
     public List<User> findUsersByRole(User.UserRole role) {
-        return userRepository.findAll().stream()
-                .filter(user -> user.getRole() == role)
-                .toList();
+        return userRepository.findByRole(role);
     }
 
     public boolean usernameExists(String username) {
@@ -57,11 +80,23 @@ public class UserService {
 
     public User updateUser(User user) {
         user.setUpdatedAt(LocalDateTime.now());
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        eventPublisher.publishEvent(UserChangedEvent.of(ChangeType.UPDATED, saved));
+        return saved;
     }
 
     public void deleteUser(Long id) {
-        userRepository.deleteById(id);
+        // The delete cascades to the user's sessions, so fetch them with the user in one query
+        // and tell the session listeners about each one, as WorkoutSessionService.deleteSession does
+        userRepository.findWithWorkoutSessionsById(id).ifPresent(user -> {
+            for (WorkoutSession session : user.getWorkoutSessions()) {
+                eventPublisher.publishEvent(new WorkoutSessionChangedEvent(ChangeType.DELETED,
+                        SessionSnapshot.of(session), null));
+            }
+            userRepository.delete(user);
+            userStatsService.deleteStats(id);
+            eventPublisher.publishEvent(UserChangedEvent.of(ChangeType.DELETED, user));
+        });
     }
 
     public boolean verifyPassword(String plainPassword, String encryptedPassword) {
@@ -73,7 +108,20 @@ public class UserService {
                 .orElseThrow(() -> new RuntimeException("User not found"));
         user.setPassword(passwordEncoder.encode(newPassword));
         user.setUpdatedAt(LocalDateTime.now());
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        eventPublisher.publishEvent(UserChangedEvent.of(ChangeType.UPDATED, saved));
+        return saved;
+    }
+
+    /**
+     * Replace the stored hash with one of the same password at the current cost.
+     * The password itself is unchanged, so no UserChangedEvent is published, but the
+     * row is still a write and moves the users version.
+     */
+    public void updatePasswordHash(String username, String encodedPassword) {
+        if (userRepository.updatePasswordByUsername(username, encodedPassword) > 0) {
+            dataVersionService.bump(DataVersionService.Table.USERS);
+        }
     }
 
     public List<User> findAllMembers() {
@@ -0,0 +1,134 @@
+package com.brandon.dtms2.service;
+
+import com.brandon.dtms2.entity.UserWorkoutStats;
+import com.brandon.dtms2.event.SessionSnapshot;
+import com.brandon.dtms2.repository.UserWorkoutStatsRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Lifetime workout totals per user in user_workout_stats. Every session write applies
+ * its difference to the user's row with an atomic UPDATE in the writing transaction,
+ * so reading a member's totals is a primary key lookup instead of a pass over their
+ * history. A user's row is built from their history the first time it is needed.
+ */
+@Service
+@Transactional
+public class UserStatsService {
+
+    private final UserWorkoutStatsRepository userWorkoutStatsRepository;
+    private final TransactionTemplate backfillTransaction;
+
+    public UserStatsService(UserWorkoutStatsRepository userWorkoutStatsRepository,
+                            PlatformTransactionManager transactionManager) {
+        this.userWorkoutStatsRepository = userWorkoutStatsRepository;
+        this.backfillTransaction = new TransactionTemplate(transactionManager);
+        this.backfillTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Apply a session write, given the session before (null when created) and after (null when deleted).
+     */
+    public void applyChange(SessionSnapshot previous, SessionSnapshot current) {
+        Long previousUser = previous != null ? previous.getUserId() : null;
+        Long currentUser = current != null ? current.getUserId() : null;
+
+        if (previousUser != null && !previousUser.equals(currentUser)) {
+            apply(previousUser, previous, null);
+        }
+        if (currentUser != null) {
+            apply(currentUser, Objects.equals(previousUser, currentUser) ? previous : null, current);
+        }
+    }
+
+    /**
+     * Drop the user's row along with the user, whose sessions are deleted by cascade.
+     */
+    public void deleteStats(Long userId) {
+        userWorkoutStatsRepository.deleteByUserId(userId);
+    }
+
+    /**
+     * The user's row, built first if they have none. The build commits on its own so
+     * that readers in read-only transactions can trigger it too.
+     */
+    @Transactional(readOnly = true)
+    public UserWorkoutStats getStats(Long userId) {
+        return userWorkoutStatsRepository.findById(userId).orElseGet(() -> {
+            backfillTransaction.executeWithoutResult(status ->
+                    userWorkoutStatsRepository.insertFromHistory(userId, LocalDateTime.now()));
+            return userWorkoutStatsRepository.findById(userId)
+                    .orElseThrow(() -> new RuntimeException("Stats not found for user: " + userId));
+        });
+    }
+
+    /**
+     * Totals as shown on the member dashboard.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> getStatsSummary(Long userId) {
+        UserWorkoutStats stats = getStats(userId);
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("totalWorkouts", stats.getSessionCount());
+        summary.put("totalCalories", stats.getTotalCalories());
+        summary.put("totalDistance", Math.round(stats.getTotalDistance() * 100.0) / 100.0);
+        summary.put("avgHeartRate", getAverageHeartRate(stats));
+        summary.put("lastSessionTime", stats.getLastSessionTime());
+        return summary;
+    }
+
+    public double getAverageHeartRate(UserWorkoutStats stats) {
+        if (stats.getHeartRateCount() == 0) {
+            return 0.0;
+        }
+        return Math.round((double) stats.getHeartRateSum() / stats.getHeartRateCount() * 100.0) / 100.0;
+    }
+
+    private void apply(Long userId, SessionSnapshot removed, SessionSnapshot added) {
+        long sessions = (added != null ? 1 : 0) - (removed != null ? 1 : 0);
+        long calories = calories(added) - calories(removed);
+        double distance = distance(added) - distance(removed);
+        long heartRateSum = heartRate(added) - heartRate(removed);
+        long heartRateCount = (hasHeartRate(added) ? 1 : 0) - (hasHeartRate(removed) ? 1 : 0);
+
+        LocalDateTime now = LocalDateTime.now();
+        if (userWorkoutStatsRepository.addDeltas(userId, sessions, calories, distance, heartRateSum, heartRateCount, now) == 0) {
+            // No row yet: build it from the history, which already includes this write
+            if (userWorkoutStatsRepository.insertFromHistory(userId, now) > 0) {
+                return;
+            }
+            // Another transaction built it meanwhile, from a history without this write
+            userWorkoutStatsRepository.addDeltas(userId, sessions, calories, distance, heartRateSum, heartRateCount, now);
+        }
+
+        if (removed != null && removed.getStartTime() != null) {
+            userWorkoutStatsRepository.recomputeLastSessionTime(userId);
+        } else if (added != null && added.getStartTime() != null) {
+            userWorkoutStatsRepository.advanceLastSessionTime(userId, added.getStartTime());
+        }
+    }
+
+    private static long calories(SessionSnapshot session) {
+        return session != null && session.getCaloriesBurned() != null ? session.getCaloriesBurned() : 0;
+    }
+
+    private static double distance(SessionSnapshot session) {
+        return session != null && session.getDistance() != null ? session.getDistance() : 0.0;
+    }
+
+    private static long heartRate(SessionSnapshot session) {
+        return hasHeartRate(session) ? session.getAvgHeartRate() : 0;
+    }
+
+    private static boolean hasHeartRate(SessionSnapshot session) {
+        return session != null && session.getAvgHeartRate() != null;
+    }
+}
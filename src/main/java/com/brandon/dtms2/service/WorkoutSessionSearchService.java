@@ -0,0 +1,335 @@
+package com.brandon.dtms2.service;
+
+import com.brandon.dtms2.dto.WorkoutSessionResponseDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The instructor's workout session history: pages of sessions filtered by member,
+ * machine, machine type, date range and quality flag, in one SQL query with the
+ * machine and member joined in, instead of loading every session and filtering in
+ * the browser. Pages use keyset pagination on the sort column and id, so a page
+ * costs the same however much history lies before it. Every sort has an index on
+ * its column, and the member, machine and quality filters have (column, start_time)
+ * indexes from the WorkoutSession mapping. Facet counts for the filter sidebar come
+ * with the first page only. Without a from date they cover the last facet-window-days,
+ * so they stay bounded as history grows, and they are cached until the session or
+ * machine data version moves.
+ */
+@Service
+public class WorkoutSessionSearchService {
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 200;
+    private static final int MAX_CACHED_FACETS = 256;
+
+    private static final String COLUMNS = "ws.id, ws.start_time, ws.end_time, ws.calories_burned, ws.avg_heart_rate, "
+            + "ws.distance, ws.avg_speed, ws.resistance_level, ws.incline_level, ws.notes, ws.created_at, "
+            + "ws.data_quality_flag, ws.quality_issues, m.id AS machine_id, m.name AS machine_name, "
+            + "m.type AS machine_type, u.id AS user_id, u.first_name, u.last_name, u.username";
+    private static final String FROM = " FROM workout_sessions ws"
+            + " LEFT JOIN machines m ON m.id = ws.machine_id"
+            + " LEFT JOIN users u ON u.id = ws.user_id";
+
+    /**
+     * Orders the search can page by, each backed by an index on its column.
+     * Nulls sort the way a Postgres index scans them: last ascending, first descending.
+     */
+    public enum Sort {
+        START_TIME("start_time"),
+        CALORIES("calories_burned");
+
+        private final String column;
+
+        Sort(String column) {
+            this.column = column;
+        }
+
+        public static Sort fromParameter(String value) {
+            if (value == null || value.isBlank() || value.equals("startTime")) {
+                return START_TIME;
+            }
+            if (value.equals("calories")) {
+                return CALORIES;
+            }
+            throw new IllegalArgumentException("Unknown sort: " + value);
+        }
+    }
+
+    /**
+     * What to search for; null fields do not filter. Dates are whole days, both included.
+     */
+    public record Criteria(Long userId, Long machineId, String machineType,
+                           LocalDate from, LocalDate to, Boolean quality) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataVersionService dataVersionService;
+    private final int facetWindowDays;
+
+    // Facets by criteria, each with the data version it was counted at
+    private final Map<Criteria, CachedFacets> facetCache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Criteria, CachedFacets> eldest) {
+            return size() > MAX_CACHED_FACETS;
+        }
+    };
+
+    public WorkoutSessionSearchService(JdbcTemplate jdbcTemplate, DataVersionService dataVersionService,
+                                       @Value("${app.search.facet-window-days:90}") int facetWindowDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataVersionService = dataVersionService;
+        this.facetWindowDays = facetWindowDays;
+    }
+
+    /**
+     * One page of sessions. Facets are included on the first page only.
+     *
+     * @param cursor nextCursor of the previous page with the same sort, null for the first
+     */
+    public Map<String, Object> search(Criteria criteria, Sort sort, boolean ascending, String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        StringBuilder sql = new StringBuilder("SELECT " + COLUMNS + FROM + " WHERE 1 = 1");
+        List<Object> args = new ArrayList<>();
+        appendFilters(sql, args, criteria, true, true);
+        if (cursor != null && !cursor.isBlank()) {
+            appendKeyset(sql, args, sort, ascending, decodeCursor(cursor, sort));
+        }
+        String direction = ascending ? "ASC" : "DESC";
+        sql.append(" ORDER BY ws.").append(sort.column).append(' ').append(direction)
+                .append(", ws.id ").append(direction).append(" LIMIT ?");
+        args.add(pageSize + 1);
+
+        List<Row> rows = jdbcTemplate.query(sql.toString(), (rs, row) -> toRow(rs, sort), args.toArray());
+        boolean hasMore = rows.size() > pageSize;
+        if (hasMore) {
+            rows = rows.subList(0, pageSize);
+        }
+
+        Map<String, Object> page = new LinkedHashMap<>();
+        page.put("sessions", rows.stream().map(Row::session).toList());
+        page.put("hasMore", hasMore);
+        page.put("nextCursor", hasMore ? encodeCursor(sort, rows.get(rows.size() - 1).sortValue(),
+                rows.get(rows.size() - 1).session().getId()) : null);
+        if (cursor == null || cursor.isBlank()) {
+            page.put("facets", getFacets(criteria));
+        }
+        return page;
+    }
+
+    /**
+     * Sessions by machine type and by quality flag. Each facet applies every filter
+     * except its own, so the sidebar shows what choosing another value would give.
+     * "from" is the first day counted, which is the window start when the criteria have none.
+     */
+    public Map<String, Object> getFacets(Criteria criteria) {
+        boolean windowed = criteria.from() == null;
+        if (windowed) {
+            LocalDate windowEnd = criteria.to() != null ? criteria.to() : LocalDate.now();
+            criteria = new Criteria(criteria.userId(), criteria.machineId(), criteria.machineType(),
+                    windowEnd.minusDays(facetWindowDays - 1L), criteria.to(), criteria.quality());
+        }
+        String version = dataVersionService.dailyEtag("facets",
+                DataVersionService.Table.SESSIONS, DataVersionService.Table.MACHINES);
+        synchronized (facetCache) {
+            CachedFacets cached = facetCache.get(criteria);
+            if (cached != null && cached.version().equals(version)) {
+                return cached.facets();
+            }
+        }
+
+        Map<String, Object> facets = countFacets(criteria);
+        facets.put("from", criteria.from());
+        facets.put("windowed", windowed);
+        Map<String, Object> result = Collections.unmodifiableMap(facets);
+        synchronized (facetCache) {
+            facetCache.put(criteria, new CachedFacets(version, result));
+        }
+        return result;
+    }
+
+    private Map<String, Object> countFacets(Criteria criteria) {
+        StringBuilder typeSql = new StringBuilder(
+                "SELECT COALESCE(m.type, 'Unknown'), COUNT(*)" + FROM + " WHERE 1 = 1");
+        List<Object> typeArgs = new ArrayList<>();
+        appendFilters(typeSql, typeArgs, criteria, false, true);
+        typeSql.append(" GROUP BY COALESCE(m.type, 'Unknown') ORDER BY COUNT(*) DESC");
+        Map<String, Long> byMachineType = new LinkedHashMap<>();
+        jdbcTemplate.query(typeSql.toString(), rs -> {
+            byMachineType.put(rs.getString(1), rs.getLong(2));
+        }, typeArgs.toArray());
+
+        // The machines join is only needed when filtering by its type
+        StringBuilder qualitySql = new StringBuilder("SELECT COALESCE(ws.data_quality_flag, TRUE), COUNT(*)"
+                + (criteria.machineType() != null ? FROM : " FROM workout_sessions ws") + " WHERE 1 = 1");
+        List<Object> qualityArgs = new ArrayList<>();
+        appendFilters(qualitySql, qualityArgs, criteria, true, false);
+        qualitySql.append(" GROUP BY COALESCE(ws.data_quality_flag, TRUE)");
+        Map<String, Long> byQuality = new LinkedHashMap<>();
+        byQuality.put("good", 0L);
+        byQuality.put("issues", 0L);
+        jdbcTemplate.query(qualitySql.toString(), rs -> {
+            byQuality.put(rs.getBoolean(1) ? "good" : "issues", rs.getLong(2));
+        }, qualityArgs.toArray());
+
+        long total = criteria.quality() == null
+                ? byQuality.get("good") + byQuality.get("issues")
+                : byQuality.get(criteria.quality() ? "good" : "issues");
+
+        Map<String, Object> facets = new LinkedHashMap<>();
+        facets.put("total", total);
+        facets.put("byMachineType", byMachineType);
+        facets.put("byQuality", byQuality);
+        return facets;
+    }
+
+    private static void appendFilters(StringBuilder sql, List<Object> args, Criteria criteria,
+                                      boolean byMachineType, boolean byQuality) {
+        if (criteria.userId() != null) {
+            sql.append(" AND ws.user_id = ?");
+            args.add(criteria.userId());
+        }
+        if (criteria.machineId() != null) {
+            sql.append(" AND ws.machine_id = ?");
+            args.add(criteria.machineId());
+        }
+        if (byMachineType && criteria.machineType() != null) {
+            sql.append(" AND m.type = ?");
+            args.add(criteria.machineType());
+        }
+        if (criteria.from() != null) {
+            sql.append(" AND ws.start_time >= ?");
+            args.add(Timestamp.valueOf(criteria.from().atStartOfDay()));
+        }
+        if (criteria.to() != null) {
+            sql.append(" AND ws.start_time < ?");
+            args.add(Timestamp.valueOf(criteria.to().plusDays(1).atStartOfDay()));
+        }
+        if (byQuality && criteria.quality() != null) {
+            // Sessions from before the flag existed count as good
+            sql.append(criteria.quality()
+                    ? " AND (ws.data_quality_flag = TRUE OR ws.data_quality_flag IS NULL)"
+                    : " AND ws.data_quality_flag = FALSE");
+        }
+    }
+
+    // Rows after the cursor in (column, id) order, nulls last ascending and first descending
+    private static void appendKeyset(StringBuilder sql, List<Object> args, Sort sort, boolean ascending,
+                                     Cursor cursor) {
+        String column = "ws." + sort.column;
+        if (cursor.value() == null) {
+            sql.append(ascending
+                    ? " AND " + column + " IS NULL AND ws.id > ?"
+                    : " AND ((" + column + " IS NULL AND ws.id < ?) OR " + column + " IS NOT NULL)");
+            args.add(cursor.id());
+            return;
+        }
+        sql.append(ascending
+                ? " AND ((" + column + ", ws.id) > (?, ?) OR " + column + " IS NULL)"
+                : " AND (" + column + ", ws.id) < (?, ?)");
+        args.add(cursor.value());
+        args.add(cursor.id());
+    }
+
+    static String encodeCursor(Sort sort, Object value, long id) {
+        String text = sort.name() + "," + (value == null ? "" : value.toString()) + "," + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * The sort value and id a cursor continues from, typed for the sort's column.
+     *
+     * @throws IllegalArgumentException when the cursor is malformed or from another sort
+     */
+    static Cursor decodeCursor(String cursor, Sort sort) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(",", -1);
+            if (parts.length != 3 || !parts[0].equals(sort.name())) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            Object value = null;
+            if (!parts[1].isEmpty()) {
+                value = sort == Sort.START_TIME
+                        ? Timestamp.valueOf(LocalDateTime.parse(parts[1]))
+                        : Integer.valueOf(parts[1]);
+            }
+            return new Cursor(value, Long.parseLong(parts[2]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    record Cursor(Object value, long id) {
+    }
+
+    private record CachedFacets(String version, Map<String, Object> facets) {
+    }
+
+    private record Row(WorkoutSessionResponseDTO session, Object sortValue) {
+    }
+
+    private Row toRow(ResultSet rs, Sort sort) throws SQLException {
+        WorkoutSessionResponseDTO session = new WorkoutSessionResponseDTO();
+        session.setId(rs.getLong("id"));
+        session.setStartTime(toDateTime(rs.getTimestamp("start_time")));
+        session.setEndTime(toDateTime(rs.getTimestamp("end_time")));
+        if (session.getStartTime() != null && session.getEndTime() != null) {
+            session.setDuration(Duration.between(session.getStartTime(), session.getEndTime()));
+        }
+        session.setCaloriesBurned(rs.getObject("calories_burned", Integer.class));
+        session.setAvgHeartRate(rs.getObject("avg_heart_rate", Integer.class));
+        session.setDistance(rs.getObject("distance", Double.class));
+        session.setAvgSpeed(rs.getObject("avg_speed", Double.class));
+        session.setResistanceLevel(rs.getObject("resistance_level", Integer.class));
+        session.setInclineLevel(rs.getObject("incline_level", Integer.class));
+        session.setNotes(rs.getString("notes"));
+        session.setCreatedAt(toDateTime(rs.getTimestamp("created_at")));
+        Boolean quality = rs.getObject("data_quality_flag", Boolean.class);
+        session.setDataQualityFlag(quality == null || quality);
+        session.setQualityIssues(rs.getString("quality_issues"));
+
+        long machineId = rs.getLong("machine_id");
+        if (!rs.wasNull()) {
+            WorkoutSessionResponseDTO.MachineInfo machine = new WorkoutSessionResponseDTO.MachineInfo();
+            machine.setId(machineId);
+            machine.setName(rs.getString("machine_name"));
+            machine.setType(rs.getString("machine_type"));
+            session.setMachine(machine);
+        }
+        long userId = rs.getLong("user_id");
+        if (!rs.wasNull()) {
+            session.setUserId(userId);
+            session.setUserName(displayName(rs.getString("first_name"), rs.getString("last_name"),
+                    rs.getString("username")));
+        }
+
+        Object sortValue = sort == Sort.START_TIME
+                ? session.getStartTime()
+                : session.getCaloriesBurned();
+        return new Row(session, sortValue);
+    }
+
+    private static String displayName(String firstName, String lastName, String username) {
+        String name = ((firstName != null ? firstName : "") + " " + (lastName != null ? lastName : "")).trim();
+        return name.isEmpty() ? username : name;
+    }
+
+    private static LocalDateTime toDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+}
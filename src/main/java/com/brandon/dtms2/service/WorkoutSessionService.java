@@ -3,9 +3,13 @@ package com.brandon.dtms2.service;
 import com.brandon.dtms2.entity.Machine;
 import com.brandon.dtms2.entity.User;
 import com.brandon.dtms2.entity.WorkoutSession;
+import com.brandon.dtms2.event.ChangeType;
+import com.brandon.dtms2.event.SessionSnapshot;
+import com.brandon.dtms2.event.WorkoutSessionChangedEvent;
 import com.brandon.dtms2.repository.WorkoutSessionRepository;
 import com.brandon.dtms2.repository.MachineRepository;
 import com.brandon.dtms2.repository.UserRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -23,21 +27,46 @@ public class WorkoutSessionService {
     private final MachineRepository machineRepository;
     private final UserRepository userRepository;
     private final DataQualityService dataQualityService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final RequestCoalescer requestCoalescer;
+    private final UserStatsService userStatsService;
 
     public WorkoutSessionService(WorkoutSessionRepository workoutSessionRepository,
                                  MachineRepository machineRepository,
                                  UserRepository userRepository,
-                                 DataQualityService dataQualityService) {
+                                 DataQualityService dataQualityService,
+                                 ApplicationEventPublisher eventPublisher,
+                                 RequestCoalescer requestCoalescer,
+                                 UserStatsService userStatsService) {
         this.workoutSessionRepository = workoutSessionRepository;
         this.machineRepository = machineRepository;
         this.userRepository = userRepository;
         this.dataQualityService = dataQualityService;
+        this.eventPublisher = eventPublisher;
+        this.requestCoalescer = requestCoalescer;
+        this.userStatsService = userStatsService;
     }
 
     /**
-     * Save a workout session with full entity
+     * Save a workout session with full entity. For an existing session the stored row is
+     * read first, since a loaded copy the caller has edited no longer shows what changed.
      */
     public WorkoutSession saveWorkoutSession(WorkoutSession session) {
+        SessionSnapshot previous = null;
+        if (session.getId() != null) {
+            previous = workoutSessionRepository.findStoredSnapshotRow(session.getId()).stream()
+                    .findFirst()
+                    .map(SessionSnapshot::fromRow)
+                    .orElse(null);
+        }
+        return saveWorkoutSession(session, previous);
+    }
+
+    /**
+     * Save a workout session, given what it looked like before the caller changed it
+     * (null for a new session).
+     */
+    public WorkoutSession saveWorkoutSession(WorkoutSession session, SessionSnapshot previous) {
         // Validate data quality first
         dataQualityService.validateWorkoutData(session);
 
@@ -49,7 +78,9 @@ public class WorkoutSessionService {
             session.setCreatedAt(LocalDateTime.now());
         }
 
-        return workoutSessionRepository.save(session);
+        WorkoutSession saved = workoutSessionRepository.save(session);
+        publishChange(previous, SessionSnapshot.of(saved));
+        return saved;
     }
 
     /**
@@ -149,10 +180,12 @@ public class WorkoutSessionService {
         return workoutSessionRepository.findByUserIdWithMachine(userId);
     }
     /**
-     * Get all sessions between dates
+     * Get all sessions between dates, machine loaded. Concurrent callers asking for the same
+     * range (to the second) share one query and one read-only result; the user is not loaded.
      */
     public List<WorkoutSession> getSessionsBetweenDates(LocalDateTime start, LocalDateTime end) {
-        return workoutSessionRepository.findSessionsBetweenDates(start, end);
+        return requestCoalescer.execute("sessions.betweenDates",
+                () -> workoutSessionRepository.findSessionsBetweenDatesWithMachine(start, end), start, end);
     }
 
     /**
@@ -185,10 +218,11 @@ public class WorkoutSessionService {
     }
 
     /**
-     * Get all workout sessions
+     * Get all workout sessions, most recent first and machine loaded. Shared between
+     * concurrent callers like getSessionsBetweenDates.
      */
     public List<WorkoutSession> getAllSessions() {
-        return workoutSessionRepository.findAll();
+        return requestCoalescer.execute("sessions.all", workoutSessionRepository::findAllWithMachine);
     }
 
     /**
@@ -204,6 +238,7 @@ public class WorkoutSessionService {
     public WorkoutSession updateSession(Long id, WorkoutSession sessionDetails) {
         WorkoutSession session = workoutSessionRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Workout session not found with ID: " + id));
+        SessionSnapshot previous = SessionSnapshot.of(session);
 
         // Update fields if provided
         if (sessionDetails.getMachine() != null) {
@@ -246,17 +281,20 @@ public class WorkoutSessionService {
         // Re-validate data quality
         dataQualityService.validateWorkoutData(session);
 
-        return workoutSessionRepository.save(session);
+        WorkoutSession saved = workoutSessionRepository.save(session);
+        publishChange(previous, SessionSnapshot.of(saved));
+        return saved;
     }
 
     /**
      * Delete a workout session
      */
     public void deleteSession(Long id) {
-        if (!workoutSessionRepository.existsById(id)) {
-            throw new RuntimeException("Workout session not found with ID: " + id);
-        }
-        workoutSessionRepository.deleteById(id);
+        WorkoutSession session = workoutSessionRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Workout session not found with ID: " + id));
+        SessionSnapshot previous = SessionSnapshot.of(session);
+        workoutSessionRepository.delete(session);
+        publishChange(previous, null);
     }
 
     /**
@@ -277,45 +315,34 @@ public class WorkoutSessionService {
      * Get total workout count for a user
      */
     public Long getTotalWorkoutsByUser(User user) {
-        return workoutSessionRepository.countSessionsByUser(user);
+        return userStatsService.getStats(user.getId()).getSessionCount();
     }
 
     /**
      * Get total calories burned by user
      */
     public Integer getTotalCaloriesByUser(User user) {
-        List<WorkoutSession> sessions = getUserSessions(user);
-        return sessions.stream()
-                .mapToInt(session -> session.getCaloriesBurned() != null ? session.getCaloriesBurned() : 0)
-                .sum();
+        return Math.toIntExact(userStatsService.getStats(user.getId()).getTotalCalories());
     }
 
     /**
      * Get total distance by user
      */
     public Double getTotalDistanceByUser(User user) {
-        List<WorkoutSession> sessions = getUserSessions(user);
-        return sessions.stream()
-                .mapToDouble(session -> session.getDistance() != null ? session.getDistance() : 0.0)
-                .sum();
+        return userStatsService.getStats(user.getId()).getTotalDistance();
     }
 
     /**
-     * Get average heart rate by user
+     * Get average heart rate by user, rounded to 2 decimal places
      */
     public Double getAverageHeartRateByUser(User user) {
-        List<WorkoutSession> sessions = getUserSessions(user);
-        double avg = sessions.stream()
-                .filter(session -> session.getAvgHeartRate() != null)
-                .mapToInt(WorkoutSession::getAvgHeartRate)
-                .average()
-                .orElse(0.0);
-        return Math.round(avg * 100.0) / 100.0; // Round to 2 decimal places
+        return userStatsService.getAverageHeartRate(userStatsService.getStats(user.getId()));
     }
 
     public WorkoutSession updateSessionQuality(Long id, Map<String, Object> updates) {
         WorkoutSession session = workoutSessionRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Workout session not found with ID: " + id));
+        SessionSnapshot previous = SessionSnapshot.of(session);
 
         if (updates.containsKey("dataQualityFlag")) {
             session.setDataQualityFlag((Boolean) updates.get("dataQualityFlag"));
@@ -324,6 +351,20 @@ public class WorkoutSessionService {
             session.setQualityIssues((String) updates.get("qualityIssues"));
         }
 
-        return workoutSessionRepository.save(session);
+        WorkoutSession saved = workoutSessionRepository.save(session);
+        publishChange(previous, SessionSnapshot.of(saved));
+        return saved;
+    }
+
+    /**
+     * Update the user's lifetime totals in this transaction, then let the in-memory
+     * aggregates know a session changed. Listeners that keep derived state run after
+     * commit, so a rolled back write never reaches them.
+     */
+    private void publishChange(SessionSnapshot previous, SessionSnapshot current) {
+        userStatsService.applyChange(previous, current);
+        ChangeType changeType = previous == null ? ChangeType.CREATED
+                : current == null ? ChangeType.DELETED : ChangeType.UPDATED;
+        eventPublisher.publishEvent(new WorkoutSessionChangedEvent(changeType, previous, current));
     }
 }
\ No newline at end of file
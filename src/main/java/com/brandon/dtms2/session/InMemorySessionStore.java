@@ -0,0 +1,95 @@
+package com.brandon.dtms2.session;
+
+import org.springframework.session.MapSession;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Embedded stand-in for the durable tier, for tests and single-instance runs
+ * without a database (app.session.tier=memory). Keeps the serialized form so it
+ * behaves like the real stores, and counts the calls it receives.
+ */
+public class InMemorySessionStore implements SessionStore {
+
+    private final Map<String, byte[]> sessions = new ConcurrentHashMap<>();
+    private final Map<String, Long> expiryTimes = new ConcurrentHashMap<>();
+    private final Map<String, Long> tombstones = new ConcurrentHashMap<>();
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong writes = new AtomicLong();
+
+    @Override
+    public MapSession load(String id) {
+        loads.incrementAndGet();
+        byte[] data = sessions.get(id);
+        Long expiry = expiryTimes.get(id);
+        if (data == null || expiry == null || expiry < System.currentTimeMillis()) {
+            return null;
+        }
+        return SessionSerializer.deserialize(id, data);
+    }
+
+    @Override
+    public synchronized Collection<String> saveAll(Collection<MapSession> batch) {
+        batches.incrementAndGet();
+        List<String> deleted = new ArrayList<>();
+        for (MapSession session : batch) {
+            if (tombstones.containsKey(session.getId())) {
+                deleted.add(session.getId());
+                continue;
+            }
+            writes.incrementAndGet();
+            sessions.put(session.getId(), SessionSerializer.serialize(session));
+            expiryTimes.put(session.getId(), SessionSerializer.expiryTime(session));
+        }
+        return deleted;
+    }
+
+    @Override
+    public synchronized void delete(String id, Duration tombstoneTtl) {
+        tombstones.merge(id, System.currentTimeMillis() + tombstoneTtl.toMillis(), Math::max);
+        sessions.remove(id);
+        expiryTimes.remove(id);
+    }
+
+    @Override
+    public int deleteExpired(Instant now) {
+        int removed = 0;
+        for (Map.Entry<String, Long> entry : expiryTimes.entrySet()) {
+            if (entry.getValue() < now.toEpochMilli() && expiryTimes.remove(entry.getKey(), entry.getValue())) {
+                sessions.remove(entry.getKey());
+                removed++;
+            }
+        }
+        tombstones.values().removeIf(expiry -> expiry < now.toEpochMilli());
+        return removed;
+    }
+
+    @Override
+    public String getName() {
+        return "memory";
+    }
+
+    public boolean contains(String id) {
+        return sessions.containsKey(id);
+    }
+
+    public long getLoads() {
+        return loads.get();
+    }
+
+    public long getBatches() {
+        return batches.get();
+    }
+
+    public long getWrites() {
+        return writes.get();
+    }
+}
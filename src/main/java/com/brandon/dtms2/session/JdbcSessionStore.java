@@ -0,0 +1,81 @@
+package com.brandon.dtms2.session;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.session.MapSession;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Sessions in the app_sessions table, one row per session with its serialized form.
+ * A flush writes its batch as one JDBC batch of upserts. Deleted ids are kept in
+ * app_session_tombstones until their tombstone expires, and the upsert skips them.
+ */
+public class JdbcSessionStore implements SessionStore {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public JdbcSessionStore(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS app_sessions ("
+                + "session_id VARCHAR(64) PRIMARY KEY, "
+                + "expiry_time BIGINT NOT NULL, "
+                + "session_data BYTEA NOT NULL)");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_app_sessions_expiry ON app_sessions (expiry_time)");
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS app_session_tombstones ("
+                + "session_id VARCHAR(64) PRIMARY KEY, "
+                + "expiry_time BIGINT NOT NULL)");
+    }
+
+    @Override
+    public MapSession load(String id) {
+        List<MapSession> sessions = jdbcTemplate.query(
+                "SELECT session_data FROM app_sessions WHERE session_id = ? AND expiry_time >= ?",
+                (rs, row) -> SessionSerializer.deserialize(id, rs.getBytes(1)),
+                id, System.currentTimeMillis());
+        return sessions.isEmpty() ? null : sessions.get(0);
+    }
+
+    @Override
+    public Collection<String> saveAll(Collection<MapSession> sessions) {
+        List<MapSession> batch = List.copyOf(sessions);
+        List<Object[]> rows = batch.stream()
+                .map(session -> new Object[] {session.getId(), SessionSerializer.expiryTime(session),
+                        SessionSerializer.serialize(session), session.getId()})
+                .toList();
+        int[] counts = jdbcTemplate.batchUpdate("INSERT INTO app_sessions (session_id, expiry_time, session_data) "
+                + "SELECT ?, ?, ? WHERE NOT EXISTS (SELECT 1 FROM app_session_tombstones WHERE session_id = ?) "
+                + "ON CONFLICT (session_id) DO UPDATE SET expiry_time = EXCLUDED.expiry_time, "
+                + "session_data = EXCLUDED.session_data", rows);
+        List<String> deleted = new ArrayList<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                deleted.add(batch.get(i).getId());
+            }
+        }
+        return deleted;
+    }
+
+    @Override
+    public void delete(String id, Duration tombstoneTtl) {
+        // Tombstone first, so an upsert that starts after it cannot bring the row back
+        jdbcTemplate.update("INSERT INTO app_session_tombstones (session_id, expiry_time) VALUES (?, ?) "
+                + "ON CONFLICT (session_id) DO UPDATE SET expiry_time = GREATEST(app_session_tombstones.expiry_time, "
+                + "EXCLUDED.expiry_time)", id, System.currentTimeMillis() + tombstoneTtl.toMillis());
+        jdbcTemplate.update("DELETE FROM app_sessions WHERE session_id = ?", id);
+    }
+
+    @Override
+    public int deleteExpired(Instant now) {
+        jdbcTemplate.update("DELETE FROM app_session_tombstones WHERE expiry_time < ?", now.toEpochMilli());
+        return jdbcTemplate.update("DELETE FROM app_sessions WHERE expiry_time < ?", now.toEpochMilli());
+    }
+
+    @Override
+    public String getName() {
+        return "jdbc";
+    }
+}
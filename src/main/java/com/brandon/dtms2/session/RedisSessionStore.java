@@ -0,0 +1,93 @@
+package com.brandon.dtms2.session;
+
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.session.MapSession;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Sessions as Redis strings under dtms2:session:{id}, expiring with the session so
+ * Redis does the cleanup. Batches are written in one pipeline, each session by a
+ * script that skips it when dtms2:session-deleted:{id}, its tombstone, exists. Needs
+ * the RedisConnectionFactory that Spring Boot configures from spring.data.redis.*.
+ */
+public class RedisSessionStore implements SessionStore {
+
+    private static final String KEY_PREFIX = "dtms2:session:";
+    private static final String TOMBSTONE_PREFIX = "dtms2:session-deleted:";
+
+    // KEYS: session, tombstone; ARGV: data, time to live in ms (0 for none)
+    private static final byte[] SAVE_UNLESS_DELETED = bytes(
+            "if redis.call('EXISTS', KEYS[2]) == 1 then return 0 end "
+            + "if ARGV[2] == '0' then redis.call('SET', KEYS[1], ARGV[1]) "
+            + "else redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2]) end "
+            + "return 1");
+
+    private final RedisTemplate<String, byte[]> redisTemplate;
+
+    public RedisSessionStore(RedisConnectionFactory connectionFactory) {
+        this.redisTemplate = new RedisTemplate<>();
+        this.redisTemplate.setConnectionFactory(connectionFactory);
+        this.redisTemplate.setKeySerializer(RedisSerializer.string());
+        this.redisTemplate.setValueSerializer(RedisSerializer.byteArray());
+        this.redisTemplate.afterPropertiesSet();
+    }
+
+    @Override
+    public MapSession load(String id) {
+        byte[] data = redisTemplate.opsForValue().get(KEY_PREFIX + id);
+        return data != null ? SessionSerializer.deserialize(id, data) : null;
+    }
+
+    @Override
+    public Collection<String> saveAll(Collection<MapSession> sessions) {
+        List<MapSession> batch = List.copyOf(sessions);
+        long now = System.currentTimeMillis();
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (MapSession session : batch) {
+                long expiry = SessionSerializer.expiryTime(session);
+                long ttlMs = expiry == Long.MAX_VALUE ? 0 : Math.max(1, expiry - now);
+                connection.scriptingCommands().eval(SAVE_UNLESS_DELETED, ReturnType.INTEGER, 2,
+                        bytes(KEY_PREFIX + session.getId()), bytes(TOMBSTONE_PREFIX + session.getId()),
+                        SessionSerializer.serialize(session), bytes(Long.toString(ttlMs)));
+            }
+            return null;
+        });
+        List<String> deleted = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            if (results.get(i) instanceof Number saved && saved.longValue() == 0) {
+                deleted.add(batch.get(i).getId());
+            }
+        }
+        return deleted;
+    }
+
+    @Override
+    public void delete(String id, Duration tombstoneTtl) {
+        redisTemplate.opsForValue().set(TOMBSTONE_PREFIX + id, new byte[0], tombstoneTtl);
+        redisTemplate.delete(KEY_PREFIX + id);
+    }
+
+    @Override
+    public int deleteExpired(Instant now) {
+        return 0; // keys expire on their own
+    }
+
+    @Override
+    public String getName() {
+        return "redis";
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,284 @@
+package com.brandon.dtms2.session;
+
+import com.brandon.dtms2.entity.User;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tagged binary encoding for the attribute values this application keeps in the
+ * HTTP session: the user summary map written at login (strings, numbers, dates,
+ * roles) and the SecurityContext of a username/password login. Anything else falls
+ * back to Java serialization under its own tag, so an unexpected attribute costs
+ * bytes but never breaks a session. Tags are part of the stored format: add new
+ * ones, never renumber.
+ */
+final class SessionAttributeCodec {
+
+    private static final int NULL = 0;
+    private static final int STRING = 1;
+    private static final int LONG = 2;
+    private static final int INTEGER = 3;
+    private static final int BOOLEAN = 4;
+    private static final int DOUBLE = 5;
+    private static final int LOCAL_DATE_TIME = 6;
+    private static final int USER_ROLE = 7;
+    private static final int USER_STATUS = 8;
+    private static final int STRING_MAP = 9;
+    private static final int SECURITY_CONTEXT = 10;
+    private static final int JAVA = 127;
+
+    // SecurityContext flags
+    private static final int ENABLED = 1;
+    private static final int ACCOUNT_NON_EXPIRED = 1 << 1;
+    private static final int CREDENTIALS_NON_EXPIRED = 1 << 2;
+    private static final int ACCOUNT_NON_LOCKED = 1 << 3;
+    private static final int HAS_DETAILS = 1 << 4;
+
+    private SessionAttributeCodec() {
+    }
+
+    static void write(DataOutput out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof String string) {
+            out.writeByte(STRING);
+            writeString(out, string);
+        } else if (value instanceof Long number) {
+            out.writeByte(LONG);
+            writeVarLong(out, number);
+        } else if (value instanceof Integer number) {
+            out.writeByte(INTEGER);
+            writeVarLong(out, number);
+        } else if (value instanceof Boolean flag) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean(flag);
+        } else if (value instanceof Double number) {
+            out.writeByte(DOUBLE);
+            out.writeDouble(number);
+        } else if (value instanceof LocalDateTime time) {
+            out.writeByte(LOCAL_DATE_TIME);
+            writeVarLong(out, time.toEpochSecond(ZoneOffset.UTC));
+            writeVarLong(out, time.getNano());
+        } else if (value instanceof User.UserRole role) {
+            out.writeByte(USER_ROLE);
+            writeString(out, role.name());
+        } else if (value instanceof User.UserStatus status) {
+            out.writeByte(USER_STATUS);
+            writeString(out, status.name());
+        } else if (isStringMap(value)) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            out.writeByte(STRING_MAP);
+            writeVarLong(out, map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                writeString(out, (String) entry.getKey());
+                write(out, entry.getValue());
+            }
+        } else if (isPasswordLogin(value)) {
+            out.writeByte(SECURITY_CONTEXT);
+            writeSecurityContext(out, (SecurityContext) value);
+        } else {
+            out.writeByte(JAVA);
+            byte[] bytes = javaSerialize(value);
+            writeVarLong(out, bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    static Object read(DataInput in) throws IOException {
+        int tag = in.readUnsignedByte();
+        switch (tag) {
+            case NULL:
+                return null;
+            case STRING:
+                return readString(in);
+            case LONG:
+                return readVarLong(in);
+            case INTEGER:
+                return (int) readVarLong(in);
+            case BOOLEAN:
+                return in.readBoolean();
+            case DOUBLE:
+                return in.readDouble();
+            case LOCAL_DATE_TIME:
+                long seconds = readVarLong(in);
+                return LocalDateTime.ofEpochSecond(seconds, (int) readVarLong(in), ZoneOffset.UTC);
+            case USER_ROLE:
+                return User.UserRole.valueOf(readString(in));
+            case USER_STATUS:
+                return User.UserStatus.valueOf(readString(in));
+            case STRING_MAP:
+                int size = (int) readVarLong(in);
+                Map<String, Object> map = new HashMap<>();
+                for (int i = 0; i < size; i++) {
+                    String key = readString(in);
+                    map.put(key, read(in));
+                }
+                return map;
+            case SECURITY_CONTEXT:
+                return readSecurityContext(in);
+            case JAVA:
+                byte[] bytes = new byte[(int) readVarLong(in)];
+                in.readFully(bytes);
+                return javaDeserialize(bytes);
+            default:
+                throw new IOException("Unknown session attribute tag " + tag);
+        }
+    }
+
+    private static boolean isStringMap(Object value) {
+        return value instanceof Map<?, ?> map && map.keySet().stream().allMatch(key -> key instanceof String);
+    }
+
+    // The shape AuthController.login produces; other logins are Java serialized
+    private static boolean isPasswordLogin(Object value) {
+        if (!(value instanceof SecurityContext context) || context.getClass() != SecurityContextImpl.class) {
+            return false;
+        }
+        Authentication authentication = context.getAuthentication();
+        return authentication != null
+                && authentication.getClass() == UsernamePasswordAuthenticationToken.class
+                && authentication.isAuthenticated()
+                && authentication.getCredentials() == null
+                && authentication.getPrincipal() instanceof org.springframework.security.core.userdetails.User principal
+                && principal.getPassword() == null
+                && (authentication.getDetails() == null || authentication.getDetails().getClass() == WebAuthenticationDetails.class)
+                && authentication.getAuthorities().stream().allMatch(authority -> authority.getClass() == SimpleGrantedAuthority.class);
+    }
+
+    private static void writeSecurityContext(DataOutput out, SecurityContext context) throws IOException {
+        Authentication authentication = context.getAuthentication();
+        org.springframework.security.core.userdetails.User principal =
+                (org.springframework.security.core.userdetails.User) authentication.getPrincipal();
+        WebAuthenticationDetails details = (WebAuthenticationDetails) authentication.getDetails();
+
+        int flags = (principal.isEnabled() ? ENABLED : 0)
+                | (principal.isAccountNonExpired() ? ACCOUNT_NON_EXPIRED : 0)
+                | (principal.isCredentialsNonExpired() ? CREDENTIALS_NON_EXPIRED : 0)
+                | (principal.isAccountNonLocked() ? ACCOUNT_NON_LOCKED : 0)
+                | (details != null ? HAS_DETAILS : 0);
+        out.writeByte(flags);
+        writeString(out, principal.getUsername());
+        writeAuthorities(out, principal.getAuthorities());
+        writeAuthorities(out, authentication.getAuthorities());
+        if (details != null) {
+            writeString(out, details.getRemoteAddress());
+            writeString(out, details.getSessionId());
+        }
+    }
+
+    private static SecurityContext readSecurityContext(DataInput in) throws IOException {
+        int flags = in.readUnsignedByte();
+        String username = readString(in);
+        List<GrantedAuthority> principalAuthorities = readAuthorities(in);
+        List<GrantedAuthority> authorities = readAuthorities(in);
+
+        org.springframework.security.core.userdetails.User principal = new org.springframework.security.core.userdetails.User(
+                username, "", (flags & ENABLED) != 0, (flags & ACCOUNT_NON_EXPIRED) != 0,
+                (flags & CREDENTIALS_NON_EXPIRED) != 0, (flags & ACCOUNT_NON_LOCKED) != 0, principalAuthorities);
+        principal.eraseCredentials();
+
+        UsernamePasswordAuthenticationToken authentication =
+                UsernamePasswordAuthenticationToken.authenticated(principal, null, authorities);
+        if ((flags & HAS_DETAILS) != 0) {
+            String remoteAddress = readString(in);
+            authentication.setDetails(new WebAuthenticationDetails(remoteAddress, readString(in)));
+        }
+        return new SecurityContextImpl(authentication);
+    }
+
+    private static void writeAuthorities(DataOutput out, Collection<? extends GrantedAuthority> authorities) throws IOException {
+        writeVarLong(out, authorities.size());
+        for (GrantedAuthority authority : authorities) {
+            writeString(out, authority.getAuthority());
+        }
+    }
+
+    private static List<GrantedAuthority> readAuthorities(DataInput in) throws IOException {
+        int size = (int) readVarLong(in);
+        List<GrantedAuthority> authorities = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            authorities.add(new SimpleGrantedAuthority(readString(in)));
+        }
+        return authorities;
+    }
+
+    // Length + 1 as a varint, 0 for null, then UTF-8
+    static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            writeVarLong(out, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length + 1L);
+        out.write(bytes);
+    }
+
+    static String readString(DataInput in) throws IOException {
+        long length = readVarLong(in);
+        if (length == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[(int) (length - 1)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Zig-zag varint: small magnitudes of either sign take one or two bytes
+    static void writeVarLong(DataOutput out, long value) throws IOException {
+        long zigZag = (value << 1) ^ (value >> 63);
+        while ((zigZag & ~0x7FL) != 0) {
+            out.writeByte((int) ((zigZag & 0x7F) | 0x80));
+            zigZag >>>= 7;
+        }
+        out.writeByte((int) zigZag);
+    }
+
+    static long readVarLong(DataInput in) throws IOException {
+        long zigZag = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            zigZag |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return (zigZag >>> 1) ^ -(zigZag & 1);
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    static byte[] javaSerialize(Object value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        }
+        return bytes.toByteArray();
+    }
+
+    static Object javaDeserialize(byte[] bytes) throws IOException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return in.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Unknown class in session attribute", e);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.brandon.dtms2.session;
+
+import org.springframework.session.MapSession;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * One byte array per session, the same for every store. The first byte is the
+ * format version. Version 2 holds the creation time, the last access as an offset
+ * from it and the inactivity timeout as varints, then each attribute name with its
+ * value encoded by SessionAttributeCodec. Sessions written before versioning start
+ * with a zero byte (the high byte of their creation time) and are still read.
+ */
+public final class SessionSerializer {
+
+    static final int VERSION = 2;
+
+    private SessionSerializer() {
+    }
+
+    public static byte[] serialize(MapSession session) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(VERSION);
+            long creationTime = session.getCreationTime().toEpochMilli();
+            SessionAttributeCodec.writeVarLong(out, creationTime);
+            SessionAttributeCodec.writeVarLong(out, session.getLastAccessedTime().toEpochMilli() - creationTime);
+            SessionAttributeCodec.writeVarLong(out, session.getMaxInactiveInterval().getSeconds());
+
+            SessionAttributeCodec.writeVarLong(out, session.getAttributeNames().size());
+            for (String name : session.getAttributeNames()) {
+                SessionAttributeCodec.writeString(out, name);
+                SessionAttributeCodec.write(out, session.getAttribute(name));
+            }
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to serialize session " + session.getId(), e);
+        }
+    }
+
+    public static MapSession deserialize(String id, byte[] data) {
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+            int version = data.length > 0 ? data[0] : -1;
+            if (version == 0) {
+                return deserializeUnversioned(id, in);
+            }
+            if (in.readUnsignedByte() != VERSION) {
+                throw new IOException("Unsupported session format version " + version);
+            }
+
+            MapSession session = new MapSession(id);
+            long creationTime = SessionAttributeCodec.readVarLong(in);
+            session.setCreationTime(Instant.ofEpochMilli(creationTime));
+            session.setLastAccessedTime(Instant.ofEpochMilli(creationTime + SessionAttributeCodec.readVarLong(in)));
+            session.setMaxInactiveInterval(Duration.ofSeconds(SessionAttributeCodec.readVarLong(in)));
+
+            long attributes = SessionAttributeCodec.readVarLong(in);
+            for (long i = 0; i < attributes; i++) {
+                String name = SessionAttributeCodec.readString(in);
+                session.setAttribute(name, SessionAttributeCodec.read(in));
+            }
+            return session;
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to deserialize session " + id, e);
+        }
+    }
+
+    /**
+     * When the session expires if nobody touches it, Long.MAX_VALUE when it never does.
+     */
+    public static long expiryTime(MapSession session) {
+        Duration maxInactive = session.getMaxInactiveInterval();
+        if (maxInactive.isNegative()) {
+            return Long.MAX_VALUE;
+        }
+        return session.getLastAccessedTime().plus(maxInactive).toEpochMilli();
+    }
+
+    // Fixed-width times, then the attributes as one Java serialized map
+    @SuppressWarnings("unchecked")
+    private static MapSession deserializeUnversioned(String id, DataInputStream in) throws IOException {
+        MapSession session = new MapSession(id);
+        session.setCreationTime(Instant.ofEpochMilli(in.readLong()));
+        session.setLastAccessedTime(Instant.ofEpochMilli(in.readLong()));
+        session.setMaxInactiveInterval(Duration.ofSeconds(in.readLong()));
+        try {
+            Map<String, Object> attributes = (Map<String, Object>) new ObjectInputStream(in).readObject();
+            attributes.forEach(session::setAttribute);
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Unknown class in session attributes", e);
+        }
+        return session;
+    }
+}
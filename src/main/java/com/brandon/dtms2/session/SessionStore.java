@@ -0,0 +1,38 @@
+package com.brandon.dtms2.session;
+
+import org.springframework.session.MapSession;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+
+/**
+ * Durable tier behind TieredSessionRepository. Implementations only see whole
+ * sessions: loaded on a local miss, written in batches at flush time. A delete leaves
+ * a tombstone behind, because another instance may still hold the session in its
+ * cache and would otherwise write it back with its next batch.
+ */
+public interface SessionStore {
+
+    /**
+     * The stored session, or null when there is none or it has expired.
+     */
+    MapSession load(String id);
+
+    /**
+     * Write the batch, skipping sessions that have a tombstone. Returns the ids skipped.
+     */
+    Collection<String> saveAll(Collection<MapSession> sessions);
+
+    /**
+     * Remove the session and keep its tombstone for at least tombstoneTtl.
+     */
+    void delete(String id, Duration tombstoneTtl);
+
+    /**
+     * Remove sessions and tombstones that expired before now, returning how many were removed when the store knows.
+     */
+    int deleteExpired(Instant now);
+
+    String getName();
+}
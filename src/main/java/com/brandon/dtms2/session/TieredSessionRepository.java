@@ -0,0 +1,264 @@
+package com.brandon.dtms2.session;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.session.MapSession;
+import org.springframework.session.SessionRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * HTTP sessions served from a bounded in-process cache in front of a SessionStore.
+ * Reads go to the store only on a miss; saves, which Spring Session makes on nearly
+ * every request to record the last access, only mark the session dirty and are
+ * written to the store in one batch per flush interval. Deletes, such as logout,
+ * go through at once. A save that changes no attribute is not written at all
+ * unless the stored last access time is more than touch-interval old, so the store
+ * still expires sessions that stop being used. A cached session is re-read from the
+ * store after local-ttl so that instances sharing the store do not drift apart for long.
+ * A delete leaves a tombstone in the store, so another instance's cached copy is
+ * dropped at its next flush instead of being written back.
+ */
+public class TieredSessionRepository implements SessionRepository<MapSession> {
+
+    private static final Logger logger = LoggerFactory.getLogger(TieredSessionRepository.class);
+
+    private final SessionStore store;
+    private final Duration defaultMaxInactiveInterval;
+    private final long localTtlMs;
+    private final long touchIntervalMs;
+
+    private final Map<String, Local> cache;
+    private final Map<String, MapSession> dirty = new ConcurrentHashMap<>();
+    // Held while a batch is written, so a delete cannot be undone by a flush that read the session before it
+    private final Object flushLock = new Object();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong saves = new AtomicLong();
+    private final AtomicLong unchanged = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+
+    public TieredSessionRepository(SessionStore store, Duration defaultMaxInactiveInterval,
+                                   int maxEntries, long localTtlMs, long touchIntervalMs) {
+        this.store = store;
+        this.defaultMaxInactiveInterval = defaultMaxInactiveInterval;
+        this.localTtlMs = localTtlMs;
+        this.touchIntervalMs = touchIntervalMs;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Local> eldest) {
+                // Dirty sessions stay in the dirty map until flushed, so evicting loses nothing
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    @Override
+    public MapSession createSession() {
+        MapSession session = new MapSession();
+        session.setMaxInactiveInterval(defaultMaxInactiveInterval);
+        return session;
+    }
+
+    @Override
+    public void save(MapSession session) {
+        if (!session.getId().equals(session.getOriginalId())) {
+            // Session fixation protection gave it a new id at login
+            deleteById(session.getOriginalId());
+        }
+        MapSession copy = new MapSession(session);
+        saves.incrementAndGet();
+        synchronized (cache) {
+            Local local = cache.get(copy.getId());
+            if (local != null && !dirty.containsKey(copy.getId()) && matchesStored(copy, local.stored)) {
+                cache.put(copy.getId(), new Local(copy, local.stored, local.cachedAt));
+                unchanged.incrementAndGet();
+                return;
+            }
+        }
+        dirty.put(copy.getId(), copy);
+        putLocal(copy, null);
+    }
+
+    @Override
+    public MapSession findById(String id) {
+        MapSession session = dirty.get(id);
+        if (session == null) {
+            session = getLocal(id);
+        }
+        if (session != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+            session = store.load(id);
+            if (session == null) {
+                return null;
+            }
+            putLocal(session, session);
+        }
+
+        if (session.isExpired()) {
+            deleteById(id);
+            return null;
+        }
+        return new MapSession(session);
+    }
+
+    @Override
+    public void deleteById(String id) {
+        synchronized (flushLock) {
+            MapSession session = dirty.remove(id);
+            synchronized (cache) {
+                Local local = cache.remove(id);
+                if (session == null && local != null) {
+                    session = local.session;
+                }
+            }
+            store.delete(id, tombstoneTtl(session));
+        }
+    }
+
+    /**
+     * Write every session saved since the last flush to the store in one batch.
+     */
+    @Scheduled(fixedDelayString = "${app.session.flush-interval-ms:5000}")
+    public void flush() {
+        synchronized (flushLock) {
+            if (dirty.isEmpty()) {
+                return;
+            }
+            List<MapSession> batch = new ArrayList<>(dirty.size());
+            for (String id : new ArrayList<>(dirty.keySet())) {
+                MapSession session = dirty.remove(id);
+                if (session != null) {
+                    batch.add(session);
+                }
+            }
+            try {
+                Collection<String> deleted = store.saveAll(batch);
+                flushes.incrementAndGet();
+                written.addAndGet(batch.size() - deleted.size());
+                if (!deleted.isEmpty()) {
+                    // Logged out through another instance
+                    synchronized (cache) {
+                        deleted.forEach(cache::remove);
+                    }
+                    batch.removeIf(session -> deleted.contains(session.getId()));
+                }
+                markStored(batch);
+            } catch (RuntimeException e) {
+                // Keep them for the next flush, unless a newer save is already waiting
+                batch.forEach(session -> dirty.putIfAbsent(session.getId(), session));
+                logger.warn("Failed to write {} sessions to the {} store: {}", batch.size(), store.getName(), e.getMessage());
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.session.cleanup-interval-ms:600000}")
+    public void cleanUpExpired() {
+        synchronized (cache) {
+            cache.values().removeIf(local -> local.session.isExpired());
+        }
+        int removed = store.deleteExpired(Instant.now());
+        if (removed > 0) {
+            logger.debug("Removed {} expired sessions from the {} store", removed, store.getName());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("store", store.getName());
+        synchronized (cache) {
+            stats.put("cached", cache.size());
+        }
+        stats.put("dirty", dirty.size());
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("saves", saves.get());
+        stats.put("unchanged", unchanged.get());
+        stats.put("flushes", flushes.get());
+        stats.put("written", written.get());
+        return stats;
+    }
+
+    private MapSession getLocal(String id) {
+        synchronized (cache) {
+            Local local = cache.get(id);
+            if (local == null) {
+                return null;
+            }
+            if (System.currentTimeMillis() - local.cachedAt >= localTtlMs) {
+                cache.remove(id);
+                return null;
+            }
+            return local.session;
+        }
+    }
+
+    private void putLocal(MapSession session, MapSession stored) {
+        synchronized (cache) {
+            Local local = cache.get(session.getId());
+            if (stored == null && local != null) {
+                stored = local.stored;
+            }
+            cache.put(session.getId(), new Local(session, stored, System.currentTimeMillis()));
+        }
+    }
+
+    private void markStored(List<MapSession> batch) {
+        synchronized (cache) {
+            for (MapSession session : batch) {
+                Local local = cache.get(session.getId());
+                if (local != null) {
+                    cache.put(session.getId(), new Local(local.session, session, local.cachedAt));
+                }
+            }
+        }
+    }
+
+    // Long enough to outlive any copy of the session another instance may still write
+    private Duration tombstoneTtl(MapSession session) {
+        if (session != null && session.getMaxInactiveInterval().compareTo(defaultMaxInactiveInterval) > 0) {
+            return session.getMaxInactiveInterval();
+        }
+        return defaultMaxInactiveInterval;
+    }
+
+    // Same attributes and timeout as the stored copy, and its last access recent enough
+    private boolean matchesStored(MapSession session, MapSession stored) {
+        if (stored == null
+                || !session.getMaxInactiveInterval().equals(stored.getMaxInactiveInterval())
+                || Duration.between(stored.getLastAccessedTime(), session.getLastAccessedTime()).toMillis() >= touchIntervalMs
+                || !session.getAttributeNames().equals(stored.getAttributeNames())) {
+            return false;
+        }
+        for (String name : session.getAttributeNames()) {
+            if (!Objects.equals(session.getAttribute(name), stored.getAttribute(name))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // The session as last read, and as last known to be in the store (null when it may differ)
+    private record Local(MapSession session, MapSession stored, long cachedAt) {
+    }
+}
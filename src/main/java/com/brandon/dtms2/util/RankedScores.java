@@ -0,0 +1,224 @@
+package com.brandon.dtms2.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Scores by id, kept ordered highest first in a treap whose nodes know the size of
+ * their subtree. Setting a score, looking up an id's rank and reading a page of the
+ * ranking are all O(log n) (plus the page length). Ranks are competition ranks:
+ * equal scores share a rank and the next one skips, as in 1, 2, 2, 4. Entries whose
+ * score falls to zero, give or take rounding, are dropped. Not thread-safe, callers
+ * synchronize.
+ */
+public class RankedScores {
+
+    // Sums of doubles that cancel out leave residues like 1e-15 behind
+    private static final double ZERO = 1e-9;
+
+    private final Map<Long, Double> scores = new HashMap<>();
+    private final SplittableRandom random = new SplittableRandom();
+    private Node root;
+
+    public int size() {
+        return scores.size();
+    }
+
+    public Double getScore(long id) {
+        return scores.get(id);
+    }
+
+    public void add(long id, double delta) {
+        set(id, scores.getOrDefault(id, 0.0) + delta);
+    }
+
+    public void set(long id, double score) {
+        remove(id);
+        if (score > ZERO) {
+            scores.put(id, score);
+            root = insert(root, new Node(id, score, random.nextInt()));
+        }
+    }
+
+    public void remove(long id) {
+        Double score = scores.remove(id);
+        if (score != null) {
+            root = delete(root, id, score);
+        }
+    }
+
+    /**
+     * 1 for the highest score, 0 when the id has no score.
+     */
+    public int rankOf(long id) {
+        Double score = scores.get(id);
+        return score == null ? 0 : countAbove(score) + 1;
+    }
+
+    /**
+     * Number of ids with a score strictly higher than the given one.
+     */
+    public int countAbove(double score) {
+        int count = 0;
+        Node node = root;
+        while (node != null) {
+            if (node.score > score) {
+                count += size(node.left) + 1;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Up to limit entries in ranking order, skipping the first offset.
+     */
+    public List<Entry> page(int offset, int limit) {
+        List<Entry> entries = new ArrayList<>(Math.max(0, Math.min(limit, size() - offset)));
+        collect(root, offset, limit, entries);
+
+        // Competition ranks: the first entry may tie with ones before the page
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            boolean tiesPrevious = i > 0 && entries.get(i - 1).score == entry.score;
+            entry.rank = tiesPrevious ? entries.get(i - 1).rank : (i == 0 ? countAbove(entry.score) + 1 : offset + i + 1);
+        }
+        return entries;
+    }
+
+    private static void collect(Node node, int offset, int limit, List<Entry> out) {
+        if (node == null || out.size() >= limit) {
+            return;
+        }
+        int leftSize = size(node.left);
+        if (offset < leftSize) {
+            collect(node.left, offset, limit, out);
+        }
+        if (offset <= leftSize && out.size() < limit) {
+            out.add(new Entry(node.id, node.score));
+        }
+        collect(node.right, Math.max(0, offset - leftSize - 1), limit, out);
+    }
+
+    // Highest score first, ties by id so every node has a distinct position
+    private static int compare(double score, long id, Node node) {
+        int byScore = Double.compare(node.score, score);
+        return byScore != 0 ? byScore : Long.compare(id, node.id);
+    }
+
+    private static Node insert(Node node, Node added) {
+        if (node == null) {
+            return added;
+        }
+        if (added.priority > node.priority) {
+            Node[] parts = split(node, added.score, added.id);
+            added.left = parts[0];
+            added.right = parts[1];
+            return update(added);
+        }
+        if (compare(added.score, added.id, node) < 0) {
+            node.left = insert(node.left, added);
+        } else {
+            node.right = insert(node.right, added);
+        }
+        return update(node);
+    }
+
+    private static Node delete(Node node, long id, double score) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(score, id, node);
+        if (cmp == 0) {
+            return merge(node.left, node.right);
+        }
+        if (cmp < 0) {
+            node.left = delete(node.left, id, score);
+        } else {
+            node.right = delete(node.right, id, score);
+        }
+        return update(node);
+    }
+
+    // [nodes ranked before (score, id), nodes ranked after]
+    private static Node[] split(Node node, double score, long id) {
+        if (node == null) {
+            return new Node[] {null, null};
+        }
+        if (compare(score, id, node) < 0) {
+            Node[] parts = split(node.left, score, id);
+            node.left = parts[1];
+            return new Node[] {parts[0], update(node)};
+        }
+        Node[] parts = split(node.right, score, id);
+        node.right = parts[0];
+        return new Node[] {update(node), parts[1]};
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            return update(left);
+        }
+        right.left = merge(left, right.left);
+        return update(right);
+    }
+
+    private static Node update(Node node) {
+        node.size = size(node.left) + size(node.right) + 1;
+        return node;
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static final class Node {
+        private final long id;
+        private final double score;
+        private final int priority;
+        private Node left;
+        private Node right;
+        private int size = 1;
+
+        private Node(long id, double score, int priority) {
+            this.id = id;
+            this.score = score;
+            this.priority = priority;
+        }
+    }
+
+    public static final class Entry {
+        private final long id;
+        private final double score;
+        private int rank;
+
+        private Entry(long id, double score) {
+            this.id = id;
+            this.score = score;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public double getScore() {
+            return score;
+        }
+
+        public int getRank() {
+            return rank;
+        }
+    }
+}
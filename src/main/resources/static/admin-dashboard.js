@@ -4,6 +4,14 @@ class AdminDashboard {
         this.currentUser = null;
         this.machines = [];
         this.users = [];
+        // Server-side user directory: current filters, cursor of the next page, counts for the search
+        this.userFilters = { search: '', role: '', status: '' };
+        this.userCursor = null;
+        this.userCounts = null;
+        // Users in the whole directory, from the counts of an unsearched page
+        this.directoryTotal = null;
+        // Only the latest directory request may replace the table, see loadUsers
+        this.userRequestSeq = 0;
         this.charts = {};
         this.isInitialized = false;
         this.init();
@@ -11,9 +19,13 @@ class AdminDashboard {
 
     async init() {
         try {
-            await this.checkAuth();
-            await this.loadDashboardData();
+            if (!(await this.loadCompositeDashboard())) {
+                await this.checkAuth();
+                await this.loadDashboardData();
+            }
             this.setupEventListeners();
+            this.setupUserDirectoryControls();
+            this.setupRealTimeUpdates();
             this.isInitialized = true;
         } catch (error) {
             console.error('Dashboard initialization failed:', error);
@@ -33,17 +45,64 @@ class AdminDashboard {
                 window.location.href = '/login';
                 return;
             }
-            document.getElementById('userName').textContent =
-                `${this.currentUser.firstName} ${this.currentUser.lastName}`;
-            // Set user initials
-            const initials = (this.currentUser.firstName?.charAt(0) || 'A') + (this.currentUser.lastName?.charAt(0) || '');
-            document.getElementById('userInitials').textContent = initials;
+            this.renderCurrentUser();
         } catch (error) {
             console.error('Auth check failed:', error);
             window.location.href = '/login';
         }
     }
 
+    renderCurrentUser() {
+        document.getElementById('userName').textContent =
+            `${this.currentUser.firstName} ${this.currentUser.lastName}`;
+        // Set user initials
+        const initials = (this.currentUser.firstName?.charAt(0) || 'A') + (this.currentUser.lastName?.charAt(0) || '');
+        document.getElementById('userInitials').textContent = initials;
+    }
+
+    async loadCompositeDashboard() {
+        // One request for the whole page; panels the server could not compute in time are fetched separately
+        try {
+            const response = await fetch('/api/admin/dashboard');
+            if (!response.ok) return false;
+
+            const dashboard = await response.json();
+            if (!dashboard.success || !dashboard.currentUser || dashboard.currentUser.role !== 'ADMIN') return false;
+
+            this.currentUser = dashboard.currentUser;
+            this.renderCurrentUser();
+
+            if (dashboard.stats) {
+                this.updateStatsUI(dashboard.stats);
+            } else {
+                await this.loadSystemStats();
+            }
+            if (dashboard.machines) {
+                this.machines = dashboard.machines;
+            } else {
+                await this.loadMachines();
+            }
+            if (dashboard.users) {
+                this.applyUserPage(dashboard.users, false);
+            } else {
+                await this.loadUsers();
+            }
+            this.userActivity = dashboard.userActivity || null;
+
+            this.renderSystemActivity();
+            this.renderSystemAlerts();
+            this.renderMachinesTable();
+            this.renderUsersTable();
+            setTimeout(() => {
+                this.loadChartsData();
+            }, 100);
+            return true;
+        } catch (error) {
+            console.warn('Composite dashboard unavailable, loading panels separately:', error);
+            return false;
+        }
+    }
+
     async loadDashboardData() {
         try {
             // Load data in sequence to avoid overwhelming the server
@@ -99,7 +158,7 @@ class AdminDashboard {
 
     setFallbackStats() {
         this.updateStatsUI({
-            totalUsers: this.users.length,
+            totalUsers: this.directoryTotal !== null ? this.directoryTotal : this.users.length,
             totalSessions: this.machines.reduce((sum, m) => sum + (m.totalSessions || 0), 0),
             activeMachines: this.machines.filter(m => m.status === 'ACTIVE').length,
             systemHealth: 98
@@ -122,13 +181,24 @@ class AdminDashboard {
         }
     }
 
-    async loadUsers() {
+    // Resolves false when a newer request (another keystroke or filter) superseded this one
+    async loadUsers(append = false) {
+        const seq = ++this.userRequestSeq;
         try {
-            const response = await fetch('/api/users');
-            if (response.ok) {
-                const result = await response.json();
+            const params = new URLSearchParams();
+            Object.entries(this.userFilters).forEach(([name, value]) => {
+                if (value) params.set(name, value);
+            });
+            if (append && this.userCursor) params.set('cursor', this.userCursor);
+
+            const response = await fetch(`/api/users/directory?${params}`);
+            const result = response.ok ? await response.json() : null;
+            if (seq !== this.userRequestSeq) {
+                return false;
+            }
+            if (result) {
                 if (result.success) {
-                    this.users = result.users || [];
+                    this.applyUserPage(result, append);
                 } else {
                     console.warn('Failed to load users:', result.message);
                     this.users = this.getMockUsers();
@@ -138,9 +208,87 @@ class AdminDashboard {
                 this.users = this.getMockUsers();
             }
         } catch (error) {
+            if (seq !== this.userRequestSeq) {
+                return false;
+            }
             console.error('Failed to load users:', error);
             this.users = this.getMockUsers();
         }
+        return true;
+    }
+
+    applyUserPage(page, append) {
+        this.users = append ? this.users.concat(page.users || []) : (page.users || []);
+        this.userCursor = page.hasMore ? page.nextCursor : null;
+        if (page.counts) {
+            this.userCounts = page.counts;
+            if (!this.userFilters.search) {
+                this.directoryTotal = page.counts.total;
+            }
+            this.renderUserCounts();
+        }
+    }
+
+    async loadMoreUsers() {
+        if (!this.userCursor) return;
+        if (await this.loadUsers(true)) {
+            this.renderUsersTable();
+        }
+    }
+
+    // Every user, whatever the table shows, a full page at a time
+    async loadAllUsers() {
+        const users = [];
+        let cursor = null;
+        do {
+            const params = new URLSearchParams({ limit: '200' });
+            if (cursor) params.set('cursor', cursor);
+            const response = await fetch(`/api/users/directory?${params}`);
+            const result = response.ok ? await response.json() : null;
+            if (!result || !result.success) {
+                throw new Error(result ? result.message : `HTTP ${response.status}`);
+            }
+            users.push(...(result.users || []));
+            cursor = result.hasMore ? result.nextCursor : null;
+        } while (cursor);
+        return users;
+    }
+
+    setupUserDirectoryControls() {
+        const reload = async () => {
+            if (await this.loadUsers()) {
+                this.renderUsersTable();
+            }
+        };
+
+        const search = document.getElementById('userSearch');
+        if (search) {
+            let timer = null;
+            search.addEventListener('input', () => {
+                clearTimeout(timer);
+                timer = setTimeout(() => {
+                    this.userFilters.search = search.value.trim();
+                    reload();
+                }, 300);
+            });
+        }
+        ['role', 'status'].forEach(name => {
+            const select = document.getElementById(`user${name.charAt(0).toUpperCase() + name.slice(1)}Filter`);
+            if (select) {
+                select.addEventListener('change', () => {
+                    this.userFilters[name] = select.value;
+                    reload();
+                });
+            }
+        });
+    }
+
+    renderUserCounts() {
+        const element = document.getElementById('userCounts');
+        if (!element || !this.userCounts) return;
+        const { total, byRole, byStatus } = this.userCounts;
+        element.textContent = `${total} users: ${byRole.MEMBER} members, ${byRole.INSTRUCTOR} instructors, ` +
+            `${byRole.ADMIN} admins; ${byStatus.ACTIVE} active, ${byStatus.INACTIVE} inactive, ${byStatus.SUSPENDED} suspended`;
     }
 
     async loadChartsData() {
@@ -177,6 +325,66 @@ class AdminDashboard {
         });
     }
 
+    setupRealTimeUpdates() {
+        if (!window.EventSource) {
+            return;
+        }
+
+        // Changes are pushed by the server, only the affected panels are reloaded
+        this.pendingRefresh = new Set();
+        this.eventSource = new EventSource('/api/events/stream');
+
+        this.eventSource.addEventListener('machine.status', (event) => {
+            const data = JSON.parse(event.data);
+            const machine = this.machines.find(m => m.id === data.machineId);
+            if (machine && data.status !== 'DELETED') {
+                machine.status = data.status;
+                this.renderMachinesTable();
+                if (document.getElementById('machineStatusChart')) {
+                    this.renderMachineStatusChart();
+                }
+            } else {
+                this.scheduleRefresh('machines');
+            }
+            this.scheduleRefresh('stats');
+        });
+
+        ['user.created', 'user.updated', 'user.deleted'].forEach(name => {
+            this.eventSource.addEventListener(name, () => {
+                this.scheduleRefresh('users');
+                this.scheduleRefresh('stats');
+            });
+        });
+
+        ['session.created', 'session.quality', 'session.deleted'].forEach(name => {
+            this.eventSource.addEventListener(name, () => this.scheduleRefresh('stats'));
+        });
+    }
+
+    scheduleRefresh(panel) {
+        // Coalesce bursts of events into one reload per panel
+        this.pendingRefresh.add(panel);
+        clearTimeout(this.refreshTimer);
+        this.refreshTimer = setTimeout(() => this.applyPendingRefresh(), 2000);
+    }
+
+    async applyPendingRefresh() {
+        const panels = new Set(this.pendingRefresh);
+        this.pendingRefresh.clear();
+
+        if (panels.has('machines')) {
+            await this.loadMachines();
+            this.renderMachinesTable();
+        }
+        if (panels.has('users')) {
+            await this.loadUsers();
+            this.renderUsersTable();
+        }
+        if (panels.has('stats')) {
+            await this.loadSystemStats();
+        }
+    }
+
     // Enhanced Export Report Functionality
     async exportReport() {
         const reportType = document.getElementById('reportType').value;
@@ -396,6 +604,11 @@ class AdminDashboard {
         const tbody = document.getElementById('usersTableBody');
         if (!tbody) return;
 
+        const loadMore = document.getElementById('loadMoreUsers');
+        if (loadMore) {
+            loadMore.style.display = this.userCursor ? 'inline-block' : 'none';
+        }
+
         if (this.users.length === 0) {
             tbody.innerHTML = '<tr><td colspan="7" class="text-center">No users found</td></tr>';
             return;
@@ -519,8 +732,12 @@ class AdminDashboard {
                         </tr>
                     `;
 
-                    // Use actual user data for performance overview
-                    bodyHTML = this.users.map(user => `
+                    // The whole directory, not just the page loaded in the users table
+                    const reportUsers = await this.loadAllUsers().catch(error => {
+                        console.warn('Failed to load the user directory, reporting the loaded page:', error);
+                        return this.users;
+                    });
+                    bodyHTML = reportUsers.map(user => `
                         <tr>
                             <td>${user.id}</td>
                             <td>${user.firstName} ${user.lastName}</td>
@@ -732,9 +949,24 @@ class AdminDashboard {
             const ctx = document.getElementById('userActivityChart')?.getContext('2d');
             if (!ctx) return;
 
-            // Use mock data for now since the endpoint might not exist
-            const days = ['Mon', 'Tue', 'Wed', 'Thu', 'Fri', 'Sat', 'Sun'];
-            const activityData = [45, 52, 38, 61, 55, 68, 72];
+            // Daily session counts bucketed on the server, mock data if the call fails
+            let days = ['Mon', 'Tue', 'Wed', 'Thu', 'Fri', 'Sat', 'Sun'];
+            let activityData = [45, 52, 38, 61, 55, 68, 72];
+            try {
+                // Prefetched by the composite dashboard on first load
+                let activity = this.userActivity;
+                this.userActivity = null;
+                if (!activity) {
+                    const response = await fetch('/api/admin/user-activity');
+                    activity = response.ok ? await response.json() : null;
+                }
+                if (activity && Array.isArray(activity.labels) && Array.isArray(activity.data)) {
+                    days = activity.labels;
+                    activityData = activity.data;
+                }
+            } catch (error) {
+                console.warn('Using mock user activity data:', error);
+            }
 
             this.charts.userActivity = new Chart(ctx, {
                 type: 'line',
@@ -18,6 +18,11 @@ class AuthService {
 
             console.log('Login response status:', response.status);
 
+            // Sign-ins are busy: the server says how long to wait
+            if (response.status === 503) {
+                return this.busyResult(response);
+            }
+
             if (!response.ok) {
                 const errorText = await response.text();
                 throw new Error(`Login failed: ${response.status} - ${errorText}`);
@@ -32,6 +37,16 @@ class AuthService {
         }
     }
 
+    async busyResult(response) {
+        const retryAfter = response.headers.get('Retry-After') || '1';
+        const result = await response.json().catch(() => ({}));
+        return {
+            success: false,
+            retryAfter: Number(retryAfter),
+            message: `${result.message || 'Server busy'} (retry in ${retryAfter}s)`
+        };
+    }
+
     async register(userData) {
         try {
             console.log('Attempting registration for user:', userData.username);
@@ -47,6 +62,11 @@ class AuthService {
 
             console.log('Register response status:', response.status);
 
+            // Sign-ins are busy: the server says how long to wait
+            if (response.status === 503) {
+                return this.busyResult(response);
+            }
+
             if (!response.ok) {
                 const errorText = await response.text();
                 throw new Error(`Registration failed: ${response.status} - ${errorText}`);
@@ -3,7 +3,14 @@ class InstructorDashboard {
         this.apiBase = '/api';
         this.currentUser = null;
         this.members = [];
-        this.workoutSessions = [];
+        this.recentSessions = [];
+        this.qualityIssueSessions = [];
+        this.qualityCounts = null;
+        this.memberProgress = [];
+        this.sessionRows = [];
+        this.sessionCursor = null;
+        this.sessionFilters = {};
+        this.sessionFacets = null;
         this.dashboardStats = {};
         this.chartData = {};
         this.charts = {};
@@ -11,11 +18,12 @@ class InstructorDashboard {
     }
 
     async init() {
-        await this.checkAuth();
-        await this.loadDashboardData();
+        if (!(await this.loadCompositeDashboard())) {
+            await this.checkAuth();
+            await this.loadDashboardData();
+        }
         this.setupEventListeners();
         this.renderCharts();
-        this.setupAutoRefresh();
         this.setupRealTimeUpdates();
         this.showNotification('Dashboard loaded successfully!', 'success');
     }
@@ -35,8 +43,7 @@ class InstructorDashboard {
                 return;
             }
 
-            document.getElementById('userName').textContent =
-                `${this.currentUser.firstName || ''} ${this.currentUser.lastName || ''}`.trim() || 'Instructor';
+            this.renderCurrentUser();
 
         } catch (error) {
             console.error('Auth check failed:', error);
@@ -44,37 +51,59 @@ class InstructorDashboard {
         }
     }
 
+    renderCurrentUser() {
+        document.getElementById('userName').textContent =
+            `${this.currentUser.firstName || ''} ${this.currentUser.lastName || ''}`.trim() || 'Instructor';
+    }
+
+    async loadCompositeDashboard() {
+        // One request for the whole page; panels the server could not compute in time are fetched separately
+        try {
+            this.showLoadingState(true);
+            const response = await fetch('/api/instructor/dashboard');
+            if (!response.ok) {
+                this.showLoadingState(false);
+                return false;
+            }
+
+            const dashboard = await response.json();
+            const role = dashboard.currentUser && dashboard.currentUser.role;
+            if (!dashboard.success || (role !== 'INSTRUCTOR' && role !== 'ADMIN')) {
+                this.showLoadingState(false);
+                return false;
+            }
+
+            this.currentUser = dashboard.currentUser;
+            this.renderCurrentUser();
+
+            const [stats, members, progress, chartData] = await Promise.all([
+                dashboard.stats || this.fetchData('/api/instructor/dashboard-stats'),
+                dashboard.members || this.fetchData('/api/instructor/members'),
+                dashboard.memberProgress || this.fetchData('/api/instructor/member-progress'),
+                dashboard.chartData || this.fetchData('/api/instructor/chart-data')
+            ]);
+            await this.applyDashboardData(stats, members, progress, chartData);
+            return true;
+        } catch (error) {
+            console.warn('Composite dashboard unavailable, loading panels separately:', error);
+            this.showLoadingState(false);
+            return false;
+        }
+    }
+
     async loadDashboardData() {
         try {
             this.showLoadingState(true);
 
             // Load all data in parallel for better performance
-            const [stats, members, sessions, chartData] = await Promise.all([
+            const [stats, members, progress, chartData] = await Promise.all([
                 this.fetchData('/api/instructor/dashboard-stats'),
                 this.fetchData('/api/instructor/members'),
-                this.fetchData('/api/instructor/workout-sessions'),
+                this.fetchData('/api/instructor/member-progress'),
                 this.fetchData('/api/instructor/chart-data')
             ]);
 
-            this.dashboardStats = stats || {};
-            this.members = Array.isArray(members) ? members : [];
-            this.workoutSessions = sessions && sessions.success ? sessions.sessions : [];
-            this.chartData = chartData || {};
-
-            // Process session data to handle DTO structure
-            this.processSessionsData();
-
-            // Enhance members with additional data
-            await this.enhanceMembersData();
-
-            this.updateDashboardStats();
-            this.renderRecentActivity();
-            this.renderMembersTable();
-            this.renderWorkoutSessions();
-            this.renderQualityIssues();
-            this.renderProgressReports();
-
-            this.showLoadingState(false);
+            await this.applyDashboardData(stats, members, progress, chartData);
         } catch (error) {
             console.error('Failed to load dashboard data:', error);
             this.showNotification('Failed to load dashboard data: ' + error.message, 'error');
@@ -82,6 +111,27 @@ class InstructorDashboard {
         }
     }
 
+    async applyDashboardData(stats, members, progress, chartData) {
+        this.dashboardStats = stats || {};
+        this.members = Array.isArray(members) ? members : [];
+        this.memberProgress = Array.isArray(progress) ? progress : [];
+        this.chartData = chartData || {};
+
+        // Member totals come from one aggregate, the session panels from bounded search pages
+        this.applyMemberProgress();
+        await this.loadSessionPanels();
+
+        this.updateDashboardStats();
+        this.renderRecentActivity();
+        this.renderMembersTable();
+        this.renderSessionMemberFilter();
+        await this.loadSessionPage();
+        this.renderQualityIssues();
+        this.renderProgressReports();
+
+        this.showLoadingState(false);
+    }
+
     async fetchData(url) {
         const response = await fetch(url);
         if (!response.ok) {
@@ -90,8 +140,8 @@ class InstructorDashboard {
         return await response.json();
     }
 
-    processSessionsData() {
-        this.workoutSessions.forEach(session => {
+    normalizeSessions(sessions) {
+        sessions.forEach(session => {
             // Convert date strings to Date objects
             if (typeof session.startTime === 'string') {
                 session.startTime = new Date(session.startTime);
@@ -100,52 +150,50 @@ class InstructorDashboard {
                 session.endTime = new Date(session.endTime);
             }
 
-            // Handle DTO structure - session may have userName or user object
-            if (!session.userName && session.user) {
-                session.userName = `${session.user.firstName || ''} ${session.user.lastName || ''}`.trim();
-            }
-
             // Handle machine data from DTO
             if (!session.machineName && session.machine) {
                 session.machineName = session.machine.name;
                 session.machineType = session.machine.type;
             }
         });
+        return sessions;
+    }
 
-        // Sort by start time descending
-        this.workoutSessions.sort((a, b) => new Date(b.startTime) - new Date(a.startTime));
+    async loadSessionPanels() {
+        // The newest sessions and the newest flagged ones, each a single page of the search
+        try {
+            const [recent, issues] = await Promise.all([
+                this.fetchData('/api/instructor/workout-sessions/search?limit=5'),
+                this.fetchData('/api/instructor/workout-sessions/search?quality=false&limit=50')
+            ]);
+            this.recentSessions = this.normalizeSessions(recent.success ? recent.sessions : []);
+            this.qualityIssueSessions = this.normalizeSessions(issues.success ? issues.sessions : []);
+            // Good and flagged counts under the other filters, see WorkoutSessionSearchService.getFacets
+            this.qualityCounts = issues.facets ? issues.facets.byQuality : null;
+        } catch (error) {
+            console.error('Failed to load recent and flagged sessions:', error);
+            this.recentSessions = [];
+            this.qualityIssueSessions = [];
+            this.qualityCounts = null;
+        }
     }
 
-    async enhanceMembersData() {
-        for (let member of this.members) {
-            try {
-                const sessionsData = await this.fetchData(`/api/workouts/user/${member.id}`);
-                const sessions = sessionsData.sessions || sessionsData;
-
-                member.totalWorkouts = Array.isArray(sessions) ? sessions.length : 0;
-                member.lastActivity = Array.isArray(sessions) && sessions.length > 0 ?
-                    new Date(sessions[0].startTime) : new Date(member.createdAt);
-                member.avgCalories = Array.isArray(sessions) && sessions.length > 0 ?
-                    Math.round(sessions.reduce((sum, session) => sum + (session.caloriesBurned || 0), 0) / sessions.length) : 0;
-
-                // Calculate member progress metrics
-                member.totalCalories = Array.isArray(sessions) ?
-                    sessions.reduce((sum, session) => sum + (session.caloriesBurned || 0), 0) : 0;
-                member.avgDuration = Array.isArray(sessions) && sessions.length > 0 ?
-                    Math.round(sessions.reduce((sum, session) => sum + (this.getDurationInMinutes(session.duration) || 0), 0) / sessions.length) : 0;
-                member.avgHeartRate = Array.isArray(sessions) && sessions.length > 0 ?
-                    Math.round(sessions.reduce((sum, session) => sum + (session.avgHeartRate || 0), 0) / sessions.length) : 0;
+    applyMemberProgress() {
+        const byMember = new Map(this.memberProgress.map(progress => [progress.userId, progress]));
+        this.members.forEach(member => {
+            const progress = byMember.get(member.id) || {};
+            member.totalWorkouts = progress.totalWorkouts || 0;
+            member.totalCalories = progress.totalCalories || 0;
+            member.avgCalories = progress.avgCalories || 0;
+            member.avgDuration = progress.avgDuration || 0;
+            member.avgHeartRate = progress.avgHeartRate || 0;
+            member.lastActivity = new Date(progress.lastActivity || member.createdAt);
+        });
+    }
 
-            } catch (error) {
-                console.error(`Failed to load sessions for member ${member.id}:`, error);
-                member.totalWorkouts = 0;
-                member.avgCalories = 0;
-                member.totalCalories = 0;
-                member.avgDuration = 0;
-                member.avgHeartRate = 0;
-                member.lastActivity = new Date(member.createdAt);
-            }
-        }
+    findSession(sessionId) {
+        return [...this.recentSessions, ...this.qualityIssueSessions, ...this.sessionRows]
+            .find(session => session.id === sessionId);
     }
 
     setupEventListeners() {
@@ -161,11 +209,8 @@ class InstructorDashboard {
             refreshBtn.addEventListener('click', () => this.refreshDashboard());
         }
 
-        // Date filter for workouts
-        const dateFilter = document.getElementById('workoutDateFilter');
-        if (dateFilter) {
-            dateFilter.addEventListener('change', (e) => this.filterWorkoutsByDate(e.target.value));
-        }
+        // Workout session filters, applied by the search endpoint
+        this.setupSessionSearchControls();
 
         // Report period selector
         const reportPeriod = document.getElementById('reportPeriod');
@@ -186,7 +231,7 @@ class InstructorDashboard {
     }
 
     setupAutoRefresh() {
-        // Refresh dashboard every 30 seconds
+        // Fallback when the event stream is unavailable: refresh dashboard every 30 seconds
         setInterval(() => {
             this.loadDashboardData().then(() => {
                 this.renderCharts();
@@ -196,31 +241,86 @@ class InstructorDashboard {
     }
 
     setupRealTimeUpdates() {
-        // Check for new members every 45 seconds
-        setInterval(async () => {
-            try {
-                const oldCount = this.members.length;
-                const membersResponse = await this.fetchData('/api/instructor/members');
-                const newMembers = Array.isArray(membersResponse) ? membersResponse : [];
-
-                if (newMembers.length > oldCount) {
-                    this.members = newMembers;
-                    await this.enhanceMembersData();
-                    this.renderMembersTable();
-                    this.showNotification(`New member registered! Total members: ${this.members.length}`, 'info');
-                }
-            } catch (error) {
-                console.error('Failed to check for new members:', error);
+        if (!window.EventSource) {
+            this.setupAutoRefresh();
+            return;
+        }
+
+        // Changes are pushed by the server, only the affected panels are reloaded
+        this.pendingRefresh = new Set();
+        this.eventSource = new EventSource('/api/events/stream');
+
+        ['session.created', 'session.updated', 'session.deleted'].forEach(name => {
+            this.eventSource.addEventListener(name, () => this.scheduleRefresh('sessions'));
+        });
+
+        this.eventSource.addEventListener('session.quality', (event) => {
+            const data = JSON.parse(event.data);
+            if (!data.qualityOk) {
+                this.showNotification(`Session #${data.sessionId} flagged for data quality review`, 'warning');
             }
-        }, 45000);
+            this.scheduleRefresh('sessions');
+        });
 
-        // Refresh charts data every 2 minutes
-        setInterval(() => {
-            this.loadChartData().then(() => {
+        this.eventSource.addEventListener('user.created', (event) => {
+            const data = JSON.parse(event.data);
+            this.showNotification(`New member registered: ${data.username}`, 'info');
+            this.scheduleRefresh('members');
+        });
+        ['user.updated', 'user.deleted'].forEach(name => {
+            this.eventSource.addEventListener(name, () => this.scheduleRefresh('members'));
+        });
+
+        this.eventSource.onerror = () => {
+            // The browser reconnects by itself unless the server refused the stream
+            if (this.eventSource.readyState === EventSource.CLOSED && !this.pollingFallback) {
+                this.pollingFallback = true;
+                this.setupAutoRefresh();
+            }
+        };
+    }
+
+    scheduleRefresh(panel) {
+        // Coalesce bursts of events into one reload per panel
+        this.pendingRefresh.add(panel);
+        clearTimeout(this.refreshTimer);
+        this.refreshTimer = setTimeout(() => this.applyPendingRefresh(), 2000);
+    }
+
+    async applyPendingRefresh() {
+        const panels = new Set(this.pendingRefresh);
+        this.pendingRefresh.clear();
+
+        try {
+            if (panels.has('members')) {
+                const members = await this.fetchData('/api/instructor/members');
+                this.members = Array.isArray(members) ? members : [];
+                this.applyMemberProgress();
+                this.renderMembersTable();
+            }
+
+            if (panels.has('sessions')) {
+                const [stats, progress] = await Promise.all([
+                    this.fetchData('/api/instructor/dashboard-stats'),
+                    this.fetchData('/api/instructor/member-progress'),
+                    this.loadSessionPanels()
+                ]);
+                this.dashboardStats = stats || {};
+                this.memberProgress = Array.isArray(progress) ? progress : [];
+                this.applyMemberProgress();
+                this.updateDashboardStats();
+                this.renderRecentActivity();
+                this.renderMembersTable();
+                await this.loadSessionPage();
+                this.renderQualityIssues();
+                this.renderProgressReports();
+
+                await this.loadChartData();
                 this.renderCharts();
-                console.log('Charts data refreshed');
-            });
-        }, 120000);
+            }
+        } catch (error) {
+            console.error('Failed to apply live update:', error);
+        }
     }
 
     async loadChartData() {
@@ -269,13 +369,26 @@ class InstructorDashboard {
                 }
             }
         });
+
+        this.renderApproxActiveMembers();
+    }
+
+    // Estimated distinct active members per window from the daily sketches, with their 95% bound
+    renderApproxActiveMembers() {
+        const element = document.getElementById('approxActiveMembers');
+        const windows = this.dashboardStats.approxActiveMembers;
+        if (!element || !windows) return;
+        element.textContent = 'Active ≈ ' + ['week', 'month', 'year']
+            .filter(window => windows[window])
+            .map(window => `${windows[window].estimate} ±${windows[window].errorBound} this ${window}`)
+            .join(' · ');
     }
 
     renderRecentActivity() {
         const tbody = document.getElementById('recentActivityBody');
         if (!tbody) return;
 
-        const recentSessions = this.workoutSessions.slice(0, 5);
+        const recentSessions = this.recentSessions;
         tbody.innerHTML = recentSessions.map(session => `
             <tr>
                 <td>${session.userName || 'N/A'}</td>
@@ -329,11 +442,118 @@ class InstructorDashboard {
         }
     }
 
+    /**
+     * Load the first page of sessions for the current filters, or the next one when appending.
+     */
+    async loadSessionPage(append = false) {
+        try {
+            const params = new URLSearchParams();
+            Object.entries(this.sessionFilters).forEach(([name, value]) => {
+                if (value) params.set(name, value);
+            });
+            if (append && this.sessionCursor) params.set('cursor', this.sessionCursor);
+
+            const page = await this.fetchData(`/api/instructor/workout-sessions/search?${params}`);
+            if (!page.success) {
+                throw new Error(page.message);
+            }
+            this.sessionRows = append ? this.sessionRows.concat(page.sessions || []) : (page.sessions || []);
+            this.sessionCursor = page.hasMore ? page.nextCursor : null;
+            if (page.facets) {
+                this.sessionFacets = page.facets;
+                this.renderSessionFacets();
+            }
+        } catch (error) {
+            console.error('Failed to load workout sessions:', error);
+            if (!append) {
+                this.sessionRows = [];
+                this.sessionCursor = null;
+            }
+        }
+        this.renderWorkoutSessions();
+    }
+
+    async loadMoreSessions() {
+        if (!this.sessionCursor) return;
+        await this.loadSessionPage(true);
+    }
+
+    setupSessionSearchControls() {
+        const filters = {
+            from: 'workoutDateFrom',
+            to: 'workoutDateTo',
+            userId: 'workoutMemberFilter',
+            machineType: 'workoutMachineTypeFilter',
+            quality: 'workoutQualityFilter'
+        };
+        Object.entries(filters).forEach(([name, id]) => {
+            const input = document.getElementById(id);
+            if (input) {
+                input.addEventListener('change', () => {
+                    this.sessionFilters[name] = input.value;
+                    this.loadSessionPage();
+                });
+            }
+        });
+
+        const sort = document.getElementById('workoutSortFilter');
+        if (sort) {
+            sort.addEventListener('change', () => {
+                const [field, direction] = sort.value.split(':');
+                this.sessionFilters.sort = field;
+                this.sessionFilters.direction = direction;
+                this.loadSessionPage();
+            });
+        }
+    }
+
+    renderSessionMemberFilter() {
+        const select = document.getElementById('workoutMemberFilter');
+        if (!select) return;
+        const selected = select.value;
+        select.innerHTML = '<option value="">All members</option>' + this.members.map(member =>
+            `<option value="${member.id}">${member.firstName} ${member.lastName}</option>`).join('');
+        select.value = selected;
+    }
+
+    renderSessionFacets() {
+        const facets = this.sessionFacets;
+        if (!facets) return;
+
+        const summary = document.getElementById('workoutFacets');
+        if (summary) {
+            // Without a start date the counts cover a recent window only, see WorkoutSessionSearchService
+            const since = facets.windowed ? ` since ${facets.from}` : '';
+            summary.textContent = `${facets.total} sessions${since}: ${facets.byQuality.good} good, ${facets.byQuality.issues} with issues`;
+        }
+
+        // Machine types with their counts under the other filters
+        const typeSelect = document.getElementById('workoutMachineTypeFilter');
+        if (typeSelect) {
+            const selected = typeSelect.value;
+            typeSelect.innerHTML = '<option value="">All machine types</option>' +
+                Object.entries(facets.byMachineType).map(([type, count]) =>
+                    `<option value="${type}">${type} (${count})</option>`).join('');
+            typeSelect.value = selected;
+        }
+
+        const qualitySelect = document.getElementById('workoutQualityFilter');
+        if (qualitySelect) {
+            qualitySelect.options[1].textContent = `Good (${facets.byQuality.good})`;
+            qualitySelect.options[2].textContent = `Issues (${facets.byQuality.issues})`;
+        }
+    }
+
     renderWorkoutSessions() {
         const tbody = document.getElementById('workoutSessionsBody');
         if (!tbody) return;
 
-        tbody.innerHTML = this.workoutSessions.map(session => `
+        const loadMore = document.getElementById('loadMoreSessions');
+        if (loadMore) {
+            loadMore.style.display = this.sessionCursor ? 'inline-block' : 'none';
+        }
+
+        tbody.innerHTML = this.sessionRows.map(session => `
             <tr>
                 <td>${session.userName || 'N/A'}</td>
                 <td>${session.machineName || session.machine?.name || 'N/A'}</td>
@@ -361,7 +581,7 @@ class InstructorDashboard {
             </tr>
         `).join('');
 
-        if (this.workoutSessions.length === 0) {
+        if (this.sessionRows.length === 0) {
             tbody.innerHTML = '<tr><td colspan="9" class="text-center">No workout sessions found</td></tr>';
         }
     }
@@ -370,7 +590,7 @@ class InstructorDashboard {
         const tbody = document.getElementById('qualityIssuesBody');
         if (!tbody) return;
 
-        const issues = this.workoutSessions.filter(session => !session.dataQualityFlag);
+        const issues = this.qualityIssueSessions;
         tbody.innerHTML = issues.map(session => `
             <tr>
                 <td>${session.userName || 'N/A'}</td>
@@ -408,7 +628,7 @@ class InstructorDashboard {
         // Update quality issues count
         const issuesCountElement = document.getElementById('qualityIssuesCount');
         if (issuesCountElement) {
-            issuesCountElement.textContent = issues.length;
+            issuesCountElement.textContent = this.qualityCounts ? this.qualityCounts.issues : issues.length;
         }
 
         // Show message if no issues
@@ -488,7 +708,7 @@ class InstructorDashboard {
         }
 
         const chartCtx = ctx.getContext('2d');
-        const weeklyActivity = this.chartData.weeklyActivity || this.calculateWeeklyActivity();
+        const weeklyActivity = this.chartData.weeklyActivity || {};
 
         this.charts.memberActivity = new Chart(chartCtx, {
             type: 'bar',
@@ -538,7 +758,7 @@ class InstructorDashboard {
         }
 
         const chartCtx = ctx.getContext('2d');
-        const workoutTypes = this.chartData.workoutTypes || this.calculateWorkoutTypes();
+        const workoutTypes = this.chartData.workoutTypes || {};
 
         this.charts.workoutType = new Chart(chartCtx, {
             type: 'doughnut',
@@ -573,8 +793,8 @@ class InstructorDashboard {
         }
 
         const chartCtx = ctx.getContext('2d');
-        const qualitySessions = this.workoutSessions.filter(session => session.dataQualityFlag).length;
-        const issueSessions = this.workoutSessions.length - qualitySessions;
+        const qualitySessions = this.qualityCounts ? this.qualityCounts.good : 0;
+        const issueSessions = this.qualityCounts ? this.qualityCounts.issues : 0;
 
         this.charts.qualityMetrics = new Chart(chartCtx, {
             type: 'doughnut',
@@ -611,7 +831,7 @@ class InstructorDashboard {
         }
 
         const chartCtx = ctx.getContext('2d');
-        const progressData = this.chartData.progressData || this.calculateProgressData();
+        const progressData = this.chartData.progressData || {};
         const weeks = Object.keys(progressData);
         const avgCalories = weeks.map(week => progressData[week].avgCalories);
         const avgDuration = weeks.map(week => progressData[week].avgDuration);
@@ -735,81 +955,6 @@ class InstructorDashboard {
         });
     }
 
-    // Helper methods for chart data calculation
-    calculateWeeklyActivity() {
-        const dailyActivity = {};
-        const days = ['Mon', 'Tue', 'Wed', 'Thu', 'Fri', 'Sat', 'Sun'];
-        days.forEach(day => dailyActivity[day] = 0);
-
-        this.workoutSessions.forEach(session => {
-            const sessionDate = new Date(session.startTime);
-            const today = new Date();
-            const diffTime = Math.abs(today - sessionDate);
-            const diffDays = Math.ceil(diffTime / (1000 * 60 * 60 * 24));
-
-            if (diffDays <= 7) {
-                const dayStr = sessionDate.toLocaleDateString('en', { weekday: 'short' });
-                dailyActivity[dayStr] = (dailyActivity[dayStr] || 0) + 1;
-            }
-        });
-
-        return dailyActivity;
-    }
-
-    calculateWorkoutTypes() {
-        const typeCounts = {};
-        this.workoutSessions.forEach(session => {
-            const type = session.machineType || session.machine?.type || 'Unknown';
-            typeCounts[type] = (typeCounts[type] || 0) + 1;
-        });
-        return typeCounts;
-    }
-
-    calculateProgressData() {
-        const progressData = {};
-        for (let i = 3; i >= 0; i--) {
-            const weekStart = new Date();
-            weekStart.setDate(weekStart.getDate() - (i * 7));
-            weekStart.setHours(0, 0, 0, 0);
-
-            const weekEnd = new Date(weekStart);
-            weekEnd.setDate(weekEnd.getDate() + 7);
-
-            const weekSessions = this.workoutSessions.filter(session => {
-                const sessionDate = new Date(session.startTime);
-                return sessionDate >= weekStart && sessionDate < weekEnd;
-            });
-
-            const avgCalories = weekSessions.length > 0 ?
-                weekSessions.reduce((sum, session) => sum + (session.caloriesBurned || 0), 0) / weekSessions.length : 0;
-
-            const avgDuration = weekSessions.length > 0 ?
-                weekSessions.reduce((sum, session) => sum + (this.getDurationInMinutes(session.duration) || 0), 0) / weekSessions.length : 0;
-
-            progressData[`Week ${4-i}`] = {
-                avgCalories: Math.round(avgCalories),
-                avgDuration: Math.round(avgDuration)
-            };
-        }
-        return progressData;
-    }
-
-    getDurationInMinutes(duration) {
-        if (!duration) return 0;
-        if (typeof duration === 'object' && duration.toMinutes) {
-            return duration.toMinutes();
-        }
-        if (typeof duration === 'number') {
-            return duration;
-        }
-        // Handle string duration like "PT30M"
-        if (typeof duration === 'string' && duration.startsWith('PT')) {
-            const match = duration.match(/PT(\d+)M/);
-            return match ? parseInt(match[1]) : 0;
-        }
-        return 0;
-    }
-
     filterMembers(searchTerm) {
         const filteredMembers = this.members.filter(member =>
             member.firstName.toLowerCase().includes(searchTerm.toLowerCase()) ||
@@ -851,67 +996,15 @@ class InstructorDashboard {
         }
     }
 
-    filterWorkoutsByDate(dateFilter) {
-        if (!dateFilter) {
-            this.renderWorkoutSessions();
-            return;
-        }
-
-        const filterDate = new Date(dateFilter);
-        const filteredSessions = this.workoutSessions.filter(session => {
-            const sessionDate = new Date(session.startTime);
-            return sessionDate.toDateString() === filterDate.toDateString();
-        });
-
-        this.renderFilteredWorkouts(filteredSessions);
-    }
-
-    renderFilteredWorkouts(sessions) {
-        const tbody = document.getElementById('workoutSessionsBody');
-        if (!tbody) return;
-
-        tbody.innerHTML = sessions.map(session => `
-            <tr>
-                <td>${session.userName || 'N/A'}</td>
-                <td>${session.machineName || session.machine?.name || 'N/A'}</td>
-                <td>${new Date(session.startTime).toLocaleString()}</td>
-                <td>${this.formatDuration(session.duration)}</td>
-                <td>${session.caloriesBurned || 0}</td>
-                <td>${session.avgHeartRate || 'N/A'}</td>
-                <td>${session.distance ? session.distance.toFixed(1) + ' km' : 'N/A'}</td>
-                <td>
-                    ${session.dataQualityFlag ?
-            '<span class="badge bg-success">Good</span>' :
-            '<span class="badge bg-warning">Issues</span>'
-        }
-                </td>
-                <td>
-                    <button class="btn btn-sm btn-outline-info" onclick="instructorDashboard.viewSessionDetails(${session.id})">
-                        <i class="fas fa-info-circle"></i>
-                    </button>
-                    ${!session.dataQualityFlag ? `
-                    <button class="btn btn-sm btn-outline-warning" onclick="instructorDashboard.reviewIssue(${session.id})">
-                        <i class="fas fa-edit"></i>
-                    </button>
-                    ` : ''}
-                </td>
-            </tr>
-        `).join('');
-
-        if (sessions.length === 0) {
-            tbody.innerHTML = '<tr><td colspan="9" class="text-center">No workout sessions found for selected date</td></tr>';
-        }
-    }
-
     async viewMemberDetails(memberId) {
         const member = this.members.find(m => m.id === memberId);
         if (!member) return;
 
-        // Load member sessions
+        // The member's ten newest sessions; totals come from the member progress aggregate
         let memberSessions = [];
         try {
-            const sessionsData = await this.fetchData(`/api/workouts/user/${memberId}`);
-            memberSessions = sessionsData.sessions || sessionsData;
+            const page = await this.fetchData(`/api/instructor/workout-sessions/search?userId=${memberId}&limit=10`);
+            memberSessions = page.success ? page.sessions : [];
         } catch (error) {
             console.error('Failed to load member sessions:', error);
         }
@@ -921,9 +1014,7 @@ class InstructorDashboard {
 
         modalTitle.textContent = `${member.firstName} ${member.lastName} - Details`;
 
-        // Calculate additional stats
-        const totalDuration = memberSessions.reduce((sum, session) => sum + this.getDurationInMinutes(session.duration), 0);
-        const avgSessionDuration = memberSessions.length > 0 ? Math.round(totalDuration / memberSessions.length) : 0;
+        const avgSessionDuration = member.avgDuration || 0;
 
         modalContent.innerHTML = `
             <div class="row">
@@ -987,7 +1078,7 @@ class InstructorDashboard {
     }
 
     viewSessionDetails(sessionId) {
-        const session = this.workoutSessions.find(s => s.id === sessionId);
+        const session = this.findSession(sessionId);
         if (!session) return;
 
         const details = `
@@ -1011,7 +1102,7 @@ Quality: ${session.dataQualityFlag ? 'Good' : 'Issues - ' + (session.qualityIssu
     }
 
     async reviewIssue(sessionId) {
-        const session = this.workoutSessions.find(s => s.id === sessionId);
+        const session = this.findSession(sessionId);
         if (!session) return;
 
         if (confirm(`Review data quality issue for ${session.userName || 'Unknown'}'s workout?\n\nIssue: ${session.qualityIssues}\n\nMark as reviewed?`)) {
@@ -1030,10 +1121,10 @@ Quality: ${session.dataQualityFlag ? 'Good' : 'Issues - ' + (session.qualityIssu
                 if (response.ok) {
                     const result = await response.json();
                     if (result.success) {
-                        session.dataQualityFlag = true;
-                        session.qualityIssues = 'Manually reviewed and approved';
+                        await this.loadSessionPanels();
+                        this.renderRecentActivity();
                         this.renderQualityIssues();
-                        this.updateDashboardStats();
+                        await this.loadSessionPage();
                         this.renderCharts();
                         this.showNotification('Issue marked as reviewed and resolved.', 'success');
                     } else {
@@ -1320,12 +1411,7 @@ function showSection(sectionName) {
 }
 
 function filterWorkouts() {
-    const dateFilter = document.getElementById('workoutDateFilter').value;
-    if (dateFilter) {
-        instructorDashboard.filterWorkoutsByDate(dateFilter);
-    } else {
-        instructorDashboard.renderWorkoutSessions();
-    }
+    instructorDashboard.loadSessionPage();
 }
 
 function generateReport() {
@@ -4,18 +4,53 @@ class MemberDashboard {
         this.currentUser = null;
         this.workoutSessions = [];
         this.machines = [];
+        this.stats = null;
         this.init();
     }
 
     async init() {
-        await this.checkAuth();
-        await this.loadUserData();
-        await this.loadMachines();
-        await this.loadWorkoutSessions();
+        if (!(await this.loadCompositeDashboard())) {
+            await this.checkAuth();
+            await this.loadUserData();
+            await this.loadMachines();
+            await this.loadStats();
+            await this.loadWorkoutSessions();
+        }
         this.setupEventListeners();
         this.updateDashboardStats();
         this.renderCharts();
         this.setDefaultStartTime();
+        this.setupRealTimeUpdates();
+    }
+
+    setupRealTimeUpdates() {
+        if (!window.EventSource) {
+            return;
+        }
+
+        // The server only sends this member's own sessions and machine status changes
+        this.eventSource = new EventSource('/api/events/stream');
+
+        this.eventSource.addEventListener('machine.status', async () => {
+            const machineSelect = document.getElementById('machine');
+            const selected = machineSelect ? machineSelect.value : '';
+            await this.loadMachines();
+            if (machineSelect) {
+                machineSelect.value = selected;
+            }
+        });
+
+        ['session.created', 'session.updated', 'session.quality', 'session.deleted'].forEach(name => {
+            this.eventSource.addEventListener(name, () => {
+                clearTimeout(this.refreshTimer);
+                this.refreshTimer = setTimeout(async () => {
+                    await this.loadStats();
+                    await this.loadWorkoutSessions();
+                    this.updateDashboardStats();
+                    this.renderCharts();
+                }, 1000);
+            });
+        });
     }
 
     async checkAuth() {
@@ -26,14 +61,53 @@ class MemberDashboard {
                 return;
             }
             this.currentUser = await response.json();
-            document.getElementById('userName').textContent =
-                `${this.currentUser.firstName || ''} ${this.currentUser.lastName || ''}`.trim() || this.currentUser.username;
+            this.renderCurrentUser();
         } catch (error) {
             console.error('Auth check failed:', error);
             window.location.href = '/login.html';
         }
     }
 
+    renderCurrentUser() {
+        document.getElementById('userName').textContent =
+            `${this.currentUser.firstName || ''} ${this.currentUser.lastName || ''}`.trim() || this.currentUser.username;
+    }
+
+    async loadCompositeDashboard() {
+        // One request for the whole page; panels the server could not compute in time are fetched separately
+        try {
+            const response = await fetch('/api/workouts/dashboard');
+            if (!response.ok) return false;
+
+            const dashboard = await response.json();
+            if (!dashboard.success || !dashboard.currentUser) return false;
+
+            this.currentUser = dashboard.currentUser;
+            this.renderCurrentUser();
+
+            if (dashboard.machines) {
+                this.machines = dashboard.machines;
+                this.renderMachineOptions();
+            } else {
+                await this.loadMachines();
+            }
+            if (dashboard.stats) {
+                this.stats = dashboard.stats;
+            } else {
+                await this.loadStats();
+            }
+            if (dashboard.sessions) {
+                this.applyWorkoutSessions(dashboard.sessions);
+            } else {
+                await this.loadWorkoutSessions();
+            }
+            return true;
+        } catch (error) {
+            console.warn('Composite dashboard unavailable, loading panels separately:', error);
+            return false;
+        }
+    }
+
     async loadUserData() {
         // Load additional user data if needed
     }
@@ -55,21 +129,37 @@ class MemberDashboard {
                 ];
             }
 
-            const machineSelect = document.getElementById('machine');
-            if (machineSelect) {
-                machineSelect.innerHTML = '<option value="">Select Machine</option>';
-                this.machines.forEach(machine => {
-                    const option = document.createElement('option');
-                    option.value = machine.id;
-                    option.textContent = `${machine.name} (${machine.type})`;
-                    machineSelect.appendChild(option);
-                });
-            }
+            this.renderMachineOptions();
         } catch (error) {
             console.error('Failed to load machines:', error);
         }
     }
 
+    renderMachineOptions() {
+        const machineSelect = document.getElementById('machine');
+        if (machineSelect) {
+            machineSelect.innerHTML = '<option value="">Select Machine</option>';
+            this.machines.forEach(machine => {
+                const option = document.createElement('option');
+                option.value = machine.id;
+                option.textContent = `${machine.name} (${machine.type})`;
+                machineSelect.appendChild(option);
+            });
+        }
+    }
+
+    async loadStats() {
+        // Lifetime totals kept by the server, so the cards do not depend on the sessions list
+        try {
+            const response = await fetch('/api/workouts/my-stats');
+            const result = response.ok ? await response.json() : null;
+            this.stats = result && result.success ? result.stats : null;
+        } catch (error) {
+            console.warn('Failed to load stats, summing sessions instead:', error);
+            this.stats = null;
+        }
+    }
+
     async loadWorkoutSessions() {
         try {
             console.log('Loading workout sessions...');
@@ -87,14 +177,7 @@ class MemberDashboard {
             const sessions = result.success ? result.sessions : [];
             console.log('Successfully loaded sessions:', sessions);
 
-            // Ensure sessions is an array
-            this.workoutSessions = Array.isArray(sessions) ? sessions : [];
-            console.log('Processed workout sessions:', this.workoutSessions);
-
-            this.renderWorkoutHistory();
-            this.renderRecentWorkouts();
-            this.updateDashboardStats();
-            this.renderCharts();
+            this.applyWorkoutSessions(sessions);
 
         } catch (error) {
             console.error('Failed to load workout sessions:', error);
@@ -107,6 +190,16 @@ class MemberDashboard {
 
 
 
+    applyWorkoutSessions(sessions) {
+        // Ensure sessions is an array
+        this.workoutSessions = Array.isArray(sessions) ? sessions : [];
+
+        this.renderWorkoutHistory();
+        this.renderRecentWorkouts();
+        this.updateDashboardStats();
+        this.renderCharts();
+    }
+
     setupEventListeners() {
         const workoutForm = document.getElementById('workoutForm');
         if (workoutForm) {
@@ -211,7 +304,8 @@ class MemberDashboard {
                     resultsDiv.innerHTML = '<p class="text-muted">Fill out the form to see quality check results</p>';
                 }
 
-                // Reload the sessions from the server
+                // Reload the totals and sessions from the server
+                await this.loadStats();
                 await this.loadWorkoutSessions();
 
                 // Show dashboard section after successful save
@@ -227,19 +321,28 @@ class MemberDashboard {
     }
 
     updateDashboardStats() {
-        console.log('Updating stats with sessions:', this.workoutSessions);
+        let totalWorkouts, totalCalories, totalDistance, avgHeartRate;
 
-        const totalWorkouts = this.workoutSessions.length;
-        const totalCalories = this.workoutSessions.reduce((sum, session) => sum + (session.caloriesBurned || 0), 0);
-        const totalDistance = this.workoutSessions.reduce((sum, session) => sum + (session.distance || 0), 0);
+        if (this.stats) {
+            totalWorkouts = this.stats.totalWorkouts || 0;
+            totalCalories = this.stats.totalCalories || 0;
+            totalDistance = this.stats.totalDistance || 0;
+            avgHeartRate = Math.round(this.stats.avgHeartRate || 0);
+        } else {
+            console.log('Updating stats with sessions:', this.workoutSessions);
+
+            totalWorkouts = this.workoutSessions.length;
+            totalCalories = this.workoutSessions.reduce((sum, session) => sum + (session.caloriesBurned || 0), 0);
+            totalDistance = this.workoutSessions.reduce((sum, session) => sum + (session.distance || 0), 0);
 
-        // Calculate average heart rate safely
-        const validHeartRates = this.workoutSessions
-            .filter(session => session.avgHeartRate && session.avgHeartRate > 0)
-            .map(session => session.avgHeartRate);
+            // Calculate average heart rate safely
+            const validHeartRates = this.workoutSessions
+                .filter(session => session.avgHeartRate && session.avgHeartRate > 0)
+                .map(session => session.avgHeartRate);
 
-        const avgHeartRate = validHeartRates.length > 0 ?
-            Math.round(validHeartRates.reduce((sum, rate) => sum + rate, 0) / validHeartRates.length) : 0;
+            avgHeartRate = validHeartRates.length > 0 ?
+                Math.round(validHeartRates.reduce((sum, rate) => sum + rate, 0) / validHeartRates.length) : 0;
+        }
 
         // Update DOM elements
         const totalWorkoutsEl = document.getElementById('totalWorkouts');
@@ -0,0 +1,59 @@
+package com.brandon.dtms2.controller;
+
+import com.brandon.dtms2.service.CachedDashboardService;
+import com.brandon.dtms2.service.DataVersionService;
+import com.brandon.dtms2.service.StaleWhileRevalidateCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AdminControllerTest {
+
+    private final StaleWhileRevalidateCache cache = new StaleWhileRevalidateCache(new MockEnvironment(),
+            mock(PlatformTransactionManager.class), 60000, 1);
+    private final DataVersionService dataVersionService = new DataVersionService();
+    private final CachedDashboardService cachedDashboardService = mock(CachedDashboardService.class);
+    private final AdminController controller = new AdminController(null, null, null, dataVersionService,
+            cachedDashboardService, null, null, null, null);
+
+    @AfterEach
+    void tearDown() {
+        cache.shutdown();
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void staleStatsGoOutUnderTheTagTheyWereComputedUnder() {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken("admin", null,
+                List.of(new SimpleGrantedAuthority("ROLE_ADMIN"))));
+        cache.get("admin-stats", "\"v1\"", () -> Map.<String, Object>of("totalUsers", 1));
+        StaleWhileRevalidateCache.Cached<Map<String, Object>> stale =
+                cache.get("admin-stats", "\"v2\"", () -> Map.<String, Object>of("totalUsers", 2));
+        when(cachedDashboardService.getAdminStats()).thenReturn(stale);
+        dataVersionService.bump(DataVersionService.Table.USERS);
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        ResponseEntity<?> entity = controller.getDashboardStats(
+                new ServletWebRequest(new MockHttpServletRequest("GET", "/api/admin/dashboard-stats"), response));
+
+        assertEquals(Map.of("totalUsers", 1), entity.getBody());
+        assertEquals(stale.getEtag(), response.getHeader(HttpHeaders.ETAG));
+        assertEquals(stale.getWarning(), response.getHeader(HttpHeaders.WARNING));
+    }
+}
@@ -0,0 +1,78 @@
+package com.brandon.dtms2.controller;
+
+import com.brandon.dtms2.dto.UserPrincipal;
+import com.brandon.dtms2.entity.User;
+import com.brandon.dtms2.service.CachedDashboardService;
+import com.brandon.dtms2.service.DataVersionService;
+import com.brandon.dtms2.service.StaleWhileRevalidateCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class InstructorControllerTest {
+
+    private static final UserPrincipal INSTRUCTOR = new UserPrincipal(2L, "coach", "coach@example.com", "Co", "Ach",
+            User.UserRole.INSTRUCTOR, User.UserStatus.ACTIVE);
+
+    private final StaleWhileRevalidateCache cache = new StaleWhileRevalidateCache(new MockEnvironment(),
+            mock(PlatformTransactionManager.class), 60000, 1);
+    private final DataVersionService dataVersionService = new DataVersionService();
+    private final CachedDashboardService cachedDashboardService = mock(CachedDashboardService.class);
+    private final InstructorController controller = new InstructorController(null, null, null,
+            dataVersionService, cachedDashboardService, null);
+
+    @AfterEach
+    void shutdown() {
+        cache.shutdown();
+    }
+
+    @Test
+    void staleStatsGoOutUnderTheTagTheyWereComputedUnder() {
+        StaleWhileRevalidateCache.Cached<Map<String, Object>> stale = staleStats();
+        when(cachedDashboardService.getInstructorStats()).thenReturn(stale);
+        dataVersionService.bump(DataVersionService.Table.SESSIONS);
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        ResponseEntity<?> entity = controller.getInstructorDashboardStats(INSTRUCTOR,
+                new ServletWebRequest(new MockHttpServletRequest("GET", "/api/instructor/dashboard-stats"), response));
+
+        assertNotNull(entity);
+        assertEquals(Map.of("totalMembers", 1), entity.getBody());
+        assertEquals(stale.getEtag(), response.getHeader(HttpHeaders.ETAG));
+        assertEquals(stale.getWarning(), response.getHeader(HttpHeaders.WARNING));
+    }
+
+    @Test
+    void clientHoldingTheStaleCopyIsToldItIsUnchanged() {
+        StaleWhileRevalidateCache.Cached<Map<String, Object>> stale = staleStats();
+        when(cachedDashboardService.getInstructorStats()).thenReturn(stale);
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/instructor/dashboard-stats");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, stale.getEtag());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertNull(controller.getInstructorDashboardStats(INSTRUCTOR, new ServletWebRequest(request, response)));
+        assertEquals(304, response.getStatus());
+        assertEquals(stale.getEtag(), response.getHeader(HttpHeaders.ETAG));
+    }
+
+    // Computed under "v1", read again once the data moved on to "v2"
+    private StaleWhileRevalidateCache.Cached<Map<String, Object>> staleStats() {
+        cache.get("instructor-stats", "\"v1\"", () -> Map.<String, Object>of("totalMembers", 1));
+        return cache.get("instructor-stats", "\"v2\"", () -> Map.<String, Object>of("totalMembers", 2));
+    }
+}
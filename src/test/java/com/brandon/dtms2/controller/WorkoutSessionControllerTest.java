@@ -0,0 +1,83 @@
+package com.brandon.dtms2.controller;
+
+import com.brandon.dtms2.dto.UserPrincipal;
+import com.brandon.dtms2.entity.Machine;
+import com.brandon.dtms2.entity.User;
+import com.brandon.dtms2.entity.WorkoutSession;
+import com.brandon.dtms2.event.ChangeType;
+import com.brandon.dtms2.event.WorkoutSessionChangedEvent;
+import com.brandon.dtms2.repository.MachineRepository;
+import com.brandon.dtms2.repository.UserRepository;
+import com.brandon.dtms2.repository.WorkoutSessionRepository;
+import com.brandon.dtms2.service.DataQualityService;
+import com.brandon.dtms2.service.RequestCoalescer;
+import com.brandon.dtms2.service.UserService;
+import com.brandon.dtms2.service.UserStatsService;
+import com.brandon.dtms2.service.WorkoutSessionService;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class WorkoutSessionControllerTest {
+
+    @Test
+    void creatingASessionPublishesWhatTheSecondSaveAdded() {
+        User user = new User();
+        user.setId(3L);
+        Machine machine = new Machine();
+        machine.setId(5L);
+        machine.setType("Treadmill");
+
+        // Like the open persistence context: findById hands back the instance being edited
+        WorkoutSessionRepository sessions = mock(WorkoutSessionRepository.class);
+        WorkoutSession[] stored = new WorkoutSession[1];
+        when(sessions.save(any(WorkoutSession.class))).thenAnswer(invocation -> {
+            WorkoutSession session = invocation.getArgument(0);
+            if (session.getId() == null) {
+                session.setId(11L);
+            }
+            stored[0] = session;
+            return session;
+        });
+        when(sessions.findById(11L)).thenAnswer(invocation -> Optional.ofNullable(stored[0]));
+        MachineRepository machines = mock(MachineRepository.class);
+        when(machines.findById(5L)).thenReturn(Optional.of(machine));
+
+        List<WorkoutSessionChangedEvent> events = new ArrayList<>();
+        ApplicationEventPublisher publisher = event -> events.add((WorkoutSessionChangedEvent) event);
+        WorkoutSessionService workoutSessionService = new WorkoutSessionService(sessions, machines,
+                mock(UserRepository.class), mock(DataQualityService.class), publisher,
+                mock(RequestCoalescer.class), mock(UserStatsService.class));
+
+        UserService userService = mock(UserService.class);
+        when(userService.findById(3L)).thenReturn(Optional.of(user));
+        WorkoutSessionController controller = new WorkoutSessionController(workoutSessionService, userService,
+                null, null, null);
+
+        controller.createWorkoutSession(Map.of("machineId", 5, "startTime", "2024-05-01T09:30",
+                        "duration", 30, "caloriesBurned", 320, "distance", 4.5, "avgHeartRate", 140),
+                new UserPrincipal(3L, "member", "member@example.com", "Mem", "Ber",
+                        User.UserRole.MEMBER, User.UserStatus.ACTIVE));
+
+        assertEquals(2, events.size());
+        assertEquals(ChangeType.CREATED, events.get(0).getChangeType());
+        WorkoutSessionChangedEvent update = events.get(1);
+        assertEquals(ChangeType.UPDATED, update.getChangeType());
+        assertNull(update.getPrevious().getCaloriesBurned());
+        assertNull(update.getPrevious().getDistance());
+        assertNull(update.getPrevious().getStartTime());
+        assertEquals(320, update.getCurrent().getCaloriesBurned());
+        assertEquals(4.5, update.getCurrent().getDistance());
+        assertEquals(140, update.getCurrent().getAvgHeartRate());
+    }
+}
@@ -0,0 +1,70 @@
+package com.brandon.dtms2.service;
+
+import com.brandon.dtms2.entity.User;
+import com.brandon.dtms2.event.ChangeType;
+import com.brandon.dtms2.event.SessionSnapshot;
+import com.brandon.dtms2.event.UserChangedEvent;
+import com.brandon.dtms2.event.WorkoutSessionChangedEvent;
+import com.brandon.dtms2.repository.DailyActivitySketchRepository;
+import com.brandon.dtms2.repository.UserRepository;
+import com.brandon.dtms2.repository.WorkoutSessionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ActiveMemberSketchServiceTest {
+
+    private final DailyActivitySketchRepository sketchRepository = mock(DailyActivitySketchRepository.class);
+    private final WorkoutSessionRepository sessions = mock(WorkoutSessionRepository.class);
+    private final UserRepository users = mock(UserRepository.class);
+    private final ActiveMemberSketchService sketches = new ActiveMemberSketchService(sketchRepository, sessions, users,
+            mock(PlatformTransactionManager.class));
+
+    @BeforeEach
+    void membersAreOneAndTwo() {
+        when(users.findIdsByRole(User.UserRole.MEMBER)).thenReturn(List.of(1L, 2L));
+        when(sketchRepository.findByDayGreaterThanEqual(any())).thenReturn(List.of());
+    }
+
+    @Test
+    void backfillCountsOnlyMembers() {
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{LocalDate.now(), 1L});
+        rows.add(new Object[]{LocalDate.now(), 2L});
+        rows.add(new Object[]{LocalDate.now(), 3L}); // an instructor
+        when(sessions.findActiveUserDaysBetween(any(), any())).thenReturn(rows);
+
+        assertEquals(2L, sketches.estimate(7).get("estimate"));
+    }
+
+    @Test
+    void sessionsOfOtherRolesAreNotAdded() {
+        when(sessions.findActiveUserDaysBetween(any(), any())).thenReturn(new ArrayList<>());
+        sketches.estimate(7);
+
+        sketches.onSessionChanged(created(1L));
+        sketches.onSessionChanged(created(3L));
+        assertEquals(1L, sketches.estimate(7).get("estimate"));
+
+        sketches.onUserChanged(new UserChangedEvent(ChangeType.UPDATED, 3L, "carol", "carol@example.com",
+                User.UserRole.MEMBER, null));
+        sketches.onSessionChanged(created(3L));
+        assertEquals(2L, sketches.estimate(7).get("estimate"));
+    }
+
+    private static WorkoutSessionChangedEvent created(Long userId) {
+        SessionSnapshot session = new SessionSnapshot(userId * 10, userId, 1L, "TREADMILL", LocalDateTime.now(),
+                LocalDateTime.now().plusMinutes(30), null, null, null, true);
+        return new WorkoutSessionChangedEvent(ChangeType.CREATED, null, session);
+    }
+}
@@ -0,0 +1,118 @@
+package com.brandon.dtms2.service;
+
+import com.brandon.dtms2.entity.User;
+import com.brandon.dtms2.entity.WorkoutSession;
+import com.brandon.dtms2.repository.UserRepository;
+import com.brandon.dtms2.repository.WorkoutSessionRepository;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Lookups done by login and /api/auth/current-user for a member with 5,000 sessions,
+ * against the same lookups with the session collection loaded as the old eager
+ * mapping did. Needs the database, run with -Dbenchmark=true.
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class AuthLookupBenchmarkTest {
+
+    private static final int SESSIONS = 5_000;
+    private static final int ITERATIONS = 200;
+    private static final String USERNAME = "benchmark-member";
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private WorkoutSessionRepository workoutSessionRepository;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private CustomUserDetailsService customUserDetailsService;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transaction;
+    private Long userId;
+
+    @BeforeEach
+    void createMember() {
+        transaction = new TransactionTemplate(transactionManager);
+        userId = transaction.execute(status -> {
+            User user = new User();
+            user.setUsername(USERNAME);
+            user.setPassword("not-used");
+            user.setEmail(USERNAME + "@example.com");
+            user.setRole(User.UserRole.MEMBER);
+            user = userRepository.save(user);
+
+            List<WorkoutSession> sessions = new ArrayList<>(SESSIONS);
+            LocalDateTime start = LocalDateTime.now().minusDays(SESSIONS);
+            for (int i = 0; i < SESSIONS; i++) {
+                WorkoutSession session = new WorkoutSession();
+                session.setUser(user);
+                session.setStartTime(start.plusDays(i));
+                session.setDuration(Duration.ofMinutes(30));
+                session.setEndTime(session.getStartTime().plusMinutes(30));
+                session.setCaloriesBurned(250);
+                sessions.add(session);
+            }
+            workoutSessionRepository.saveAll(sessions);
+            return user.getId();
+        });
+    }
+
+    @AfterEach
+    void deleteMember() {
+        userService.deleteUser(userId);
+    }
+
+    @Test
+    void authLookupsDoNotLoadTheSessionHistory() {
+        long eagerLogin = time(() -> transaction.executeWithoutResult(status -> {
+            User user = userRepository.findByUsername(USERNAME).orElseThrow();
+            Hibernate.initialize(user.getWorkoutSessions());
+        }));
+        long login = time(() -> customUserDetailsService.loadUserByUsername(USERNAME));
+        long currentUser = time(() -> transaction.executeWithoutResult(status -> {
+            User user = userService.findByUsername(USERNAME).orElseThrow();
+            assertFalse(Hibernate.isInitialized(user.getWorkoutSessions()));
+        }));
+
+        System.out.printf("Auth lookups, %d sessions, mean of %d:%n", SESSIONS, ITERATIONS);
+        System.out.printf("  user with sessions (before): %8d us%n", eagerLogin);
+        System.out.printf("  login credentials (after):   %8d us%n", login);
+        System.out.printf("  current-user (after):        %8d us%n", currentUser);
+
+        Integer fetched = transaction.execute(status ->
+                userRepository.findWithWorkoutSessionsById(userId).orElseThrow().getWorkoutSessions().size());
+        assertEquals(SESSIONS, fetched);
+    }
+
+    // Mean microseconds per call, after a warm-up
+    private static long time(Runnable lookup) {
+        for (int i = 0; i < ITERATIONS / 10; i++) {
+            lookup.run();
+        }
+        long started = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            lookup.run();
+        }
+        return TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - started) / ITERATIONS;
+    }
+}
@@ -0,0 +1,204 @@
+package com.brandon.dtms2.service;
+
+import com.brandon.dtms2.entity.User;
+import com.brandon.dtms2.event.ChangeType;
+import com.brandon.dtms2.event.MachineChangedEvent;
+import com.brandon.dtms2.event.SessionSnapshot;
+import com.brandon.dtms2.event.WorkoutSessionChangedEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DashboardEventStreamLoadTest {
+
+    private static final int SUBSCRIBERS = 1_000;
+    private static final int SESSIONS = 50;
+    private static final int QUEUE_CAPACITY = 256;
+    private static final int WRITER_THREADS = 4;
+    private static final long SEND_TIMEOUT_MS = 500;
+
+    private final DashboardEventStream stream = new DashboardEventStream(0, QUEUE_CAPACITY, WRITER_THREADS, SEND_TIMEOUT_MS);
+    private final Set<String> fanOutThreads = ConcurrentHashMap.newKeySet();
+
+    @AfterEach
+    void tearDown() {
+        stream.shutdown();
+    }
+
+    @Test
+    void fansOutToAThousandSubscribersOffThePublishingThread() throws Exception {
+        List<RecordingEmitter> admins = new ArrayList<>();
+        List<RecordingEmitter> members = new ArrayList<>();
+        for (int i = 0; i < SUBSCRIBERS; i++) {
+            if (i % 10 == 0) {
+                admins.add(register(new RecordingEmitter(), User.UserRole.ADMIN, null));
+            } else {
+                members.add(register(new RecordingEmitter(), User.UserRole.MEMBER, (long) i));
+            }
+        }
+        assertEquals(SUBSCRIBERS, stream.getSubscriberCount());
+
+        long started = System.nanoTime();
+        for (long userId = 1; userId <= SESSIONS; userId++) {
+            stream.onSessionChanged(new WorkoutSessionChangedEvent(ChangeType.CREATED, null, session(userId, userId)));
+        }
+        stream.onMachineChanged(new MachineChangedEvent(ChangeType.UPDATED, 7L, "Treadmill-007", "Treadmill",
+                "ACTIVE", "MAINTENANCE", null));
+        assertTrue(stream.awaitFanOut(30, TimeUnit.SECONDS), "fan-out did not finish");
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+
+        for (RecordingEmitter admin : admins) {
+            assertEquals(SESSIONS, admin.count("session.created"));
+            assertEquals(1, admin.count("machine.status"));
+        }
+        for (RecordingEmitter member : members) {
+            long expected = member.userId <= SESSIONS ? 1 : 0;
+            assertEquals(expected, member.count("session.created"), "member " + member.userId);
+            assertEquals(1, member.count("machine.status"));
+            assertEquals(1, member.count("connected"));
+        }
+        assertFalse(fanOutThreads.contains(Thread.currentThread().getName()), "events written by the publisher");
+        assertTrue(fanOutThreads.size() <= WRITER_THREADS, "written by " + fanOutThreads.size() + " threads");
+        assertTrue(elapsedMs < 10_000, "fan-out took " + elapsedMs + " ms");
+    }
+
+    @Test
+    void dropsSubscribersThatFail() throws Exception {
+        register(new RecordingEmitter(), User.UserRole.ADMIN, null);
+        RecordingEmitter broken = register(new RecordingEmitter(), User.UserRole.ADMIN, null);
+        broken.failing = true;
+
+        stream.onSessionChanged(new WorkoutSessionChangedEvent(ChangeType.CREATED, null, session(1L, 1L)));
+        assertTrue(stream.awaitFanOut(5, TimeUnit.SECONDS));
+
+        assertEquals(1, stream.getSubscriberCount());
+    }
+
+    @Test
+    void aBlockedClientDoesNotHoldUpTheOthers() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingEmitter blocked = register(new RecordingEmitter(), User.UserRole.ADMIN, null);
+        blocked.blockUntil = release;
+        RecordingEmitter healthy = register(new RecordingEmitter(), User.UserRole.ADMIN, null);
+        try {
+            // In bursts the healthy client keeps up with, until the blocked one's queue overflows
+            int published = 0;
+            for (int burst = 0; burst < 5; burst++) {
+                for (int i = 0; i < QUEUE_CAPACITY / 4; i++) {
+                    published++;
+                    stream.onSessionChanged(new WorkoutSessionChangedEvent(ChangeType.CREATED, null,
+                            session((long) published, (long) published)));
+                }
+                long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+                while (healthy.count("session.created") < published && System.nanoTime() < deadline) {
+                    Thread.sleep(1);
+                }
+                assertEquals(published, healthy.count("session.created"), "healthy subscriber was held up");
+            }
+            assertEquals(1, stream.getSubscriberCount(), "the blocked subscriber overflowed and is dropped");
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void clientsBlockedOnEveryWriterThreadAreDroppedAfterTheSendTimeout() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<RecordingEmitter> blocked = new ArrayList<>();
+        try {
+            // Twice as many stalled clients as writer threads, each stuck in its first send
+            for (int i = 0; i < WRITER_THREADS * 2; i++) {
+                RecordingEmitter emitter = new RecordingEmitter();
+                emitter.blockUntil = release;
+                blocked.add(register(emitter, User.UserRole.ADMIN, null));
+            }
+            RecordingEmitter healthy = register(new RecordingEmitter(), User.UserRole.ADMIN, null);
+            for (long id = 1; id <= SESSIONS; id++) {
+                stream.onSessionChanged(new WorkoutSessionChangedEvent(ChangeType.CREATED, null, session(id, id)));
+            }
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while ((healthy.count("session.created") < SESSIONS || blocked.stream().anyMatch(emitter -> !emitter.completed))
+                    && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertEquals(SESSIONS, healthy.count("session.created"), "healthy subscriber was starved");
+            assertTrue(blocked.stream().allMatch(emitter -> emitter.completed), "stalled subscribers not completed");
+            assertEquals(1, stream.getSubscriberCount());
+            assertTrue(fanOutThreads.size() <= WRITER_THREADS, "written by " + fanOutThreads.size() + " threads");
+        } finally {
+            release.countDown();
+        }
+    }
+
+    private RecordingEmitter register(RecordingEmitter emitter, User.UserRole role, Long userId) {
+        emitter.userId = userId != null ? userId : 0L;
+        stream.register(emitter, role, userId);
+        return emitter;
+    }
+
+    private static SessionSnapshot session(Long id, Long userId) {
+        LocalDateTime start = LocalDateTime.now().minusHours(1);
+        return new SessionSnapshot(id, userId, 7L, "Treadmill", start, start.plusMinutes(45),
+                300, 5.0, 130, true);
+    }
+
+    private class RecordingEmitter extends SseEmitter {
+        private final Map<String, Integer> events = new ConcurrentHashMap<>();
+        private long userId;
+        private volatile boolean failing;
+        // Like a client whose TCP buffer is full: send does not return until released
+        private volatile CountDownLatch blockUntil;
+        private volatile boolean completed;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            fanOutThreads.add(Thread.currentThread().getName());
+            if (failing) {
+                throw new IOException("Broken pipe");
+            }
+            if (blockUntil != null) {
+                try {
+                    blockUntil.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted");
+                }
+            }
+            StringBuilder text = new StringBuilder();
+            builder.build().forEach(part -> {
+                if (part.getData() instanceof String data) {
+                    text.append(data);
+                }
+            });
+            int start = text.indexOf("event:");
+            if (start >= 0) {
+                events.merge(text.substring(start + 6, text.indexOf("\n", start)), 1, Integer::sum);
+            }
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+            super.complete();
+        }
+
+        int count(String name) {
+            return events.getOrDefault(name, 0);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.brandon.dtms2.service;
+
+import com.brandon.dtms2.event.ChangeType;
+import com.brandon.dtms2.event.MachineChangedEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DataVersionServiceTest {
+
+    private final DataVersionService versions = new DataVersionService();
+
+    @Test
+    void matchingTagIsNotModified() {
+        String etag = versions.etag("machines", DataVersionService.Table.MACHINES);
+
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        assertFalse(versions.checkNotModified(new ServletWebRequest(get(null), first), etag));
+        assertEquals(etag, first.getHeader("ETag"));
+        assertEquals("no-cache, private", first.getHeader("Cache-Control"));
+
+        MockHttpServletResponse second = new MockHttpServletResponse();
+        assertTrue(versions.checkNotModified(new ServletWebRequest(get(etag), second), etag));
+        assertEquals(304, second.getStatus());
+    }
+
+    @Test
+    void writeToATableChangesOnlyTagsThatDependOnIt() {
+        String machines = versions.etag("machines", DataVersionService.Table.MACHINES);
+        String sessions = versions.etag("my-sessions-1", DataVersionService.Table.SESSIONS);
+
+        versions.onMachineChanged(new MachineChangedEvent(ChangeType.UPDATED, 1L, "Treadmill 1", "TREADMILL",
+                "ACTIVE", "MAINTENANCE", null));
+
+        assertNotEquals(machines, versions.etag("machines", DataVersionService.Table.MACHINES));
+        assertEquals(sessions, versions.etag("my-sessions-1", DataVersionService.Table.SESSIONS));
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertFalse(versions.checkNotModified(new ServletWebRequest(get(machines), response),
+                versions.etag("machines", DataVersionService.Table.MACHINES)));
+        assertEquals(200, response.getStatus());
+    }
+
+    @Test
+    void bumpInsideATransactionWaitsForCommit() {
+        String users = versions.etag("users", DataVersionService.Table.USERS);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            versions.bump(DataVersionService.Table.USERS);
+            assertEquals(users, versions.etag("users", DataVersionService.Table.USERS));
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertNotEquals(users, versions.etag("users", DataVersionService.Table.USERS));
+
+        String bumped = versions.etag("users", DataVersionService.Table.USERS);
+        versions.bump(DataVersionService.Table.USERS);
+        assertNotEquals(bumped, versions.etag("users", DataVersionService.Table.USERS));
+    }
+
+    private static MockHttpServletRequest get(String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/machines");
+        if (ifNoneMatch != null) {
+            request.addHeader("If-None-Match", ifNoneMatch);
+        }
+        return request;
+    }
+}
@@ -0,0 +1,100 @@
+package com.brandon.dtms2.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LastLoginWriteBehindTest {
+
+    private static final LocalDateTime NOON = LocalDateTime.of(2024, 6, 1, 12, 0);
+
+    private final DataVersionService versions = new DataVersionService();
+    private final RecordingWriteBehind writeBehind = new RecordingWriteBehind(versions);
+
+    @Test
+    void keepsTheLatestLoginPerUserAndWritesOneBatch() {
+        writeBehind.record(1L, NOON);
+        writeBehind.record(1L, NOON.plusMinutes(5));
+        writeBehind.record(1L, NOON.plusMinutes(2));
+        writeBehind.record(2L, NOON);
+
+        assertEquals(NOON.plusMinutes(5), writeBehind.getPending(1L).orElseThrow());
+        writeBehind.flush();
+        assertEquals(1, versions.getVersion(DataVersionService.Table.USERS));
+
+        assertEquals(List.of(Map.of(1L, NOON.plusMinutes(5), 2L, NOON)), writeBehind.batches);
+        assertEquals(0, writeBehind.getPendingCount());
+        assertTrue(writeBehind.getPending(1L).isEmpty());
+
+        writeBehind.flush();
+        assertEquals(1, writeBehind.batches.size());
+        assertEquals(1, versions.getVersion(DataVersionService.Table.USERS));
+    }
+
+    @Test
+    void failedFlushKeepsEntriesForTheNextOne() {
+        writeBehind.record(1L, NOON);
+        writeBehind.failures = 1;
+
+        writeBehind.flush();
+        assertEquals(1, writeBehind.getPendingCount());
+        assertEquals(0, versions.getVersion(DataVersionService.Table.USERS));
+
+        writeBehind.shutdown();
+        assertEquals(List.of(Map.of(1L, NOON)), writeBehind.batches);
+        assertEquals(0, writeBehind.getPendingCount());
+    }
+
+    @Test
+    void loginDuringAFlushIsNotLost() {
+        writeBehind.record(1L, NOON);
+        writeBehind.duringWrite = () -> writeBehind.record(1L, NOON.plusMinutes(1));
+
+        writeBehind.flush();
+        assertEquals(NOON.plusMinutes(1), writeBehind.getPending(1L).orElseThrow());
+
+        writeBehind.duringWrite = null;
+        writeBehind.flush();
+        assertEquals(Map.of(1L, NOON.plusMinutes(1)), writeBehind.batches.get(1));
+    }
+
+    @Test
+    void splitsLargeFlushesIntoBatches() {
+        for (long id = 1; id <= 2_500; id++) {
+            writeBehind.record(id, NOON);
+        }
+        writeBehind.flush();
+
+        assertEquals(3, writeBehind.batches.size());
+        assertEquals(2_500, writeBehind.batches.stream().mapToInt(Map::size).sum());
+    }
+
+    private static final class RecordingWriteBehind extends LastLoginWriteBehind {
+        private final List<Map<Long, LocalDateTime>> batches = new ArrayList<>();
+        private int failures;
+        private Runnable duringWrite;
+
+        private RecordingWriteBehind(DataVersionService versions) {
+            super(null, versions);
+        }
+
+        @Override
+        int writeBatch(Map<Long, LocalDateTime> logins) {
+            if (failures > 0) {
+                failures--;
+                throw new RuntimeException("database unavailable");
+            }
+            if (duringWrite != null) {
+                duringWrite.run();
+            }
+            batches.add(Map.copyOf(logins));
+            return logins.size();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.brandon.dtms2.service;
+
+import com.brandon.dtms2.event.ChangeType;
+import com.brandon.dtms2.event.SessionSnapshot;
+import com.brandon.dtms2.event.WorkoutSessionChangedEvent;
+import com.brandon.dtms2.repository.UserRepository;
+import com.brandon.dtms2.repository.WorkoutSessionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LeaderboardServiceTest {
+
+    private final WorkoutSessionRepository sessions = mock(WorkoutSessionRepository.class);
+    private final UserRepository users = mock(UserRepository.class);
+    private final LeaderboardService leaderboards =
+            new LeaderboardService(sessions, users, mock(PlatformTransactionManager.class));
+
+    @Test
+    void changesDuringTheLoadAreAppliedWithoutAnotherQuery() {
+        when(sessions.findLeaderboardTotalsBetween(any(), any())).thenAnswer(invocation -> {
+            // Committed after the query's snapshot, delivered while it runs
+            leaderboards.onSessionChanged(created(10L, 1L, 200));
+            leaderboards.onSessionChanged(created(11L, 2L, 50));
+            return rows(new Object[]{1L, "alice", 300, 0.0, 2L});
+        });
+
+        Map<String, Object> rank = leaderboards.getRank(LeaderboardService.Period.WEEK,
+                LeaderboardService.Metric.CALORIES, 1L);
+        assertEquals(1, rank.get("rank"));
+        assertEquals(500L, rank.get("score"));
+        assertEquals("alice", rank.get("username"));
+
+        leaderboards.onSessionChanged(created(12L, 2L, 25));
+        rank = leaderboards.getRank(LeaderboardService.Period.WEEK, LeaderboardService.Metric.CALORIES, 2L);
+        assertEquals(2, rank.get("rank"));
+        assertEquals(75L, rank.get("score"));
+
+        verify(sessions, times(1)).findLeaderboardTotalsBetween(any(), any());
+    }
+
+    @Test
+    void unknownNamesOnAPageAreResolvedInOneQuery() {
+        when(sessions.findLeaderboardTotalsBetween(any(), any())).thenReturn(rows());
+        when(users.findUsernamesByIds(anyCollection()))
+                .thenReturn(rows())
+                .thenReturn(rows(new Object[]{1L, "alice"}, new Object[]{2L, "bob"}, new Object[]{3L, "carol"}));
+        leaderboards.getRank(LeaderboardService.Period.WEEK, LeaderboardService.Metric.SESSIONS, 99L);
+        leaderboards.onSessionChanged(created(10L, 1L, 100));
+        leaderboards.onSessionChanged(created(11L, 2L, 100));
+        leaderboards.onSessionChanged(created(12L, 3L, 100));
+
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> entries = (List<Map<String, Object>>) leaderboards.getLeaderboard(
+                LeaderboardService.Period.WEEK, LeaderboardService.Metric.SESSIONS, 0, 10, null).get("entries");
+
+        assertEquals(List.of("alice", "bob", "carol"), entries.stream().map(row -> row.get("username")).sorted().toList());
+        // Once for the member looked up before they had a session, once for the page
+        verify(users, times(2)).findUsernamesByIds(anyCollection());
+    }
+
+    private static WorkoutSessionChangedEvent created(Long sessionId, Long userId, int calories) {
+        SessionSnapshot session = new SessionSnapshot(sessionId, userId, 1L, "TREADMILL", LocalDateTime.now(),
+                LocalDateTime.now(), calories, null, null, true);
+        return new WorkoutSessionChangedEvent(ChangeType.CREATED, null, session);
+    }
+
+    private static List<Object[]> rows(Object[]... rows) {
+        return new ArrayList<>(List.of(rows));
+    }
+}
@@ -0,0 +1,83 @@
+package com.brandon.dtms2.service;
+
+import com.brandon.dtms2.event.ChangeType;
+import com.brandon.dtms2.event.MachineChangedEvent;
+import com.brandon.dtms2.event.SessionSnapshot;
+import com.brandon.dtms2.event.WorkoutSessionChangedEvent;
+import com.brandon.dtms2.repository.WorkoutSessionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MachineUsageHeatmapServiceTest {
+
+    // A Monday, so the cells are matrix[0][7] and matrix[0][8]
+    private static final LocalDateTime START = LocalDateTime.of(2024, 5, 6, 7, 0);
+
+    private final WorkoutSessionRepository sessions = mock(WorkoutSessionRepository.class);
+    private final MachineUsageHeatmapService heatmaps =
+            new MachineUsageHeatmapService(sessions, mock(PlatformTransactionManager.class));
+
+    @Test
+    void changesDuringTheFirstBuildAreKept() {
+        when(sessions.streamMachineIntervals()).thenAnswer(invocation -> {
+            // Committed after the stream's snapshot, delivered while it runs
+            heatmaps.onSessionChanged(created(10L, 1L, START.plusHours(1)));
+            return Stream.<Object[]>of(new Object[]{1L, "TREADMILL", START, START.plusMinutes(30)});
+        });
+
+        Map<String, Object> heatmap = heatmaps.getMachineHeatmap(1L);
+        assertEquals(30L, minutes(heatmap, 7));
+        assertEquals(30L, minutes(heatmap, 8));
+    }
+
+    @Test
+    void changesDuringARebuildReachTheNewCounters() {
+        when(sessions.streamMachineIntervals())
+                .thenReturn(Stream.<Object[]>of(new Object[]{1L, "TREADMILL", START, START.plusMinutes(30)}))
+                .thenAnswer(invocation -> {
+                    heatmaps.onSessionChanged(created(10L, 1L, START.plusHours(1)));
+                    heatmaps.onMachineChanged(new MachineChangedEvent(ChangeType.DELETED, 2L, null, null, null, null, null));
+                    return Stream.<Object[]>of(new Object[]{1L, "TREADMILL", START, START.plusMinutes(30)},
+                            new Object[]{2L, "ROWER", START, START.plusMinutes(30)});
+                });
+        heatmaps.getMachineHeatmap(1L);
+
+        heatmaps.rebuild();
+
+        Map<String, Object> heatmap = heatmaps.getMachineHeatmap(1L);
+        assertEquals(30L, minutes(heatmap, 7));
+        assertEquals(30L, minutes(heatmap, 8));
+        assertEquals(1, heatmaps.getAllMachineHeatmaps().size());
+        assertNull(heatmaps.getMachineHeatmap(2L).get("machineType"));
+    }
+
+    @Test
+    void changesBeforeTheFirstReadAreLeftToTheBuild() {
+        heatmaps.onSessionChanged(created(10L, 1L, START.plusHours(1)));
+        when(sessions.streamMachineIntervals()).thenReturn(Stream.<Object[]>of(
+                new Object[]{1L, "TREADMILL", START.plusHours(1), START.plusHours(1).plusMinutes(30)}));
+
+        assertEquals(30L, minutes(heatmaps.getMachineHeatmap(1L), 8));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static long minutes(Map<String, Object> heatmap, int mondayHour) {
+        return ((List<List<Long>>) heatmap.get("matrix")).get(0).get(mondayHour);
+    }
+
+    private static WorkoutSessionChangedEvent created(Long sessionId, Long machineId, LocalDateTime start) {
+        SessionSnapshot session = new SessionSnapshot(sessionId, 1L, machineId, "TREADMILL", start,
+                start.plusMinutes(30), null, null, null, true);
+        return new WorkoutSessionChangedEvent(ChangeType.CREATED, null, session);
+    }
+}
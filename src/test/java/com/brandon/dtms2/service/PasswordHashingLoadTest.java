@@ -0,0 +1,140 @@
+package com.brandon.dtms2.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * A login storm against PasswordHashingService: what it accepts, rejects and completes.
+ * The latency comparison against BCrypt on a pool standing in for Tomcat's request
+ * threads depends on the machine, run it with -Dbenchmark=true.
+ */
+class PasswordHashingLoadTest {
+
+    private static final int REQUEST_THREADS = 8;
+    private static final int LOGINS = 120;
+    private static final int OTHER_REQUESTS = 200;
+    private static final int HASH_THREADS = 2;
+    private static final int HASH_QUEUE = 16;
+
+    private final BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(8);
+    private final String hash = encoder.encode("member123");
+
+    private final PasswordHashingService hashing = new PasswordHashingService(HASH_THREADS, HASH_QUEUE);
+    private final ExecutorService requestThreads = Executors.newFixedThreadPool(REQUEST_THREADS);
+
+    @AfterEach
+    void tearDown() {
+        hashing.shutdown();
+        requestThreads.shutdownNow();
+    }
+
+    @Test
+    void loginsBeyondThePoolAndQueueAreRejectedWithRetryAfter() throws Exception {
+        // Both hashing threads busy, so the burst fills the queue deterministically
+        CountDownLatch release = new CountDownLatch(1);
+        List<CompletableFuture<Boolean>> accepted = new ArrayList<>();
+        int rejected = 0;
+        long retryAfter = 0;
+        try {
+            for (int i = 0; i < LOGINS; i++) {
+                try {
+                    accepted.add(hashing.submit(() -> {
+                        await(release);
+                        return encoder.matches("member123", hash);
+                    }));
+                } catch (RejectedExecutionException e) {
+                    rejected++;
+                    retryAfter = hashing.retryAfterSeconds();
+                }
+            }
+        } finally {
+            release.countDown();
+        }
+        CompletableFuture.allOf(accepted.toArray(new CompletableFuture[0])).get(60, TimeUnit.SECONDS);
+
+        assertEquals(HASH_THREADS + HASH_QUEUE, accepted.size());
+        assertEquals(LOGINS - accepted.size(), rejected);
+        assertEquals((long) rejected, hashing.getStats().get("rejected"));
+        assertTrue(retryAfter >= 1);
+        assertTrue(accepted.stream().allMatch(CompletableFuture::join));
+        assertEquals((long) accepted.size(), hashing.getStats().get("completed"));
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void otherEndpointsStayFastDuringALoginStorm() throws Exception {
+        long[] onRequestThreads = storm(() -> encoder.matches("member123", hash));
+
+        AtomicInteger rejected = new AtomicInteger();
+        List<CompletableFuture<Boolean>> accepted = new ArrayList<>();
+        long[] offloaded = storm(() -> {
+            try {
+                synchronized (accepted) {
+                    accepted.add(hashing.submit(() -> encoder.matches("member123", hash)));
+                }
+            } catch (RejectedExecutionException e) {
+                rejected.incrementAndGet();
+            }
+        });
+        CompletableFuture.allOf(accepted.toArray(new CompletableFuture[0])).get(60, TimeUnit.SECONDS);
+
+        System.out.printf("Other requests during %d logins, %d request threads:%n", LOGINS, REQUEST_THREADS);
+        System.out.printf("  BCrypt on request threads: p50 %6.1f ms, p99 %6.1f ms%n",
+                percentile(onRequestThreads, 0.50), percentile(onRequestThreads, 0.99));
+        System.out.printf("  BCrypt on hashing pool:    p50 %6.1f ms, p99 %6.1f ms (%d logins rejected with 503)%n",
+                percentile(offloaded, 0.50), percentile(offloaded, 0.99), rejected.get());
+        System.out.println("  Hashing pool: " + hashing.getStats());
+
+        assertTrue(percentile(offloaded, 0.99) < percentile(onRequestThreads, 0.99));
+        assertEquals(LOGINS, accepted.size() + rejected.get());
+    }
+
+    // Latencies in ms of the other requests, submitted while the logins are queued
+    private long[] storm(Runnable login) throws Exception {
+        for (int i = 0; i < LOGINS; i++) {
+            requestThreads.submit(login);
+        }
+        List<Future<Long>> others = new ArrayList<>();
+        for (int i = 0; i < OTHER_REQUESTS; i++) {
+            long submittedAt = System.nanoTime();
+            others.add(requestThreads.submit(() -> System.nanoTime() - submittedAt));
+            Thread.sleep(1);
+        }
+        long[] latencies = new long[OTHER_REQUESTS];
+        for (int i = 0; i < OTHER_REQUESTS; i++) {
+            latencies[i] = others.get(i).get(60, TimeUnit.SECONDS);
+        }
+        Arrays.sort(latencies);
+        return latencies;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static double percentile(long[] sortedNanos, double percentile) {
+        int index = (int) Math.ceil(percentile * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(0, index)] / 1e6;
+    }
+}
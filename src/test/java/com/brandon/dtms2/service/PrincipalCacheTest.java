@@ -0,0 +1,87 @@
+package com.brandon.dtms2.service;
+
+import com.brandon.dtms2.entity.User;
+import com.brandon.dtms2.event.ChangeType;
+import com.brandon.dtms2.event.UserChangedEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PrincipalCacheTest {
+
+    private final CountingUserService userService = new CountingUserService();
+
+    @Test
+    void repeatedLookupsHitTheDatabaseOnce() {
+        PrincipalCache cache = new PrincipalCache(userService, 60_000, 100);
+        userService.add(1L, "member1", User.UserRole.MEMBER);
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(1L, cache.get("member1").orElseThrow().getId());
+        }
+        assertEquals(1, userService.lookups);
+    }
+
+    @Test
+    void userChangeDropsTheEntry() {
+        PrincipalCache cache = new PrincipalCache(userService, 60_000, 100);
+        User user = userService.add(1L, "member1", User.UserRole.MEMBER);
+        cache.get("member1");
+
+        user.setRole(User.UserRole.INSTRUCTOR);
+        cache.onUserChanged(UserChangedEvent.of(ChangeType.UPDATED, user));
+
+        assertEquals(User.UserRole.INSTRUCTOR, cache.get("member1").orElseThrow().getRole());
+        assertEquals(2, userService.lookups);
+    }
+
+    @Test
+    void expiredEntriesAreLoadedAgain() {
+        PrincipalCache cache = new PrincipalCache(userService, 0, 100);
+        userService.add(1L, "member1", User.UserRole.MEMBER);
+
+        cache.get("member1");
+        cache.get("member1");
+        assertEquals(2, userService.lookups);
+    }
+
+    @Test
+    void staysWithinMaxEntries() {
+        PrincipalCache cache = new PrincipalCache(userService, 60_000, 10);
+        for (long id = 1; id <= 50; id++) {
+            userService.add(id, "member" + id, User.UserRole.MEMBER);
+            cache.get("member" + id);
+        }
+        assertTrue(cache.size() <= 10);
+        assertTrue(cache.get("unknown").isEmpty());
+    }
+
+    private static final class CountingUserService extends UserService {
+        private final Map<String, User> users = new HashMap<>();
+        private int lookups;
+
+        private CountingUserService() {
+            super(null, null, null, null, null);
+        }
+
+        private User add(Long id, String username, User.UserRole role) {
+            User user = new User();
+            user.setId(id);
+            user.setUsername(username);
+            user.setRole(role);
+            users.put(username, user);
+            return user;
+        }
+
+        @Override
+        public Optional<User> findByUsername(String username) {
+            lookups++;
+            return Optional.ofNullable(users.get(username));
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.brandon.dtms2.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RequestCoalescerTest {
+
+    private final RequestCoalescer coalescer = new RequestCoalescer();
+
+    @Test
+    void concurrentIdenticalCallsShareOneExecution() throws Exception {
+        int callers = 20;
+        LocalDateTime now = LocalDateTime.of(2026, 10, 18, 9, 0, 0, 100_000_000);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger executions = new AtomicInteger();
+
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<Object>> results = new ArrayList<>();
+            results.add(pool.submit(() -> coalescer.execute("sessions.betweenDates", () -> {
+                executions.incrementAndGet();
+                started.countDown();
+                await(release);
+                return new Object();
+            }, now.minusDays(7), now)));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            for (int i = 1; i < callers; i++) {
+                // Same range a few milliseconds later: the same logical query
+                LocalDateTime later = now.plusNanos(i * 1_000_000L);
+                results.add(pool.submit(() -> coalescer.execute("sessions.betweenDates", () -> {
+                    executions.incrementAndGet();
+                    return new Object();
+                }, later.minusDays(7), later)));
+            }
+            waitForCoalesced(callers - 1);
+            release.countDown();
+
+            Object shared = results.get(0).get(5, TimeUnit.SECONDS);
+            for (Future<Object> result : results) {
+                assertSame(shared, result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(1, executions.get());
+        Map<String, Object> stats = coalescer.getStats();
+        assertEquals(1L, stats.get("executions"));
+        assertEquals((long) callers - 1, stats.get("coalesced"));
+        assertEquals(0, stats.get("inFlight"));
+    }
+
+    @Test
+    void differentParametersRunSeparately() {
+        LocalDateTime now = LocalDateTime.of(2026, 10, 18, 9, 0);
+
+        coalescer.execute("sessions.betweenDates", Object::new, now.minusDays(7), now);
+        coalescer.execute("sessions.betweenDates", Object::new, now.minusDays(30), now);
+        coalescer.execute("sessions.betweenDates", Object::new, now.minusDays(7), now);
+
+        assertEquals(3L, coalescer.getStats().get("executions"));
+        assertEquals(0L, coalescer.getStats().get("coalesced"));
+    }
+
+    @Test
+    void failureIsRethrownAndNotRemembered() {
+        assertThrows(IllegalStateException.class, () -> coalescer.execute("dashboard.adminStats", () -> {
+            throw new IllegalStateException("database unavailable");
+        }));
+
+        assertEquals("ok", coalescer.execute("dashboard.adminStats", () -> "ok"));
+    }
+
+    private void waitForCoalesced(long expected) throws InterruptedException {
+        for (int i = 0; i < 500 && !Long.valueOf(expected).equals(coalescer.getStats().get("coalesced")); i++) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
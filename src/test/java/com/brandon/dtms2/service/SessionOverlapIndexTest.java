@@ -0,0 +1,70 @@
+package com.brandon.dtms2.service;
+
+import com.brandon.dtms2.event.ChangeType;
+import com.brandon.dtms2.event.SessionSnapshot;
+import com.brandon.dtms2.event.WorkoutSessionChangedEvent;
+import com.brandon.dtms2.repository.WorkoutSessionRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SessionOverlapIndexTest {
+
+    private static final LocalDateTime START = LocalDateTime.now().withNano(0).minusDays(1);
+
+    private final WorkoutSessionRepository sessions = mock(WorkoutSessionRepository.class);
+    private final SessionOverlapIndex index = new SessionOverlapIndex(sessions);
+
+    @Test
+    void sessionCommittedDuringTheLoadIsIndexed() {
+        when(sessions.findMachineIntervalsSince(eq(1L), any())).thenAnswer(invocation -> {
+            // Committed after the query's snapshot, delivered while it runs
+            index.onSessionChanged(created(10L, 1L, START));
+            return new ArrayList<Object[]>();
+        });
+
+        assertEquals(Optional.of(10L), index.findOverlap(1L, 11L, START.plusMinutes(10), START.plusMinutes(20)));
+        verify(sessions, times(1)).findMachineIntervalsSince(eq(1L), any());
+    }
+
+    @Test
+    void sessionMovedAwayDuringTheLoadIsDropped() {
+        SessionSnapshot before = snapshot(10L, 1L, START);
+        when(sessions.findMachineIntervalsSince(eq(1L), any())).thenAnswer(invocation -> {
+            List<Object[]> rows = new ArrayList<>();
+            rows.add(new Object[]{10L, START, START.plusMinutes(30)});
+            index.onSessionChanged(new WorkoutSessionChangedEvent(ChangeType.UPDATED, before, snapshot(10L, 2L, START)));
+            return rows;
+        });
+
+        assertEquals(Optional.empty(), index.findOverlap(1L, 11L, START.plusMinutes(10), START.plusMinutes(20)));
+    }
+
+    @Test
+    void machinesNotYetLoadedIgnoreChanges() {
+        index.onSessionChanged(created(10L, 1L, START));
+        when(sessions.findMachineIntervalsSince(eq(1L), any())).thenReturn(new ArrayList<>());
+
+        assertEquals(Optional.empty(), index.findOverlap(1L, 11L, START.plusMinutes(10), START.plusMinutes(20)));
+    }
+
+    private static WorkoutSessionChangedEvent created(Long sessionId, Long machineId, LocalDateTime start) {
+        return new WorkoutSessionChangedEvent(ChangeType.CREATED, null, snapshot(sessionId, machineId, start));
+    }
+
+    private static SessionSnapshot snapshot(Long sessionId, Long machineId, LocalDateTime start) {
+        return new SessionSnapshot(sessionId, 1L, machineId, "TREADMILL", start, start.plusMinutes(30),
+                null, null, null, true);
+    }
+}
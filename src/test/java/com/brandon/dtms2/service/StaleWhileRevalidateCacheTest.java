@@ -0,0 +1,167 @@
+package com.brandon.dtms2.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StaleWhileRevalidateCacheTest {
+
+    private final MockEnvironment environment = new MockEnvironment()
+            .withProperty("app.swr.stats.max-stale-ms", "60000")
+            .withProperty("app.swr.strict.max-stale-ms", "0");
+    private final StaleWhileRevalidateCache cache =
+            new StaleWhileRevalidateCache(environment, new NoTransactionManager(), 30000, 2);
+
+    @AfterEach
+    void shutdown() {
+        cache.shutdown();
+    }
+
+    @Test
+    void currentValueIsServedWithoutReloading() {
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals(1, cache.get("stats", "\"v1\"", loads::incrementAndGet).getValue());
+        StaleWhileRevalidateCache.Cached<Integer> cached = cache.get("stats", "\"v1\"", loads::incrementAndGet);
+
+        assertEquals(1, cached.getValue());
+        assertEquals("\"v1\"", cached.getEtag());
+        assertNull(cached.getWarning());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void staleValueIsServedWhileOneRefreshRuns() throws InterruptedException {
+        cache.get("stats", "\"v1\"", () -> "old");
+
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger refreshes = new AtomicInteger();
+        for (int i = 0; i < 5; i++) {
+            StaleWhileRevalidateCache.Cached<String> cached = cache.get("stats", "\"v2\"", () -> {
+                refreshes.incrementAndGet();
+                await(release);
+                return "new";
+            });
+            assertEquals("old", cached.getValue());
+            assertEquals("\"v1\"", cached.getEtag());
+            assertEquals(StaleWhileRevalidateCache.STALE, cached.getWarning());
+        }
+        release.countDown();
+
+        assertTrue(eventually(() -> "new".equals(cache.get("stats", "\"v2\"", () -> "unused").getValue())));
+        assertEquals(1, refreshes.get());
+        assertFalse(cache.get("stats", "\"v2\"", () -> "unused").isStale());
+    }
+
+    @Test
+    void failedRefreshKeepsServingTheLastValue() throws InterruptedException {
+        cache.get("stats", "\"v1\"", () -> "old");
+        cache.get("stats", "\"v2\"", () -> {
+            throw new IllegalStateException("database unavailable");
+        });
+
+        assertTrue(eventually(() -> StaleWhileRevalidateCache.REVALIDATION_FAILED.equals(
+                cache.get("stats", "\"v2\"", () -> {
+                    throw new IllegalStateException("database unavailable");
+                }).getWarning())));
+        assertEquals("old", cache.get("stats", "\"v2\"", () -> {
+            throw new IllegalStateException("database unavailable");
+        }).getValue());
+    }
+
+    @Test
+    void pastMaximumStalenessCallersWaitForAFreshValue() {
+        cache.get("strict", "\"v1\"", () -> "old");
+
+        StaleWhileRevalidateCache.Cached<String> cached = cache.get("strict", "\"v2\"", () -> "new");
+
+        assertEquals("new", cached.getValue());
+        assertEquals("\"v2\"", cached.getEtag());
+        assertFalse(cached.isStale());
+    }
+
+    @Test
+    void callersWaitingForAFreshValueShareOneLoad() throws Exception {
+        cache.get("strict", "\"v1\"", () -> "old");
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        ExecutorService callers = Executors.newFixedThreadPool(5);
+        try {
+            List<Future<StaleWhileRevalidateCache.Cached<String>>> results = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                results.add(callers.submit(() -> cache.get("strict", "\"v2\"", () -> {
+                    loads.incrementAndGet();
+                    started.countDown();
+                    await(release);
+                    return "new";
+                })));
+                if (i == 0) {
+                    assertTrue(started.await(5, TimeUnit.SECONDS));
+                }
+            }
+            // Let the others reach the running load before it finishes
+            Thread.sleep(100);
+            release.countDown();
+
+            for (Future<StaleWhileRevalidateCache.Cached<String>> result : results) {
+                assertEquals("new", result.get(5, TimeUnit.SECONDS).getValue());
+            }
+            assertEquals(1, loads.get());
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static boolean eventually(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 200; i++) {
+            if (condition.getAsBoolean()) {
+                return true;
+            }
+            Thread.sleep(10);
+        }
+        return false;
+    }
+
+    private static final class NoTransactionManager implements PlatformTransactionManager {
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.brandon.dtms2.service;
+
+import com.brandon.dtms2.dto.UserPrincipal;
+import com.brandon.dtms2.entity.User;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenServiceTest {
+
+    private static final String KEY_1 = "k1:0123456789abcdef0123456789abcdef";
+    private static final String KEY_2 = "k2:fedcba9876543210fedcba9876543210";
+
+    private final UserPrincipal member = new UserPrincipal(7L, "member1", "member1@example.com", "Ann", null,
+            User.UserRole.MEMBER, User.UserStatus.ACTIVE);
+
+    @Test
+    void issuedTokensVerifyToTheSamePrincipal() {
+        TokenService tokens = new TokenService(true, KEY_1, 60_000, 600_000);
+        Map<String, Object> issued = tokens.issueTokens(member);
+
+        String access = (String) issued.get("accessToken");
+        String refresh = (String) issued.get("refreshToken");
+        assertEquals(member, tokens.verify(access, TokenService.TokenType.ACCESS).orElseThrow().getPrincipal());
+        assertEquals(member, tokens.verify(refresh, TokenService.TokenType.REFRESH).orElseThrow().getPrincipal());
+
+        // A refresh token is not an access token and vice versa
+        assertTrue(tokens.verify(refresh, TokenService.TokenType.ACCESS).isEmpty());
+        assertTrue(tokens.verify(access, TokenService.TokenType.REFRESH).isEmpty());
+    }
+
+    @Test
+    void rejectsTamperedExpiredAndMalformedTokens() {
+        TokenService tokens = new TokenService(true, KEY_1, 60_000, 600_000);
+        String access = tokens.sign(member, TokenService.TokenType.ACCESS, System.currentTimeMillis() + 60_000);
+
+        String[] parts = access.split("\\.");
+        String admin = tokens.sign(new UserPrincipal(7L, "member1", null, null, null, User.UserRole.ADMIN, null),
+                TokenService.TokenType.ACCESS, System.currentTimeMillis() + 60_000);
+        String swapped = parts[0] + "." + admin.split("\\.")[1] + "." + parts[2];
+        assertTrue(tokens.verify(swapped, TokenService.TokenType.ACCESS).isEmpty());
+
+        String expired = tokens.sign(member, TokenService.TokenType.ACCESS, System.currentTimeMillis() - 1);
+        assertTrue(tokens.verify(expired, TokenService.TokenType.ACCESS).isEmpty());
+
+        for (String malformed : new String[]{"", "abc", "k1.abc", "k1.!!.??", "k9." + parts[1] + "." + parts[2], access + ".x"}) {
+            assertTrue(tokens.verify(malformed, TokenService.TokenType.ACCESS).isEmpty(), malformed);
+        }
+    }
+
+    @Test
+    void previousKeysStillVerifyAfterRotation() {
+        TokenService before = new TokenService(true, KEY_1, 60_000, 600_000);
+        String access = before.sign(member, TokenService.TokenType.ACCESS, System.currentTimeMillis() + 60_000);
+
+        TokenService rotated = new TokenService(true, KEY_2 + "," + KEY_1, 60_000, 600_000);
+        assertTrue(rotated.verify(access, TokenService.TokenType.ACCESS).isPresent());
+        assertTrue(rotated.sign(member, TokenService.TokenType.ACCESS, System.currentTimeMillis() + 60_000).startsWith("k2."));
+
+        TokenService retired = new TokenService(true, KEY_2, 60_000, 600_000);
+        assertTrue(retired.verify(access, TokenService.TokenType.ACCESS).isEmpty());
+    }
+
+    @Test
+    void disabledModeIssuesAndAcceptsNothing() {
+        TokenService disabled = new TokenService(false, "", 60_000, 600_000);
+        assertThrows(RuntimeException.class, () -> disabled.issueTokens(member));
+        assertTrue(disabled.verify("k1.a.b", TokenService.TokenType.ACCESS).isEmpty());
+
+        assertThrows(IllegalStateException.class, () -> new TokenService(true, "", 60_000, 600_000));
+        assertThrows(IllegalArgumentException.class, () -> new TokenService(true, "k1:short", 60_000, 600_000));
+    }
+}
@@ -0,0 +1,135 @@
+package com.brandon.dtms2.service;
+
+import com.brandon.dtms2.dto.UserDTO;
+import com.brandon.dtms2.entity.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UserDirectoryServiceTest {
+
+    private final RecordingJdbcTemplate jdbc = new RecordingJdbcTemplate();
+    private final UserDirectoryService directory = new UserDirectoryService(jdbc, new LastLoginWriteBehind(null, null));
+
+    @Test
+    void firstPageSearchesEveryColumnByPrefixAndCarriesCounts() {
+        jdbc.rows = users("ann", "anna", "annabel");
+
+        Map<String, Object> page = directory.getPage(" Ann ", User.UserRole.MEMBER, User.UserStatus.ACTIVE, null, 2);
+
+        String sql = jdbc.queries.get(0);
+        assertTrue(sql.contains("lower(username) LIKE ? ESCAPE '\\' OR lower(first_name) LIKE ?"), sql);
+        assertTrue(sql.contains("AND role = ? AND (status = ? OR status IS NULL)"), sql);
+        assertFalse(sql.contains("username > ?"), sql);
+        assertTrue(sql.endsWith("ORDER BY username LIMIT ?"), sql);
+        assertEquals(List.of("ann%", "ann%", "ann%", "ann%", "MEMBER", "ACTIVE", 3), jdbc.args.get(0));
+
+        assertEquals(List.of("ann", "anna"), usernames(page));
+        assertEquals(true, page.get("hasMore"));
+        assertEquals(UserDirectoryService.encodeCursor("anna"), page.get("nextCursor"));
+
+        // Counts follow the search only, so every role and status choice shows what it holds
+        assertTrue(page.containsKey("counts"));
+        assertTrue(jdbc.queries.get(1).contains("GROUP BY role"), jdbc.queries.get(1));
+        assertEquals(List.of("ann%", "ann%", "ann%", "ann%"), jdbc.args.get(1));
+    }
+
+    @Test
+    void laterPagesStartAfterTheCursorWithoutCounts() {
+        jdbc.rows = users("bob", "carl");
+
+        Map<String, Object> page = directory.getPage(null, null, User.UserStatus.SUSPENDED,
+                UserDirectoryService.encodeCursor("anna"), 2);
+
+        assertEquals(1, jdbc.queries.size());
+        String sql = jdbc.queries.get(0);
+        assertFalse(sql.contains("LIKE"), sql);
+        assertTrue(sql.contains("AND status = ? AND username > ? ORDER BY username LIMIT ?"), sql);
+        assertEquals(List.of("SUSPENDED", "anna", 3), jdbc.args.get(0));
+
+        assertEquals(List.of("bob", "carl"), usernames(page));
+        assertEquals(false, page.get("hasMore"));
+        assertNull(page.get("nextCursor"));
+        assertFalse(page.containsKey("counts"));
+    }
+
+    @Test
+    void pageSizeIsClampedToTheMaximum() {
+        jdbc.rows = users();
+
+        directory.getPage(null, null, null, null, 10_000);
+
+        assertEquals(List.of(UserDirectoryService.MAX_PAGE_SIZE + 1), jdbc.args.get(0));
+    }
+
+    @Test
+    void searchBecomesALowerCasePrefixPattern() {
+        assertEquals("ann%", UserDirectoryService.likePrefix("  Ann "));
+        assertEquals("j.smith@%", UserDirectoryService.likePrefix("J.Smith@"));
+    }
+
+    @Test
+    void likeWildcardsInTheSearchMatchLiterally() {
+        assertEquals("100\\%\\_fit\\\\%", UserDirectoryService.likePrefix("100%_fit\\"));
+    }
+
+    @Test
+    void cursorsRoundTripAnyUsername() {
+        for (String username : new String[]{"member1", "Zoë_ö", "a b/c+d=", ""}) {
+            assertEquals(username, UserDirectoryService.decodeCursor(UserDirectoryService.encodeCursor(username)));
+        }
+        assertThrows(IllegalArgumentException.class, () -> UserDirectoryService.decodeCursor("not a cursor!"));
+    }
+
+    private static List<UserDTO> users(String... usernames) {
+        return Arrays.stream(usernames).map(username -> {
+            UserDTO user = new UserDTO();
+            user.setUsername(username);
+            return user;
+        }).collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> usernames(Map<String, Object> page) {
+        return ((List<UserDTO>) page.get("users")).stream().map(UserDTO::getUsername).toList();
+    }
+
+    // Records each statement and its arguments; the page query returns rows, up to the LIMIT it asked for
+    private static final class RecordingJdbcTemplate extends JdbcTemplate {
+        private final List<String> queries = new ArrayList<>();
+        private final List<List<Object>> args = new ArrayList<>();
+        private List<UserDTO> rows = List.of();
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> List<T> query(String sql, RowMapper<T> rowMapper, Object... args) {
+            record(sql, args);
+            int limit = (Integer) args[args.length - 1];
+            return (List<T>) new ArrayList<>(rows.subList(0, Math.min(limit, rows.size())));
+        }
+
+        @Override
+        public void query(String sql, RowCallbackHandler handler, Object... args) {
+            record(sql, args);
+        }
+
+        private void record(String sql, Object[] args) {
+            queries.add(sql);
+            this.args.add(IntStream.range(0, args.length).mapToObj(i -> args[i]).toList());
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.brandon.dtms2.service;
+
+import com.brandon.dtms2.entity.Machine;
+import com.brandon.dtms2.entity.User;
+import com.brandon.dtms2.entity.WorkoutSession;
+import com.brandon.dtms2.event.ChangeType;
+import com.brandon.dtms2.event.UserChangedEvent;
+import com.brandon.dtms2.event.WorkoutSessionChangedEvent;
+import com.brandon.dtms2.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserServiceTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final UserStatsService userStatsService = mock(UserStatsService.class);
+    private final UserService userService = new UserService(userRepository, null, eventPublisher,
+            new DataVersionService(), userStatsService);
+
+    @Test
+    void deletingAUserPublishesADeleteForEachCascadedSession() {
+        User user = new User();
+        user.setId(7L);
+        user.setUsername("member7");
+        user.setRole(User.UserRole.MEMBER);
+        user.getWorkoutSessions().add(session(user, 1L, 200));
+        user.getWorkoutSessions().add(session(user, 2L, 150));
+        when(userRepository.findWithWorkoutSessionsById(7L)).thenReturn(Optional.of(user));
+
+        userService.deleteUser(7L);
+
+        ArgumentCaptor<Object> events = ArgumentCaptor.forClass(Object.class);
+        verify(eventPublisher, times(3)).publishEvent(events.capture());
+        List<Object> published = events.getAllValues();
+        for (int i = 0; i < 2; i++) {
+            WorkoutSessionChangedEvent deleted = assertInstanceOf(WorkoutSessionChangedEvent.class, published.get(i));
+            assertEquals(ChangeType.DELETED, deleted.getChangeType());
+            assertEquals(7L, deleted.getPrevious().getUserId());
+            assertEquals("TREADMILL", deleted.getPrevious().getMachineType());
+            assertNull(deleted.getCurrent());
+        }
+        assertEquals(200, ((WorkoutSessionChangedEvent) published.get(0)).getPrevious().getCaloriesBurned());
+        assertEquals(ChangeType.DELETED, assertInstanceOf(UserChangedEvent.class, published.get(2)).getChangeType());
+        verify(userRepository).delete(user);
+        verify(userStatsService).deleteStats(7L);
+    }
+
+    private static WorkoutSession session(User user, Long id, int calories) {
+        Machine machine = new Machine();
+        machine.setId(3L);
+        machine.setType("TREADMILL");
+        WorkoutSession session = new WorkoutSession();
+        session.setId(id);
+        session.setUser(user);
+        session.setMachine(machine);
+        session.setStartTime(LocalDateTime.now().minusHours(1));
+        session.setEndTime(LocalDateTime.now());
+        session.setCaloriesBurned(calories);
+        return session;
+    }
+}
@@ -0,0 +1,90 @@
+package com.brandon.dtms2.service;
+
+import com.brandon.dtms2.event.SessionSnapshot;
+import com.brandon.dtms2.repository.UserWorkoutStatsRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserStatsServiceTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 5, 6, 7, 0);
+
+    private final UserWorkoutStatsRepository repository = mock(UserWorkoutStatsRepository.class);
+    private final UserStatsService stats = new UserStatsService(repository, mock(PlatformTransactionManager.class));
+
+    @BeforeEach
+    void rowExists() {
+        when(repository.addDeltas(anyLong(), anyLong(), anyLong(), anyDouble(), anyLong(), anyLong(), any())).thenReturn(1);
+    }
+
+    @Test
+    void createAddsTheWholeSession() {
+        stats.applyChange(null, session(1L, 320, 2.5, 140));
+
+        verify(repository).addDeltas(eq(1L), eq(1L), eq(320L), eq(2.5), eq(140L), eq(1L), any());
+        verify(repository).advanceLastSessionTime(1L, START);
+    }
+
+    @Test
+    void updateAddsOnlyTheDifference() {
+        stats.applyChange(session(1L, null, null, null), session(1L, 320, 2.5, 140));
+
+        verify(repository).addDeltas(eq(1L), eq(0L), eq(320L), eq(2.5), eq(140L), eq(1L), any());
+    }
+
+    @Test
+    void deleteSubtractsTheSessionAndRecomputesTheLatest() {
+        stats.applyChange(session(1L, 320, 2.5, 140), null);
+
+        verify(repository).addDeltas(eq(1L), eq(-1L), eq(-320L), eq(-2.5), eq(-140L), eq(-1L), any());
+        verify(repository).recomputeLastSessionTime(1L);
+        verify(repository, never()).advanceLastSessionTime(anyLong(), any());
+    }
+
+    @Test
+    void movingASessionToAnotherUserUpdatesBothRows() {
+        stats.applyChange(session(1L, 320, 2.5, 140), session(2L, 320, 2.5, 140));
+
+        verify(repository).addDeltas(eq(1L), eq(-1L), eq(-320L), eq(-2.5), eq(-140L), eq(-1L), any());
+        verify(repository).addDeltas(eq(2L), eq(1L), eq(320L), eq(2.5), eq(140L), eq(1L), any());
+    }
+
+    @Test
+    void missingRowIsBuiltFromHistoryInsteadOfUpdated() {
+        when(repository.addDeltas(eq(3L), anyLong(), anyLong(), anyDouble(), anyLong(), anyLong(), any())).thenReturn(0);
+        when(repository.insertFromHistory(eq(3L), any())).thenReturn(1);
+
+        stats.applyChange(null, session(3L, 320, 2.5, 140));
+
+        verify(repository, times(1)).addDeltas(eq(3L), anyLong(), anyLong(), anyDouble(), anyLong(), anyLong(), any());
+        verify(repository).insertFromHistory(eq(3L), any());
+    }
+
+    @Test
+    void rowBuiltConcurrentlyStillGetsTheDelta() {
+        when(repository.addDeltas(eq(3L), anyLong(), anyLong(), anyDouble(), anyLong(), anyLong(), any())).thenReturn(0, 1);
+        when(repository.insertFromHistory(eq(3L), any())).thenReturn(0);
+
+        stats.applyChange(null, session(3L, 320, 2.5, 140));
+
+        verify(repository, times(2)).addDeltas(eq(3L), eq(1L), eq(320L), eq(2.5), eq(140L), eq(1L), any());
+    }
+
+    private static SessionSnapshot session(Long userId, Integer calories, Double distance, Integer heartRate) {
+        return new SessionSnapshot(10L, userId, 1L, "TREADMILL", START, START.plusMinutes(30),
+                calories, distance, heartRate, true);
+    }
+}
@@ -0,0 +1,201 @@
+package com.brandon.dtms2.service;
+
+import com.brandon.dtms2.dto.WorkoutSessionResponseDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class WorkoutSessionSearchServiceTest {
+
+    private static final LocalDateTime MORNING = LocalDate.now().atTime(7, 0);
+    private static final WorkoutSessionSearchService.Criteria ALL =
+            new WorkoutSessionSearchService.Criteria(null, null, null, null, null, null);
+
+    // Postgres mode, with nulls sorting high as they do in Postgres
+    private SingleConnectionDataSource dataSource;
+    private CountingJdbcTemplate jdbc;
+    private DataVersionService versions;
+    private WorkoutSessionSearchService search;
+
+    @BeforeEach
+    void createTables() {
+        dataSource = new SingleConnectionDataSource(
+                "jdbc:h2:mem:search;MODE=PostgreSQL;DEFAULT_NULL_ORDERING=HIGH", "sa", "", true);
+        jdbc = new CountingJdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE machines (id BIGINT PRIMARY KEY, name VARCHAR(100), type VARCHAR(100))");
+        jdbc.execute("CREATE TABLE users (id BIGINT PRIMARY KEY, first_name VARCHAR(100), last_name VARCHAR(100), "
+                + "username VARCHAR(100))");
+        jdbc.execute("CREATE TABLE workout_sessions (id BIGINT PRIMARY KEY, user_id BIGINT, machine_id BIGINT, "
+                + "start_time TIMESTAMP, end_time TIMESTAMP, calories_burned INT, avg_heart_rate INT, "
+                + "distance DOUBLE PRECISION, avg_speed DOUBLE PRECISION, resistance_level INT, incline_level INT, "
+                + "notes VARCHAR(500), created_at TIMESTAMP, data_quality_flag BOOLEAN, quality_issues VARCHAR(500))");
+        jdbc.update("INSERT INTO machines VALUES (1, 'Treadmill 1', 'Treadmill'), (2, 'Bike 1', 'Exercise Bike')");
+        jdbc.update("INSERT INTO users VALUES (1, 'Alex', 'Member', 'member1')");
+
+        // Duplicate and missing values in both sort columns, ids out of step with either
+        Integer[] calories = {300, null, 300, 150, null, 300, 500, null, 150, 300, 220};
+        int[] hours = {0, 1, 0, 2, 2, 1, 0, 3, 1, 0, 4};
+        for (int i = 0; i < calories.length; i++) {
+            long id = calories.length - i;
+            jdbc.update("INSERT INTO workout_sessions (id, user_id, machine_id, start_time, calories_burned, "
+                            + "data_quality_flag) VALUES (?, 1, ?, ?, ?, ?)",
+                    id, 1 + i % 2, Timestamp.valueOf(MORNING.minusHours(hours[i])), calories[i], i % 3 != 0);
+        }
+        versions = new DataVersionService();
+        search = new WorkoutSessionSearchService(jdbc, versions, 90);
+    }
+
+    @AfterEach
+    void dropDatabase() {
+        dataSource.destroy();
+    }
+
+    @Test
+    void caloriesPagesVisitEverySessionOnceInOrderWithNullsLastAscending() {
+        assertEquals(expectedOrder(WorkoutSessionResponseDTO::getCaloriesBurned, true),
+                pageThrough(WorkoutSessionSearchService.Sort.CALORIES, true));
+    }
+
+    @Test
+    void caloriesPagesVisitEverySessionOnceInOrderWithNullsFirstDescending() {
+        assertEquals(expectedOrder(WorkoutSessionResponseDTO::getCaloriesBurned, false),
+                pageThrough(WorkoutSessionSearchService.Sort.CALORIES, false));
+    }
+
+    @Test
+    void startTimePagesBreakTiesById() {
+        assertEquals(expectedOrder(WorkoutSessionResponseDTO::getStartTime, true),
+                pageThrough(WorkoutSessionSearchService.Sort.START_TIME, true));
+        assertEquals(expectedOrder(WorkoutSessionResponseDTO::getStartTime, false),
+                pageThrough(WorkoutSessionSearchService.Sort.START_TIME, false));
+    }
+
+    @Test
+    void facetsAreCachedUntilTheSessionVersionMoves() {
+        Map<String, Object> facets = search.getFacets(ALL);
+        assertEquals(11L, facets.get("total"));
+        assertEquals(Map.of("good", 7L, "issues", 4L), facets.get("byQuality"));
+        assertEquals(Map.of("Treadmill", 6L, "Exercise Bike", 5L), facets.get("byMachineType"));
+        assertEquals(2, jdbc.groupQueries);
+
+        search.getFacets(ALL);
+        assertEquals(2, jdbc.groupQueries);
+
+        versions.bump(DataVersionService.Table.SESSIONS);
+        search.getFacets(ALL);
+        assertEquals(4, jdbc.groupQueries);
+    }
+
+    @Test
+    void facetsWithoutAFromDateCountOnlyTheRecentWindow() {
+        jdbc.update("INSERT INTO workout_sessions (id, user_id, machine_id, start_time, calories_burned) "
+                + "VALUES (100, 1, 1, ?, 400)", Timestamp.valueOf(MORNING.minusDays(200)));
+
+        Map<String, Object> windowed = search.getFacets(ALL);
+        assertEquals(11L, windowed.get("total"));
+        assertEquals(true, windowed.get("windowed"));
+        assertEquals(LocalDate.now().minusDays(89), windowed.get("from"));
+
+        Map<String, Object> all = search.getFacets(new WorkoutSessionSearchService.Criteria(
+                null, null, null, LocalDate.now().minusYears(1), null, null));
+        assertEquals(12L, all.get("total"));
+        assertEquals(false, all.get("windowed"));
+    }
+
+    // Ids from following nextCursor two at a time to the end
+    @SuppressWarnings("unchecked")
+    private List<Long> pageThrough(WorkoutSessionSearchService.Sort sort, boolean ascending) {
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            Map<String, Object> page = search.search(ALL, sort, ascending, cursor, 2);
+            ((List<WorkoutSessionResponseDTO>) page.get("sessions")).forEach(session -> ids.add(session.getId()));
+            cursor = (String) page.get("nextCursor");
+        } while (cursor != null);
+        return ids;
+    }
+
+    private <T extends Comparable<T>> List<Long> expectedOrder(Function<WorkoutSessionResponseDTO, T> value,
+                                                                boolean ascending) {
+        List<WorkoutSessionResponseDTO> sessions = new ArrayList<>((List<WorkoutSessionResponseDTO>)
+                search.search(ALL, WorkoutSessionSearchService.Sort.START_TIME, true, null, 200).get("sessions"));
+        Comparator<WorkoutSessionResponseDTO> order = Comparator
+                .comparing(value, Comparator.nullsLast(Comparator.<T>naturalOrder()))
+                .thenComparing(WorkoutSessionResponseDTO::getId);
+        sessions.sort(ascending ? order : order.reversed());
+        return sessions.stream().map(WorkoutSessionResponseDTO::getId).toList();
+    }
+
+    private static final class CountingJdbcTemplate extends JdbcTemplate {
+        private int groupQueries;
+
+        private CountingJdbcTemplate(SingleConnectionDataSource dataSource) {
+            super(dataSource);
+        }
+
+        @Override
+        public void query(String sql, RowCallbackHandler handler, Object... args) {
+            groupQueries++;
+            super.query(sql, handler, args);
+        }
+    }
+
+    @Test
+    void cursorsRoundTripTheSortValueAndId() {
+        LocalDateTime startTime = LocalDateTime.of(2024, 3, 9, 7, 30, 15);
+        WorkoutSessionSearchService.Cursor byTime = WorkoutSessionSearchService.decodeCursor(
+                WorkoutSessionSearchService.encodeCursor(WorkoutSessionSearchService.Sort.START_TIME, startTime, 42),
+                WorkoutSessionSearchService.Sort.START_TIME);
+        assertEquals(Timestamp.valueOf(startTime), byTime.value());
+        assertEquals(42, byTime.id());
+
+        WorkoutSessionSearchService.Cursor byCalories = WorkoutSessionSearchService.decodeCursor(
+                WorkoutSessionSearchService.encodeCursor(WorkoutSessionSearchService.Sort.CALORIES, 350, 7),
+                WorkoutSessionSearchService.Sort.CALORIES);
+        assertEquals(350, byCalories.value());
+        assertEquals(7, byCalories.id());
+    }
+
+    @Test
+    void sessionsWithoutASortValueKeepAnEmptyCursorValue() {
+        WorkoutSessionSearchService.Cursor cursor = WorkoutSessionSearchService.decodeCursor(
+                WorkoutSessionSearchService.encodeCursor(WorkoutSessionSearchService.Sort.CALORIES, null, 9),
+                WorkoutSessionSearchService.Sort.CALORIES);
+        assertNull(cursor.value());
+        assertEquals(9, cursor.id());
+    }
+
+    @Test
+    void cursorsFromAnotherSortOrMalformedAreRejected() {
+        String byTime = WorkoutSessionSearchService.encodeCursor(
+                WorkoutSessionSearchService.Sort.START_TIME, LocalDateTime.of(2024, 1, 1, 0, 0), 1);
+        assertThrows(IllegalArgumentException.class,
+                () -> WorkoutSessionSearchService.decodeCursor(byTime, WorkoutSessionSearchService.Sort.CALORIES));
+        assertThrows(IllegalArgumentException.class,
+                () -> WorkoutSessionSearchService.decodeCursor("not a cursor!", WorkoutSessionSearchService.Sort.START_TIME));
+    }
+
+    @Test
+    void sortParametersMapToIndexedSorts() {
+        assertEquals(WorkoutSessionSearchService.Sort.START_TIME, WorkoutSessionSearchService.Sort.fromParameter(null));
+        assertEquals(WorkoutSessionSearchService.Sort.START_TIME, WorkoutSessionSearchService.Sort.fromParameter("startTime"));
+        assertEquals(WorkoutSessionSearchService.Sort.CALORIES, WorkoutSessionSearchService.Sort.fromParameter("calories"));
+        assertThrows(IllegalArgumentException.class, () -> WorkoutSessionSearchService.Sort.fromParameter("notes"));
+    }
+}
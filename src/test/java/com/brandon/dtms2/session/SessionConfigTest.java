@@ -0,0 +1,36 @@
+package com.brandon.dtms2.session;
+
+import com.brandon.dtms2.config.SessionConfig;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SessionConfigTest {
+
+    // Lettuce connects on first use, so the tier starts without a Redis server
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withInitializer(context -> context.getBeanFactory()
+                    .setConversionService(ApplicationConversionService.getSharedInstance()))
+            .withConfiguration(AutoConfigurations.of(RedisAutoConfiguration.class))
+            .withUserConfiguration(SessionConfig.class);
+
+    @Test
+    void redisTierStartsWithTheBootConnectionFactory() {
+        contextRunner.withPropertyValues("app.session.tier=redis", "spring.data.redis.host=localhost")
+                .run(context -> {
+                    assertThat(context).hasNotFailed();
+                    assertThat(context).getBean(SessionStore.class).isInstanceOf(RedisSessionStore.class);
+                    assertThat(context.getBean(TieredSessionRepository.class).getStats()).containsEntry("store", "redis");
+                });
+    }
+
+    @Test
+    void memoryTierNeedsNoConnection() {
+        contextRunner.withPropertyValues("app.session.tier=memory")
+                .run(context -> assertThat(context).getBean(SessionStore.class).isInstanceOf(InMemorySessionStore.class));
+    }
+}
@@ -0,0 +1,57 @@
+package com.brandon.dtms2.session;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.session.MapSession;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Size and CPU cost of writing and reading back a login session (user map and security
+ * context) in the binary format, against the Java serialization it replaced. Run with
+ * -Dbenchmark=true.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class SessionSerializerBenchmarkTest {
+
+    private static final int ROUNDS = 20_000;
+
+    @Test
+    void binaryFormatIsCheaperThanJavaSerialization() throws IOException {
+        MapSession session = SessionSerializerTest.loginSession();
+        session.removeAttribute("other");
+
+        int binaryBytes = SessionSerializer.serialize(session).length;
+        int javaBytes = SessionSerializerTest.unversioned(session).length;
+        long binaryNanos = time(() -> SessionSerializer.deserialize(session.getId(), SessionSerializer.serialize(session)));
+        long javaNanos = time(() -> {
+            try {
+                SessionSerializer.deserialize(session.getId(), SessionSerializerTest.unversioned(session));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        System.out.printf("Login session, mean of %d write+read:%n", ROUNDS);
+        System.out.printf("  java serialization (before): %5d bytes %6d us%n", javaBytes, TimeUnit.NANOSECONDS.toMicros(javaNanos));
+        System.out.printf("  binary format (after):       %5d bytes %6d us%n", binaryBytes, TimeUnit.NANOSECONDS.toMicros(binaryNanos));
+
+        assertTrue(binaryNanos < javaNanos, binaryNanos + " ns vs " + javaNanos + " ns");
+    }
+
+    // Mean nanoseconds per run, after a warm-up
+    private static long time(Runnable run) {
+        for (int i = 0; i < ROUNDS / 4; i++) {
+            run.run();
+        }
+        long started = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            run.run();
+        }
+        return (System.nanoTime() - started) / ROUNDS;
+    }
+}
@@ -0,0 +1,112 @@
+package com.brandon.dtms2.session;
+
+import com.brandon.dtms2.entity.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+import org.springframework.session.MapSession;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SessionSerializerTest {
+
+    @Test
+    void roundTripsTheLoginAttributes() {
+        MapSession session = loginSession();
+
+        MapSession read = SessionSerializer.deserialize(session.getId(), SessionSerializer.serialize(session));
+
+        assertEquals(session.getCreationTime().toEpochMilli(), read.getCreationTime().toEpochMilli());
+        assertEquals(session.getLastAccessedTime().toEpochMilli(), read.getLastAccessedTime().toEpochMilli());
+        assertEquals(session.getMaxInactiveInterval(), read.getMaxInactiveInterval());
+        assertEquals(Set.copyOf(session.getAttributeNames()), Set.copyOf(read.getAttributeNames()));
+        assertEquals((Object) session.getAttribute("user"), read.getAttribute("user"));
+        assertEquals((Object) session.getAttribute("SPRING_SECURITY_CONTEXT"), read.getAttribute("SPRING_SECURITY_CONTEXT"));
+        assertEquals(List.of(7, "x"), read.getAttribute("other"));
+    }
+
+    @Test
+    void readsSessionsWrittenBeforeVersioning() throws IOException {
+        MapSession session = loginSession();
+        session.removeAttribute("other");
+
+        MapSession read = SessionSerializer.deserialize(session.getId(), unversioned(session));
+
+        assertEquals((Object) session.getAttribute("user"), read.getAttribute("user"));
+        assertInstanceOf(SecurityContext.class, read.getAttribute("SPRING_SECURITY_CONTEXT"));
+    }
+
+    @Test
+    void isSmallerThanJavaSerialization() throws IOException {
+        MapSession session = loginSession();
+        session.removeAttribute("other");
+
+        int binaryBytes = SessionSerializer.serialize(session).length;
+        int javaBytes = unversioned(session).length;
+
+        assertTrue(binaryBytes * 4 < javaBytes, binaryBytes + " vs " + javaBytes);
+    }
+
+    static MapSession loginSession() {
+        MapSession session = new MapSession("b0f1c2d3-0000-4000-8000-000000000001");
+        session.setCreationTime(Instant.parse("2026-10-18T08:00:00.123Z"));
+        session.setLastAccessedTime(Instant.parse("2026-10-18T08:12:34.567Z"));
+        session.setMaxInactiveInterval(Duration.ofMinutes(30));
+
+        Map<String, Object> user = new HashMap<>();
+        user.put("id", 42L);
+        user.put("username", "member42");
+        user.put("email", "member42@example.com");
+        user.put("firstName", "Alex");
+        user.put("lastName", "Member");
+        user.put("role", User.UserRole.MEMBER);
+        user.put("createdAt", LocalDateTime.of(2025, 3, 1, 9, 30, 15, 123_456_000));
+        user.put("updatedAt", null);
+        session.setAttribute("user", user);
+
+        List<SimpleGrantedAuthority> authorities = List.of(new SimpleGrantedAuthority("ROLE_MEMBER"));
+        org.springframework.security.core.userdetails.User principal =
+                new org.springframework.security.core.userdetails.User("member42", "hash", authorities);
+        principal.eraseCredentials();
+        UsernamePasswordAuthenticationToken authentication =
+                UsernamePasswordAuthenticationToken.authenticated(principal, null, authorities);
+        authentication.setDetails(new WebAuthenticationDetails("127.0.0.1", null));
+        session.setAttribute("SPRING_SECURITY_CONTEXT", new SecurityContextImpl(authentication));
+
+        // Not one of ours: Java serialized under its own tag
+        session.setAttribute("other", List.of(7, "x"));
+        return session;
+    }
+
+    // The layout written before the format was versioned
+    static byte[] unversioned(MapSession session) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeLong(session.getCreationTime().toEpochMilli());
+        out.writeLong(session.getLastAccessedTime().toEpochMilli());
+        out.writeLong(session.getMaxInactiveInterval().getSeconds());
+        Map<String, Object> attributes = new HashMap<>();
+        session.getAttributeNames().forEach(name -> attributes.put(name, session.getAttribute(name)));
+        ObjectOutputStream objects = new ObjectOutputStream(out);
+        objects.writeObject(attributes);
+        objects.flush();
+        return bytes.toByteArray();
+    }
+}
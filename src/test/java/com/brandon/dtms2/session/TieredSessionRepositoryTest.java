@@ -0,0 +1,182 @@
+package com.brandon.dtms2.session;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.session.MapSession;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TieredSessionRepositoryTest {
+
+    private final InMemorySessionStore store = new InMemorySessionStore();
+    private final TieredSessionRepository repository =
+            new TieredSessionRepository(store, Duration.ofMinutes(30), 100, 60_000, 60_000);
+
+    @Test
+    void hotSessionsAreServedLocallyAndWrittenOncePerFlush() {
+        MapSession session = repository.createSession();
+        session.setAttribute("user", userMap(7L, "member7"));
+        repository.save(session);
+
+        for (int i = 0; i < 50; i++) {
+            MapSession found = repository.findById(session.getId());
+            found.setLastAccessedTime(Instant.now());
+            repository.save(found);
+        }
+        assertEquals(0, store.getLoads());
+        assertEquals(0, store.getWrites());
+
+        repository.flush();
+        assertEquals(1, store.getBatches());
+        assertEquals(1, store.getWrites());
+        assertTrue(store.contains(session.getId()));
+    }
+
+    @Test
+    void savesThatChangeNoAttributeAreNotWritten() {
+        MapSession session = repository.createSession();
+        session.setAttribute("user", userMap(7L, "member7"));
+        repository.save(session);
+        repository.flush();
+
+        for (int i = 0; i < 20; i++) {
+            MapSession found = repository.findById(session.getId());
+            found.setLastAccessedTime(Instant.now());
+            repository.save(found);
+        }
+        repository.flush();
+        assertEquals(1, store.getWrites());
+        assertEquals(20L, repository.getStats().get("unchanged"));
+
+        MapSession changed = repository.findById(session.getId());
+        changed.setAttribute("theme", "dark");
+        repository.save(changed);
+        repository.flush();
+        assertEquals(2, store.getWrites());
+    }
+
+    @Test
+    void lastAccessIsWrittenOnceItIsOlderThanTheTouchInterval() {
+        MapSession session = repository.createSession();
+        session.setLastAccessedTime(Instant.now().minusSeconds(120));
+        repository.save(session);
+        repository.flush();
+
+        MapSession found = repository.findById(session.getId());
+        found.setLastAccessedTime(Instant.now());
+        repository.save(found);
+        repository.flush();
+
+        assertEquals(2, store.getWrites());
+    }
+
+    @Test
+    void missIsLoadedFromTheStore() {
+        MapSession session = repository.createSession();
+        session.setAttribute("user", userMap(7L, "member7"));
+        repository.save(session);
+        repository.flush();
+
+        TieredSessionRepository otherInstance = new TieredSessionRepository(store, Duration.ofMinutes(30), 100, 60_000, 60_000);
+        MapSession loaded = otherInstance.findById(session.getId());
+
+        assertNotNull(loaded);
+        assertEquals(userMap(7L, "member7"), loaded.getAttribute("user"));
+        assertEquals(session.getCreationTime().toEpochMilli(), loaded.getCreationTime().toEpochMilli());
+        assertEquals(1, store.getLoads());
+
+        otherInstance.findById(session.getId());
+        assertEquals(1, store.getLoads());
+    }
+
+    @Test
+    void deleteIsImmediateAndNotUndoneByALaterFlush() {
+        MapSession session = repository.createSession();
+        repository.save(session);
+        repository.flush();
+
+        MapSession found = repository.findById(session.getId());
+        repository.save(found);
+        repository.deleteById(session.getId());
+        repository.flush();
+
+        assertFalse(store.contains(session.getId()));
+        assertNull(repository.findById(session.getId()));
+    }
+
+    @Test
+    void sessionDeletedThroughAnotherInstanceIsNotWrittenBack() {
+        MapSession session = repository.createSession();
+        session.setAttribute("user", userMap(7L, "member7"));
+        repository.save(session);
+        repository.flush();
+
+        TieredSessionRepository otherInstance = new TieredSessionRepository(store, Duration.ofMinutes(30), 100, 60_000, 60_000);
+        MapSession copy = otherInstance.findById(session.getId());
+        copy.setAttribute("theme", "dark");
+        otherInstance.save(copy);
+
+        repository.deleteById(session.getId());
+        otherInstance.flush();
+
+        assertFalse(store.contains(session.getId()));
+        assertNull(store.load(session.getId()));
+        assertNull(otherInstance.findById(session.getId()));
+        assertEquals(1L, otherInstance.getStats().get("flushes"));
+        assertEquals(0L, otherInstance.getStats().get("written"));
+    }
+
+    @Test
+    void changedIdReplacesTheOldSession() {
+        MapSession session = repository.createSession();
+        repository.save(session);
+        repository.flush();
+
+        MapSession found = repository.findById(session.getId());
+        String oldId = found.getId();
+        found.changeSessionId();
+        repository.save(found);
+        repository.flush();
+
+        assertFalse(store.contains(oldId));
+        assertNull(repository.findById(oldId));
+        assertNotNull(repository.findById(found.getId()));
+    }
+
+    @Test
+    void evictedDirtySessionsAreStillWritten() {
+        TieredSessionRepository small = new TieredSessionRepository(store, Duration.ofMinutes(30), 2, 60_000, 60_000);
+        for (int i = 0; i < 10; i++) {
+            small.save(small.createSession());
+        }
+        small.flush();
+
+        assertEquals(10, store.getWrites());
+        assertEquals(2, small.getStats().get("cached"));
+    }
+
+    @Test
+    void expiredSessionsAreNotReturned() {
+        MapSession session = repository.createSession();
+        session.setMaxInactiveInterval(Duration.ofSeconds(1));
+        session.setLastAccessedTime(Instant.now().minusSeconds(10));
+        repository.save(session);
+
+        assertNull(repository.findById(session.getId()));
+    }
+
+    private static Map<String, Object> userMap(Long id, String username) {
+        Map<String, Object> user = new HashMap<>();
+        user.put("id", id);
+        user.put("username", username);
+        return user;
+    }
+}
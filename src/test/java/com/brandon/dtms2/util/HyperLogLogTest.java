@@ -0,0 +1,63 @@
+package com.brandon.dtms2.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HyperLogLogTest {
+
+    @Test
+    void estimatesWithinErrorBound() {
+        for (int distinct : new int[]{10, 1_000, 50_000, 500_000}) {
+            HyperLogLog sketch = new HyperLogLog();
+            for (long id = 1; id <= distinct; id++) {
+                sketch.add(id);
+            }
+            double error = Math.abs(sketch.estimate() - distinct) / (double) distinct;
+            assertTrue(error <= 3 * sketch.standardError(), distinct + " ids estimated as " + sketch.estimate());
+        }
+    }
+
+    @Test
+    void duplicatesDoNotChangeTheSketch() {
+        HyperLogLog sketch = new HyperLogLog();
+        assertTrue(sketch.add(42));
+        assertFalse(sketch.add(42));
+        assertEquals(1, sketch.estimate());
+    }
+
+    @Test
+    void mergeEstimatesTheUnion() {
+        HyperLogLog monday = new HyperLogLog();
+        HyperLogLog tuesday = new HyperLogLog();
+        for (long id = 1; id <= 3_000; id++) {
+            monday.add(id);
+        }
+        for (long id = 2_001; id <= 5_000; id++) {
+            tuesday.add(id);
+        }
+
+        HyperLogLog week = monday.copy();
+        week.merge(tuesday);
+
+        double error = Math.abs(week.estimate() - 5_000) / 5_000.0;
+        assertTrue(error <= 3 * week.standardError(), "union estimated as " + week.estimate());
+    }
+
+    @Test
+    void roundTripsThroughBytes() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (long id = 1; id <= 1_000; id++) {
+            sketch.add(id);
+        }
+
+        HyperLogLog restored = HyperLogLog.fromBytes(sketch.toBytes());
+
+        assertEquals(4096, sketch.toBytes().length);
+        assertArrayEquals(sketch.toBytes(), restored.toBytes());
+        assertEquals(sketch.estimate(), restored.estimate());
+    }
+}
@@ -0,0 +1,88 @@
+package com.brandon.dtms2.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class RankedScoresTest {
+
+    @Test
+    void equalScoresShareACompetitionRank() {
+        RankedScores scores = new RankedScores();
+        scores.set(1, 500);
+        scores.set(2, 800);
+        scores.set(3, 500);
+        scores.set(4, 200);
+
+        assertEquals(1, scores.rankOf(2));
+        assertEquals(2, scores.rankOf(1));
+        assertEquals(2, scores.rankOf(3));
+        assertEquals(4, scores.rankOf(4));
+        assertEquals(0, scores.rankOf(5));
+
+        List<RankedScores.Entry> page = scores.page(2, 10);
+        assertEquals(List.of(3L, 4L), page.stream().map(RankedScores.Entry::getId).toList());
+        assertEquals(List.of(2, 4), page.stream().map(RankedScores.Entry::getRank).toList());
+    }
+
+    @Test
+    void scoresThatCancelOutAreDropped() {
+        RankedScores scores = new RankedScores();
+        scores.add(7, 0.1);
+        scores.add(7, 0.2);
+        scores.add(7, -0.3);
+
+        assertNull(scores.getScore(7));
+        assertEquals(0, scores.size());
+    }
+
+    @Test
+    void matchesASortedListUnderRandomUpdates() {
+        RankedScores scores = new RankedScores();
+        Map<Long, Double> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 20_000; i++) {
+            long id = random.nextInt(500);
+            if (random.nextInt(10) == 0) {
+                scores.remove(id);
+                expected.remove(id);
+            } else {
+                double delta = random.nextInt(50) - 10;
+                scores.add(id, delta);
+                double total = expected.getOrDefault(id, 0.0) + delta;
+                if (total > 0) {
+                    expected.put(id, total);
+                } else {
+                    expected.remove(id);
+                }
+            }
+        }
+
+        List<Map.Entry<Long, Double>> sorted = new ArrayList<>(expected.entrySet());
+        sorted.sort(Comparator.<Map.Entry<Long, Double>>comparingDouble(Map.Entry::getValue).reversed()
+                .thenComparing(Map.Entry::getKey));
+
+        assertEquals(sorted.size(), scores.size());
+        List<RankedScores.Entry> all = scores.page(0, sorted.size());
+        for (int i = 0; i < sorted.size(); i++) {
+            long id = sorted.get(i).getKey();
+            double score = sorted.get(i).getValue();
+            int rank = (int) sorted.stream().filter(entry -> entry.getValue() > score).count() + 1;
+
+            assertEquals(id, all.get(i).getId());
+            assertEquals(rank, all.get(i).getRank());
+            assertEquals(rank, scores.rankOf(id));
+        }
+        assertEquals(sorted.subList(100, 120).stream().map(Map.Entry::getKey).toList(),
+                scores.page(100, 20).stream().map(RankedScores.Entry::getId).toList());
+    }
+}